@@ -40,7 +40,9 @@ object CompilerService {
   private val enginesLock = new Object
   private val enginesCache = mutable.HashMap[RawSettings, Engine]()
 
-  def getEngine(maybeClassLoader: Option[ClassLoader])(implicit settings: RawSettings): (Engine, Boolean) = {
+  def getEngine(maybeClassLoader: Option[ClassLoader], engineOptions: Map[String, String] = Map.empty)(
+      implicit settings: RawSettings
+  ): (Engine, Boolean) = {
     enginesLock.synchronized {
       enginesCache.get(settings) match {
         case Some(engine) =>
@@ -59,6 +61,8 @@ object CompilerService {
             //          options.put("engine.CompilationFailureAction", "Diagnose")
             //          options.put("compiler.LogInlinedTargets", "true")
           }
+          // Options of the language or of its instruments (e.g. to enable a profiler).
+          engineOptions.foreach { case (k, v) => options.put(k, v) }
           val engine = maybeClassLoader match {
             case Some(classLoader) =>
               // If a class loader is provided, use it to create the engine.
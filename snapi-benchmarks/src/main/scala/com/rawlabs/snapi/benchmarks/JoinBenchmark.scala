@@ -0,0 +1,38 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.benchmarks
+
+import org.openjdk.jmh.annotations.{Benchmark, Scope, State}
+
+/**
+ * Joins of the generated tables: an equi-join of the line items with their orders, and a theta join of orders with
+ * the customers of a nation, whose predicate can't be turned into keys.
+ */
+@State(Scope.Benchmark)
+class JoinBenchmark extends SnapiBenchmark {
+
+  private def items = s"""Csv.Read("${data.lineitemCsv}", type ${data.lineitemType}, skip = 1)"""
+  private def orders = s"""Csv.Read("${data.ordersCsv}", type ${data.ordersType}, skip = 1)"""
+  private def customers = s"""Csv.Read("${data.customerCsv}", type ${data.customerType}, skip = 1)"""
+
+  @Benchmark
+  def equiJoin(): Long = run(s"""let joined = Collection.EquiJoin($items, $orders, i -> i.l_orderkey, o -> o.o_orderkey)
+    |in Collection.Count(Collection.Filter(joined, r -> r.l_shipdate > r.o_orderdate))""".stripMargin)
+
+  @Benchmark
+  def thetaJoin(): Long = run(s"""let
+    |  customers = Collection.Filter($customers, c -> c.c_nationkey == 7),
+    |  joined = Collection.Join($orders, customers, r -> r.o_custkey == r.c_custkey and r.o_totalprice > r.c_acctbal)
+    |in Collection.Count(joined)""".stripMargin)
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.benchmarks
+
+import org.openjdk.jmh.annotations.{Benchmark, Scope, State}
+
+/**
+ * Round trips of rows through the Kryo serialization of spilled operators: every row is written to disk and read
+ * back once, since blocks are small and the memory budget is exhausted early.
+ *
+ * Rows have a field of each type the serializer encodes differently, so that all of them are measured.
+ */
+@State(Scope.Benchmark)
+class KryoBenchmark extends SnapiBenchmark {
+
+  override protected def settings: Map[String, String] = Map(
+    "raw.runtime.external.disk-block-max-size" -> "1M",
+    "raw.runtime.external.memory-budget" -> "4M",
+    "raw.runtime.external.min-spill-size" -> "256k"
+  )
+
+  private def rows = s"""Collection.Transform(Long.Range(0, ${lineitems}L), i -> {
+    |  byteField: Byte.From(i % 100),
+    |  shortField: Short.From(i % 10000),
+    |  intField: Int.From(i),
+    |  longField: i,
+    |  floatField: Float.From(i) / 3f,
+    |  doubleField: Double.From(i) / 7.0,
+    |  decimalField: Decimal.From(i) / 11q,
+    |  boolField: i % 2 == 0,
+    |  stringField: "row " + String.From(i),
+    |  dateField: Date.AddInterval(Date.Build(1992, 1, 1), Interval.Build(days = Int.From(i % 2500))),
+    |  timestampField: Timestamp.Build(2024, 1, 1, 0, 0, seconds = Int.From(i % 60)),
+    |  listField: [i, i + 1, i + 2],
+    |  nullableField: if i % 3 == 0 then null else String.From(i)
+    |})""".stripMargin
+
+  @Benchmark
+  def roundTrip(): Long = run(s"""let sorted = Collection.OrderBy($rows, r -> r.doubleField, "DESC")
+    |in Collection.Count(Collection.Filter(sorted, r -> r.boolField))""".stripMargin)
+
+}
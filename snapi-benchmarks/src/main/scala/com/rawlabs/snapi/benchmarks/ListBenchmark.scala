@@ -0,0 +1,35 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.benchmarks
+
+import org.openjdk.jmh.annotations.{Benchmark, Scope, State}
+
+/** Operations on lists built from the line items, which hold all their items in memory. */
+@State(Scope.Benchmark)
+class ListBenchmark extends SnapiBenchmark {
+
+  private def items = s"""List.From(Csv.Read("${data.lineitemCsv}", type ${data.lineitemType}, skip = 1))"""
+
+  @Benchmark
+  def from(): Long = run(s"List.Count($items)")
+
+  @Benchmark
+  def filter(): Long = run(s"""List.Count(List.Filter($items, i -> i.l_discount > 0.05))""")
+
+  @Benchmark
+  def transform(): Long = run(s"""List.Sum(List.Transform($items, i -> i.l_extendedprice * (1 - i.l_discount)))""")
+
+  @Benchmark
+  def groupBy(): Long = run(s"""List.Count(List.GroupBy($items, i -> i.l_returnflag))""")
+
+}
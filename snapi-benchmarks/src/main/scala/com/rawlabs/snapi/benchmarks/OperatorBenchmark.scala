@@ -0,0 +1,56 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.benchmarks
+
+import org.openjdk.jmh.annotations.{Benchmark, Param, Scope, State}
+
+/**
+ * Group-by, order-by and distinct over the line items, either in memory or spilled to disk.
+ *
+ * In the spilled mode, blocks and the memory budget are small enough for every operator to spill several runs and
+ * merge them, so that the serialization of rows and the merge are measured.
+ */
+@State(Scope.Benchmark)
+class OperatorBenchmark extends SnapiBenchmark {
+
+  @Param(Array("memory", "spilled"))
+  var mode: String = _
+
+  override protected def settings: Map[String, String] = mode match {
+    case "spilled" => Map(
+        "raw.runtime.external.disk-block-max-size" -> "1M",
+        "raw.runtime.external.memory-budget" -> "4M",
+        "raw.runtime.external.min-spill-size" -> "256k"
+      )
+    case _ => Map.empty
+  }
+
+  private def items = s"""Csv.Read("${data.lineitemCsv}", type ${data.lineitemType}, skip = 1)"""
+
+  @Benchmark
+  def groupBy(): Long = run(s"""let groups = Collection.GroupBy($items, i -> i.l_partkey)
+    |in Collection.Count(Collection.Transform(groups, g -> {
+    |  key: g.key,
+    |  quantity: Collection.Sum(g.group.l_quantity),
+    |  price: Collection.Avg(g.group.l_extendedprice)
+    |}))""".stripMargin)
+
+  @Benchmark
+  def orderBy(): Long = run(s"""let items = $items
+    |in Collection.First(Collection.OrderBy(items, i -> i.l_shipdate, "DESC", i -> i.l_orderkey, "ASC"))""".stripMargin)
+
+  @Benchmark
+  def distinct(): Long = run(s"""let keys = Collection.Transform($items, i -> {p: i.l_partkey, f: i.l_returnflag})
+    |in Collection.Count(Collection.Distinct(keys))""".stripMargin)
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.benchmarks
+
+import org.openjdk.jmh.annotations.{Benchmark, Scope, State}
+
+/** Construction of records, and accesses to their fields, with no I/O. */
+@State(Scope.Benchmark)
+class RecordBenchmark extends SnapiBenchmark {
+
+  @Benchmark
+  def build(): Long = run(s"""let records = Collection.Transform(Long.Range(0, ${lineitems}L), i -> {
+    |  key: i,
+    |  name: "item",
+    |  price: Double.From(i) * 1.1,
+    |  nested: {a: i + 1, b: i % 7 == 0}
+    |})
+    |in Collection.Sum(Collection.Transform(records, r -> r.key + r.nested.a))""".stripMargin)
+
+  @Benchmark
+  def addField(): Long = run(s"""let records = Collection.Transform(Long.Range(0, ${lineitems}L), i -> {key: i})
+    |in Collection.Sum(Collection.Transform(records, r -> Record.AddField(r, twice = r.key * 2).twice))""".stripMargin)
+
+}
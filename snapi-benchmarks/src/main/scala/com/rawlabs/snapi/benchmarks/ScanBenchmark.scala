@@ -0,0 +1,40 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.benchmarks
+
+import org.openjdk.jmh.annotations.{Benchmark, Scope, State}
+
+/** Scans of the line items in each file format, aggregated so that every field is read and parsed. */
+@State(Scope.Benchmark)
+class ScanBenchmark extends SnapiBenchmark {
+
+  private def aggregate(items: String): String = s"""let items = $items
+    |in {
+    |  count: Collection.Count(items),
+    |  quantity: Collection.Sum(Collection.Transform(items, i -> i.l_quantity * i.l_discount)),
+    |  price: Collection.Max(Collection.Transform(items, i -> i.l_extendedprice)),
+    |  keys: Collection.Sum(Collection.Transform(items, i -> i.l_orderkey + i.l_partkey)),
+    |  flags: Collection.Count(Collection.Filter(items, i -> i.l_returnflag == "R")),
+    |  recent: Collection.Count(Collection.Filter(items, i -> i.l_shipdate > Date.Build(1995, 6, 17)))
+    |}""".stripMargin
+
+  @Benchmark
+  def csv(): Long = run(aggregate(s"""Csv.Read("${data.lineitemCsv}", type ${data.lineitemType}, skip = 1)"""))
+
+  @Benchmark
+  def json(): Long = run(aggregate(s"""Json.Read("${data.lineitemJson}", type ${data.lineitemType})"""))
+
+  @Benchmark
+  def xml(): Long = run(aggregate(s"""Xml.Read("${data.lineitemXml}", type ${data.lineitemType})"""))
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.benchmarks
+
+import com.rawlabs.compiler.{ExecutionRuntimeFailure, ExecutionSuccess, ExecutionValidationFailure, ProgramEnvironment}
+import com.rawlabs.snapi.compiler.SnapiCompilerService
+import com.rawlabs.utils.core.{RawSettings, RawUid}
+import com.typesafe.config.ConfigFactory
+import org.openjdk.jmh.annotations._
+
+import java.io.OutputStream
+import java.util.concurrent.TimeUnit
+import scala.collection.JavaConverters._
+
+/**
+ * Base class of the benchmarks: each one runs a Snapi program end to end, over tables generated by [[TpchData]], and
+ * measures the average time of a run.
+ *
+ * Iterations are long and numerous enough for Graal to compile the hot nodes of a program before measurements start.
+ * Programs are executed like a client of the compiler service would, so a measurement includes the output of the
+ * result (as JSON, to a stream that only counts bytes). Benchmarks keep those results small, e.g. by counting rows,
+ * so that the runtime is measured rather than the writer.
+ */
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, time = 5)
+@Measurement(iterations = 10, time = 5)
+@Fork(
+  value = 1,
+  jvmArgsAppend = Array(
+    "-Xss64m",
+    "-Xmx8G",
+    "-XX:+CrashOnOutOfMemoryError",
+    "-Dpolyglotimpl.CompilationFailureAction=Throw"
+  )
+)
+abstract class SnapiBenchmark {
+
+  @Param(Array("100000"))
+  var lineitems: Int = _
+
+  protected var data: TpchData = _
+
+  private var service: SnapiCompilerService = _
+
+  private val output = new CountingOutputStream
+
+  /** Settings overridden by a benchmark, on top of those of the runtime. */
+  protected def settings: Map[String, String] = Map.empty
+
+  @Setup(Level.Trial)
+  def setUp(): Unit = {
+    data = TpchData(lineitems)
+    val config = ConfigFactory
+      .parseMap((Map("raw.training-wheels" -> "false") ++ settings).asJava)
+      .withFallback(ConfigFactory.load())
+    implicit val rawSettings: RawSettings = new RawSettings(config, ConfigFactory.empty())
+    service = new SnapiCompilerService()
+  }
+
+  @TearDown(Level.Trial)
+  def tearDown(): Unit = {
+    service.stop()
+  }
+
+  /** Runs the program and returns the number of bytes of its output, so that JMH consumes it. */
+  protected def run(program: String): Long = {
+    val environment = ProgramEnvironment(
+      RawUid("benchmarks"),
+      None,
+      Set.empty,
+      Map.empty,
+      Map.empty,
+      Map("output-format" -> "json")
+    )
+    output.reset()
+    service.execute(program, environment, None, output, None) match {
+      case ExecutionSuccess(_) => output.count
+      case ExecutionValidationFailure(errors) => throw new IllegalStateException(errors.mkString("\n"))
+      case ExecutionRuntimeFailure(error) => throw new IllegalStateException(error)
+    }
+  }
+
+}
+
+private class CountingOutputStream extends OutputStream {
+
+  var count: Long = 0
+
+  def reset(): Unit = count = 0
+
+  override def write(b: Int): Unit = count += 1
+
+  override def write(b: Array[Byte], off: Int, len: Int): Unit = count += len
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.benchmarks
+
+import java.io.{BufferedWriter, File}
+import java.nio.charset.StandardCharsets
+import java.nio.file.{Files, Path}
+import java.time.LocalDate
+import scala.collection.mutable
+import scala.util.Random
+
+/**
+ * TPC-H-like tables generated with a fixed seed, as CSV, JSON and XML files.
+ *
+ * There are four line items per order and ten orders per customer. Keys of orders and customers are dense, so that
+ * joins on them match, and values are spread like in TPC-H (three return flags, five order priorities, etc.).
+ */
+final class TpchData private (val directory: Path, val lineitems: Int) {
+
+  val orders: Int = math.max(1, lineitems / 4)
+  val customers: Int = math.max(1, orders / 10)
+
+  private def url(name: String): String = directory.resolve(name).toUri.toString
+
+  val lineitemCsv: String = url("lineitem.csv")
+  val lineitemJson: String = url("lineitem.json")
+  val lineitemXml: String = url("lineitem.xml")
+  val ordersCsv: String = url("orders.csv")
+  val customerCsv: String = url("customer.csv")
+
+  val lineitemType: String = "collection(record(l_orderkey: int, l_partkey: int, l_quantity: double, " +
+    "l_extendedprice: double, l_discount: double, l_returnflag: string, l_shipdate: date))"
+
+  val ordersType: String = "collection(record(o_orderkey: int, o_custkey: int, o_totalprice: double, " +
+    "o_orderdate: date, o_orderpriority: string))"
+
+  val customerType: String = "collection(record(c_custkey: int, c_name: string, c_nationkey: int, c_acctbal: double))"
+
+  private def generate(): Unit = {
+    val random = new Random(42)
+    val returnFlags = Array("A", "N", "R")
+    val priorities = Array("1-URGENT", "2-HIGH", "3-MEDIUM", "4-NOT SPECIFIED", "5-LOW")
+    val startDate = LocalDate.of(1992, 1, 1)
+
+    write("customer.csv") { w =>
+      w.write("c_custkey,c_name,c_nationkey,c_acctbal\n")
+      for (c <- 1 to customers) {
+        val nation = random.nextInt(25)
+        val balance = cents(random.nextInt(1100000) - 99999L)
+        w.write(f"$c,Customer#$c%09d,$nation,$balance\n")
+      }
+    }
+
+    write("orders.csv") { w =>
+      w.write("o_orderkey,o_custkey,o_totalprice,o_orderdate,o_orderpriority\n")
+      for (o <- 1 to orders) {
+        val custkey = 1 + random.nextInt(customers)
+        val price = cents(random.nextInt(50000000).toLong)
+        val date = startDate.plusDays(random.nextInt(2400).toLong)
+        val priority = priorities(random.nextInt(priorities.length))
+        w.write(s"$o,$custkey,$price,$date,$priority\n")
+      }
+    }
+
+    write("lineitem.csv") { csv =>
+      write("lineitem.json") { json =>
+        write("lineitem.xml") { xml =>
+          csv.write("l_orderkey,l_partkey,l_quantity,l_extendedprice,l_discount,l_returnflag,l_shipdate\n")
+          json.write("[\n")
+          for (l <- 0 until lineitems) {
+            val orderkey = 1 + l / 4
+            val partkey = 1 + random.nextInt(math.max(1, lineitems / 30))
+            val quantity = 1 + random.nextInt(50)
+            val price = cents(quantity * (90000L + random.nextInt(100000)))
+            val discount = cents(random.nextInt(11).toLong)
+            val flag = returnFlags(random.nextInt(returnFlags.length))
+            val shipdate = startDate.plusDays(random.nextInt(2500).toLong)
+            csv.write(s"$orderkey,$partkey,$quantity.0,$price,$discount,$flag,$shipdate\n")
+            json.write(
+              s"""  {"l_orderkey": $orderkey, "l_partkey": $partkey, "l_quantity": $quantity.0, """ +
+                s""""l_extendedprice": $price, "l_discount": $discount, "l_returnflag": "$flag", """ +
+                s""""l_shipdate": "$shipdate"}"""
+            )
+            json.write(if (l < lineitems - 1) ",\n" else "\n")
+            xml.write(
+              s"<lineitem><l_orderkey>$orderkey</l_orderkey><l_partkey>$partkey</l_partkey>" +
+                s"<l_quantity>$quantity.0</l_quantity><l_extendedprice>$price</l_extendedprice>" +
+                s"<l_discount>$discount</l_discount><l_returnflag>$flag</l_returnflag>" +
+                s"<l_shipdate>$shipdate</l_shipdate></lineitem>\n"
+            )
+          }
+          json.write("]\n")
+        }
+      }
+    }
+  }
+
+  // Amounts are written with two decimals whatever the default locale of the JVM.
+  private def cents(amount: Long): String = java.math.BigDecimal.valueOf(amount, 2).toPlainString
+
+  private def write(name: String)(f: BufferedWriter => Unit): Unit = {
+    val w = Files.newBufferedWriter(directory.resolve(name), StandardCharsets.UTF_8)
+    try f(w)
+    finally w.close()
+  }
+
+}
+
+object TpchData {
+
+  private val generated = mutable.HashMap.empty[Int, TpchData]
+
+  /**
+   * The tables with the given number of line items. They are generated on the first call, in a temporary directory
+   * deleted when the JVM exits.
+   */
+  def apply(lineitems: Int): TpchData = synchronized {
+    generated.getOrElseUpdate(
+      lineitems, {
+        val directory = Files.createTempDirectory(s"snapi-benchmarks-$lineitems-")
+        sys.addShutdownHook(deleteRecursively(directory.toFile))
+        val data = new TpchData(directory, lineitems)
+        data.generate()
+        data
+      }
+    )
+  }
+
+  private def deleteRecursively(file: File): Unit = {
+    Option(file.listFiles()).foreach(_.foreach(deleteRecursively))
+    file.delete()
+  }
+
+}
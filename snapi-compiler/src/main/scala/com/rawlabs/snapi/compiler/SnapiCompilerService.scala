@@ -12,6 +12,7 @@
 
 package com.rawlabs.snapi.compiler
 
+import com.google.common.hash.Hashing
 import com.rawlabs.compiler.{
   AutoCompleteResponse,
   CompilerService,
@@ -73,6 +74,8 @@ import com.rawlabs.snapi.frontend.inferrer.api.InferrerServiceProvider
 import com.rawlabs.snapi.frontend.snapi.extensions.builtin.{BinaryPackage, CsvPackage, JsonPackage, StringPackage}
 
 import java.io.{IOException, OutputStream}
+import java.nio.charset.StandardCharsets
+import java.nio.file.{Files, Paths}
 import scala.collection.mutable
 import scala.util.control.NonFatal
 
@@ -81,6 +84,21 @@ object SnapiCompilerService extends CustomClassAndModuleLoader {
 
   private val JARS_PATH = "raw.snapi.compiler.jars-path"
 
+  private val PROFILER_ENABLED = "raw.snapi.compiler.profiler.enabled"
+  private val PROFILER_DUMP_PATH = "raw.snapi.compiler.profiler.dump-path"
+
+  // Options of the engine running Snapi. If enabled, the Snapi profiler instrument collects per-operator metrics of
+  // every execution.
+  def engineOptions(implicit settings: RawSettings): Map[String, String] = {
+    if (settings.getBooleanOpt(PROFILER_ENABLED).getOrElse(false)) Map("snapi-profiler" -> "true")
+    else Map.empty
+  }
+
+  // If defined, the directory where the profile of every execution is written as a JSON file.
+  private def profilerDumpPath(implicit settings: RawSettings): Option[String] = {
+    settings.getStringOpt(PROFILER_DUMP_PATH)
+  }
+
   private var maybeTruffleClassLoader: Option[ClassLoader] = _
   private val maybeTruffleClassLoaderLock = new Object
 
@@ -114,7 +132,7 @@ class SnapiCompilerService(engineDefinition: (Engine, Boolean))(implicit protect
   // Refer to SnapiTruffleCompilerServiceTestContext to see the engine being created and released from the test
   // framework, so that every test suite instance has a fresh engine.
   def this()(implicit settings: RawSettings) = {
-    this(CompilerService.getEngine(SnapiCompilerService.getTruffleClassLoader))
+    this(CompilerService.getEngine(SnapiCompilerService.getTruffleClassLoader, SnapiCompilerService.engineOptions))
   }
 
   override def language: Set[String] = SnapiCompilerService.LANGUAGE
@@ -251,7 +269,7 @@ class SnapiCompilerService(engineDefinition: (Engine, Boolean))(implicit protect
           // Eval the code and extract the function referred to by 'decl'
           val truffleSource = Source
             .newBuilder("snapi", source, "unnamed")
-            .cached(false) // Disable code caching because of the inferrer.
+            .cached(false) // Truffle caches by text only; the language caches by source and environment.
             .build()
           ctx.eval(truffleSource)
           // 'decl' is found in the context bindings (by its name)
@@ -300,7 +318,7 @@ class SnapiCompilerService(engineDefinition: (Engine, Boolean))(implicit protect
         case None =>
           val truffleSource = Source
             .newBuilder("snapi", source, "unnamed")
-            .cached(false) // Disable code caching because of the inferrer.
+            .cached(false) // Truffle caches by text only; the language caches by source and environment.
             .build()
           val result = ctx.eval(truffleSource)
           // The value type is found in polyglot bindings after calling eval().
@@ -421,11 +439,33 @@ class SnapiCompilerService(engineDefinition: (Engine, Boolean))(implicit protect
           throw ex
         }
     } finally {
+      RawUtils.withSuppressNonFatalException(dumpProfile(ctx, environment))
       ctx.leave()
       ctx.close()
     }
   }
 
+  // When the profiler is enabled, the language publishes the profile of the execution in the polyglot bindings.
+  // It is written to the dump path, if one is set, whether the execution succeeded or not.
+  private def dumpProfile(ctx: Context, environment: ProgramEnvironment): Unit = {
+    SnapiCompilerService.profilerDumpPath.foreach { dumpPath =>
+      val profile = ctx.getPolyglotBindings.getMember("@profile")
+      if (profile != null) {
+        val directory = Files.createDirectories(Paths.get(dumpPath))
+        // Profiles are named after the trace ID of the execution if there's one. IDs that aren't plain names, e.g. with
+        // separators or dots, are hashed so that the file is always in the dump directory.
+        val file = environment.maybeTraceId match {
+          case Some(traceId) if traceId.matches("[A-Za-z0-9_-]{1,128}") => directory.resolve(s"profile-$traceId.json")
+          case Some(traceId) =>
+            val hash = Hashing.sha256().hashString(traceId, StandardCharsets.UTF_8)
+            directory.resolve(s"profile-$hash.json")
+          case None => Files.createTempFile(directory, "profile-", ".json")
+        }
+        Files.write(file, profile.asString().getBytes(StandardCharsets.UTF_8))
+      }
+    }
+  }
+
   override def formatCode(
       source: String,
       environment: ProgramEnvironment,
@@ -688,6 +728,8 @@ class SnapiCompilerService(engineDefinition: (Engine, Boolean))(implicit protect
       .environment("RAW_PROGRAM_ENVIRONMENT", ProgramEnvironment.serializeToString(environment))
       .allowExperimentalOptions(true)
       .allowPolyglotAccess(PolyglotAccess.ALL)
+      // Worker threads only compute parallel aggregations, contexts are single-threaded otherwise.
+      .allowCreateThread(settings.getBooleanOpt("raw.runtime.parallel.enabled").getOrElse(false))
     environment.options.get("staged-compiler").foreach { stagedCompiler =>
       ctxBuilder.option("snapi.staged-compiler", stagedCompiler)
     }
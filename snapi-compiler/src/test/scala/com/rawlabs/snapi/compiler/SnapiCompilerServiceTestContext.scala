@@ -69,6 +69,9 @@ trait SnapiCompilerServiceTestContext extends CompilerServiceTestContext {
 //    options.put("compiler.InliningRecursionDepth", "10")
 //    options.put("engine.IsolateMemoryProtection", "false")
 
+    // Options of the language and its instruments, as set by the properties of the test suite.
+    SnapiCompilerService.engineOptions.foreach { case (k, v) => options.put(k, v) }
+
     engine = Engine
       .newBuilder()
       .allowExperimentalOptions(true)
@@ -307,10 +307,10 @@ class CsvPackageTest extends SnapiTestContext {
   )
 
   test(snapi"""Csv.Read("$junkAfter10Items", type collection(record(a: int, b: string, c: double)))""") { it =>
-    // ideally it would be line 11, column 30 (end of line 11)
+    // line 11, column 30 (end of line 11)
     if (isTruffle) {
       it should runErrorAs(
-        snapi"failed to read CSV (line 11 column 173) (location: $junkAfter10Items): not enough columns found"
+        snapi"failed to read CSV (line 11 column 30) (location: $junkAfter10Items): not enough columns found"
       )
     } else {
       it should runErrorAs(
@@ -338,10 +338,10 @@ class CsvPackageTest extends SnapiTestContext {
   test(
     snapi"""Collection.Take(Csv.Read("$junkAfter10Items", type collection(record(a: int, b: string, c: double))), 11)"""
   ) { it =>
-    // ideally it would be line 11, column 30 (end of line 11)
+    // line 11, column 30 (end of line 11)
     if (isTruffle) {
       it should runErrorAs(
-        snapi"failed to read CSV (line 11 column 173) (location: $junkAfter10Items): not enough columns found"
+        snapi"failed to read CSV (line 11 column 30) (location: $junkAfter10Items): not enough columns found"
       )
     } else {
       it should runErrorAs(
@@ -353,10 +353,10 @@ class CsvPackageTest extends SnapiTestContext {
   test(
     snapi"""Collection.Count(Csv.Read("$junkAfter10Items", type collection(record(a: int, b: string, c: double))))""".stripMargin
   ) { it =>
-    // ideally it would be line 11, column 30 (end of line 11)
+    // line 11, column 30 (end of line 11)
     if (isTruffle) {
       it should runErrorAs(
-        snapi"failed to read CSV (line 11 column 173) (location: $junkAfter10Items): not enough columns found"
+        snapi"failed to read CSV (line 11 column 30) (location: $junkAfter10Items): not enough columns found"
       )
     } else {
       it should runErrorAs(
@@ -472,7 +472,7 @@ class CsvPackageTest extends SnapiTestContext {
         | boolCol: Error.Build("failed to parse CSV (location: $csvWithAllTypes: line 1, col 63), cannot parse 'boolCol' as a bool"),
         | dateCol: Error.Build("failed to parse CSV (location: $csvWithAllTypes: line 1, col 71), string 'dateCol' does not match date template 'yyyy-M-d'"),
         | timeCol: Error.Build("failed to parse CSV (location: $csvWithAllTypes: line 1, col 79), string 'timeCol' does not match time template 'HH:mm[:ss[.SSS]]'"),
-        | timestampCol: Error.Build("failed to parse CSV (location: $csvWithAllTypes: line 1, col 87), string 'timestampCol' does not match timestamp template 'HH:mm[:ss[.SSS]]'")},
+        | timestampCol: Error.Build("failed to parse CSV (location: $csvWithAllTypes: line 1, col 87), string 'timestampCol' does not match timestamp template 'yyyy-M-d['T'][ ]HH:mm[:ss[.SSS]]'")},
         |{byteCol: Byte.From(1), shortCol:Short.From(10), intCol: Int.From(100), longCol: Long.From(1000),
         | floatCol: Float.From(3.14), doubleCol: Double.From(6.28), decimalCol: Decimal.From("9.42"), boolCol: true,
         | dateCol: Date.Parse("12/25/2023", "M/d/yyyy"), timeCol: Time.Parse("01:02:03", "H:m:s"),
@@ -605,5 +605,65 @@ class CsvPackageTest extends SnapiTestContext {
     |{a: 1, b: 10, c: "N"}
     |]""".stripMargin))
 
+  private val wideData = tempFile(
+    "a,b,c,d,e\n" + (1 to 1000).map(n => s"$n, x$n, \"q, $n\", $n.5, ${n % 2 == 0}").mkString("\n")
+  )
+
+  // Only the columns the query uses are parsed, the other ones are skipped.
+  test(snapi"""Collection.Sum(
+    |  Collection.Transform(
+    |    Csv.Read("$wideData", type collection(record(a: int, b: string, c: string, d: double, e: bool)), skip=1),
+    |    r -> r.a))""".stripMargin)(_ should evaluateTo("500500"))
+
+  test(snapi"""Collection.Take(
+    |  Collection.Transform(
+    |    Collection.Filter(
+    |      Csv.Read("$wideData", type collection(record(a: int, b: string, c: string, d: double, e: bool)), skip=1),
+    |      r -> r.e),
+    |    r -> {c: r.c, d: r.d}),
+    |  2)""".stripMargin)(_ should evaluateTo("""[{c: "q, 2", d: 2.5}, {c: "q, 4", d: 4.5}]"""))
+
+  // A column that doesn't parse isn't reported if the query doesn't use it.
+  test("""Collection.Transform(Csv.Parse("1,a\n2,b", type collection(record(a: string, b: int))), r -> r.a)""")(
+    _ should evaluateTo("""["1", "2"]""")
+  )
+
+  test("""Collection.Transform(
+    |  Collection.Filter(Csv.Parse("1,a,x\n2,b,y", type collection(record(a: int, b: int, c: string))), r -> r.a > 1),
+    |  r -> {c: r.c})""".stripMargin)(_ should evaluateTo("""[{c: "y"}]"""))
+
+  test("""Csv.Parse("1,a\n2,b", type collection(record(a: string, b: int)))""")(
+    _ should evaluateTo("""[
+      |  {a: "1", b: Error.Build("failed to parse CSV (line 1, col 3), cannot parse 'a' as an int")},
+      |  {a: "2", b: Error.Build("failed to parse CSV (line 2, col 3), cannot parse 'b' as an int")}
+      |]""".stripMargin)
+  )
+
+  test("""Csv.Parse(" \"x, \"\"y\"\" \" , z \n\"multi\nline\",k", type collection(record(a: string, b: string)))""")(
+    _ should evaluateTo("""[{a: "x, \"y\" ", b: "z"}, {a: "multi\nline", b: "k"}]""")
+  )
+
+  // Dates, times and timestamps in the default formats.
+  private val temporals = tempFile("""d,t,ts
+    |2023-1-5,09:05,2023-01-05T09:05:01.250
+    |1969-12-31,23:59:59,1969-12-31 23:59:59
+    |2024-02-29,00:00:00.001,2024-2-29T 00:00""".stripMargin)
+
+  test(snapi"""Csv.Read("$temporals", type collection(record(d: date, t: time, ts: timestamp)), skip=1)""")(
+    _ should evaluateTo("""[
+      |  {
+      |    d: Date.Build(2023, 1, 5),
+      |    t: Time.Build(9, 5),
+      |    ts: Timestamp.Build(2023, 1, 5, 9, 5, seconds=1, millis=250)
+      |  },
+      |  {
+      |    d: Date.Build(1969, 12, 31),
+      |    t: Time.Build(23, 59, seconds=59),
+      |    ts: Timestamp.Build(1969, 12, 31, 23, 59, seconds=59)
+      |  },
+      |  {d: Date.Build(2024, 2, 29), t: Time.Build(0, 0, millis=1), ts: Timestamp.Build(2024, 2, 29, 0, 0)}
+      |]""".stripMargin)
+  )
+
   private def isTruffle = compilerService.language.contains("snapi")
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.compiler.tests.builtin
+
+import com.rawlabs.snapi.frontend.snapi._
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+
+class CsvSplitScanTest extends SnapiTestContext {
+
+  // Tiny ranges, so that files are read by many ranges, and records span several of them.
+  property("raw.runtime.split-scan.threads", "4")
+  property("raw.runtime.split-scan.range-size", "64B")
+
+  private val numbers = tempFile("n,square\n" + (1 to 1000).map(n => s"$n,${n * n}").mkString("\n"), "csv")
+
+  test(snapi"""let rows = Csv.Read("$numbers", type collection(record(n: int, square: long)), skip=1)
+    |in {count: Collection.Count(rows), sum: Collection.Sum(Collection.Transform(rows, r -> r.square))}""".stripMargin)(
+    _ should evaluateTo("{count: 1000L, sum: 333833500L}")
+  )
+
+  test(snapi"""Collection.Take(Csv.InferAndRead("$numbers"), 3)""")(
+    _ should orderEvaluateTo("[{n: 1, square: 1}, {n: 2, square: 4}, {n: 3, square: 9}]")
+  )
+
+  test(snapi"""let rows = Csv.Read("$numbers", type collection(record(n: int, square: long)), skip=1)
+    |in Collection.Filter(rows, r -> r.n > 997)""".stripMargin)(
+    _ should orderEvaluateTo("[{n: 998, square: 996004L}, {n: 999, square: 998001L}, {n: 1000, square: 1000000L}]")
+  )
+
+  // Quoted values with line breaks, longer than a range: ranges starting in them are read again.
+  private val quoted = tempFile(
+    "id,text\r\n" + (1 to 100)
+      .map(n => s"""$n,"line ${"x" * (n % 150)}\r\n""" + "\"\"" + s"""line $n" """)
+      .mkString("\r\n"),
+    "csv"
+  )
+
+  test(snapi"""let rows = Csv.Read("$quoted", type collection(record(id: int, text: string)), skip=1)
+    |in Collection.Filter(rows, r -> r.id == 1 or r.id == 100)""".stripMargin)(
+    _ should orderEvaluateTo(s"""[
+      |  {id: 1, text: "line x\\r\\n\\"line 1"},
+      |  {id: 100, text: "line ${"x" * 100}\\r\\n\\"line 100"}
+      |]""".stripMargin)
+  )
+
+  test(snapi"""let rows = Csv.Read("$quoted", type collection(record(id: int, text: string)), skip=1)
+    |in Collection.Sum(Collection.Transform(rows, r -> r.id))""".stripMargin)(_ should evaluateTo("5050"))
+
+  // Errors are reported at their position in the file.
+  private val missingColumn = tempFile("a,b\n" + (1 to 200).map(n => if (n == 150) s"$n" else s"$n,$n").mkString("\n"), "csv")
+
+  test(snapi"""Csv.Read("$missingColumn", type collection(record(a: int, b: int)), skip=1)""")(
+    _ should runErrorAs(
+      snapi"failed to read CSV (line 151 column 4) (location: $missingColumn): not enough columns found"
+    )
+  )
+
+  private val lines = tempFile((1 to 1000).map(n => s"line $n").mkString("\n") + "\n")
+
+  test(snapi"""String.ReadLines("$lines")""")(
+    _ should evaluateTo("""Collection.Transform(Int.Range(1, 1001), n -> "line " + String.From(n))""")
+  )
+
+}
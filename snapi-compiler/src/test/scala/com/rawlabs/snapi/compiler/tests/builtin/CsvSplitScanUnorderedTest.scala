@@ -0,0 +1,58 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.compiler.tests.builtin
+
+import com.rawlabs.snapi.frontend.snapi._
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+
+class CsvSplitScanUnorderedTest extends SnapiTestContext {
+
+  // Ranges are handed over as soon as they are read, rows don't come in file order.
+  property("raw.runtime.split-scan.threads", "4")
+  property("raw.runtime.split-scan.range-size", "64B")
+  property("raw.runtime.split-scan.ordered", "false")
+
+  private val numbers = tempFile("n|square\n" + (1 to 1000).map(n => s"$n|${n * n}").mkString("\n"), "csv")
+
+  // without quotes nor escapes, so that ranges can be handed over in any order.
+  private val numberRows =
+    snapi"""Csv.Read("$numbers", type collection(record(n: int, square: long)), skip=1, delimiter="|", escape=null, quote=null)"""
+
+  test(snapi"""{count: Collection.Count($numberRows), sum: Collection.Sum(Collection.Transform($numberRows, r -> r.square))}""")(
+    _ should evaluateTo("{count: 1000L, sum: 333833500L}")
+  )
+
+  test(snapi"""Collection.Take(Collection.OrderBy($numberRows, r -> r.n, "DESC"), 2)""")(
+    _ should orderEvaluateTo("[{n: 1000, square: 1000000L}, {n: 999, square: 998001L}]")
+  )
+
+  private val missingColumn = tempFile("a|b\n" + (1 to 200).map(n => if (n == 150) s"$n" else s"$n|$n").mkString("\n"), "csv")
+
+  // The error is at its line in the file, although the ranges aren't read in order.
+  test(
+    snapi"""Collection.Count(Csv.Read("$missingColumn", type collection(record(a: int, b: int)), skip=1, delimiter="|", escape=null, quote=null))"""
+  )(it =>
+    it should runErrorAs(
+      snapi"failed to read CSV (line 151 column 4) (location: $missingColumn): not enough columns found"
+    )
+  )
+
+  private val lines = tempFile((1 to 1000).map(n => s"line $n").mkString("\n"))
+
+  test(snapi"""Collection.Count(String.ReadLines("$lines"))""")(_ should evaluateTo("1000L"))
+
+  test(snapi"""Collection.OrderBy(String.ReadLines("$lines"), l -> Int.From(String.Replace(l, "line ", "")), "ASC")""")(
+    _ should orderEvaluateTo("""Collection.Transform(Int.Range(1, 1001), n -> "line " + String.From(n))""")
+  )
+
+}
@@ -25,6 +25,11 @@ class DatePackageTest extends SnapiTestContext {
 
   test("Date.FromEpochDay(1000)")(it => it should evaluateTo("Date.Build(1972, 9, 27)"))
 
+  // Dates are stored as days in an int.
+  test("Date.FromEpochDay(3000000000L)")(it => it should runErrorAs("date out of range: 3000000000 days"))
+
+  test("Date.Build(999999999, 1, 1)")(it => it should runErrorAs("date out of range: +999999999-01-01"))
+
   test("""Date.Parse("2018-02-01", "yyyy-MM-dd")""")(it => it should evaluateTo("Date.Build(2018, 2, 1)"))
 
   test("""Date.Parse("23 June 1975", "d MMMM yyyy")""")(it => it should evaluateTo("Date.Build(1975, 6, 23)"))
@@ -40,4 +40,27 @@ class DecimalPackageTest extends SnapiTestContext {
   // Nullability is handled
   test(""" [Decimal.From("abc" + null) + 12]""")(it => it should evaluateTo("""[null]"""))
   test(""" [Decimal.From(1b + null) + 12b]""")(it => it should evaluateTo("""[null]"""))
+
+  // Decimals of up to 18 digits are compact, arithmetic falls back to BigDecimal when results overflow
+  test("""Decimal.From("1.5") + Decimal.From("2.25")""")(it => it should evaluateTo("""3.75q"""))
+  test("""Decimal.From("1.10") == Decimal.From("1.1")""")(it => it should evaluateTo("""true"""))
+  test("""Decimal.From("1.10") < Decimal.From("1.101")""")(it => it should evaluateTo("""true"""))
+  test("""-Decimal.From("-12.50")""")(it => it should evaluateTo("""12.50q"""))
+  test("""Decimal.From("999999999999.99") * Decimal.From("999999999999.99")""")(it =>
+    it should evaluateTo("""Decimal.From("999999999999980000000000.0001")""")
+  )
+  test("""Decimal.From("900000000000000000") + Decimal.From("0.01")""")(it =>
+    it should evaluateTo("""Decimal.From("900000000000000000.01")""")
+  )
+  test("""Decimal.From("123456789012345678901234.5") - Decimal.From(1)""")(it =>
+    it should evaluateTo("""Decimal.From("123456789012345678901233.5")""")
+  )
+
+  test("""Collection.Sum(Collection.Transform(Int.Range(0, 11), x -> Decimal.From("900000000000000.000")))""")(
+    it => it should evaluateTo("""Decimal.From("9900000000000000.000")""")
+  )
+
+  test("""Collection.Count(Collection.Distinct(Collection.Build(1.10q, 1.1q, 1.100q, Decimal.From("1.1"))))""")(
+    it => it should evaluateTo("""1L""")
+  )
 }
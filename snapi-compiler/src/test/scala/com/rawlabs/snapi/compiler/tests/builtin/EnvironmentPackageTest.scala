@@ -33,4 +33,14 @@ class EnvironmentPackageTest extends SnapiTestContext {
 
   }
 
+  test("""reading scopes of a cached program""") { _ =>
+    // The program compiled for the first scopes isn't reused for the other ones.
+    Seq(Set("scope1"), Set("scope2", "scope3"), Set("scope1")).foreach { scopes =>
+      val path = doExecute("Environment.Scopes()", scopes = scopes).right.get
+      outputParser(path, "collection(string)") match {
+        case s: HashMultiset[_] => assert(s.asScala.toSet == scopes)
+      }
+    }
+  }
+
 }
@@ -711,6 +711,25 @@ class JsonPackageTest extends SnapiTestContext {
   test("""Json.Parse("[10, 9, 8]", type string)""")(_ should runErrorAs("unexpected token: START_ARRAY"))
   test("""Json.Parse("{\"a\": 12}", type string)""")(_ should runErrorAs("unexpected token: START_OBJECT"))
 
+  // Objects with their fields in order, then out of order, with an unknown field and without a nullable one.
+  private val unorderedFields = tempFile("""[
+    |  {"a": 1, "b": "x", "c": 1.5},
+    |  {"a": 2, "b": "y", "c": 2.5},
+    |  {"c": 3.5, "a": 3, "b": "z"},
+    |  {"a": 4, "d": true, "b": "w", "c": 4.5},
+    |  {"a": 5, "b": "v"}
+    |]""".stripMargin)
+
+  test(
+    snapi"""Json.Read("$unorderedFields", type collection(record(a: int, b: string, c: double)))"""
+  )(it => it should evaluateTo("""[
+    |  {a: 1, b: "x", c: 1.5},
+    |  {a: 2, b: "y", c: 2.5},
+    |  {a: 3, b: "z", c: 3.5},
+    |  {a: 4, b: "w", c: 4.5},
+    |  {a: 5, b: "v", c: null}
+    |]""".stripMargin))
+
   private def isTruffle = compilerService.language.contains("snapi")
 
 }
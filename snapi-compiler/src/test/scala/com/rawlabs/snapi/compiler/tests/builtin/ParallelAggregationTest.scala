@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+package com.rawlabs.snapi.compiler.tests.builtin
+
+import com.rawlabs.snapi.frontend.snapi._
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+
+class ParallelAggregationTest extends SnapiTestContext {
+
+  // Small morsels, so that pipelines are split in many of them.
+  property("raw.runtime.parallel.enabled", "true")
+  property("raw.runtime.parallel.threads", "4")
+  property("raw.runtime.parallel.morsel-size", "100")
+
+  test("""Collection.Count(Collection.Filter(Int.Range(0, 100000), n -> n % 3 == 0))""")(
+    _ should evaluateTo("33334L")
+  )
+
+  test("""Collection.Sum(Collection.Transform(Long.Range(1, 100001), n -> n * 2))""")(
+    _ should evaluateTo("10000100000L")
+  )
+
+  test("""Collection.Max(Collection.Transform(Int.Range(0, 1000), n -> (n * 7) % 1000))""")(
+    _ should evaluateTo("999")
+  )
+
+  test("""Collection.Min(Collection.Filter(Collection.Transform(Int.Range(-500, 500), n -> n * n), n -> n > 10))""")(
+    _ should evaluateTo("16")
+  )
+
+  // Filters keep their state in frames, each morsel has its own.
+  test("""Collection.Count(
+    |  Collection.Filter(
+    |    Collection.Transform(Collection.Filter(Int.Range(0, 10000), n -> n % 2 == 0), n -> n + 1),
+    |    n -> n % 3 == 0))""".stripMargin)(_ should evaluateTo("1667L"))
+
+  test("""let k = 3 in Collection.Count(Collection.Filter(Int.Range(0, 10000), n -> n % k == 0))""")(
+    _ should evaluateTo("3334L")
+  )
+
+  test("""Collection.Count(Collection.Transform(Int.Range(2147483000, 2147483647, step = 3), n -> n))""")(
+    _ should evaluateTo("216L")
+  )
+
+  test("""Collection.Count(Collection.Filter(Int.Range(10, 0), n -> n > 0))""")(_ should evaluateTo("0L"))
+
+  private val lines = tempFile((1 to 1000).map(n => s"line $n").mkString("\n") + "\n")
+
+  test(snapi"""Collection.Count(Collection.Filter(String.ReadLines("$lines"), l -> String.StartsWith(l, "line 7")))""")(
+    _ should evaluateTo("111L")
+  )
+
+  test(snapi"""Collection.Max(Collection.Transform(String.ReadLines("$lines"), l -> String.Length(l)))""")(
+    _ should evaluateTo("9")
+  )
+
+}
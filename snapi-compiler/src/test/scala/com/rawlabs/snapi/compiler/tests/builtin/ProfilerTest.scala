@@ -0,0 +1,89 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+package com.rawlabs.snapi.compiler.tests.builtin
+
+import com.rawlabs.snapi.frontend.snapi._
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import scala.collection.JavaConverters._
+
+class ProfilerTest extends SnapiTestContext {
+
+  private val dumpPath = Files.createTempDirectory("profiles")
+
+  property("raw.snapi.compiler.profiler.enabled", "true")
+  property("raw.snapi.compiler.profiler.dump-path", dumpPath.toString)
+
+  private var traceId: Option[String] = None
+
+  override def maybeTraceId: Option[String] = traceId
+
+  private def profileFileOf(query: String): String = {
+    Files.list(dumpPath).iterator().asScala.foreach(Files.delete)
+    assert(fastExecute(query).isRight)
+    val profiles = Files.list(dumpPath).iterator().asScala.toList
+    assert(profiles.size == 1)
+    profiles.head.getFileName.toString
+  }
+
+  private def profileOf(query: String): String = {
+    val file = profileFileOf(query)
+    new String(Files.readAllBytes(dumpPath.resolve(file)), StandardCharsets.UTF_8)
+  }
+
+  test("rows out of a filter") { _ =>
+    val profile = profileOf("""Collection.Count(Collection.Filter(Collection.Build(1, 2, 3), x -> x > 1))""")
+    assert(profile.contains("\"peakMemory\""))
+    assert(""""operator":"Collection.Filter"[^}]*"rowsOut":2,""".r.findFirstIn(profile).isDefined)
+    assert(""""operator":"Collection.Count"[^}]*"rowsIn":2,"rowsOut":1,""".r.findFirstIn(profile).isDefined)
+  }
+
+  test("rows out of a list") { _ =>
+    val profile = profileOf("""List.Transform(List.Build(1, 2, 3), x -> x * 2)""")
+    assert(""""operator":"List.Transform"[^}]*"rowsOut":3,""".r.findFirstIn(profile).isDefined)
+  }
+
+  test("bytes read from a file") { _ =>
+    val data = tempFile("line 1\nline 2\nline 3\n")
+    val profile = profileOf(snapi"""Collection.Count(String.ReadLines("$data"))""")
+    assert(""""operator":"String.ReadLines"[^}]*"rowsOut":3,""".r.findFirstIn(profile).isDefined)
+    assert(""""charsRead":21,""".r.findFirstIn(profile).isDefined)
+  }
+
+  test("sort of a top-k") { _ =>
+    val profile = profileOf("""Collection.Take(Collection.OrderBy(Collection.Build(3, 1, 2), x -> x, "ASC"), 2)""")
+    assert(""""operator":"Collection.OrderBy"""".r.findFirstIn(profile).isEmpty)
+    assert(""""operator":"Collection.Build"[^}]*"rowsOut":3,""".r.findFirstIn(profile).isDefined)
+    assert(""""operator":"Collection.Take"[^}]*"rowsOut":2,""".r.findFirstIn(profile).isDefined)
+  }
+
+  test("profiles are named after the trace ID") { _ =>
+    traceId = Some("trace-42")
+    try {
+      assert(profileFileOf("Collection.Count(Collection.Build(1, 2))") == "profile-trace-42.json")
+    } finally {
+      traceId = None
+    }
+  }
+
+  test("trace IDs that aren't plain names are hashed") { _ =>
+    traceId = Some("../../tmp/trace")
+    try {
+      assert(profileFileOf("Collection.Count(Collection.Build(1, 2))").matches("profile-[0-9a-f]{64}\\.json"))
+    } finally {
+      traceId = None
+    }
+  }
+
+}
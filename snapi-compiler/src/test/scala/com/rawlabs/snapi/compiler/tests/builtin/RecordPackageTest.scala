@@ -178,4 +178,25 @@ class RecordPackageTest extends SnapiTestContext {
     it should evaluateTo("""{a: 12, b: 14, c: "tralala", d: [1,2,3]}""")
   }
 
+  // Records built by the program are compared, hashed and written like the ones read from sources.
+  test("""let r = {a: 1, b: 2L, c: 3.5, d: true, e: "x"}
+    |in [r.a, Int.From(r.b), Int.From(r.c), if r.d then 1 else 0]""".stripMargin)(
+    _ should evaluateTo("[1, 2, 3, 1]")
+  )
+
+  test("""Json.Parse("{\"a\": 1, \"b\": \"x\"}", type record(a: int, b: string)) == {a: 1, b: "x"}""")(
+    _ should evaluateTo("true")
+  )
+
+  test("""let parsed = Json.Parse("{\"a\": 1, \"b\": \"x\"}", type record(a: int, b: string))
+    |in List.Distinct([{a: 1, b: "x"}, parsed])""".stripMargin)(_ should evaluateTo("""[{a: 1, b: "x"}]"""))
+
+  test("""Collection.OrderBy(Collection.Build({a: 2, b: 1}, {a: 1, b: 2}), r -> r.a, "ASC")""")(
+    _ should evaluateTo("""[{a: 1, b: 2}, {a: 2, b: 1}]""")
+  )
+
+  test("""Json.Print({a: 1, b: {c: 2.5, d: "y"}})""")(
+    _ should evaluateTo(""" "{\"a\":1,\"b\":{\"c\":2.5,\"d\":\"y\"}}" """)
+  )
+
 }
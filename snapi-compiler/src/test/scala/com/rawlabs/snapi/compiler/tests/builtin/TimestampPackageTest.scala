@@ -64,6 +64,19 @@ class TimestampPackageTest extends SnapiTestContext {
     it should evaluateTo("""Timestamp.Build(2018, 2, 1, 0, 2)""")
   )
 
+  // Timestamps are stored as microseconds in a long.
+  test("""Timestamp.FromUnixTimestamp(10000000000000l)""")(it =>
+    it should runErrorAs("timestamp out of range: 10000000000000 seconds")
+  )
+
+  test("""Timestamp.Build(300000, 1, 1, 0, 0)""")(it =>
+    it should runErrorAs("timestamp out of range: +300000-01-01T00:00")
+  )
+
+  test("""Timestamp.Parse("300000-01-01 00:00", "yyyyyy-MM-dd HH:mm")""")(it =>
+    it should runErrorAs("timestamp out of range: +300000-01-01T00:00")
+  )
+
   test("""Timestamp.ToUnixTimestamp(Timestamp.Build(2018, 2, 1, 1,2))""")(it => it should evaluateTo("""1517446920"""))
 
   test("""Timestamp.TimeBucket("hour", Timestamp.Build(2007, 3, 14, 1, 2, seconds=3, millis=4))""")(it =>
@@ -74,6 +87,49 @@ class TimestampPackageTest extends SnapiTestContext {
     it should evaluateTo("""Timestamp.Build(2007, 1, 1, 0, 0)""")
   )
 
+  // 2007-03-14 is a Wednesday, weeks start on Sunday.
+  test("""Timestamp.TimeBucket("week", Timestamp.Build(2007, 3, 14, 1, 2, seconds=3, millis=4))""")(it =>
+    it should evaluateTo("""Timestamp.Build(2007, 3, 11, 0, 0)""")
+  )
+
+  test("""Timestamp.TimeBucket("quarter", Timestamp.Build(2007, 6, 30, 23, 59))""")(it =>
+    it should evaluateTo("""Timestamp.Build(2007, 4, 1, 0, 0)""")
+  )
+
+  test("""Timestamp.TimeBucket("century", Timestamp.Build(2000, 12, 31, 23, 59))""")(it =>
+    it should evaluateTo("""Timestamp.Build(1901, 1, 1, 0, 0)""")
+  )
+
+  test("""Timestamp.TimeBucket("Second", Timestamp.Build(1969, 12, 31, 23, 59, seconds=59, millis=999))""")(it =>
+    it should evaluateTo("""Timestamp.Build(1969, 12, 31, 23, 59, seconds=59)""")
+  )
+
+  test("""Timestamp.TimeBucket("fortnight", Timestamp.Build(2007, 3, 14, 1, 2))""")(
+    _ should runErrorAs("intervals in time_bucket cannot have years or months mixed with other fields.")
+  )
+
+  // The unit is resolved once per call site, whatever the rows.
+  test("""Collection.Transform(
+    |  Collection.Build("day", "month", "day"),
+    |  u -> Timestamp.TimeBucket(u, Timestamp.Build(2007, 3, 14, 1, 2)))""".stripMargin)(
+    _ should evaluateTo("""[
+      |  Timestamp.Build(2007, 3, 14, 0, 0),
+      |  Timestamp.Build(2007, 3, 1, 0, 0),
+      |  Timestamp.Build(2007, 3, 14, 0, 0)
+      |]""".stripMargin)
+  )
+
+  test("""let t = Timestamp.Build(1969, 12, 31, 23, 58, seconds=59, millis=999)
+    |in [Timestamp.Year(t), Timestamp.Month(t), Timestamp.Day(t), Timestamp.Hour(t), Timestamp.Minute(t),
+    |    Timestamp.Second(t), Timestamp.Millis(t)]""".stripMargin)(
+    _ should evaluateTo("""[1969, 12, 31, 23, 58, 59, 999]""")
+  )
+
+  test("""let t = Timestamp.Build(2000, 2, 29, 12, 0)
+    |in [Timestamp.Year(t), Timestamp.Month(t), Timestamp.Day(t)]""".stripMargin)(
+    _ should evaluateTo("""[2000, 2, 29]""")
+  )
+
   test(
     """Timestamp.TimeBucket(Interval.Build(millis = 100), Timestamp.Build(2007, 3, 14, 1, 2, seconds=3, millis=4))"""
   )(it => it should evaluateTo("""Timestamp.Build(2007, 3, 14, 1, 2, seconds = 3)"""))
@@ -642,6 +642,25 @@ class XmlPackageTest extends SnapiTestContext {
     it should evaluateTo("{`@place`: \"world\", name: \"john\"}")
   }
 
+  private val projected = tempFile("""<items>
+    |  <item id="1"><a>1</a><b>not a number</b><c><d>x</d><d>y</d></c></item>
+    |  <item id="2"><a>2</a><b>3</b><c><d>z</d></c></item>
+    |</items>""".stripMargin)
+
+  // only the id attribute and a are read, b and c are skipped.
+  test(snapi"""Collection.Transform(
+    |  Collection.Filter(
+    |    Xml.Read("$projected", type collection(record(`@id`: int, a: int, b: int, c: record(d: list(string))))),
+    |    (r) -> r.a > 0
+    |  ),
+    |  (r) -> {id: r.`@id`, a: r.a}
+    |)""".stripMargin)(_ should evaluateTo("""[{id: 1, a: 1}, {id: 2, a: 2}]"""))
+
+  // text and CDATA sections are read as a single text.
+  test("""Xml.Parse("<r><s>a<![CDATA[<b>]]>c &amp; d</s></r>", type record(s: string))""")(
+    _ should evaluateTo("""{s: "a<b>c & d"}""")
+  )
+
   // lists are accepted when parsing an attribute.
   test(snapi"""Xml.Read("$data", type record(`@place`: list(string), name: string))""") { it =>
     it should typeAs("record(`@place`: list(string), name: string)")
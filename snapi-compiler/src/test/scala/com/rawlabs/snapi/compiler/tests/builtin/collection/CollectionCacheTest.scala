@@ -0,0 +1,88 @@
+/*
+ * Copyright 2023 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+package com.rawlabs.snapi.compiler.tests.builtin.collection
+
+import com.rawlabs.snapi.frontend.snapi._
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+
+import java.nio.file.Files
+
+class CollectionCacheTest extends SnapiTestContext {
+
+  // Small enough for the rows of the larger collections to be replayed from disk.
+  property("raw.runtime.external.disk-block-max-size", "20kB")
+  property("raw.runtime.kryo.output-buffer-size", "1kB")
+  property("raw.runtime.kryo.input-buffer-size", "1kB")
+
+  private val scratchPath = Files.createTempDirectory("scratch")
+  property("raw.runtime.scratch-path", scratchPath.toString)
+
+  private val lines = tempFile((1 to 1000).map(n => s"line $n").mkString("\n") + "\n")
+  private val manyLines = tempFile((1 to 10000).map(n => s"line $n").mkString("\n") + "\n")
+  private val abc = tempFile("a\nbb\nccc\ndddd\n")
+
+  test(snapi"""let c = Collection.Transform(String.ReadLines("$lines"), l -> String.Length(l))
+    |in {count: Collection.Count(c), sum: Collection.Sum(c), max: Collection.Max(c)}""".stripMargin)(
+    _ should evaluateTo("""{count: 1000L, sum: 7893, max: 9}""")
+  )
+
+  test(snapi"""let c = Collection.Transform(String.ReadLines("$manyLines"), l -> {a: String.Length(l), b: l})
+    |in {
+    |  count: Collection.Count(c),
+    |  sum: Collection.Sum(Collection.Transform(c, r -> r.a)),
+    |  last: Collection.Last(c)
+    |}""".stripMargin)(_ should evaluateTo("""{count: 10000L, sum: 88894, last: {a: 10, b: "line 10000"}}"""))
+
+  // The first read stops early, the rows are recorded by the next one.
+  test(snapi"""let c = Collection.Filter(String.ReadLines("$lines"), l -> String.EndsWith(l, "0"))
+    |in {first: Collection.First(c), count: Collection.Count(c), again: Collection.Count(c)}""".stripMargin)(
+    _ should evaluateTo("""{first: "line 10", count: 100L, again: 100L}""")
+  )
+
+  // The collection is read in a loop over itself.
+  test(snapi"""let c = Collection.Transform(String.ReadLines("$abc"), s -> String.Length(s))
+    |in Collection.Transform(c, x -> Collection.Count(Collection.Filter(c, y -> y < x)))""".stripMargin)(
+    _ should orderEvaluateTo("""[0L, 1L, 2L, 3L]""")
+  )
+
+  test(snapi"""let c = Collection.Filter(String.ReadLines("$lines"), l -> String.EndsWith(l, "0"))
+    |in Collection.Count(Collection.Union(c, c, c))""".stripMargin)(_ should evaluateTo("300L"))
+
+  test(snapi"""let c = Collection.Transform(String.ReadLines("$abc"), s -> s + s)
+    |in {
+    |  all: Collection.MkString(c, ","),
+    |  some: Collection.Take(c, 2),
+    |  again: Collection.MkString(c, "")
+    |}""".stripMargin)(
+    _ should evaluateTo("""{all: "aa,bbbb,cccccc,dddddddd", some: Collection.Build("aa", "bbbb"),
+      |again: "aabbbbccccccdddddddd"}""".stripMargin)
+  )
+
+  test(snapi"""let c = Collection.Transform(String.ReadLines("$abc"), s -> if s == "bb" then null else s)
+    |in {count: Collection.Count(c), rows: c}""".stripMargin)(
+    _ should evaluateTo("""{count: 4L, rows: Collection.Build("a", null, "ccc", "dddd")}""")
+  )
+
+  // Collections that don't read a file are built again on every read.
+  test("""let c = Collection.Transform(Collection.Build(1, 2, 3), i -> i * 2)
+    |in {count: Collection.Count(c), sum: Collection.Sum(c)}""".stripMargin)(
+    _ should evaluateTo("""{count: 3L, sum: 12}""")
+  )
+
+  // The rows are replayed from a scratch file, deleted at the end of the execution.
+  test(snapi"""let c = String.ReadLines("$manyLines")
+    |in {count: Collection.Count(c), again: Collection.Count(c)}""".stripMargin) { it =>
+    it should evaluateTo("""{count: 10000L, again: 10000L}""")
+    assert(scratchPath.toFile.list().isEmpty)
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2023 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+package com.rawlabs.snapi.compiler.tests.builtin.collection
+
+import com.rawlabs.snapi.frontend.snapi._
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+
+class CollectionTopKTest extends SnapiTestContext {
+
+  // Up to five rows are taken with a heap, more are taken from the sorted collection.
+  property("raw.runtime.top-k.max-size", "5")
+
+  private val bands = tempFile("""Bee Gees|Maurice|Gibb|1949
+    |Bee Gees|Robin|Gibb|1949
+    |Bee Gees|Barry|Gibb|1946
+    |Neville Brothers|Aaron|Neville|1941
+    |Neville Brothers|Art|Neville|1937
+    |Neville Brothers|Charles|Neville|1938
+    |Neville Brothers|Cyril|Neville|1948
+    |Beach Boys|Brian|Wilson|1942
+    |Beach Boys|Mike|Love|1941
+    |Beach Boys|Al|Jardine|1942
+    |Beach Boys|Bruce|Johnston|1942
+    |Beach Boys|David|Marks|1948""".stripMargin)
+
+  private val members: String = snapi"""
+    |let tokens = Collection.Transform(String.ReadLines("$bands"), l -> String.Split(l, "|"))
+    |in Collection.Transform(tokens, i -> {
+    |     firstName: List.Get(i, 1),
+    |     lastName: List.Get(i, 2),
+    |     birthYear: Int.From(List.Get(i, 3))
+    |})""".stripMargin
+
+  // Rows with the same keys come in the order of the collection, like when it's sorted.
+  test(snapi"""Collection.Transform(
+    |  Collection.Take(Collection.OrderBy($members, p -> p.birthYear, "DESC"), 3),
+    |  p -> p.firstName)""".stripMargin)(_ should orderEvaluateTo("""["Maurice", "Robin", "Cyril"]"""))
+
+  test(snapi"""Collection.Transform(
+    |  Collection.Take(Collection.OrderBy($members, p -> p.birthYear, "ASC", p -> p.firstName, "DESC"), 4),
+    |  p -> p.firstName)""".stripMargin)(_ should orderEvaluateTo("""["Art", "Charles", "Mike", "Aaron"]"""))
+
+  // More rows than the heap takes.
+  test(snapi"""Collection.Transform(
+    |  Collection.Take(Collection.OrderBy($members, p -> p.birthYear, "DESC"), 8),
+    |  p -> p.firstName)""".stripMargin)(
+    _ should orderEvaluateTo("""["Maurice", "Robin", "Cyril", "David", "Barry", "Brian", "Al", "Bruce"]""")
+  )
+
+  test(snapi"""Collection.Take(Collection.OrderBy($members, p -> p.birthYear, "DESC"), 0)""")(
+    _ should evaluateTo("[]")
+  )
+
+  test(snapi"""Collection.Take(Collection.OrderBy($members, p -> p.birthYear, "DESC"), -1)""")(
+    _ should evaluateTo("[]")
+  )
+
+  test("""Collection.Take(Collection.OrderBy(Int.Range(0, 100000), n -> n % 1000, "DESC", n -> n, "ASC"), 3)""")(
+    _ should orderEvaluateTo("""[999, 1999, 2999]""")
+  )
+
+  test("""Collection.Take(Collection.OrderBy(Int.Range(0, 100000), n -> -n, "ASC"), 5)""")(
+    _ should orderEvaluateTo("""[99999, 99998, 99997, 99996, 99995]""")
+  )
+
+  test("""Collection.Take(Collection.OrderBy(Collection.Build(3, 1, 2), n -> n, "ASC"), 10)""")(
+    _ should orderEvaluateTo("""[1, 2, 3]""")
+  )
+
+  // Null keys are ordered like when the collection is sorted.
+  test("""Collection.Take(Collection.OrderBy(Collection.Build(3, null, 1, 2, null), n -> n, "DESC"), 3)""")(
+    _ should orderEvaluateTo(
+      """let sorted = Collection.OrderBy(Collection.Build(3, null, 1, 2, null), n -> n, "DESC")
+        |in Collection.Take(sorted, 3)""".stripMargin
+    )
+  )
+
+}
@@ -269,4 +269,23 @@ class PostgreSQLPackageTest extends SnapiTestContext {
     it should evaluateTo(s"""[3L, Error.Build("$error")]""")
   }
 
+  // More rows than fit in a batch, columns in another order than the query's, and the same query run
+  // several times on the same connection.
+  test(s"""let q = PostgreSQL.Query("pgsql", $ttt
+    |SELECT CAST(i AS VARCHAR) AS s, i, CASE WHEN i % 2 = 0 THEN NULL ELSE i END AS n
+    |FROM generate_series(1, 2500) AS i$ttt, type collection(record(i: int, n: int, s: string)))
+    |in {
+    |  count: Collection.Count(q),
+    |  sum: Collection.Sum(Collection.Transform(q, r -> r.i)),
+    |  nulls: Collection.Count(Collection.Filter(q, r -> Nullable.IsNull(r.n))),
+    |  strings: Collection.Count(Collection.Filter(q, r -> r.s == String.From(r.i)))
+    |}""".stripMargin)(_ should evaluateTo("""{count: 2500L, sum: 3126250, nulls: 1250L, strings: 2500L}"""))
+
+  // A value that fails to be read is an error of its own row only.
+  test(s"""let q = PostgreSQL.Query("pgsql", $ttt
+    |SELECT i, CASE WHEN i = 1500 THEN 'x' ELSE CAST(i AS VARCHAR) END AS v
+    |FROM generate_series(1, 2000) AS i$ttt, type collection(record(i: int, v: int)))
+    |in Collection.Transform(Collection.Filter(q, r -> r.i >= 1499 and r.i <= 1501), r -> Try.IsError(r.v))
+    |""".stripMargin)(_ should evaluateTo("""[false, true, false]"""))
+
 }
@@ -76,6 +76,25 @@ class ListPackageTest extends SnapiTestContext {
     it should evaluateTo("List.Build(2,3)")
   }
 
+  // Lists of unknown size, longer than the arrays they start being built in.
+  test("""
+    |let l = List.From(Int.Range(0, 1000))
+    |in {count: List.Count(l), first: List.Get(l, 0), last: List.Get(l, 999)}""".stripMargin)(
+    _ should evaluateTo("{count: 1000L, first: 0, last: 999}")
+  )
+
+  test("""
+    |let l = List.Filter(List.From(Long.Range(0, 100)), x -> x % 3L == 0L)
+    |in {count: List.Count(l), last: List.Get(l, 33)}""".stripMargin)(
+    _ should evaluateTo("{count: 34L, last: 99L}")
+  )
+
+  test("""
+    |let l = List.Filter(List.Transform(List.From(Int.Range(0, 40)), x -> String.From(x)), s -> s != "7")
+    |in {count: List.Count(l), last: List.Get(l, 38)}""".stripMargin)(
+    _ should evaluateTo("""{count: 39L, last: "39"}""")
+  )
+
   test("List.Filter(List.Build(1,2,3), s -> s)")(it =>
     it should typeErrorAs("expected (int) -> bool but got (int) -> int")
   )
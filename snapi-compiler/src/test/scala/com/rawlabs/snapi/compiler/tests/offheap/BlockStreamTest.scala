@@ -0,0 +1,149 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.compiler.tests.offheap
+
+import com.rawlabs.snapi.truffle.runtime.utils.{BlockCompressor, BlockInputStream, BlockOutputStream}
+import org.scalatest.funsuite.AnyFunSuite
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, IOException}
+import scala.util.Random
+
+class BlockStreamTest extends AnyFunSuite {
+
+  private val headerSize = 12
+
+  private def compressible(n: Int): Array[Byte] =
+    Array.tabulate(n)(i => s"row ${i / 40};   ".charAt(i % 8).toByte)
+
+  private def incompressible(n: Int): Array[Byte] = {
+    val bytes = new Array[Byte](n)
+    new Random(42).nextBytes(bytes)
+    bytes
+  }
+
+  private def write(data: Array[Byte], blockSize: Int): Array[Byte] = {
+    val file = new ByteArrayOutputStream()
+    val out = new BlockOutputStream(file, blockSize)
+    out.write(data)
+    out.close()
+    file.toByteArray
+  }
+
+  private def readAll(file: Array[Byte]): Array[Byte] = {
+    val in = new BlockInputStream(new ByteArrayInputStream(file))
+    try in.readAllBytes()
+    finally in.close()
+  }
+
+  private def compressDecompress(data: Array[Byte]): Array[Byte] = {
+    val compressed = new Array[Byte](BlockCompressor.maxCompressedLength(data.length))
+    val length = new BlockCompressor().compress(data, data.length, compressed)
+    val decompressed = new Array[Byte](data.length)
+    BlockCompressor.decompress(compressed, length, decompressed, data.length)
+    decompressed
+  }
+
+  test("compressor round trip") {
+    for (data <- Seq(compressible(10000), incompressible(10000), Array.fill[Byte](1000)(7), compressible(5))) {
+      assert(compressDecompress(data) sameElements data)
+    }
+  }
+
+  test("compressor round trip of an empty block") {
+    assert(compressDecompress(Array.empty[Byte]).isEmpty)
+  }
+
+  test("compressor shrinks repeated bytes") {
+    val data = compressible(10000)
+    val compressed = new Array[Byte](BlockCompressor.maxCompressedLength(data.length))
+    assert(new BlockCompressor().compress(data, data.length, compressed) < data.length / 4)
+  }
+
+  test("stream round trip across blocks") {
+    val data = compressible(10000)
+    val file = write(data, 1024)
+    assert(file.length < data.length)
+    assert(readAll(file) sameElements data)
+  }
+
+  test("incompressible blocks are stored as is") {
+    val data = incompressible(10000)
+    val file = write(data, 1024)
+    // ten blocks, each stored raw after its header, and the end header.
+    assert(file.length == data.length + 11 * headerSize)
+    assert(readAll(file) sameElements data)
+  }
+
+  test("empty stream") {
+    val file = write(Array.empty[Byte], 1024)
+    assert(file.length == headerSize)
+    val in = new BlockInputStream(new ByteArrayInputStream(file))
+    assert(in.read() == -1)
+    assert(in.read(new Array[Byte](10), 0, 10) == -1)
+    assert(in.skip(10) == 0)
+  }
+
+  test("read one byte at a time") {
+    val data = compressible(3000)
+    val in = new BlockInputStream(new ByteArrayInputStream(write(data, 1024)))
+    val read = Iterator.continually(in.read()).takeWhile(_ != -1).map(_.toByte).toArray
+    assert(read sameElements data)
+  }
+
+  test("corrupted block is detected") {
+    for (data <- Seq(compressible(3000), incompressible(3000))) {
+      val file = write(data, 1024)
+      // flip a bit in the stored bytes of the second block.
+      val secondBlock = headerSize + getInt(file, 4)
+      file(secondBlock + headerSize + 3) = (file(secondBlock + headerSize + 3) ^ 1).toByte
+      val e = intercept[IOException](readAll(file))
+      assert(e.getMessage.contains("checksum mismatch"))
+    }
+  }
+
+  test("truncated file is detected") {
+    val file = write(compressible(3000), 1024)
+    intercept[IOException](readAll(file.take(file.length - headerSize - 1)))
+  }
+
+  test("skip across blocks") {
+    for (data <- Seq(compressible(10000), incompressible(10000))) {
+      val in = new BlockInputStream(new ByteArrayInputStream(write(data, 1024)))
+      assert(in.read() == (data(0) & 0xff))
+      // from the first block into the middle of the fourth one.
+      assert(in.skip(3500) == 3500)
+      assert(in.read() == (data(3501) & 0xff))
+      // whole blocks, ending on a block boundary.
+      assert(in.skip(4096 - 3502) == 4096 - 3502)
+      assert(in.read() == (data(4096) & 0xff))
+      // past the end.
+      assert(in.skip(100000) == data.length - 4097)
+      assert(in.read() == -1)
+    }
+  }
+
+  test("skipped blocks aren't read") {
+    val data = compressible(10000)
+    val file = write(data, 1024)
+    // corrupt the second block, skipping over it never checks it.
+    val secondBlock = headerSize + getInt(file, 4)
+    file(secondBlock + headerSize) = (file(secondBlock + headerSize) ^ 1).toByte
+    val in = new BlockInputStream(new ByteArrayInputStream(file))
+    assert(in.skip(2048) == 2048)
+    assert(in.read() == (data(2048) & 0xff))
+  }
+
+  private def getInt(b: Array[Byte], i: Int): Int =
+    ((b(i) & 0xff) << 24) | ((b(i + 1) & 0xff) << 16) | ((b(i + 2) & 0xff) << 8) | (b(i + 3) & 0xff)
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2023 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.compiler.tests.offheap
+
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+import com.rawlabs.snapi.frontend.snapi._
+
+class OffHeapBlockJoinTest extends SnapiTestContext with OffHeapDatasets {
+
+  // This is to ensure the right side of joins doesn't fit in memory and is read in blocks.
+  property("raw.runtime.external.disk-block-max-size", "1kB")
+  property("raw.runtime.external.join-left-batch-size", "7")
+  property("raw.runtime.kryo.output-buffer-size", "1kB")
+  property("raw.runtime.kryo.input-buffer-size", "1kB")
+
+  test(
+    snapi"""// join with equi-predicate
+      |let bands = $bandMembers,
+      |    olympics = $olympics,
+      |    join = Collection.Join(olympics, bands, r -> r.birthYear == r.year)
+      |    in Collection.Transform(join, r -> { r.firstName, r.lastName, r.city })""".stripMargin
+  )(_ should evaluateTo("""[
+    |{firstName: "David", lastName: "Marks", city: "London"},
+    |{firstName: "Cyril", lastName: "Neville", city: "London"},
+    |{firstName: "Jordan", lastName: "Ruddess", city: "Melbourne"}
+    |]""".stripMargin))
+
+  test(
+    snapi"""// join with equi-predicate
+      |let bands = $NTimesBandMembers,
+      |    olympics = $olympics,
+      |    join = Collection.Join(olympics, bands, r -> r.birthYear == r.year)
+      |    in Collection.Count(join)""".stripMargin
+  )(_ should evaluateTo(s"${3 * N}L"))
+
+  test(
+    snapi"""// join with equi-predicate
+      |let bands = $NTimesBandMembers,
+      |    olympics = $olympics,
+      |    join = Collection.Join(bands, olympics, (musician, game) -> musician.birthYear == game.year)
+      |    in Collection.Count(join)""".stripMargin
+  )(_ should evaluateTo(s"${3 * N}L"))
+
+  test(
+    snapi"""// join with an empty side
+      |let bands = $bandMembers,
+      |    olympics = Collection.Filter($olympics, o -> o.year < 0),
+      |    join = Collection.Join(bands, olympics, r -> r.birthYear == r.year)
+      |    in Collection.Count(join)""".stripMargin
+  )(_ should evaluateTo("0L"))
+
+  test(
+    snapi"""// the right side is read in blocks, each joined with the batch of left rows
+      |let first = Collection.Build(1, 2),
+      |    second = Collection.Transform(Int.Range(0, 1000), x -> {n: x})
+      |in Collection.Join(first, second, (v, row) -> row.n % 500 == v)""".stripMargin
+  )(_ should orderEvaluateTo("""[
+    |{_1: 1, n: 1},
+    |{_1: 2, n: 2},
+    |{_1: 1, n: 501},
+    |{_1: 2, n: 502}
+    |]""".stripMargin))
+
+  test(
+    snapi"""// the right side fits in memory, rows come in the order of the left side
+      |let first = Collection.Build(1, 2),
+      |    second = Collection.Transform(Int.Range(0, 10), x -> {n: x})
+      |in Collection.Join(first, second, (v, row) -> row.n % 5 == v)""".stripMargin
+  )(_ should orderEvaluateTo("""[
+    |{_1: 1, n: 1},
+    |{_1: 1, n: 6},
+    |{_1: 2, n: 2},
+    |{_1: 2, n: 7}
+    |]""".stripMargin))
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.compiler.tests.offheap
+
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+import com.rawlabs.snapi.frontend.snapi._
+
+class OffHeapGroupAggregationTest extends SnapiTestContext with OffHeapDatasets {
+
+  // This is to ensure the partial results don't fit in memory and are spilled to partitions several times.
+  property("raw.runtime.external.disk-block-max-size", "1kB")
+  property("raw.runtime.external.hash-partitions", "4")
+  property("raw.runtime.kryo.output-buffer-size", "1kB")
+  property("raw.runtime.kryo.input-buffer-size", "1kB")
+
+  test(snapi"""// group-by, aggregations only
+    |let groups = Collection.GroupBy(Int.Range(0, 100), x -> x % 10)
+    |in Collection.Transform(groups, g -> {
+    |  g.key,
+    |  count: Collection.Count(g.group),
+    |  sum: Collection.Sum(g.group),
+    |  min: Collection.Min(g.group),
+    |  max: Collection.Max(Collection.Transform(g.group, x -> x * 2)),
+    |  last: Collection.Last(g.group)
+    |})""".stripMargin)(
+    _ should orderEvaluateTo("""[
+      |{key: 0, count: 10L, sum: 450, min: 0, max: 180, last: 90},
+      |{key: 1, count: 10L, sum: 460, min: 1, max: 182, last: 91},
+      |{key: 2, count: 10L, sum: 470, min: 2, max: 184, last: 92},
+      |{key: 3, count: 10L, sum: 480, min: 3, max: 186, last: 93},
+      |{key: 4, count: 10L, sum: 490, min: 4, max: 188, last: 94},
+      |{key: 5, count: 10L, sum: 500, min: 5, max: 190, last: 95},
+      |{key: 6, count: 10L, sum: 510, min: 6, max: 192, last: 96},
+      |{key: 7, count: 10L, sum: 520, min: 7, max: 194, last: 97},
+      |{key: 8, count: 10L, sum: 530, min: 8, max: 196, last: 98},
+      |{key: 9, count: 10L, sum: 540, min: 9, max: 198, last: 99}
+      |]""".stripMargin)
+  )
+
+  test(snapi"""// group-by, partial results are combined across spills
+    |let groups = Collection.GroupBy(Int.Range(0, 100000), x -> x % 1000),
+    |    aggs = Collection.Transform(groups, g -> {
+    |      g.key,
+    |      count: Collection.Count(g.group),
+    |      sum: Collection.Sum(Collection.Transform(g.group, x -> Long.From(x))),
+    |      min: Collection.Min(g.group),
+    |      last: Collection.Last(g.group)
+    |    })
+    |in {
+    |  groups: Collection.Count(aggs),
+    |  wrong: Collection.Count(Collection.Filter(aggs, a ->
+    |    a.count != 100L or a.sum != 100L * a.key + 4950000L or a.min != a.key or a.last != a.key + 99000
+    |  ))
+    |}""".stripMargin)(_ should evaluateTo("{groups: 1000L, wrong: 0L}"))
+
+  test(snapi"""// group-by, keys only
+    |let groups = Collection.GroupBy(Int.Range(0, 10000), x -> x % 1000)
+    |in Collection.Count(Collection.Transform(groups, g -> g.key))""".stripMargin)(
+    _ should evaluateTo("1000L")
+  )
+
+  test(snapi"""// group-by, the group is used as is
+    |let groups = Collection.GroupBy(Int.Range(0, 10000), x -> x % 1000)
+    |in Collection.Count(
+    |  Collection.Filter(Collection.Transform(groups, g -> {g.key, n: Collection.Count(g.group), rows: g.group}), r -> r.n != 10)
+    |)""".stripMargin)(_ should evaluateTo("0L"))
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.compiler.tests.offheap
+
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+import com.rawlabs.snapi.frontend.snapi._
+
+class OffHeapHashGroupByTest extends SnapiTestContext with OffHeapDatasets {
+
+  // This is to ensure the groups don't fit in memory and are spilled to partitions several times.
+  property("raw.runtime.external.disk-block-max-size", "1kB")
+  property("raw.runtime.external.hash-partitions", "4")
+  property("raw.runtime.kryo.output-buffer-size", "1kB")
+  property("raw.runtime.kryo.input-buffer-size", "1kB")
+
+  test(snapi"""// group-by, many groups
+    |let groups = Collection.GroupBy(Int.Range(0, 10000), x -> x % 1000)
+    |in {
+    |  groups: Collection.Count(groups),
+    |  wrong: Collection.Count(Collection.Filter(groups, g -> Collection.Count(g.group) != 10))
+    |}""".stripMargin)(_ should evaluateTo("{groups: 1000L, wrong: 0L}"))
+
+  test(snapi"""// group-by, rows are grouped on their key
+    |let groups = Collection.GroupBy(Int.Range(0, 10000), x -> x % 1000)
+    |in Collection.Count(
+    |  Collection.Filter(groups, g -> Collection.Count(Collection.Filter(g.group, x -> x % 1000 != g.key)) > 0)
+    |)""".stripMargin)(_ should evaluateTo("0L"))
+
+  test(snapi"""// group-by, null keys are grouped together
+    |let groups = Collection.GroupBy(Int.Range(0, 1000), x -> if (x % 2 == 0) then null else x % 3)
+    |in Collection.Transform(groups, g -> {g.key, count: Collection.Count(g.group)})""".stripMargin)(
+    _ should evaluateTo("""[{key: null, count: 500L}, {key: 0, count: 167L}, {key: 1, count: 167L},
+      |{key: 2, count: 166L}]""".stripMargin)
+  )
+
+  // Groups are hashed when sorted by key, counted or aggregated. Otherwise they come out in key order.
+  test(snapi"""// group-by, sorted groups
+    |let groups = Collection.GroupBy(Int.Range(0, 10000), x -> x % 1000)
+    |in Collection.Take(
+    |  Collection.Transform(
+    |    Collection.OrderBy(groups, g -> g.key, "ASC"),
+    |    g -> {g.key, first: Collection.First(g.group), last: Collection.Last(g.group)}
+    |  ),
+    |  3
+    |)""".stripMargin)(
+    _ should orderEvaluateTo("""[{key: 0, first: 0, last: 9000}, {key: 1, first: 1, last: 9001},
+      |{key: 2, first: 2, last: 9002}]""".stripMargin)
+  )
+
+  test(snapi"""// group-by, rows of a group are in input order
+    |let groups = Collection.GroupBy(Int.Range(0, 10000), x -> x % 1000),
+    |    str(rows: collection(int)) = Collection.MkString(Collection.Transform(rows, x -> String.From(x)), sep = ",")
+    |in Collection.Count(
+    |  Collection.Filter(groups, g -> str(g.group) != str(Int.Range(g.key, 10000, step = 1000)))
+    |)""".stripMargin)(_ should evaluateTo("0L"))
+
+  test(snapi"""// group-by, groups in key order
+    |let groups = Collection.GroupBy(Int.Range(0, 10000), x -> (7 * x) % 1000)
+    |in Collection.Take(Collection.Transform(groups, g -> {g.key, n: Collection.Count(g.group)}), 3)""".stripMargin)(
+    _ should orderEvaluateTo("[{key: 0, n: 10L}, {key: 1, n: 10L}, {key: 2, n: 10L}]")
+  )
+
+  test(snapi"""// list group-by, groups in key order
+    |let groups = List.GroupBy(List.From(Int.Range(0, 10000)), x -> (7 * x) % 1000)
+    |in List.Transform(List.Take(groups, 2), g -> {g.key, first: List.First(g.group)})""".stripMargin)(
+    _ should orderEvaluateTo("[{key: 0, first: 0}, {key: 1, first: 143}]")
+  )
+
+  test(snapi"""// list group-by, sorted groups
+    |let groups = List.GroupBy(List.From(Int.Range(0, 10000)), x -> x % 1000)
+    |in List.Transform(
+    |  List.Take(List.OrderBy(groups, g -> g.key, "DESC"), 2),
+    |  g -> {g.key, first: List.First(g.group), last: List.Last(g.group)}
+    |)""".stripMargin)(
+    _ should orderEvaluateTo("[{key: 999, first: 999, last: 9999}, {key: 998, first: 998, last: 9998}]")
+  )
+
+  test(snapi"""// list group-by, many groups
+    |let groups = List.GroupBy(List.From(Int.Range(0, 10000)), x -> x % 1000)
+    |in {
+    |  groups: List.Count(groups),
+    |  rows: List.Sum(List.Transform(groups, g -> List.Count(g.group)))
+    |}""".stripMargin)(_ should evaluateTo("{groups: 1000L, rows: 10000L}"))
+
+}
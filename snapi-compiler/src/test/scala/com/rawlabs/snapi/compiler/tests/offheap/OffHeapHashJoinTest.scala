@@ -0,0 +1,53 @@
+/*
+ * Copyright 2023 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.compiler.tests.offheap
+
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+import com.rawlabs.snapi.frontend.snapi._
+
+class OffHeapHashJoinTest extends SnapiTestContext with OffHeapDatasets {
+
+  // This is to ensure neither side of the joins fits in memory and both are partitioned on disk.
+  property("raw.runtime.external.disk-block-max-size", "1kB")
+  property("raw.runtime.external.hash-partitions", "4")
+  property("raw.runtime.kryo.output-buffer-size", "1kB")
+  property("raw.runtime.kryo.input-buffer-size", "1kB")
+
+  test(
+    snapi"""// equi-join, large against small
+      |let bands = $NTimesBandMembers,
+      |    olympics = $olympics,
+      |    join = Collection.EquiJoin(bands, olympics, b -> b.birthYear, o -> o.year)
+      |    in Collection.Count(join)""".stripMargin
+  )(_ should evaluateTo(s"${3 * N}L"))
+
+  test(snapi"""// equi-join, partitioned
+    |let join = Collection.EquiJoin(Int.Range(0, 1000), Int.Range(500, 1500), x -> x, y -> y)
+    |in Collection.Count(join)""".stripMargin)(_ should evaluateTo("500L"))
+
+  test(snapi"""// equi-join, partitioned, rows are paired on their key
+    |let join = Collection.EquiJoin(Int.Range(0, 1000), Int.Range(0, 1000), x -> x, y -> y * 2)
+    |in {
+    |  count: Collection.Count(join),
+    |  mismatches: Collection.Count(Collection.Filter(join, r -> r._1 != r._2 * 2))
+    |}""".stripMargin)(_ should evaluateTo("{count: 500L, mismatches: 0L}"))
+
+  test(snapi"""// equi-join, partitions larger than memory are joined in chunks
+    |let join = Collection.EquiJoin(Int.Range(0, 1000), Int.Range(0, 1000), x -> x % 2, y -> y % 2)
+    |in Collection.Count(join)""".stripMargin)(_ should evaluateTo("500000L"))
+
+  test(snapi"""// equi-join, empty side
+    |let join = Collection.EquiJoin(Int.Range(0, 1000), Int.Range(0, 0), x -> x, y -> y)
+    |in Collection.Count(join)""".stripMargin)(_ should evaluateTo("0L"))
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2023 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.compiler.tests.offheap
+
+import com.rawlabs.snapi.frontend.snapi._
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+
+class OffHeapMemoryBudgetTest extends SnapiTestContext {
+
+  // Operators are allowed large spills, only the query memory budget makes them spill.
+  property("raw.runtime.external.memory-budget", "64kB")
+  property("raw.runtime.external.min-spill-size", "4kB")
+  property("raw.runtime.kryo.output-buffer-size", "1kB")
+  property("raw.runtime.kryo.input-buffer-size", "1kB")
+
+  private val wideRows = snapi"""
+    |Collection.Transform(Int.Range(0, 2000), n -> {n: n, s: String.Replicate("x", 100) + String.From(n)})""".stripMargin
+
+  test(snapi"""// order-by, wide rows
+    |let sorted = Collection.OrderBy($wideRows, r -> r.n, "DESC")
+    |in {count: Collection.Count(sorted), first: Collection.First(sorted).n}""".stripMargin)(
+    _ should evaluateTo("{count: 2000L, first: 1999}")
+  )
+
+  test(snapi"""// distinct, wide rows
+    |Collection.Count(Collection.Distinct(Collection.Union($wideRows, $wideRows)))""".stripMargin)(
+    _ should evaluateTo("2000L")
+  )
+
+  test(snapi"""// group-by, wide keys
+    |let groups = Collection.GroupBy($wideRows, r -> r.s)
+    |in Collection.Count(Collection.Filter(groups, g -> Collection.Count(g.group) != 1))""".stripMargin)(
+    _ should evaluateTo("0L")
+  )
+
+  test(snapi"""// group-by, wide rows of a few groups
+    |let groups = Collection.GroupBy($wideRows, r -> r.n % 10)
+    |in Collection.Transform(
+    |  Collection.OrderBy(groups, g -> g.key, "ASC"),
+    |  g -> {g.key, n: Collection.Count(g.group)}
+    |)""".stripMargin)(
+    _ should evaluateTo("""[
+      |{key: 0, n: 200L}, {key: 1, n: 200L}, {key: 2, n: 200L}, {key: 3, n: 200L}, {key: 4, n: 200L},
+      |{key: 5, n: 200L}, {key: 6, n: 200L}, {key: 7, n: 200L}, {key: 8, n: 200L}, {key: 9, n: 200L}
+      |]""".stripMargin)
+  )
+
+  test(snapi"""// join of two wide sides sharing the budget
+    |let joined = Collection.EquiJoin($wideRows, $wideRows, l -> l.s, r -> r.s)
+    |in Collection.Count(joined)""".stripMargin)(_ should evaluateTo("2000L"))
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.compiler.tests.offheap
+
+import com.rawlabs.snapi.frontend.snapi._
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+
+class OffHeapMergeTest extends SnapiTestContext with OffHeapDatasets {
+
+  // This is to ensure the test triggers spill to disk.
+  property("raw.runtime.external.disk-block-max-size", "20kB")
+  property("raw.runtime.kryo.output-buffer-size", "1kB")
+  property("raw.runtime.kryo.input-buffer-size", "1kB")
+  // This is to ensure spilled runs are merged in several passes.
+  property("raw.runtime.external.merge-fan-in", "2")
+
+  private val distinctContent = snapi"""
+    |Collection.Transform(Int.Range(0, 1000), n ->
+    |  "The answer to life, the universe, and everything is " + String.From(n)) """.stripMargin
+
+  test(
+    snapi"""// group-by
+      |let bands = $NTimesBandMembers,
+      |    groupBySomething = Collection.GroupBy(bands, p -> p.band)
+      |    in Collection.Transform(groupBySomething, r -> {r.key, count: Collection.Count(r.group)})""".stripMargin
+  ) {
+    _ should evaluateTo(
+      snapi"""[{key: "Bee Gees", count: 3 * $N}, {key: "Neville Brothers", count: 4 * $N}, {key: "Beach Boys", count: 5 * $N}, {key: "Dream Theater", count: 5 * $N}]"""
+    )
+  }
+
+  test(
+    snapi"""// group-by
+      |let bands = List.From($NTimesBandMembers),
+      |    groupBySomething = List.GroupBy(bands, p -> p.birthYear)
+      |    in List.Transform(groupBySomething, r -> {r.key, count: List.Count(r.group)})""".stripMargin
+  ) {
+    _ should evaluateTo(
+      snapi"""[{key: 1949, count: 2 * $N}, {key: 1946, count: 1 * $N}, {key: 1941, count: 2 * $N},
+        |{key: 1937, count: 1 * $N}, {key: 1938, count: 1 * $N}, {key: 1948, count: 2 * $N},
+        |{key: 1942, count: 3 * $N}, {key: 1956, count: $N}, {key: 1963, count: 2 * $N}, {key: 1967, count: 2 * $N}]""".stripMargin
+    )
+  }
+
+  test(snapi"""// order-by
+    |let bands = $NTimesBandMembers,
+    |    orderedBySomething = Collection.OrderBy(bands, p -> p.firstName, "ASC", p -> p.lastName, "ASC")
+    |    in Collection.Transform(orderedBySomething, p -> p.firstName + " " + p.lastName)""".stripMargin) {
+    _ should orderEvaluateTo(
+      snapi"""Collection.Unnest(Collection.Build("Aaron Neville", "Al Jardine", "Art Neville", "Barry Gibb", "Brian Wilson", "Bruce Johnston",
+        |"Charles Neville", "Cyril Neville", "David Marks", "James LaBrie", "John Myung", "John Petrucci", "Jordan Ruddess",
+        |"Maurice Gibb", "Mike Love", "Mike Mangini", "Robin Gibb"), i -> Collection.Transform(Int.Range(0, $N), _ -> i))""".stripMargin
+    )
+  }
+
+  test(snapi"""// distinct
+    |Collection.Distinct(
+    |  Collection.Unnest(
+    |    Int.Range(0, 100),
+    |    _ -> $distinctContent
+    |  )
+    |)""".stripMargin)(_ should evaluateTo(distinctContent))
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+
+package com.rawlabs.snapi.compiler.tests.offheap
+
+import com.rawlabs.snapi.frontend.snapi._
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+
+class OffHeapRecordCodecTest extends SnapiTestContext {
+
+  // This is to ensure the test triggers spill to disk, so that records go through the record
+  // codec: null/error bitmap, fixed-width fields, then the variable-length fields.
+  property("raw.runtime.external.disk-block-max-size", "20kB")
+  property("raw.runtime.kryo.output-buffer-size", "1kB")
+  property("raw.runtime.kryo.input-buffer-size", "1kB")
+
+  private val rows = snapi"""
+    |Collection.Transform(
+    |  Int.Range(0, 20000),
+    |  n -> {
+    |    n: n,
+    |    x: if (n % 3 == 0) then null else n,
+    |    e: if (n % 5 == 0) then Error.Build("bad " + String.From(n)) else Long.From(n) * 2L,
+    |    s: String.From(n),
+    |    d: n % 2 == 0,
+    |    r: {a: Double.From(n), b: [n, n + 1]}
+    |  }
+    |)""".stripMargin
+
+  test(snapi"""// order-by
+    |Collection.Take(Collection.OrderBy($rows, r -> r.n, "DESC"), 6)""".stripMargin)(
+    _ should orderEvaluateTo("""[
+      |{n: 19999, x: 19999, e: 39998L, s: "19999", d: false, r: {a: 19999.0, b: [19999, 20000]}},
+      |{n: 19998, x: null, e: 39996L, s: "19998", d: true, r: {a: 19998.0, b: [19998, 19999]}},
+      |{n: 19997, x: 19997, e: 39994L, s: "19997", d: false, r: {a: 19997.0, b: [19997, 19998]}},
+      |{n: 19996, x: 19996, e: 39992L, s: "19996", d: true, r: {a: 19996.0, b: [19996, 19997]}},
+      |{n: 19995, x: null, e: Error.Build("bad 19995"), s: "19995", d: false,
+      |  r: {a: 19995.0, b: [19995, 19996]}},
+      |{n: 19994, x: 19994, e: 39988L, s: "19994", d: true, r: {a: 19994.0, b: [19994, 19995]}}
+      |]""".stripMargin)
+  )
+
+  test(snapi"""// group-by
+    |let groups = Collection.GroupBy($rows, r -> r.n % 10)
+    |in Collection.OrderBy(
+    |  Collection.Transform(
+    |    groups,
+    |    g -> {
+    |      key: g.key,
+    |      nulls: Collection.Count(Collection.Filter(g.group, r -> Nullable.IsNull(r.x))),
+    |      errors: Collection.Count(Collection.Filter(g.group, r -> Try.IsError(r.e)))
+    |    }
+    |  ),
+    |  g -> g.key,
+    |  "ASC"
+    |)""".stripMargin)(_ should orderEvaluateTo("""Collection.Transform(
+    |  Int.Range(0, 10),
+    |  k -> {
+    |    key: k,
+    |    nulls: Collection.Count(Collection.Filter(Int.Range(k, 20000, step=10), n -> n % 3 == 0)),
+    |    errors: if (k % 5 == 0) then 2000L else 0L
+    |  }
+    |)""".stripMargin))
+
+  test(snapi"""// duplicate keys
+    |let rows = Collection.Transform(Int.Range(0, 20000), n -> {k: n, a: n, a: String.From(n)})
+    |in Collection.Take(Collection.OrderBy(rows, r -> r.k, "DESC"), 2)""".stripMargin)(
+    _ should orderEvaluateTo("""[{k: 19999, a: 19999, a: "19999"}, {k: 19998, a: 19998, a: "19998"}]""")
+  )
+
+}
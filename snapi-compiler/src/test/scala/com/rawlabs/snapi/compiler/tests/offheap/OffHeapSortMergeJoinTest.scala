@@ -0,0 +1,46 @@
+/*
+ * Copyright 2023 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.compiler.tests.offheap
+
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+import com.rawlabs.snapi.frontend.snapi._
+
+class OffHeapSortMergeJoinTest extends SnapiTestContext with OffHeapDatasets {
+
+  // Equi-joins sort and merge both sides instead of using a hash join.
+  property("raw.runtime.external.hash-join", "false")
+  property("raw.runtime.external.disk-block-max-size", "20kB")
+  property("raw.runtime.kryo.output-buffer-size", "1kB")
+  property("raw.runtime.kryo.input-buffer-size", "1kB")
+
+  test(
+    snapi"""// equi-join
+      |let bands = $bandMembers,
+      |    olympics = $olympics,
+      |    join = Collection.EquiJoin(bands, olympics, b -> b.birthYear, o -> o.year)
+      |    in Collection.Transform(join, r -> { r.firstName, r.lastName, r.city })""".stripMargin
+  )(_ should evaluateTo("""[
+    |{firstName: "David", lastName: "Marks", city: "London"},
+    |{firstName: "Cyril", lastName: "Neville", city: "London"},
+    |{firstName: "Jordan", lastName: "Ruddess", city: "Melbourne"}
+    |]""".stripMargin))
+
+  test(
+    snapi"""// equi-join large
+      |let bands = $NTimesBandMembers,
+      |    olympics = $olympics,
+      |    join = Collection.EquiJoin(bands, olympics, b -> b.birthYear, o -> o.year)
+      |    in Collection.Count(join)""".stripMargin
+  )(_ should evaluateTo(s"${3 * N}L"))
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2023 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.compiler.tests.offheap
+
+import com.rawlabs.snapi.frontend.snapi._
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+
+class OffHeapSpillCompressionTest extends SnapiTestContext {
+
+  // This is to ensure the test triggers spill to disk, in files of many compressed blocks that are
+  // written and read by the query thread.
+  property("raw.runtime.external.disk-block-max-size", "20kB")
+  property("raw.runtime.kryo.output-buffer-size", "1kB")
+  property("raw.runtime.kryo.input-buffer-size", "1kB")
+  property("raw.runtime.external.spill-compression", "true")
+  property("raw.runtime.external.spill-block-size", "2kB")
+  property("raw.runtime.external.spill-io-threads", "0")
+
+  private val rows = snapi"""
+    |Collection.Transform(Int.Range(0, 20000), n -> {n: n, s: "row number " + String.From(n % 100)})""".stripMargin
+
+  test(snapi"""// group-by
+    |let groups = Collection.GroupBy($rows, r -> r.s)
+    |in Collection.Count(Collection.Filter(groups, g -> Collection.Count(g.group) != 200))""".stripMargin)(
+    _ should evaluateTo("0L")
+  )
+
+  test(snapi"""// order-by
+    |Collection.Take(Collection.OrderBy($rows, r -> r.s, "DESC", r -> r.n, "ASC"), 3)""".stripMargin)(
+    _ should orderEvaluateTo("""[
+      |{n: 99, s: "row number 99"},
+      |{n: 199, s: "row number 99"},
+      |{n: 299, s: "row number 99"}
+      |]""".stripMargin)
+  )
+
+  test(snapi"""// join, the right side is read back from disk
+    |let join = Collection.Join(Int.Range(0, 100), Int.Range(0, 2000), (l, r) -> l == r)
+    |in Collection.Count(join)""".stripMargin)(_ should evaluateTo("100L"))
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2023 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.compiler.tests.offheap
+
+import com.rawlabs.snapi.frontend.snapi._
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+
+class OffHeapSpillIoTest extends SnapiTestContext {
+
+  // This is to ensure the test triggers spill to disk, and that runs are read ahead in many blocks.
+  property("raw.runtime.external.disk-block-max-size", "20kB")
+  property("raw.runtime.kryo.output-buffer-size", "1kB")
+  property("raw.runtime.kryo.input-buffer-size", "1kB")
+  property("raw.runtime.external.prefetch-block-size", "512B")
+  property("raw.runtime.external.spill-io-threads", "4")
+
+  test(snapi"""// order-by, runs written and read ahead in the background
+    |let sorted = Collection.OrderBy(Int.Range(0, 100000), x -> x % 1000, "ASC", x -> x, "DESC")
+    |in {
+    |  count: Collection.Count(sorted),
+    |  first: Collection.First(sorted),
+    |  last: Collection.Last(sorted)
+    |}""".stripMargin)(_ should evaluateTo("{count: 100000L, first: 99000, last: 999}"))
+
+  test(snapi"""// order-by, the order is kept across blocks
+    |Collection.Take(Collection.OrderBy(Int.Range(0, 20000), x -> x, "DESC"), 5)""".stripMargin)(
+    _ should orderEvaluateTo("[19999, 19998, 19997, 19996, 19995]")
+  )
+
+  test(snapi"""// distinct, runs written and read ahead in the background
+    |Collection.Count(Collection.Distinct(Collection.Transform(Int.Range(0, 50000), x -> x % 7000)))""".stripMargin)(
+    _ should evaluateTo("7000L")
+  )
+
+}
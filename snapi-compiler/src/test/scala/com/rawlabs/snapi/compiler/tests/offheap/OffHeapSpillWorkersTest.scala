@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.compiler.tests.offheap
+
+import com.rawlabs.snapi.frontend.snapi._
+import com.rawlabs.snapi.compiler.tests.SnapiTestContext
+
+class OffHeapSpillWorkersTest extends SnapiTestContext {
+
+  // This is to ensure the test spills many runs, which are then serialized by the worker threads.
+  property("raw.runtime.external.disk-block-max-size", "20kB")
+  property("raw.runtime.kryo.output-buffer-size", "1kB")
+  property("raw.runtime.kryo.input-buffer-size", "1kB")
+  property("raw.runtime.parallel.enabled", "true")
+  property("raw.runtime.parallel.threads", "2")
+
+  test(snapi"""// order-by, runs serialized by worker threads
+    |let sorted = Collection.OrderBy(Int.Range(0, 100000), x -> x % 1000, "ASC", x -> x, "DESC")
+    |in {
+    |  count: Collection.Count(sorted),
+    |  first: Collection.First(sorted),
+    |  last: Collection.Last(sorted)
+    |}""".stripMargin)(_ should evaluateTo("{count: 100000L, first: 99000, last: 999}"))
+
+  test(snapi"""// group-by, runs serialized by worker threads
+    |let groups = Collection.GroupBy(Int.Range(0, 20000), x -> x % 1000)
+    |in Collection.Take(Collection.Transform(groups, g -> {g.key, n: Collection.Count(g.group)}), 3)""".stripMargin)(
+    _ should orderEvaluateTo("[{key: 0, n: 20L}, {key: 1, n: 20L}, {key: 2, n: 20L}]")
+  )
+
+  test(snapi"""// distinct, runs serialized by worker threads
+    |Collection.Count(Collection.Distinct(Collection.Transform(Int.Range(0, 50000), x -> x % 7000)))""".stripMargin)(
+    _ should evaluateTo("7000L")
+  )
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.frontend.inferrer.local
+
+import com.google.common.cache.{Cache, CacheBuilder}
+import com.google.common.hash.Hashing
+import com.rawlabs.snapi.frontend.inferrer.api._
+import com.rawlabs.snapi.frontend.snapi.extensions.LocationDescription
+import com.rawlabs.utils.core.RawSettings
+import com.rawlabs.utils.sources.api.Location
+import com.rawlabs.utils.sources.filesystem.api.{FileMetadata, FileSystemLocation}
+import com.typesafe.scalalogging.StrictLogging
+
+import java.io.{ObjectInputFilter, ObjectInputStream, ObjectOutputStream}
+import java.nio.charset.StandardCharsets
+import java.nio.file.attribute.FileTime
+import java.nio.file.{Files, Path, Paths, StandardCopyOption}
+import java.util.concurrent.atomic.AtomicLong
+import scala.collection.JavaConverters._
+import scala.util.control.NonFatal
+
+object LocalInferrerCache {
+  private val CACHE_SIZE = "raw.snapi.frontend.inferrer.local.cache.size"
+  private val CACHE_DIRECTORY = "raw.snapi.frontend.inferrer.local.cache.directory"
+  private val CACHE_MAX_AGE = "raw.snapi.frontend.inferrer.local.cache.max-age"
+
+  // Persisted results are inferrer outputs, made of source types, encodings, strings, boxed chars, options, vectors
+  // (which hold their elements in object arrays) and sets. Anything else is rejected before it is instantiated.
+  private val persistedClasses = ObjectInputFilter.Config.createFilter(
+    Seq(
+      "com.rawlabs.snapi.frontend.inferrer.api.*",
+      "com.rawlabs.utils.sources.api.*",
+      "java.lang.Object",
+      "java.lang.String",
+      "java.lang.Number",
+      "java.lang.Integer",
+      "java.lang.Character",
+      "java.lang.Boolean",
+      "scala.Option",
+      "scala.Some",
+      "scala.None$",
+      "scala.collection.immutable.Vector",
+      "scala.collection.immutable.Set$*",
+      "scala.collection.immutable.HashSet*",
+      "maxdepth=64",
+      "!*"
+    ).mkString(";")
+  )
+
+  // Files of the directory are removed at most this often.
+  private val pruneIntervalMillis = 60 * 60 * 1000L
+}
+
+/**
+ * Results of inferences of locations that didn't change since they were inferred, so that they aren't sampled again.
+ *
+ * A result is keyed by the inferrer input, i.e. the location and the inference options, and by a fingerprint of the
+ * location: the size and modification time of its files. Only file system locations have one; the others are always
+ * inferred. Results are kept in memory, and also written to a directory if one is configured, so that they survive
+ * restarts. Files of the directory that aren't read for the configured maximum age are removed.
+ */
+class LocalInferrerCache(implicit settings: RawSettings) extends StrictLogging {
+
+  import LocalInferrerCache._
+
+  private val cacheSize = settings.getInt(CACHE_SIZE)
+  private val maybeDirectory = settings.getStringOpt(CACHE_DIRECTORY).filter(_.nonEmpty).map(Paths.get(_))
+  private val maxAgeMillis = settings.getDuration(CACHE_MAX_AGE).toMillis
+
+  private val lastPrune = new AtomicLong(0)
+
+  private val results: Cache[String, InferrerOutput] = CacheBuilder
+    .newBuilder()
+    .maximumSize(math.max(cacheSize, 0))
+    .build[String, InferrerOutput]()
+
+  def getOrInfer(properties: InferrerInput)(infer: => InferrerOutput): InferrerOutput = {
+    val maybeKey = if (cacheSize > 0) fingerprint(properties).map(key(properties, _)) else None
+    maybeKey match {
+      case Some(k) => Option(results.getIfPresent(k)).orElse(readPersisted(k)) match {
+          case Some(output) =>
+            results.put(k, output)
+            output
+          case None =>
+            val output = infer
+            results.put(k, output)
+            persist(k, output)
+            output
+        }
+      case None => infer
+    }
+  }
+
+  private def fingerprint(properties: InferrerInput): Option[String] = {
+    try {
+      properties match {
+        case csv: CsvInferrerInput => fileFingerprint(csv.location)
+        case hjson: HjsonInferrerInput => fileFingerprint(hjson.location)
+        case json: JsonInferrerInput => fileFingerprint(json.location)
+        case xml: XmlInferrerInput => fileFingerprint(xml.location)
+        case auto: AutoInferrerInput => fileFingerprint(auto.location)
+        case csv: ManyCsvInferrerInput => filesFingerprint(csv.location)
+        case hjson: ManyHjsonInferrerInput => filesFingerprint(hjson.location)
+        case json: ManyJsonInferrerInput => filesFingerprint(json.location)
+        case xml: ManyXmlInferrerInput => filesFingerprint(xml.location)
+        case auto: ManyAutoInferrerInput => filesFingerprint(auto.location)
+        case _ => None
+      }
+    } catch {
+      case NonFatal(t) =>
+        // The inference reports the errors accessing the location.
+        logger.debug(s"Could not get the fingerprint of $properties", t)
+        None
+    }
+  }
+
+  private def fileFingerprint(location: Location): Option[String] = {
+    location match {
+      case fs: FileSystemLocation => metadataFingerprint(fs.metadata())
+      case _ => None
+    }
+  }
+
+  // Listing the files of a wildcard or a directory is cheap compared to sampling them.
+  private def filesFingerprint(location: FileSystemLocation): Option[String] = {
+    val files = location.lsWithMetadata().toVector.map {
+      case (file, metadata) =>
+        metadataFingerprint(metadata).map(f => s"${LocationDescription.locationToPublicUrl(file)} $f")
+    }
+    if (files.forall(_.isDefined)) Some(files.flatten.mkString("\n")) else None
+  }
+
+  private def metadataFingerprint(metadata: Any): Option[String] = {
+    metadata match {
+      case file: FileMetadata if file.size.isDefined && file.modifiedInstant.isDefined =>
+        Some(s"${file.size.get} ${file.modifiedInstant.get}")
+      case _ => None
+    }
+  }
+
+  // Locations are compared by their description, which holds what identifies them, credentials included. The key is a
+  // hash, so that these don't end up in file names.
+  private def key(properties: InferrerInput, fingerprint: String): String = {
+    val fields = properties.productIterator.map {
+      case l: Location => new String(
+          LocationDescription.serialize(LocationDescription.toLocationDescription(l)),
+          StandardCharsets.UTF_8
+        )
+      case v => v.toString
+    }
+    val description = s"${properties.productPrefix}(${fields.mkString(",")})\n$fingerprint"
+    Hashing.sha256().hashString(description, StandardCharsets.UTF_8).toString
+  }
+
+  private def persistedPath(directory: Path, key: String): Path = directory.resolve(s"$key.inferred")
+
+  private def readPersisted(key: String): Option[InferrerOutput] = {
+    maybeDirectory.flatMap { directory =>
+      val path = persistedPath(directory, key)
+      if (Files.isRegularFile(path)) {
+        try {
+          val is = new ObjectInputStream(Files.newInputStream(path))
+          val output =
+            try {
+              is.setObjectInputFilter(persistedClasses)
+              is.readObject().asInstanceOf[InferrerOutput]
+            } finally {
+              is.close()
+            }
+          // The age of a file is the time since it was last used.
+          Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()))
+          Some(output)
+        } catch {
+          case NonFatal(t) =>
+            // E.g. written by a version with different inferrer outputs.
+            logger.debug(s"Ignoring persisted inference $path", t)
+            None
+        }
+      } else None
+    }
+  }
+
+  private def persist(key: String, output: InferrerOutput): Unit = {
+    maybeDirectory.foreach { directory =>
+      try {
+        Files.createDirectories(directory)
+        // Written aside and moved, so that concurrent readers never see a partial file.
+        val tmp = Files.createTempFile(directory, key, ".tmp")
+        try {
+          val os = new ObjectOutputStream(Files.newOutputStream(tmp))
+          try {
+            os.writeObject(output)
+          } finally {
+            os.close()
+          }
+          Files.move(tmp, persistedPath(directory, key), StandardCopyOption.ATOMIC_MOVE)
+        } finally {
+          Files.deleteIfExists(tmp)
+        }
+      } catch {
+        case NonFatal(t) => logger.warn(s"Could not persist inference in $directory", t)
+      }
+      prune(directory)
+    }
+  }
+
+  // Removes the inferences that weren't used for the maximum age, and the files left aside by writes that didn't
+  // complete.
+  private def prune(directory: Path): Unit = {
+    val now = System.currentTimeMillis()
+    val last = lastPrune.get()
+    if (now - last >= pruneIntervalMillis && lastPrune.compareAndSet(last, now)) {
+      try {
+        val files = Files.list(directory)
+        try {
+          files.iterator().asScala.foreach { file =>
+            val name = file.getFileName.toString
+            if (name.endsWith(".inferred") || name.endsWith(".tmp")) {
+              try {
+                if (now - Files.getLastModifiedTime(file).toMillis > maxAgeMillis) Files.deleteIfExists(file)
+              } catch {
+                // E.g. removed by another cache pruning the same directory.
+                case NonFatal(t) => logger.debug(s"Could not remove persisted inference $file", t)
+              }
+            }
+          }
+        } finally {
+          files.close()
+        }
+      } catch {
+        case NonFatal(t) => logger.warn(s"Could not prune inferences in $directory", t)
+      }
+    }
+  }
+
+}
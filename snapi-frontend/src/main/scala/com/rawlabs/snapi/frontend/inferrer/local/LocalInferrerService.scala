@@ -65,7 +65,13 @@ class LocalInferrerService(implicit settings: RawSettings)
     }
   }
 
+  private val cache = new LocalInferrerCache
+
   override def infer(properties: InferrerInput): InferrerOutput = {
+    cache.getOrInfer(properties)(doInfer(properties))
+  }
+
+  private def doInfer(properties: InferrerInput): InferrerOutput = {
     try {
       properties match {
         case tbl: SqlTableInferrerInput =>
@@ -41,6 +41,9 @@ class ProgramContext(
     )
   }
 
+  // The inferences done so far, which the compiled program depends on.
+  def inferences: Map[InferrerInput, Either[String, InferrerOutput]] = inferCache.toMap
+
   def getPackage(name: String): Option[PackageExtension] = {
     dynamicPackageCache.get(name).orElse(PackageExtensionProvider.getPackage(name))
   }
@@ -59,6 +59,8 @@ trait StagedCompiler {
       .environment("RAW_PROGRAM_ENVIRONMENT", ProgramEnvironment.serializeToString(environment))
       .allowExperimentalOptions(true)
       .allowPolyglotAccess(PolyglotAccess.ALL)
+      // Worker threads only compute parallel aggregations, contexts are single-threaded otherwise.
+      .allowCreateThread(settings.getBooleanOpt("raw.runtime.parallel.enabled").getOrElse(false))
     environment.options.get("staged-compiler").foreach { stagedCompiler =>
       ctxBuilder.option("snapi.staged-compiler", stagedCompiler)
     }
@@ -1153,6 +1153,9 @@ class JoinCollectionEntry
         "The join condition function, which applies to a pair of elements, one from each collection, and returns true if they should be joined."
       )
     ),
+    info = Some("""Rows come in the order of the first collection as long as the second collection fits in memory.
+      |Otherwise the second collection is read back in blocks, and each block is joined with a batch of rows
+      |of the first collection, so that rows come in the order of these blocks.""".stripMargin),
     examples = List(
       ExampleDoc(
         """let
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.frontend.inferrer.local
+
+import com.rawlabs.snapi.frontend.inferrer.api._
+import com.rawlabs.utils.core.{RawTestSuite, RawUtils, SettingsTestContext}
+import com.rawlabs.utils.sources.filesystem.local.LocalPath
+import com.typesafe.scalalogging.StrictLogging
+import org.apache.commons.io.FileUtils
+import org.scalatest.BeforeAndAfterAll
+
+import java.io.ObjectOutputStream
+import java.nio.file.Files
+import java.nio.file.attribute.FileTime
+import java.time.Instant
+import java.time.temporal.ChronoUnit
+import scala.collection.JavaConverters._
+
+class LocalInferrerCacheTest
+    extends RawTestSuite
+    with SettingsTestContext
+    with BeforeAndAfterAll
+    with StrictLogging {
+
+  private val directory = Files.createTempDirectory("inferrer-cache")
+
+  property("raw.snapi.frontend.inferrer.local.cache.directory", directory.toString)
+
+  override def afterAll(): Unit = {
+    RawUtils.withSuppressNonFatalException(FileUtils.deleteDirectory(directory.toFile))
+    super.afterAll()
+  }
+
+  private def csvInput(file: LocalPath) =
+    CsvInferrerInput(file, None, None, None, None, None, None, None, None, None)
+
+  private def withCsvFile(content: String)(f: java.io.File => Unit): Unit = {
+    val file = java.io.File.createTempFile("inferrer-cache.", ".csv")
+    try {
+      Files.write(file.toPath, content.getBytes("UTF-8"))
+      f(file)
+    } finally {
+      RawUtils.withSuppressNonFatalException(file.delete())
+    }
+  }
+
+  test("unchanged files aren't inferred again") { _ =>
+    withCsvFile("a,b\n1,2\n") { file =>
+      val inferrer = new LocalInferrerService
+      try {
+        val cache = new LocalInferrerCache
+        var inferences = 0
+        def infer() = cache.getOrInfer(csvInput(new LocalPath(file.toPath))) {
+          inferences += 1
+          inferrer.infer(csvInput(new LocalPath(file.toPath)))
+        }
+        val first = infer()
+        assert(infer() == first)
+        assert(inferences == 1)
+
+        Files.write(file.toPath, "a,b,c\n1,2,3\n4,5,6\n".getBytes("UTF-8"))
+        assert(infer() != first)
+        assert(inferences == 2)
+      } finally {
+        RawUtils.withSuppressNonFatalException(inferrer.stop())
+      }
+    }
+  }
+
+  test("inferences are read back from the cache directory") { _ =>
+    withCsvFile("name,age\njohn,42\n") { file =>
+      val inferrer = new LocalInferrerService
+      try {
+        val input = csvInput(new LocalPath(file.toPath))
+        val first = new LocalInferrerCache().getOrInfer(input)(inferrer.infer(input))
+        // A new cache has nothing in memory.
+        val second = new LocalInferrerCache().getOrInfer(input)(fail("inferred again"))
+        assert(second == first)
+      } finally {
+        RawUtils.withSuppressNonFatalException(inferrer.stop())
+      }
+    }
+  }
+
+  test("inferences not read for the maximum age are removed") { _ =>
+    val stale = directory.resolve("stale.inferred")
+    Files.write(stale, Array[Byte](0))
+    Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(60, ChronoUnit.DAYS)))
+    withCsvFile("x,y\n1,2\n") { file =>
+      val inferrer = new LocalInferrerService
+      try {
+        val input = csvInput(new LocalPath(file.toPath))
+        new LocalInferrerCache().getOrInfer(input)(inferrer.infer(input))
+        assert(!Files.exists(stale))
+        assert(Files.list(directory).iterator().asScala.exists(_.getFileName.toString.endsWith(".inferred")))
+      } finally {
+        RawUtils.withSuppressNonFatalException(inferrer.stop())
+      }
+    }
+  }
+
+  test("persisted files with other classes aren't deserialized") { _ =>
+    withCsvFile("p,q\n1,2\n") { file =>
+      val inferrer = new LocalInferrerService
+      try {
+        val input = csvInput(new LocalPath(file.toPath))
+        val first = new LocalInferrerCache().getOrInfer(input)(inferrer.infer(input))
+        // Replace the persisted inference with an object of a class that isn't allowed.
+        Files.list(directory).iterator().asScala.filter(_.getFileName.toString.endsWith(".inferred")).foreach { path =>
+          val os = new ObjectOutputStream(Files.newOutputStream(path))
+          try os.writeObject(new java.util.HashMap[String, String]())
+          finally os.close()
+        }
+        var inferences = 0
+        val second = new LocalInferrerCache().getOrInfer(input) {
+          inferences += 1
+          inferrer.infer(input)
+        }
+        assert(inferences == 1)
+        assert(second == first)
+      } finally {
+        RawUtils.withSuppressNonFatalException(inferrer.stop())
+      }
+    }
+  }
+
+}
@@ -15,18 +15,28 @@ package com.rawlabs.snapi.truffle;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.TruffleLanguage.Env;
+import com.oracle.truffle.api.interop.InteropException;
+import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.nodes.Node;
 import com.rawlabs.compiler.ProgramEnvironment;
 import com.rawlabs.compiler.ProgramEnvironment$;
 import com.rawlabs.protocol.compiler.LocationConfig;
 import com.rawlabs.snapi.frontend.inferrer.api.InferrerService;
+import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleInternalErrorException;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import com.rawlabs.snapi.truffle.runtime.function.FunctionRegistry;
+import com.rawlabs.snapi.truffle.runtime.profiler.QueryProfile;
+import com.rawlabs.snapi.truffle.runtime.utils.MemoryBudget;
 import com.rawlabs.utils.core.RawSettings;
 import com.rawlabs.utils.core.RawUid;
+import java.io.File;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import scala.collection.JavaConverters;
 
 public final class SnapiContext {
@@ -37,6 +47,17 @@ public final class SnapiContext {
   private final OutputStream output;
   private final ProgramEnvironment programEnvironment;
   private final FunctionRegistry functionRegistry;
+  private final MemoryBudget memoryBudget;
+  private final int spillIoThreads;
+  private ExecutorService spillExecutor = null; // created on the first spill.
+  private final int splitScanThreads;
+  private ExecutorService splitScanExecutor = null; // created on the first split scan.
+  private final int parallelThreads;
+  private final int morselSize;
+  private final int topKMaxSize;
+  private ExecutorService parallelExecutor = null; // created on the first parallel aggregation.
+  private QueryProfile profile = null; // created by the profiler on the first operator.
+  private final ArrayList<File> replayFiles = new ArrayList<>(); // deleted with the context.
 
   @CompilerDirectives.TruffleBoundary
   public SnapiContext(SnapiLanguage language, Env env) {
@@ -64,12 +85,146 @@ public final class SnapiContext {
     // structure that is used to extract a ref to a function from a piece of execute snapi.
     // Functions appear as polyglot bindings after the execution of the source code.
     this.functionRegistry = new FunctionRegistry();
+
+    // Memory shared by the off-heap operators of the program.
+    this.memoryBudget =
+        new MemoryBudget(
+            rawSettings.getMemorySize("raw.runtime.external.memory-budget"),
+            rawSettings.getMemorySize("raw.runtime.external.min-spill-size"));
+    this.spillIoThreads = rawSettings.getInt("raw.runtime.external.spill-io-threads");
+    this.splitScanThreads = rawSettings.getInt("raw.runtime.split-scan.threads");
+    int threads = rawSettings.getInt("raw.runtime.parallel.threads");
+    this.parallelThreads =
+        !rawSettings.getBoolean("raw.runtime.parallel.enabled")
+            ? 0
+            : threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.morselSize = rawSettings.getInt("raw.runtime.parallel.morsel-size");
+    this.topKMaxSize = rawSettings.getInt("raw.runtime.top-k.max-size");
   }
 
   public FunctionRegistry getFunctionRegistry() {
     return functionRegistry;
   }
 
+  public MemoryBudget getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  // Background threads writing spilled files and reading them ahead, or null if they are written
+  // and read by the query thread.
+  @CompilerDirectives.TruffleBoundary
+  public synchronized ExecutorService getSpillExecutor() {
+    if (spillExecutor == null && spillIoThreads > 0) {
+      spillExecutor = newDaemonThreadPool(spillIoThreads, "raw-spill-io");
+    }
+    return spillExecutor;
+  }
+
+  // Background threads reading and decoding byte ranges of local files, or null if files are read
+  // sequentially by the query thread.
+  @CompilerDirectives.TruffleBoundary
+  public synchronized ExecutorService getSplitScanExecutor() {
+    if (splitScanExecutor == null && splitScanThreads > 0) {
+      splitScanExecutor = newDaemonThreadPool(splitScanThreads, "raw-split-scan");
+    }
+    return splitScanExecutor;
+  }
+
+  // The spill and split scan threads are plain threads, which don't keep the JVM alive. They only
+  // do I/O and decoding, never run the program.
+  private static ExecutorService newDaemonThreadPool(int threads, String name) {
+    return Executors.newFixedThreadPool(
+        threads,
+        r -> {
+          Thread t = new Thread(r, name);
+          t.setDaemon(true);
+          return t;
+        });
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public synchronized void shutdownBackgroundExecutors() {
+    if (spillExecutor != null) {
+      spillExecutor.shutdownNow();
+      spillExecutor = null;
+    }
+    if (splitScanExecutor != null) {
+      splitScanExecutor.shutdownNow();
+      splitScanExecutor = null;
+    }
+  }
+
+  // The replays of cached collections can be read until the end of the execution, so their
+  // scratch files are deleted with the context.
+  @CompilerDirectives.TruffleBoundary
+  public synchronized void registerReplayFile(File file) {
+    replayFiles.add(file);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public synchronized void deleteReplayFiles() {
+    replayFiles.forEach(File::delete);
+    replayFiles.clear();
+  }
+
+  // Worker threads computing aggregations by morsels, or null if they are computed by the query
+  // thread. They are polyglot threads, so that they can run the functions of the program.
+  @CompilerDirectives.TruffleBoundary
+  public synchronized ExecutorService getParallelExecutor() {
+    if (parallelExecutor == null && parallelThreads > 1 && env.isCreateThreadAllowed()) {
+      parallelExecutor =
+          Executors.newFixedThreadPool(
+              parallelThreads,
+              r -> {
+                Thread t = env.newTruffleThreadBuilder(r).build();
+                t.setName("raw-parallel");
+                t.setDaemon(true);
+                return t;
+              });
+    }
+    return parallelExecutor;
+  }
+
+  // The profile of the execution, published in the polyglot bindings as '@profile'.
+  @CompilerDirectives.TruffleBoundary
+  public synchronized QueryProfile getProfile() {
+    if (profile == null) {
+      profile = new QueryProfile(memoryBudget);
+      try {
+        InteropLibrary.getUncached().writeMember(getPolyglotBindings(), "@profile", profile);
+      } catch (InteropException e) {
+        throw new TruffleInternalErrorException(e);
+      }
+    }
+    return profile;
+  }
+
+  public int getParallelThreads() {
+    return parallelThreads;
+  }
+
+  public int getMorselSize() {
+    return morselSize;
+  }
+
+  public int getTopKMaxSize() {
+    return topKMaxSize;
+  }
+
+  // Polyglot threads have to be finished before the context is closed.
+  @CompilerDirectives.TruffleBoundary
+  public synchronized void shutdownParallelExecutor() {
+    if (parallelExecutor != null) {
+      parallelExecutor.shutdownNow();
+      try {
+        parallelExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      parallelExecutor = null;
+    }
+  }
+
   public SnapiLanguage getLanguage() {
     return language;
   }
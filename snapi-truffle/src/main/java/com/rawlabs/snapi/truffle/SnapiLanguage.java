@@ -18,9 +18,6 @@ import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.instrumentation.ProvidedTags;
 import com.oracle.truffle.api.instrumentation.StandardTags;
 import com.oracle.truffle.api.interop.InteropLibrary;
-import com.oracle.truffle.api.interop.UnknownIdentifierException;
-import com.oracle.truffle.api.interop.UnsupportedMessageException;
-import com.oracle.truffle.api.interop.UnsupportedTypeException;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.RootNode;
 import com.oracle.truffle.api.object.Shape;
@@ -28,7 +25,6 @@ import com.rawlabs.compiler.Entrypoint;
 import com.rawlabs.snapi.frontend.base.CompilerContext;
 import com.rawlabs.snapi.frontend.base.InitPhase;
 import com.rawlabs.snapi.frontend.base.Phase;
-import com.rawlabs.snapi.frontend.base.source.Type;
 import com.rawlabs.snapi.frontend.inferrer.api.InferrerService;
 import com.rawlabs.snapi.frontend.snapi.*;
 import com.rawlabs.snapi.frontend.snapi.PhaseDescriptor;
@@ -39,16 +35,22 @@ import com.rawlabs.snapi.frontend.snapi.phases.SugarExtensionDesugarerPhase;
 import com.rawlabs.snapi.frontend.snapi.source.InternalSourcePrettyPrinter;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiProgram;
 import com.rawlabs.snapi.frontend.snapi.source.SourceProgram;
+import com.rawlabs.snapi.truffle.ast.io.jdbc.JdbcConnectionPool;
 import com.rawlabs.snapi.truffle.emitter.TruffleEmit;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleValidationException;
+import com.rawlabs.snapi.truffle.runtime.profiler.OperatorTag;
 import com.rawlabs.snapi.truffle.runtime.record.DuplicateKeyRecord;
 import com.rawlabs.snapi.truffle.runtime.record.PureRecord;
+import com.rawlabs.snapi.truffle.runtime.record.StaticRecordLayout;
 import com.rawlabs.utils.core.RawSettings;
 import com.rawlabs.utils.core.RawUid;
 import com.typesafe.config.ConfigFactory;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.graalvm.options.OptionDescriptors;
+import org.graalvm.options.OptionValues;
 import scala.collection.JavaConverters;
 
 @TruffleLanguage.Registration(
@@ -56,7 +58,8 @@ import scala.collection.JavaConverters;
     name = "Snapi",
     version = SnapiLanguage.VERSION,
     defaultMimeType = SnapiLanguage.MIME_TYPE,
-    characterMimeTypes = SnapiLanguage.MIME_TYPE)
+    characterMimeTypes = SnapiLanguage.MIME_TYPE,
+    contextPolicy = TruffleLanguage.ContextPolicy.SHARED)
 @ProvidedTags({
   StandardTags.CallTag.class,
   StandardTags.StatementTag.class,
@@ -64,7 +67,8 @@ import scala.collection.JavaConverters;
   StandardTags.RootBodyTag.class,
   StandardTags.ExpressionTag.class,
   StandardTags.ReadVariableTag.class,
-  StandardTags.WriteVariableTag.class
+  StandardTags.WriteVariableTag.class,
+  OperatorTag.class
 })
 public final class SnapiLanguage extends TruffleLanguage<SnapiContext> {
 
@@ -77,6 +81,10 @@ public final class SnapiLanguage extends TruffleLanguage<SnapiContext> {
   private static final RawSettings defaultRawSettings =
       new RawSettings(ConfigFactory.load(), ConfigFactory.empty());
 
+  private SnapiProgramCache programCache = null; // created on the first parse.
+
+  private JdbcConnectionPool jdbcConnectionPool = null; // created on the first database query.
+
   private final Shape pureRecordShape = Shape.newBuilder().build();
   private final Shape duplicateKeyRecordShape = Shape.newBuilder().build();
 
@@ -91,6 +99,19 @@ public final class SnapiLanguage extends TruffleLanguage<SnapiContext> {
     return new DuplicateKeyRecord(duplicateKeyRecordShape);
   }
 
+  private record StaticRecordLayoutKey(List<String> keys, List<Class<?>> types) {}
+
+  private final Map<StaticRecordLayoutKey, StaticRecordLayout> staticRecordLayouts =
+      new ConcurrentHashMap<>();
+
+  // Record types with the same keys and field types share their layout, so that the nodes reading
+  // them see a single one.
+  public StaticRecordLayout getStaticRecordLayout(String[] keys, Class<?>[] types) {
+    return staticRecordLayouts.computeIfAbsent(
+        new StaticRecordLayoutKey(List.of(keys), List.of(types)),
+        k -> new StaticRecordLayout(this, keys, types));
+  }
+
   @Override
   protected final SnapiContext createContext(Env env) {
     SnapiContext context = new SnapiContext(this, env);
@@ -101,8 +122,42 @@ public final class SnapiLanguage extends TruffleLanguage<SnapiContext> {
 
   @Override
   protected void finalizeContext(SnapiContext context) {
+    context.shutdownBackgroundExecutors();
+    context.shutdownParallelExecutor();
+    context.deleteReplayFiles();
     // The language cache keeps track of active contexts, so that it knows when to shutdown itself.
-    languageCache.releaseContext(context);
+    if (languageCache.releaseContext(context)) {
+      // the engine may be kept after its last context is closed, but not its database connections.
+      closeJdbcConnectionPool();
+    }
+  }
+
+  // Compiled programs are cached by the language and shared by the contexts of an engine, so
+  // contexts share a language only if they have the same settings.
+  @Override
+  protected boolean areOptionsCompatible(OptionValues firstOptions, OptionValues newOptions) {
+    return firstOptions
+            .get(SnapiOptions.RAW_SETTINGS_KEY)
+            .equals(newOptions.get(SnapiOptions.RAW_SETTINGS_KEY))
+        && firstOptions
+            .get(SnapiOptions.STAGED_COMPILER_KEY)
+            .equals(newOptions.get(SnapiOptions.STAGED_COMPILER_KEY));
+  }
+
+  // Aggregations are computed by morsels on polyglot threads, see SnapiContext.getParallelExecutor.
+  // The language doesn't know the context a thread accesses, so whether it may be multi-threaded is
+  // checked against the settings of the context when it becomes so.
+  @Override
+  protected boolean isThreadAccessAllowed(Thread thread, boolean singleThreaded) {
+    return true;
+  }
+
+  @Override
+  protected void initializeMultiThreading(SnapiContext context) {
+    if (context.getParallelThreads() <= 1) {
+      throw new IllegalStateException(
+          "multi-threaded access to a context requires raw.runtime.parallel.enabled");
+    }
   }
 
   private static final LanguageReference<SnapiLanguage> REFERENCE =
@@ -130,6 +185,17 @@ public final class SnapiLanguage extends TruffleLanguage<SnapiContext> {
 
     String source = request.getSource().getCharacters().toString();
 
+    SnapiProgramCache programCache = getProgramCache(context.getSettings());
+    SnapiProgramCache.Key key = null;
+    if (programCache != null) {
+      key = SnapiProgramCache.key(source, context.getProgramEnvironment());
+      SnapiProgramCache.Program program = programCache.get(key, programContext);
+      if (program != null) {
+        writeTypes(context, program.getTypes());
+        return program.getCallTarget();
+      }
+    }
+
     // Parse and validate
     // If we are in staged compiler mode, use the internal parser.
     boolean frontend = true;
@@ -146,27 +212,22 @@ public final class SnapiLanguage extends TruffleLanguage<SnapiContext> {
       SourceProgram outputProgram = transpile(inputProgram, programContext);
       Entrypoint entrypoint = TruffleEmit.doEmit(outputProgram, this, programContext);
       RootNode rootNode = (RootNode) entrypoint.target();
+      Map<String, String> types = new HashMap<>();
       JavaConverters.asJavaCollection(inputProgram.methods())
           .forEach(
-              m -> {
-                try {
-                  bindings.writeMember(
-                      context.getPolyglotBindings(),
+              m ->
+                  types.put(
                       "@type:" + m.i().idn(),
-                      InternalSourcePrettyPrinter.format(tree.analyzer().idnType(m.i())));
-                } catch (UnsupportedMessageException
-                    | UnknownIdentifierException
-                    | UnsupportedTypeException e) {
-                  throw new RuntimeException(e);
-                }
-              });
+                      InternalSourcePrettyPrinter.format(tree.analyzer().idnType(m.i()))));
       if (tree.rootType().isDefined()) {
-        Type outputType = tree.rootType().get();
-        bindings.writeMember(
-            context.getPolyglotBindings(), "@type", InternalSourcePrettyPrinter.format(outputType));
-      } else {
-        if (bindings.isMemberExisting(context.getPolyglotBindings(), "@type"))
-          bindings.removeMember(context.getPolyglotBindings(), "@type");
+        types.put("@type", InternalSourcePrettyPrinter.format(tree.rootType().get()));
+      }
+      writeTypes(context, types);
+      if (programCache != null) {
+        programCache.put(
+            key,
+            new SnapiProgramCache.Program(
+                rootNode.getCallTarget(), types, programContext.inferences()));
       }
       return rootNode.getCallTarget();
     } else {
@@ -174,6 +235,17 @@ public final class SnapiLanguage extends TruffleLanguage<SnapiContext> {
     }
   }
 
+  // The types of the methods and of the program are found by the caller in the polyglot bindings.
+  private void writeTypes(SnapiContext context, Map<String, String> types) throws Exception {
+    for (Map.Entry<String, String> type : types.entrySet()) {
+      bindings.writeMember(context.getPolyglotBindings(), type.getKey(), type.getValue());
+    }
+    if (!types.containsKey("@type")
+        && bindings.isMemberExisting(context.getPolyglotBindings(), "@type")) {
+      bindings.removeMember(context.getPolyglotBindings(), "@type");
+    }
+  }
+
   private static final List<PhaseDescriptor> phases =
       Arrays.asList(
           new PhaseDescriptor(
@@ -241,6 +313,44 @@ public final class SnapiLanguage extends TruffleLanguage<SnapiContext> {
     return context.getFunctionRegistry().asPolyglot();
   }
 
+  // Created with the settings of the first context, which are the ones of all the contexts sharing
+  // this language (see areOptionsCompatible).
+  private synchronized SnapiProgramCache getProgramCache(RawSettings rawSettings) {
+    if (programCache == null) {
+      int size = rawSettings.getInt("raw.runtime.program-cache.size");
+      if (size <= 0) return null;
+      programCache =
+          new SnapiProgramCache(
+              size,
+              rawSettings.getDuration("raw.snapi.frontend.inferrer.expiry", TimeUnit.NANOSECONDS));
+    }
+    return programCache;
+  }
+
+  // Shared by the contexts of the engine, so that database connections outlive the executions that
+  // opened them.
+  @CompilerDirectives.TruffleBoundary
+  public synchronized JdbcConnectionPool getJdbcConnectionPool(RawSettings rawSettings) {
+    if (jdbcConnectionPool == null) {
+      JdbcConnectionPool pool =
+          new JdbcConnectionPool(
+              rawSettings.getInt("raw.runtime.rdbms.connection-pool.max-idle"),
+              rawSettings.getDuration(
+                  "raw.runtime.rdbms.connection-pool.idle-timeout", TimeUnit.NANOSECONDS));
+      jdbcConnectionPool = pool;
+    }
+    return jdbcConnectionPool;
+  }
+
+  // Closed once the last context of the language is closed. A later context opens a new pool.
+  @CompilerDirectives.TruffleBoundary
+  private synchronized void closeJdbcConnectionPool() {
+    if (jdbcConnectionPool != null) {
+      jdbcConnectionPool.close();
+      jdbcConnectionPool = null;
+    }
+  }
+
   public CompilerContext getCompilerContext(RawUid user, RawSettings rawSettings) {
     return languageCache.getCompilerContext(user, rawSettings);
   }
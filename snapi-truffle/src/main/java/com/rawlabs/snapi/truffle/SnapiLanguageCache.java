@@ -76,8 +76,9 @@ public class SnapiLanguageCache {
     }
   }
 
+  // Returns true if it was the last active context of its language.
   @CompilerDirectives.TruffleBoundary
-  public void releaseContext(SnapiContext context) {
+  public boolean releaseContext(SnapiContext context) {
     synchronized (activeContextsLock) {
       activeContexts.remove(context);
       if (activeContexts.isEmpty()) {
@@ -94,6 +95,7 @@ public class SnapiLanguageCache {
                 });
         map.clear();
       }
+      return activeContexts.stream().noneMatch(c -> c.getLanguage() == context.getLanguage());
     }
   }
 }
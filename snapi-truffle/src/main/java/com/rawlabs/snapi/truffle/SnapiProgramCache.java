@@ -0,0 +1,114 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.rawlabs.compiler.ProgramEnvironment;
+import com.rawlabs.compiler.ProgramEnvironment$;
+import com.rawlabs.snapi.frontend.inferrer.api.InferrerInput;
+import com.rawlabs.snapi.frontend.inferrer.api.InferrerOutput;
+import com.rawlabs.snapi.frontend.snapi.ProgramContext;
+import java.util.Map;
+import scala.Option;
+import scala.collection.JavaConverters;
+import scala.util.Either;
+
+/**
+ * Programs compiled by the language, so that executions of the same source with the same
+ * environment reuse the call target, and its compiled code, instead of compiling it again. The
+ * arguments of the execution and its trace ID aren't part of the key, since they're only read at
+ * runtime.
+ *
+ * <p>A program keeps the results of the inferences it was compiled with. Once they are older than
+ * the inferrer expiry, they are checked again on the next hit. The program is invalidated if one of
+ * them changed.
+ */
+public class SnapiProgramCache {
+
+  public record Key(String source, String environment) {}
+
+  public static final class Program {
+    private final CallTarget callTarget;
+    // the types of the methods and of the program, written in the polyglot bindings.
+    private final Map<String, String> types;
+    private final scala.collection.immutable.Map<InferrerInput, Either<String, InferrerOutput>>
+        inferences;
+    private volatile long checkedAt = System.nanoTime();
+
+    public Program(
+        CallTarget callTarget,
+        Map<String, String> types,
+        scala.collection.immutable.Map<InferrerInput, Either<String, InferrerOutput>> inferences) {
+      this.callTarget = callTarget;
+      this.types = types;
+      this.inferences = inferences;
+    }
+
+    public CallTarget getCallTarget() {
+      return callTarget;
+    }
+
+    public Map<String, String> getTypes() {
+      return types;
+    }
+  }
+
+  private final Cache<Key, Program> programs;
+  private final long inferrerExpiryNanos;
+
+  public SnapiProgramCache(int size, long inferrerExpiryNanos) {
+    this.programs = CacheBuilder.newBuilder().maximumSize(size).build();
+    this.inferrerExpiryNanos = inferrerExpiryNanos;
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public static Key key(String source, ProgramEnvironment environment) {
+    ProgramEnvironment compiled =
+        new ProgramEnvironment(
+            environment.uid(),
+            Option.empty(),
+            environment.scopes(),
+            environment.secrets(),
+            environment.locationConfigs(),
+            environment.options(),
+            environment.jdbcUrl(),
+            Option.empty());
+    return new Key(source, ProgramEnvironment$.MODULE$.serializeToString(compiled));
+  }
+
+  /** The program compiled for the key, or null if there's none or its inferences changed. */
+  @CompilerDirectives.TruffleBoundary
+  public Program get(Key key, ProgramContext programContext) {
+    Program program = programs.getIfPresent(key);
+    if (program == null || program.inferences.isEmpty()) return program;
+    long now = System.nanoTime();
+    if (now - program.checkedAt < inferrerExpiryNanos) return program;
+    for (Map.Entry<InferrerInput, Either<String, InferrerOutput>> inference :
+        JavaConverters.mapAsJavaMap(program.inferences).entrySet()) {
+      if (!programContext.infer(inference.getKey()).equals(inference.getValue())) {
+        programs.invalidate(key);
+        return null;
+      }
+    }
+    program.checkedAt = now;
+    return program;
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public void put(Key key, Program program) {
+    programs.put(key, program);
+  }
+}
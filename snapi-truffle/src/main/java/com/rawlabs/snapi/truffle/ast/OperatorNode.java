@@ -0,0 +1,149 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.ast;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.Tag;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.nodes.UnexpectedResultException;
+import com.rawlabs.snapi.truffle.runtime.primitives.*;
+import com.rawlabs.snapi.truffle.runtime.profiler.OperatorTag;
+import com.rawlabs.snapi.truffle.runtime.record.DuplicateKeyRecord;
+import com.rawlabs.snapi.truffle.runtime.record.PureRecord;
+
+// Wraps the node of an operator, to tag it for the profiler (see OperatorTag). Only operators get
+// one, so the other nodes don't carry the name and kind. All execute methods are forwarded, so the
+// wrapper doesn't box the values of its operand.
+@NodeInfo(shortName = "Operator")
+public final class OperatorNode extends ExpressionNode {
+
+  @Child private ExpressionNode operand;
+
+  private final String name;
+  private final byte kind;
+
+  public OperatorNode(ExpressionNode operand, String name, byte kind) {
+    this.operand = operand;
+    this.name = name;
+    this.kind = kind;
+  }
+
+  @Override
+  public Object executeGeneric(VirtualFrame frame) {
+    return operand.executeGeneric(frame);
+  }
+
+  @Override
+  public void executeVoid(VirtualFrame frame) {
+    operand.executeVoid(frame);
+  }
+
+  @Override
+  public boolean executeBoolean(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeBoolean(frame);
+  }
+
+  @Override
+  public byte executeByte(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeByte(frame);
+  }
+
+  @Override
+  public short executeShort(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeShort(frame);
+  }
+
+  @Override
+  public int executeInt(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeInt(frame);
+  }
+
+  @Override
+  public long executeLong(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeLong(frame);
+  }
+
+  @Override
+  public float executeFloat(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeFloat(frame);
+  }
+
+  @Override
+  public double executeDouble(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeDouble(frame);
+  }
+
+  @Override
+  public BinaryObject executeBinary(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeBinary(frame);
+  }
+
+  @Override
+  public DecimalObject executeDecimal(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeDecimal(frame);
+  }
+
+  @Override
+  public DateObject executeDate(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeDate(frame);
+  }
+
+  @Override
+  public IntervalObject executeInterval(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeInterval(frame);
+  }
+
+  @Override
+  public TimeObject executeTime(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeTime(frame);
+  }
+
+  @Override
+  public TimestampObject executeTimestamp(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeTimestamp(frame);
+  }
+
+  @Override
+  public String executeString(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeString(frame);
+  }
+
+  @Override
+  public LocationObject executeLocation(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executeLocation(frame);
+  }
+
+  @Override
+  public PureRecord executePureRecord(VirtualFrame frame) throws UnexpectedResultException {
+    return operand.executePureRecord(frame);
+  }
+
+  @Override
+  public DuplicateKeyRecord executeDuplicateKey(VirtualFrame frame)
+      throws UnexpectedResultException {
+    return operand.executeDuplicateKey(frame);
+  }
+
+  @Override
+  public boolean hasTag(Class<? extends Tag> tag) {
+    return tag == OperatorTag.class || super.hasTag(tag);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public byte getKind() {
+    return kind;
+  }
+}
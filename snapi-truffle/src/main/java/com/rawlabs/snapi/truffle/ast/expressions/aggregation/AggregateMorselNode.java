@@ -0,0 +1,84 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.ast.expressions.aggregation;
+
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.LoopNode;
+import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.ast.osr.OSRGeneratorNode;
+import com.rawlabs.snapi.truffle.ast.osr.bodies.OSRSingleAggregationBodyNode;
+import com.rawlabs.snapi.truffle.ast.osr.conditions.OSRHasNextConditionNode;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodes;
+import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodesFactory;
+
+// Aggregates the morsel passed as argument, on a worker thread (see AggregateSingleNode). Errors
+// aren't turned into an error value here, they are thrown to the query thread.
+public class AggregateMorselNode extends ExpressionNode {
+
+  @Child private LoopNode loop;
+
+  @Child
+  GeneratorNodes.GeneratorInitNode initNode = GeneratorNodesFactory.GeneratorInitNodeGen.create();
+
+  @Child
+  GeneratorNodes.GeneratorCloseNode closeNode =
+      GeneratorNodesFactory.GeneratorCloseNodeGen.create();
+
+  @Child
+  private GeneratorNodes.GeneratorHasNextNode hasNextNode =
+      GeneratorNodesFactory.GeneratorHasNextNodeGen.create();
+
+  @Child
+  IterableNodes.GetGeneratorNode getGeneratorNode =
+      IterableNodesFactory.GetGeneratorNodeGen.create();
+
+  @Child AggregatorNodes.Zero zeroNode = AggregatorNodesFactory.ZeroNodeGen.create();
+
+  private final byte aggregationType;
+
+  private final int generatorSlot;
+  private final int resultSlot;
+
+  public AggregateMorselNode(byte aggregationType, int generatorSlot, int resultSlot) {
+    loop =
+        Truffle.getRuntime()
+            .createLoopNode(
+                new OSRGeneratorNode(
+                    new OSRHasNextConditionNode(generatorSlot),
+                    new OSRSingleAggregationBodyNode(aggregationType, generatorSlot, resultSlot)));
+    this.aggregationType = aggregationType;
+    this.generatorSlot = generatorSlot;
+    this.resultSlot = resultSlot;
+  }
+
+  @Override
+  public Object executeGeneric(VirtualFrame virtualFrame) {
+    Object generator = getGeneratorNode.execute(this, virtualFrame.getArguments()[0]);
+    try {
+      initNode.execute(this, generator);
+      Object result = zeroNode.execute(this, aggregationType);
+      if (!hasNextNode.execute(this, generator)) {
+        return result;
+      }
+      virtualFrame.setObject(generatorSlot, generator);
+      virtualFrame.setObject(resultSlot, result);
+      loop.execute(virtualFrame);
+      return virtualFrame.getObject(resultSlot);
+    } finally {
+      closeNode.execute(this, generator);
+    }
+  }
+}
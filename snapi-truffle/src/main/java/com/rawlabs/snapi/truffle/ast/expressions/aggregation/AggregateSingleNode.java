@@ -12,19 +12,28 @@
 
 package com.rawlabs.snapi.truffle.ast.expressions.aggregation;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.LoopNode;
+import com.rawlabs.snapi.truffle.SnapiContext;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.ast.osr.OSRGeneratorNode;
 import com.rawlabs.snapi.truffle.ast.osr.bodies.OSRSingleAggregationBodyNode;
 import com.rawlabs.snapi.truffle.ast.osr.conditions.OSRHasNextConditionNode;
+import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleInternalErrorException;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodesFactory;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodes;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.iterable.Morsels;
 import com.rawlabs.snapi.truffle.runtime.primitives.ErrorObject;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class AggregateSingleNode extends ExpressionNode {
 
@@ -49,13 +58,28 @@ public class AggregateSingleNode extends ExpressionNode {
 
   @Child AggregatorNodes.Zero zeroNode = AggregatorNodesFactory.ZeroNodeGen.create();
 
+  @Child AggregatorNodes.Combine combineNode = AggregatorNodesFactory.CombineNodeGen.create();
+
   private final byte aggregationType;
 
   private final int generatorSlot;
   private final int resultSlot;
 
+  // aggregates a morsel on a worker thread (see AggregateMorselNode), or null if the functions of
+  // the pipeline aren't known to be pure.
+  private final RootCallTarget morselTarget;
+
   public AggregateSingleNode(
       ExpressionNode iterableNode, byte aggregationType, int generatorSlot, int resultSlot) {
+    this(iterableNode, aggregationType, generatorSlot, resultSlot, null);
+  }
+
+  public AggregateSingleNode(
+      ExpressionNode iterableNode,
+      byte aggregationType,
+      int generatorSlot,
+      int resultSlot,
+      RootCallTarget morselTarget) {
     this.iterableNode = iterableNode;
     loop =
         Truffle.getRuntime()
@@ -66,11 +90,24 @@ public class AggregateSingleNode extends ExpressionNode {
     this.aggregationType = aggregationType;
     this.generatorSlot = generatorSlot;
     this.resultSlot = resultSlot;
+    this.morselTarget = morselTarget;
   }
 
   @Override
   public Object executeGeneric(VirtualFrame virtualFrame) {
-    Object generator = getGeneratorNode.execute(this, iterableNode.executeGeneric(virtualFrame));
+    Object iterable = iterableNode.executeGeneric(virtualFrame);
+    if (morselTarget != null) {
+      Morsels morsels;
+      try {
+        morsels = splitMorsels(iterable);
+      } catch (TruffleRuntimeException e) {
+        return new ErrorObject(e.getMessage());
+      }
+      if (morsels != null) {
+        return aggregateMorsels(morsels);
+      }
+    }
+    Object generator = getGeneratorNode.execute(this, iterable);
     try {
       initNode.execute(this, generator);
       if (!hasNextNode.execute(this, generator)) {
@@ -88,4 +125,109 @@ public class AggregateSingleNode extends ExpressionNode {
       closeNode.execute(this, generator);
     }
   }
+
+  @TruffleBoundary
+  private Morsels splitMorsels(Object iterable) {
+    SnapiContext context = SnapiContext.get(this);
+    if (context.getParallelExecutor() == null) return null;
+    return Morsels.split(iterable, context.getMorselSize(), this);
+  }
+
+  // Aggregates the morsels on the worker threads and combines their results in the order of the
+  // morsels. The error reported is the one of the first morsel that fails, as if the rows were
+  // aggregated sequentially.
+  @TruffleBoundary
+  private Object aggregateMorsels(Morsels morsels) {
+    SnapiContext context = SnapiContext.get(this);
+    ExecutorService executor = context.getParallelExecutor();
+    int window = 2 * context.getParallelThreads();
+    ArrayDeque<Future<Object>> pending = new ArrayDeque<>();
+    MorselTasks tasks = new MorselTasks();
+    try {
+      Object result = zeroNode.execute(this, aggregationType);
+      TruffleRuntimeException readError = null;
+      boolean more = true;
+      while (true) {
+        while (more && pending.size() < window) {
+          Object morsel = null;
+          try {
+            morsel = morsels.next();
+          } catch (TruffleRuntimeException e) {
+            readError = e;
+          }
+          if (morsel == null) {
+            more = false;
+          } else {
+            Object m = morsel;
+            pending.add(
+                executor.submit(
+                    () -> {
+                      if (!tasks.start()) return null;
+                      try {
+                        return morselTarget.call(m);
+                      } finally {
+                        tasks.finish();
+                      }
+                    }));
+          }
+        }
+        Future<Object> future = pending.poll();
+        if (future == null) break;
+        result = combineNode.execute(this, aggregationType, result, await(future));
+      }
+      if (readError != null) throw readError;
+      return result;
+    } catch (TruffleRuntimeException e) {
+      return new ErrorObject(e.getMessage());
+    } finally {
+      tasks.stop(pending);
+      morsels.close();
+    }
+  }
+
+  // The morsels submitted to the worker threads. When the aggregation stops early, the queued
+  // morsels are cancelled and the running ones are interrupted and waited for, so that no worker
+  // still reads the source or uses the context once the query failed.
+  private static final class MorselTasks {
+    private int running = 0;
+    private boolean stopped = false;
+
+    synchronized boolean start() {
+      if (stopped) return false;
+      running++;
+      return true;
+    }
+
+    synchronized void finish() {
+      running--;
+      notifyAll();
+    }
+
+    synchronized void stop(ArrayDeque<Future<Object>> pending) {
+      stopped = true;
+      pending.forEach(f -> f.cancel(true));
+      boolean interrupted = false;
+      while (running > 0) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) Thread.currentThread().interrupt();
+    }
+  }
+
+  private static Object await(Future<Object> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TruffleInternalErrorException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException r) throw r;
+      if (e.getCause() instanceof Error r) throw r;
+      throw new TruffleInternalErrorException(e.getCause());
+    }
+  }
 }
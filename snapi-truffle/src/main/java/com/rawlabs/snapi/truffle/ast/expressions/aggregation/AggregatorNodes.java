@@ -137,4 +137,31 @@ public class AggregatorNodes {
       return next;
     }
   }
+
+  @NodeInfo(shortName = "Aggregator.Combine")
+  @GenerateUncached
+  @GenerateInline
+  @ImportStatic(Aggregations.class)
+  public abstract static class Combine extends Node {
+
+    // merges two partial results of the same aggregation, e.g. computed on different spill runs.
+    public abstract Object execute(Node node, byte aggregatorType, Object current, Object partial);
+
+    @Specialization(guards = "aggregatorType == COUNT")
+    static long combineCount(Node node, byte aggregatorType, long current, long partial) {
+      return current + partial;
+    }
+
+    @Specialization(guards = "aggregatorType != COUNT")
+    static Object combine(
+        Node node,
+        byte aggregatorType,
+        Object current,
+        Object partial,
+        @Bind("$node") Node thisNode,
+        @Cached Merge mergeNode) {
+      // a partial result of the other aggregations is merged as if it were the next value.
+      return mergeNode.execute(thisNode, aggregatorType, current, partial);
+    }
+  }
 }
@@ -75,7 +75,8 @@ public abstract class DivNode extends BinaryNode {
     // MathContext DECIMAL128 = new MathContext(34, RoundingMode.HALF_EVEN);
     // This means 34 digits before rounding
     // TODO: Check if this the rounding mode we want.
-    return new DecimalObject(a.getBigDecimal().divide(b.getBigDecimal(), MathContext.DECIMAL128));
+    return DecimalObject.valueOf(
+        a.getBigDecimal().divide(b.getBigDecimal(), MathContext.DECIMAL128));
   }
 
   public boolean isZero(Object value) {
@@ -54,6 +54,6 @@ public abstract class ModNode extends BinaryNode {
   @Specialization
   @TruffleBoundary
   protected DecimalObject mod(DecimalObject left, DecimalObject right) {
-    return new DecimalObject(left.getBigDecimal().remainder(right.getBigDecimal()));
+    return DecimalObject.valueOf(left.getBigDecimal().remainder(right.getBigDecimal()));
   }
 }
@@ -51,9 +51,16 @@ public abstract class MultNode extends BinaryNode {
     return left * right;
   }
 
-  @Specialization
+  @Specialization(
+      guards = {"left.isCompact()", "right.isCompact()"},
+      rewriteOn = ArithmeticException.class)
+  protected DecimalObject mulCompact(DecimalObject left, DecimalObject right) {
+    return DecimalObject.multiplyExact(left, right);
+  }
+
+  @Specialization(replaces = "mulCompact")
   @TruffleBoundary
   protected DecimalObject mul(DecimalObject left, DecimalObject right) {
-    return new DecimalObject(left.getBigDecimal().multiply(right.getBigDecimal()));
+    return DecimalObject.valueOf(left.getBigDecimal().multiply(right.getBigDecimal()));
   }
 }
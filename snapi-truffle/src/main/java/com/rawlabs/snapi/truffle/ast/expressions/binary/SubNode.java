@@ -51,9 +51,16 @@ public abstract class SubNode extends BinaryNode {
     return left - right;
   }
 
-  @Specialization
+  @Specialization(
+      guards = {"left.isCompact()", "right.isCompact()"},
+      rewriteOn = ArithmeticException.class)
+  protected DecimalObject subCompact(DecimalObject left, DecimalObject right) {
+    return DecimalObject.subtractExact(left, right);
+  }
+
+  @Specialization(replaces = "subCompact")
   @TruffleBoundary
   protected DecimalObject sub(DecimalObject left, DecimalObject right) {
-    return new DecimalObject(left.getBigDecimal().subtract(right.getBigDecimal()));
+    return DecimalObject.valueOf(left.getBigDecimal().subtract(right.getBigDecimal()));
   }
 }
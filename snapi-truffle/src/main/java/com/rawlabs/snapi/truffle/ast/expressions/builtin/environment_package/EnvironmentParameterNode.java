@@ -25,10 +25,9 @@ import com.rawlabs.snapi.frontend.snapi.source.SnapiType;
 import com.rawlabs.snapi.truffle.SnapiContext;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.ast.TypeGuards;
-import com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers;
 import com.rawlabs.snapi.truffle.runtime.primitives.*;
 
-@ImportStatic(value = {TypeGuards.class, StaticInitializers.class})
+@ImportStatic(value = {TypeGuards.class})
 @NodeInfo(shortName = "Environment.Parameter")
 @NodeChild(value = "key")
 @NodeField(name = "paramType", type = SnapiType.class)
@@ -41,9 +40,8 @@ public abstract class EnvironmentParameterNode extends ExpressionNode {
   protected byte getByte(
       String key,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context,
       @CachedLibrary(limit = "3") @Cached.Shared("interop") InteropLibrary bindings) {
-    TruffleObject polyglotBindings = context.getPolyglotBindings();
+    TruffleObject polyglotBindings = SnapiContext.get(thisNode).getPolyglotBindings();
     assert bindings.hasMembers(polyglotBindings);
     try {
       return (byte) bindings.readMember(polyglotBindings, key);
@@ -56,9 +54,8 @@ public abstract class EnvironmentParameterNode extends ExpressionNode {
   protected short getShort(
       String key,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context,
       @CachedLibrary(limit = "3") @Cached.Shared("interop") InteropLibrary bindings) {
-    TruffleObject polyglotBindings = context.getPolyglotBindings();
+    TruffleObject polyglotBindings = SnapiContext.get(thisNode).getPolyglotBindings();
     assert bindings.hasMembers(polyglotBindings);
     try {
       return (short) bindings.readMember(polyglotBindings, key);
@@ -71,9 +68,8 @@ public abstract class EnvironmentParameterNode extends ExpressionNode {
   protected int getInt(
       String key,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context,
       @CachedLibrary(limit = "3") @Cached.Shared("interop") InteropLibrary bindings) {
-    TruffleObject polyglotBindings = context.getPolyglotBindings();
+    TruffleObject polyglotBindings = SnapiContext.get(thisNode).getPolyglotBindings();
     assert bindings.hasMembers(polyglotBindings);
     try {
       return (int) bindings.readMember(polyglotBindings, key);
@@ -86,9 +82,8 @@ public abstract class EnvironmentParameterNode extends ExpressionNode {
   protected long getLong(
       String key,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context,
       @CachedLibrary(limit = "3") @Cached.Shared("interop") InteropLibrary bindings) {
-    TruffleObject polyglotBindings = context.getPolyglotBindings();
+    TruffleObject polyglotBindings = SnapiContext.get(thisNode).getPolyglotBindings();
     assert bindings.hasMembers(polyglotBindings);
     try {
       return (long) bindings.readMember(polyglotBindings, key);
@@ -101,9 +96,8 @@ public abstract class EnvironmentParameterNode extends ExpressionNode {
   protected float getFloat(
       String key,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context,
       @CachedLibrary(limit = "3") @Cached.Shared("interop") InteropLibrary bindings) {
-    TruffleObject polyglotBindings = context.getPolyglotBindings();
+    TruffleObject polyglotBindings = SnapiContext.get(thisNode).getPolyglotBindings();
     assert bindings.hasMembers(polyglotBindings);
     try {
       return (float) bindings.readMember(polyglotBindings, key);
@@ -116,9 +110,8 @@ public abstract class EnvironmentParameterNode extends ExpressionNode {
   protected Double getDouble(
       String key,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context,
       @CachedLibrary(limit = "3") @Cached.Shared("interop") InteropLibrary bindings) {
-    TruffleObject polyglotBindings = context.getPolyglotBindings();
+    TruffleObject polyglotBindings = SnapiContext.get(thisNode).getPolyglotBindings();
     assert bindings.hasMembers(polyglotBindings);
     try {
       return (double) bindings.readMember(polyglotBindings, key);
@@ -131,9 +124,8 @@ public abstract class EnvironmentParameterNode extends ExpressionNode {
   protected DecimalObject getDecimal(
       String key,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context,
       @CachedLibrary(limit = "3") @Cached.Shared("interop") InteropLibrary bindings) {
-    TruffleObject polyglotBindings = context.getPolyglotBindings();
+    TruffleObject polyglotBindings = SnapiContext.get(thisNode).getPolyglotBindings();
     assert bindings.hasMembers(polyglotBindings);
     try {
       return (DecimalObject) bindings.readMember(polyglotBindings, key);
@@ -146,9 +138,8 @@ public abstract class EnvironmentParameterNode extends ExpressionNode {
   protected boolean getBool(
       String key,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context,
       @CachedLibrary(limit = "3") @Cached.Shared("interop") InteropLibrary bindings) {
-    TruffleObject polyglotBindings = context.getPolyglotBindings();
+    TruffleObject polyglotBindings = SnapiContext.get(thisNode).getPolyglotBindings();
     assert bindings.hasMembers(polyglotBindings);
     try {
       return (boolean) bindings.readMember(polyglotBindings, key);
@@ -161,9 +152,8 @@ public abstract class EnvironmentParameterNode extends ExpressionNode {
   protected String getString(
       String key,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context,
       @CachedLibrary(limit = "3") @Cached.Shared("interop") InteropLibrary bindings) {
-    TruffleObject polyglotBindings = context.getPolyglotBindings();
+    TruffleObject polyglotBindings = SnapiContext.get(thisNode).getPolyglotBindings();
     assert bindings.hasMembers(polyglotBindings);
     try {
       return (String) bindings.readMember(polyglotBindings, key);
@@ -176,9 +166,8 @@ public abstract class EnvironmentParameterNode extends ExpressionNode {
   protected DateObject getDate(
       String key,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context,
       @CachedLibrary(limit = "3") @Cached.Shared("interop") InteropLibrary bindings) {
-    TruffleObject polyglotBindings = context.getPolyglotBindings();
+    TruffleObject polyglotBindings = SnapiContext.get(thisNode).getPolyglotBindings();
     assert bindings.hasMembers(polyglotBindings);
     try {
       return (DateObject) bindings.readMember(polyglotBindings, key);
@@ -191,9 +180,8 @@ public abstract class EnvironmentParameterNode extends ExpressionNode {
   protected TimeObject getTime(
       String key,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context,
       @CachedLibrary(limit = "3") @Cached.Shared("interop") InteropLibrary bindings) {
-    TruffleObject polyglotBindings = context.getPolyglotBindings();
+    TruffleObject polyglotBindings = SnapiContext.get(thisNode).getPolyglotBindings();
     assert bindings.hasMembers(polyglotBindings);
     try {
       return (TimeObject) bindings.readMember(polyglotBindings, key);
@@ -206,9 +194,8 @@ public abstract class EnvironmentParameterNode extends ExpressionNode {
   protected TimestampObject getTimestamp(
       String key,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context,
       @CachedLibrary(limit = "3") @Cached.Shared("interop") InteropLibrary bindings) {
-    TruffleObject polyglotBindings = context.getPolyglotBindings();
+    TruffleObject polyglotBindings = SnapiContext.get(thisNode).getPolyglotBindings();
     assert bindings.hasMembers(polyglotBindings);
     try {
       return (TimestampObject) bindings.readMember(polyglotBindings, key);
@@ -222,9 +209,8 @@ public abstract class EnvironmentParameterNode extends ExpressionNode {
   protected IntervalObject getInterval(
       String key,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context,
       @CachedLibrary(limit = "3") @Cached.Shared("interop") InteropLibrary bindings) {
-    TruffleObject polyglotBindings = context.getPolyglotBindings();
+    TruffleObject polyglotBindings = SnapiContext.get(thisNode).getPolyglotBindings();
     assert bindings.hasMembers(polyglotBindings);
     try {
       return (IntervalObject) bindings.readMember(polyglotBindings, key);
@@ -14,8 +14,6 @@ package com.rawlabs.snapi.truffle.ast.expressions.builtin.environment_package;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Bind;
-import com.oracle.truffle.api.dsl.Cached;
-import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeInfo;
@@ -24,14 +22,11 @@ import com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers
 import com.rawlabs.snapi.truffle.runtime.list.ObjectList;
 
 @NodeInfo(shortName = "Environment.Scopes")
-@ImportStatic(StaticInitializers.class)
 public abstract class EnvironmentScopesNode extends ExpressionNode {
 
   @Specialization
   @TruffleBoundary
-  protected static Object doScopes(
-      @Bind("$node") Node thisNode,
-      @Cached(value = "getScopes(thisNode)", neverDefault = true, dimensions = 1) String[] scopes) {
-    return new ObjectList(scopes);
+  protected static Object doScopes(@Bind("$node") Node thisNode) {
+    return new ObjectList(StaticInitializers.getScopes(thisNode));
   }
 }
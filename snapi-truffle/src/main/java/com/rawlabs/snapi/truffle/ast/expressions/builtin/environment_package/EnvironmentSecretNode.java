@@ -18,21 +18,18 @@ import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.SnapiContext;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
-import com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers;
 import com.rawlabs.snapi.truffle.runtime.primitives.ErrorObject;
 
 @NodeInfo(shortName = "Environment.Secret")
 @NodeChild(value = "key")
-@ImportStatic(StaticInitializers.class)
 public abstract class EnvironmentSecretNode extends ExpressionNode {
 
   @Specialization
   protected static Object doSecret(
       String key,
-      @Bind("$node") Node thisNode,
-      @Cached(value = "getSnapiContext(thisNode)", neverDefault = true) SnapiContext context) {
+      @Bind("$node") Node thisNode) {
     try {
-      return context.getSecret(key);
+      return SnapiContext.get(thisNode).getSecret(key);
     } catch (TruffleRuntimeException e) {
       return new ErrorObject(e.getMessage());
     }
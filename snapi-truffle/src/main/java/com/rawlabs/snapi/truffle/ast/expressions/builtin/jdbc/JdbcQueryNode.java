@@ -18,6 +18,7 @@ import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.SnapiContext;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.ast.ProgramExpressionNode;
+import com.rawlabs.snapi.truffle.ast.io.jdbc.JdbcQuery;
 import com.rawlabs.snapi.truffle.runtime.exceptions.rdbms.JdbcExceptionHandler;
 import com.rawlabs.snapi.truffle.runtime.iterable.sources.JdbcQueryCollection;
 import com.rawlabs.snapi.truffle.runtime.primitives.LocationObject;
@@ -29,16 +30,22 @@ public class JdbcQueryNode extends ExpressionNode {
   @Child private ExpressionNode locationExp;
   @Child private ExpressionNode queryExp;
   private final RootCallTarget makeRowCallTarget;
+  private final String[] columnNames;
+  private final JdbcQuery.ColumnType[] columnTypes;
   private final JdbcExceptionHandler exceptionHandler;
 
   public JdbcQueryNode(
       ExpressionNode locationExp,
       ExpressionNode queryExp,
       ProgramExpressionNode rowReader,
+      String[] columnNames,
+      JdbcQuery.ColumnType[] columnTypes,
       JdbcExceptionHandler exceptionHandler) {
     this.locationExp = locationExp;
     this.queryExp = queryExp;
     this.makeRowCallTarget = rowReader.getCallTarget();
+    this.columnNames = columnNames;
+    this.columnTypes = columnTypes;
     this.exceptionHandler = exceptionHandler;
   }
 
@@ -48,6 +55,12 @@ public class JdbcQueryNode extends ExpressionNode {
     LocationObject dbLocation = (LocationObject) locationExp.executeGeneric(virtualFrame);
     String query = (String) this.queryExp.executeGeneric(virtualFrame);
     return new JdbcQueryCollection(
-        dbLocation, query, rawSettings, makeRowCallTarget, exceptionHandler);
+        dbLocation,
+        query,
+        columnNames,
+        columnTypes,
+        rawSettings,
+        makeRowCallTarget,
+        exceptionHandler);
   }
 }
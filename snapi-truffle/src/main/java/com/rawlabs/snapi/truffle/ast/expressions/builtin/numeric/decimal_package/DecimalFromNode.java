@@ -26,39 +26,35 @@ import java.math.BigDecimal;
 public abstract class DecimalFromNode extends ExpressionNode {
 
   @Specialization
-  @TruffleBoundary
   protected DecimalObject fromByte(byte argument) {
-    return new DecimalObject(new BigDecimal(argument));
+    return new DecimalObject(argument, 0);
   }
 
   @Specialization
-  @TruffleBoundary
   protected DecimalObject fromShort(short argument) {
-    return new DecimalObject(new BigDecimal(argument));
+    return new DecimalObject(argument, 0);
   }
 
   @Specialization
-  @TruffleBoundary
   protected DecimalObject fromInt(int argument) {
-    return new DecimalObject(new BigDecimal(argument));
+    return new DecimalObject(argument, 0);
   }
 
   @Specialization
-  @TruffleBoundary
   protected DecimalObject fromLong(long argument) {
-    return new DecimalObject(new BigDecimal(argument));
+    return new DecimalObject(argument, 0);
   }
 
   @Specialization
   @TruffleBoundary
   protected DecimalObject fromFloat(float argument) {
-    return new DecimalObject(new BigDecimal(argument));
+    return DecimalObject.valueOf(new BigDecimal(argument));
   }
 
   @Specialization
   @TruffleBoundary
   protected DecimalObject fromDouble(double argument) {
-    return new DecimalObject(new BigDecimal(argument));
+    return DecimalObject.valueOf(new BigDecimal(argument));
   }
 
   @Specialization
@@ -70,7 +66,7 @@ public abstract class DecimalFromNode extends ExpressionNode {
   @TruffleBoundary
   protected Object fromString(String argument) {
     try {
-      return new DecimalObject(new BigDecimal(argument));
+      return DecimalObject.parse(argument);
     } catch (RuntimeException ex) {
       return new ErrorObject("cannot cast '" + argument + "' to decimal");
     }
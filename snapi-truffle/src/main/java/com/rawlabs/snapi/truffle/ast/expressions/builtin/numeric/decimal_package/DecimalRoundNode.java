@@ -29,12 +29,13 @@ public abstract class DecimalRoundNode extends ExpressionNode {
   @Specialization
   @TruffleBoundary
   protected DecimalObject fromInt(int argument, int precession) {
-    return new DecimalObject((new BigDecimal(argument)).round(new MathContext(precession + 1)));
+    return DecimalObject.valueOf(
+        (new BigDecimal(argument)).round(new MathContext(precession + 1)));
   }
 
   @Specialization
   @TruffleBoundary
   protected DecimalObject fromBigDecimal(DecimalObject argument, int precession) {
-    return new DecimalObject(argument.getBigDecimal().round(new MathContext(precession + 1)));
+    return DecimalObject.valueOf(argument.getBigDecimal().round(new MathContext(precession + 1)));
   }
 }
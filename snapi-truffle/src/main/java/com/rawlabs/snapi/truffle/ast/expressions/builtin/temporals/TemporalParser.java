@@ -0,0 +1,180 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.rawlabs.snapi.truffle.runtime.primitives.DateObject;
+import com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar;
+import com.rawlabs.snapi.truffle.runtime.primitives.TimeObject;
+import com.rawlabs.snapi.truffle.runtime.primitives.TimestampObject;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// Parses the temporals read from files. Texts in the default formats of the readers are decoded
+// directly to the primitive encodings of temporals, without java.time objects. Other formats, and
+// texts the direct decoding doesn't handle (e.g. invalid dates), go through the DateTimeFormatter
+// of the format (which the callers have already got from DateTimeFormatCache), so that they parse,
+// or fail, like they did.
+public final class TemporalParser {
+
+  public static final String DEFAULT_DATE_FORMAT = "yyyy-M-d";
+  public static final String DEFAULT_TIME_FORMAT = "HH:mm[:ss[.SSS]]";
+  public static final String DEFAULT_TIMESTAMP_FORMAT = "yyyy-M-d['T'][ ]HH:mm[:ss[.SSS]]";
+
+  private static final long NO_MATCH = Long.MIN_VALUE;
+
+  private TemporalParser() {}
+
+  @TruffleBoundary
+  public static DateObject parseDate(String text, String format, DateTimeFormatter formatter)
+      throws DateTimeParseException {
+    if (format.equals(DEFAULT_DATE_FORMAT)) {
+      long epochDay = date(text, 0, text.length());
+      if (epochDay != NO_MATCH) {
+        return new DateObject((int) epochDay);
+      }
+    }
+    return new DateObject(LocalDate.parse(text, formatter));
+  }
+
+  @TruffleBoundary
+  public static TimeObject parseTime(String text, String format, DateTimeFormatter formatter)
+      throws DateTimeParseException {
+    if (format.equals(DEFAULT_TIME_FORMAT)) {
+      long nanoOfDay = time(text, 0, text.length());
+      if (nanoOfDay != NO_MATCH) {
+        return new TimeObject(nanoOfDay);
+      }
+    }
+    return new TimeObject(LocalTime.parse(text, formatter));
+  }
+
+  @TruffleBoundary
+  public static TimestampObject parseTimestamp(
+      String text, String format, DateTimeFormatter formatter) throws DateTimeParseException {
+    if (format.equals(DEFAULT_TIMESTAMP_FORMAT)) {
+      long epochMicros = timestamp(text);
+      if (epochMicros != NO_MATCH) {
+        return new TimestampObject(epochMicros);
+      }
+    }
+    return new TimestampObject(LocalDateTime.parse(text, formatter));
+  }
+
+  // yyyy-M-d, with a year of four digits.
+  private static long date(String text, int from, int to) {
+    int monthAt = from + 5;
+    if (to < monthAt || text.charAt(monthAt - 1) != '-') {
+      return NO_MATCH;
+    }
+    int dayAt = text.indexOf('-', monthAt);
+    if (dayAt < 0 || dayAt >= to) {
+      return NO_MATCH;
+    }
+    dayAt++;
+    int year = digits(text, from, monthAt - 1, 4, 4);
+    int month = digits(text, monthAt, dayAt - 1, 1, 2);
+    int day = digits(text, dayAt, to, 1, 2);
+    if (year < 1 || month < 1 || month > 12 || day < 1) {
+      return NO_MATCH;
+    }
+    long epochDay = EpochCalendar.epochDay(year, month, day);
+    // days past the end of the month are resolved by the formatter.
+    if (day > 28 && EpochCalendar.month(epochDay) != month) {
+      return NO_MATCH;
+    }
+    return epochDay;
+  }
+
+  // HH:mm[:ss[.SSS]]
+  private static long time(String text, int from, int to) {
+    int length = to - from;
+    if (length != 5 && length != 8 && length != 12) {
+      return NO_MATCH;
+    }
+    if (text.charAt(from + 2) != ':') {
+      return NO_MATCH;
+    }
+    int hour = digits(text, from, from + 2, 2, 2);
+    int minute = digits(text, from + 3, from + 5, 2, 2);
+    int second = 0;
+    int millis = 0;
+    if (length >= 8) {
+      if (text.charAt(from + 5) != ':') {
+        return NO_MATCH;
+      }
+      second = digits(text, from + 6, from + 8, 2, 2);
+    }
+    if (length == 12) {
+      if (text.charAt(from + 8) != '.') {
+        return NO_MATCH;
+      }
+      millis = digits(text, from + 9, from + 12, 3, 3);
+    }
+    if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+      return NO_MATCH;
+    }
+    if (millis < 0) {
+      return NO_MATCH;
+    }
+    return hour * EpochCalendar.NANOS_PER_HOUR
+        + minute * EpochCalendar.NANOS_PER_MINUTE
+        + second * EpochCalendar.NANOS_PER_SECOND
+        + millis * EpochCalendar.NANOS_PER_MILLI;
+  }
+
+  // yyyy-M-d['T'][ ]HH:mm[:ss[.SSS]]
+  private static long timestamp(String text) {
+    int length = text.length();
+    int dateEnd = 0;
+    while (dateEnd < length && text.charAt(dateEnd) != 'T' && text.charAt(dateEnd) != ' ') {
+      dateEnd++;
+    }
+    int timeAt = dateEnd;
+    if (timeAt < length && text.charAt(timeAt) == 'T') {
+      timeAt++;
+    }
+    if (timeAt < length && text.charAt(timeAt) == ' ') {
+      timeAt++;
+    }
+    if (timeAt == dateEnd) {
+      return NO_MATCH;
+    }
+    long epochDay = date(text, 0, dateEnd);
+    long nanoOfDay = time(text, timeAt, length);
+    if (epochDay == NO_MATCH || nanoOfDay == NO_MATCH) {
+      return NO_MATCH;
+    }
+    return epochDay * EpochCalendar.MICROS_PER_DAY + nanoOfDay / EpochCalendar.NANOS_PER_MICRO;
+  }
+
+  // The number written in [from, to) with a number of digits in the given bounds, or -1.
+  private static int digits(String text, int from, int to, int minDigits, int maxDigits) {
+    int count = to - from;
+    if (count < minDigits || count > maxDigits) {
+      return -1;
+    }
+    int value = 0;
+    for (int i = from; i < to; i++) {
+      char c = text.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+}
@@ -17,6 +17,7 @@ import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import com.rawlabs.snapi.truffle.runtime.primitives.DateObject;
 import com.rawlabs.snapi.truffle.runtime.primitives.ErrorObject;
 import java.time.DateTimeException;
@@ -33,7 +34,7 @@ public abstract class DateBuildNode extends ExpressionNode {
   public Object buildDate(int y, int m, int d) {
     try {
       return new DateObject(LocalDate.of(y, m, d));
-    } catch (DateTimeException e) {
+    } catch (DateTimeException | TruffleRuntimeException e) {
       return new ErrorObject(e.getMessage());
     }
   }
@@ -17,12 +17,13 @@ import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.runtime.primitives.DateObject;
+import com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar;
 
 @NodeInfo(shortName = "Date.Day")
 @NodeChild("date")
 public abstract class DateDayNode extends ExpressionNode {
   @Specialization
   protected int getDay(DateObject date) {
-    return date.getDate().getDayOfMonth();
+    return EpochCalendar.dayOfMonth(date.getEpochDay());
   }
 }
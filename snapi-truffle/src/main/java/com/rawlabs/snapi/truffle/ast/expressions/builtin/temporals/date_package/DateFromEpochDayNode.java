@@ -12,21 +12,18 @@
 
 package com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.date_package;
 
-import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.runtime.primitives.DateObject;
-import java.time.LocalDate;
 
 @NodeInfo(shortName = "Date.FromEpochDay")
 @NodeChild("d")
 public abstract class DateFromEpochDayNode extends ExpressionNode {
 
   @Specialization
-  @TruffleBoundary
   protected DateObject FromEpochDay(Long d) {
-    return new DateObject(LocalDate.ofEpochDay(d));
+    return DateObject.ofEpochDay(d);
   }
 }
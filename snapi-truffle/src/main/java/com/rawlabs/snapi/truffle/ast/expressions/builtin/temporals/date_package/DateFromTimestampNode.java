@@ -12,24 +12,19 @@
 
 package com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.date_package;
 
-import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.runtime.primitives.DateObject;
 import com.rawlabs.snapi.truffle.runtime.primitives.TimestampObject;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 
 @NodeInfo(shortName = "Date.FromTimestamp")
 @NodeChild("timestamp")
 public abstract class DateFromTimestampNode extends ExpressionNode {
 
   @Specialization
-  @TruffleBoundary
   protected DateObject fromEpochDay(TimestampObject timestamp) {
-    LocalDateTime ts = timestamp.getTimestamp();
-    return new DateObject(LocalDate.of(ts.getYear(), ts.getMonth(), ts.getDayOfMonth()));
+    return new DateObject(Math.toIntExact(timestamp.getEpochDay()));
   }
 }
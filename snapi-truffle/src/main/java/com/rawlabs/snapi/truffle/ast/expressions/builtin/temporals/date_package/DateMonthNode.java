@@ -17,12 +17,13 @@ import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.runtime.primitives.DateObject;
+import com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar;
 
 @NodeInfo(shortName = "Date.Month")
 @NodeChild("date")
 public abstract class DateMonthNode extends ExpressionNode {
   @Specialization
   protected int getMonth(DateObject date) {
-    return date.getDate().getMonthValue();
+    return EpochCalendar.month(date.getEpochDay());
   }
 }
@@ -18,6 +18,7 @@ import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.DateTimeFormatCache;
+import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import com.rawlabs.snapi.truffle.runtime.primitives.DateObject;
 import com.rawlabs.snapi.truffle.runtime.primitives.ErrorObject;
 import java.time.LocalDate;
@@ -40,6 +41,8 @@ public abstract class DateParseNode extends ExpressionNode {
     } catch (DateTimeParseException ex) {
       return new ErrorObject(
           String.format("string '%s' does not match date template '%s'", str, format));
+    } catch (TruffleRuntimeException ex) {
+      return new ErrorObject(ex.getMessage());
     }
   }
 }
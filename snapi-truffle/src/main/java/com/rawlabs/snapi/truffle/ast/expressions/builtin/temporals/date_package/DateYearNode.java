@@ -17,12 +17,13 @@ import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.runtime.primitives.DateObject;
+import com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar;
 
 @NodeInfo(shortName = "Date.Year")
 @NodeChild("date")
 public abstract class DateYearNode extends ExpressionNode {
   @Specialization
   protected int getYear(DateObject date) {
-    return date.getDate().getYear();
+    return EpochCalendar.year(date.getEpochDay());
   }
 }
@@ -16,14 +16,15 @@ import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar;
 import com.rawlabs.snapi.truffle.runtime.primitives.TimeObject;
-import java.util.concurrent.TimeUnit;
 
 @NodeInfo(shortName = "Time.Millis")
 @NodeChild("time")
 public abstract class TimeMillisNode extends ExpressionNode {
   @Specialization
   protected int getMillis(TimeObject time) {
-    return (int) TimeUnit.NANOSECONDS.toMillis(time.getTime().getNano());
+    long nanoOfSecond = time.getNanoOfDay() % EpochCalendar.NANOS_PER_SECOND;
+    return (int) (nanoOfSecond / EpochCalendar.NANOS_PER_MILLI);
   }
 }
@@ -16,6 +16,7 @@ import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar;
 import com.rawlabs.snapi.truffle.runtime.primitives.TimeObject;
 
 @NodeInfo(shortName = "Time.Minute")
@@ -23,6 +24,6 @@ import com.rawlabs.snapi.truffle.runtime.primitives.TimeObject;
 public abstract class TimeMinuteNode extends ExpressionNode {
   @Specialization
   protected int getMinute(TimeObject time) {
-    return time.getTime().getMinute();
+    return (int) (time.getNanoOfDay() / EpochCalendar.NANOS_PER_MINUTE % 60);
   }
 }
@@ -16,6 +16,7 @@ import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar;
 import com.rawlabs.snapi.truffle.runtime.primitives.TimeObject;
 
 @NodeInfo(shortName = "Time.Second")
@@ -23,6 +24,6 @@ import com.rawlabs.snapi.truffle.runtime.primitives.TimeObject;
 public abstract class TimeSecondNode extends ExpressionNode {
   @Specialization
   protected int getSecond(TimeObject time) {
-    return time.getTime().getSecond();
+    return (int) (time.getNanoOfDay() / EpochCalendar.NANOS_PER_SECOND % 60);
   }
 }
@@ -17,6 +17,7 @@ import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import com.rawlabs.snapi.truffle.runtime.primitives.ErrorObject;
 import com.rawlabs.snapi.truffle.runtime.primitives.TimestampObject;
 import java.time.DateTimeException;
@@ -39,7 +40,7 @@ public abstract class TimestampBuildNode extends ExpressionNode {
     try {
       return new TimestampObject(
           LocalDateTime.of(y, m, d, h, mi, s, (int) TimeUnit.MILLISECONDS.toNanos(ms)));
-    } catch (DateTimeException e) {
+    } catch (DateTimeException | TruffleRuntimeException e) {
       return new ErrorObject(e.getMessage());
     }
   }
@@ -12,24 +12,19 @@
 
 package com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.timestamp_package;
 
-import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.runtime.primitives.DateObject;
+import com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar;
 import com.rawlabs.snapi.truffle.runtime.primitives.TimestampObject;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 
 @NodeInfo(shortName = "Timestamp.FromDate")
 @NodeChild("date")
 public abstract class TimestampFromDateNode extends ExpressionNode {
   @Specialization
-  @TruffleBoundary
   protected TimestampObject from(DateObject dateObj) {
-    LocalDate date = dateObj.getDate();
-    return new TimestampObject(
-        LocalDateTime.of(date.getYear(), date.getMonth(), date.getDayOfMonth(), 0, 0, 0));
+    return new TimestampObject(dateObj.getEpochDay() * EpochCalendar.MICROS_PER_DAY);
   }
 }
@@ -12,24 +12,17 @@
 
 package com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.timestamp_package;
 
-import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.runtime.primitives.TimestampObject;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
 
 @NodeInfo(shortName = "Timestamp.FromUnixTimestamp")
 @NodeChild("epoch")
 public abstract class TimestampFromUnixTimestampNode extends ExpressionNode {
   @Specialization
-  @TruffleBoundary
   protected TimestampObject fromUnixTimestamp(long epoch) {
-    ZoneId zoneID = ZoneId.of("UTC");
-    Instant instant = Instant.ofEpochSecond(epoch);
-    return new TimestampObject(LocalDateTime.ofInstant(instant, zoneID));
+    return TimestampObject.ofEpochSecond(epoch);
   }
 }
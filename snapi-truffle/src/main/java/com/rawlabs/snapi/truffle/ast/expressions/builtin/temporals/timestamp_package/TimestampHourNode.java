@@ -16,6 +16,7 @@ import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar;
 import com.rawlabs.snapi.truffle.runtime.primitives.TimestampObject;
 
 @NodeInfo(shortName = "Timestamp.Hour")
@@ -23,6 +24,6 @@ import com.rawlabs.snapi.truffle.runtime.primitives.TimestampObject;
 public abstract class TimestampHourNode extends ExpressionNode {
   @Specialization
   protected int getHour(TimestampObject timestamp) {
-    return timestamp.getTimestamp().getHour();
+    return (int) (timestamp.getMicroOfDay() / EpochCalendar.MICROS_PER_HOUR);
   }
 }
@@ -12,20 +12,19 @@
 
 package com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.timestamp_package;
 
-import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar;
 import com.rawlabs.snapi.truffle.runtime.primitives.TimestampObject;
-import java.util.concurrent.TimeUnit;
 
 @NodeInfo(shortName = "Timestamp.Millis")
 @NodeChild("timestamp")
 public abstract class TimestampMillisNode extends ExpressionNode {
   @Specialization
-  @TruffleBoundary
   protected int getMillis(TimestampObject timestamp) {
-    return (int) TimeUnit.NANOSECONDS.toMillis(timestamp.getTimestamp().getNano());
+    long microOfSecond = timestamp.getMicroOfDay() % EpochCalendar.MICROS_PER_SECOND;
+    return (int) (microOfSecond / EpochCalendar.MICROS_PER_MILLI);
   }
 }
@@ -12,7 +12,6 @@
 
 package com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.timestamp_package;
 
-import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -20,27 +19,26 @@ import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.interval_package.IntervalNodes;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
+import com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar;
 import com.rawlabs.snapi.truffle.runtime.primitives.IntervalObject;
 import com.rawlabs.snapi.truffle.runtime.primitives.TimestampObject;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.ZoneOffset;
 
 @NodeInfo(shortName = "Timestamp.TimeBucketInterval")
 @NodeChild("value")
 @NodeChild("timestamp")
 public abstract class TimestampTimeBucketIntervalNode extends ExpressionNode {
+
+  // 01-01-1973 starts on a sunday, so we give an offset so that week calculations are correct
+  private static final long OFFSET_MILLIS =
+      EpochCalendar.epochDay(1973, 1, 1) * EpochCalendar.MICROS_PER_DAY
+          / EpochCalendar.MICROS_PER_MILLI;
+
   @Specialization
-  @TruffleBoundary
   protected TimestampObject fromUnixTimestamp(
       IntervalObject intervalObj,
       TimestampObject timestampObj,
       @Cached(inline = true) IntervalNodes.IntervalToMillisStaticNode toMillisNode) {
 
-    LocalDateTime timestamp = timestampObj.getTimestamp();
-    LocalDateTime result;
-
     long millis = toMillisNode.execute(this, intervalObj);
 
     if (millis == 0)
@@ -55,26 +53,24 @@ public abstract class TimestampTimeBucketIntervalNode extends ExpressionNode {
       // the interval is only months and years we can perform the calculation on months, no
       // need for
       // approximation
-      int months1 = 12 * timestamp.getYear() + (timestamp.getMonthValue() - 1);
+      long epochDay = timestampObj.getEpochDay();
+      int months1 = 12 * EpochCalendar.year(epochDay) + (EpochCalendar.month(epochDay) - 1);
       int months2 = 12 * intervalObj.getYears() + intervalObj.getMonths();
       int truncated = (months1 / months2) * months2;
       int year = truncated / 12;
       int month = truncated % 12 + 1;
 
-      result = LocalDateTime.of(year, month, 1, 0, 0, 0);
+      return new TimestampObject(
+          EpochCalendar.epochDay(year, month, 1) * EpochCalendar.MICROS_PER_DAY);
     } else if (intervalObj.getYears() == 0 && intervalObj.getMonths() == 0) {
-      // 01-01-1973 starts on a sunday, so we give an offset so that week calculations are
-      // correct
-      long offset = LocalDateTime.of(1973, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
-      long millis1 = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
-      long truncated = ((millis1 + offset) / millis) * millis - offset;
+      long millis1 =
+          Math.floorDiv(timestampObj.getEpochMicros(), EpochCalendar.MICROS_PER_MILLI);
+      long truncated = ((millis1 + OFFSET_MILLIS) / millis) * millis - OFFSET_MILLIS;
 
-      result = LocalDateTime.ofInstant(Instant.ofEpochMilli(truncated), ZoneId.of("UTC"));
+      return new TimestampObject(truncated * EpochCalendar.MICROS_PER_MILLI);
     } else {
       throw new TruffleRuntimeException(
           "intervals in time_bucket cannot have years or months mixed with other fields.", this);
     }
-
-    return new TimestampObject(result);
   }
 }
@@ -13,118 +13,104 @@
 package com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.timestamp_package;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
+import com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar;
 import com.rawlabs.snapi.truffle.runtime.primitives.TimestampObject;
-import java.time.DayOfWeek;
-import java.time.LocalDateTime;
-import java.time.temporal.TemporalAdjusters;
 
 @NodeInfo(shortName = "Timestamp.TimeBucketString")
 @NodeChild("value")
 @NodeChild("timestamp")
 public abstract class TimestampTimeBucketStringNode extends ExpressionNode {
-  @Specialization
+
+  static final int MICROS = 0;
+  static final int MILLIS = 1;
+  static final int SECOND = 2;
+  static final int MINUTE = 3;
+  static final int HOUR = 4;
+  static final int DAY = 5;
+  static final int WEEK = 6;
+  static final int MONTH = 7;
+  static final int QUARTER = 8;
+  static final int YEAR = 9;
+  static final int DECADE = 10;
+  static final int CENTURY = 11;
+  static final int MILLENNIUM = 12;
+
+  // The unit is most often a literal, so it is resolved once, and the truncation then compiles to
+  // the arithmetic of that unit only.
+  @Specialization(guards = "cachedValue.equals(value)", limit = "3")
+  protected TimestampObject timestampTimeBucketCached(
+      String value,
+      TimestampObject timestamp,
+      @Cached("value") String cachedValue,
+      @Cached("unitOf(value)") int unit) {
+    return new TimestampObject(truncate(unit, timestamp));
+  }
+
+  @Specialization(replaces = "timestampTimeBucketCached")
+  protected TimestampObject timestampTimeBucket(String value, TimestampObject timestamp) {
+    return new TimestampObject(truncate(unitOf(value), timestamp));
+  }
+
   @TruffleBoundary
-  protected TimestampObject timestampTimeBucket(String value, TimestampObject timestampObj) {
+  int unitOf(String value) {
+    return switch (value.toLowerCase()) {
+      case "microseconds", "micros" -> MICROS;
+      case "milliseconds", "millis" -> MILLIS;
+      case "second" -> SECOND;
+      case "minute" -> MINUTE;
+      case "hour" -> HOUR;
+      case "day" -> DAY;
+      case "week" -> WEEK;
+      case "month" -> MONTH;
+      case "quarter" -> QUARTER;
+      case "year" -> YEAR;
+      case "decade" -> DECADE;
+      case "century" -> CENTURY;
+      case "millennium" -> MILLENNIUM;
+      default ->
+          throw new TruffleRuntimeException(
+              "intervals in time_bucket cannot have years or months mixed with other fields.",
+              this);
+    };
+  }
 
-    LocalDateTime timestamp = timestampObj.getTimestamp();
-    LocalDateTime result;
+  // The first microsecond of the unit the timestamp is in. Weeks start on Sunday.
+  static long truncate(int unit, TimestampObject timestamp) {
+    long micros = timestamp.getEpochMicros();
+    long epochDay = timestamp.getEpochDay();
+    int year = EpochCalendar.year(epochDay);
+    return switch (unit) {
+      case MICROS -> micros;
+      case MILLIS -> floor(micros, EpochCalendar.MICROS_PER_MILLI);
+      case SECOND -> floor(micros, EpochCalendar.MICROS_PER_SECOND);
+      case MINUTE -> floor(micros, EpochCalendar.MICROS_PER_MINUTE);
+      case HOUR -> floor(micros, EpochCalendar.MICROS_PER_HOUR);
+      case DAY -> floor(micros, EpochCalendar.MICROS_PER_DAY);
+      case WEEK -> startOfDay(epochDay - EpochCalendar.dayOfWeek(epochDay) % 7);
+      case MONTH -> startOfMonth(year, EpochCalendar.month(epochDay));
+      case QUARTER -> startOfMonth(year, ((EpochCalendar.month(epochDay) - 1) / 3) * 3 + 1);
+      case YEAR -> startOfMonth(year, 1);
+      case DECADE -> startOfMonth((year / 10) * 10, 1);
+      case CENTURY -> startOfMonth(((year - 1) / 100) * 100 + 1, 1);
+      default -> startOfMonth(((year - 1) / 1000) * 1000 + 1, 1);
+    };
+  }
 
-    switch (value.toLowerCase()) {
-      case "microseconds":
-      case "micros":
-        int nanosMic = (timestamp.getNano() / 1000) * 1000;
-        result =
-            LocalDateTime.of(
-                timestamp.getYear(),
-                timestamp.getMonthValue(),
-                timestamp.getDayOfMonth(),
-                timestamp.getHour(),
-                timestamp.getMinute(),
-                timestamp.getSecond(),
-                nanosMic);
-        break;
-      case "milliseconds":
-      case "millis":
-        int nanosMil = (timestamp.getNano() / 1000000) * 1000000;
-        result =
-            LocalDateTime.of(
-                timestamp.getYear(),
-                timestamp.getMonthValue(),
-                timestamp.getDayOfMonth(),
-                timestamp.getHour(),
-                timestamp.getMinute(),
-                timestamp.getSecond(),
-                nanosMil);
-        break;
-      case "second":
-        result =
-            LocalDateTime.of(
-                timestamp.getYear(),
-                timestamp.getMonthValue(),
-                timestamp.getDayOfMonth(),
-                timestamp.getHour(),
-                timestamp.getMinute(),
-                timestamp.getSecond());
-        break;
-      case "minute":
-        result =
-            LocalDateTime.of(
-                timestamp.getYear(),
-                timestamp.getMonthValue(),
-                timestamp.getDayOfMonth(),
-                timestamp.getHour(),
-                timestamp.getMinute());
-        break;
-      case "hour":
-        result =
-            LocalDateTime.of(
-                timestamp.getYear(),
-                timestamp.getMonthValue(),
-                timestamp.getDayOfMonth(),
-                timestamp.getHour(),
-                0);
-        break;
-      case "day":
-        result =
-            LocalDateTime.of(
-                timestamp.getYear(), timestamp.getMonthValue(), timestamp.getDayOfMonth(), 0, 0);
-        break;
-      case "week":
-        LocalDateTime d = timestamp.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
-        result = LocalDateTime.of(d.getYear(), d.getMonthValue(), d.getDayOfMonth(), 0, 0);
-        break;
-      case "month":
-        result = LocalDateTime.of(timestamp.getYear(), timestamp.getMonthValue(), 1, 0, 0);
-        break;
-      case "quarter":
-        int month = ((timestamp.getMonthValue() - 1) / 3) * 3 + 1;
-        result = LocalDateTime.of(timestamp.getYear(), month, 1, 0, 0);
-        break;
-      case "year":
-        result = LocalDateTime.of(timestamp.getYear(), 1, 1, 0, 0);
-        break;
-      case "decade":
-        int yearDec = (timestamp.getYear() / 10) * 10;
-        result = LocalDateTime.of(yearDec, 1, 1, 0, 0);
-        break;
-      case "century":
-        int yearCent = ((timestamp.getYear() - 1) / 100) * 100 + 1;
-        result = LocalDateTime.of(yearCent, 1, 1, 0, 0);
-        break;
-      case "millennium":
-        int yearMil = ((timestamp.getYear() - 1) / 1000) * 1000 + 1;
-        result = LocalDateTime.of(yearMil, 1, 1, 0, 0);
-        break;
-      default:
-        throw new TruffleRuntimeException(
-            "intervals in time_bucket cannot have years or months mixed with other fields.", this);
-    }
+  private static long startOfDay(long epochDay) {
+    return epochDay * EpochCalendar.MICROS_PER_DAY;
+  }
+
+  private static long startOfMonth(int year, int month) {
+    return startOfDay(EpochCalendar.epochDay(year, month, 1));
+  }
 
-    return new TimestampObject(result);
+  private static long floor(long micros, long unit) {
+    return Math.floorDiv(micros, unit) * unit;
   }
 }
@@ -12,21 +12,18 @@
 
 package com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.timestamp_package;
 
-import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar;
 import com.rawlabs.snapi.truffle.runtime.primitives.TimestampObject;
-import java.time.ZoneId;
 
 @NodeInfo(shortName = "Timestamp.ToUnixTimestamp")
 @NodeChild("timestamp")
 public abstract class TimestampToUnixTimestampNode extends ExpressionNode {
   @Specialization
-  @TruffleBoundary
   protected long fromUnixTimestamp(TimestampObject timestampObj) {
-    ZoneId zoneID = ZoneId.of("UTC");
-    return timestampObj.getTimestamp().atZone(zoneID).toEpochSecond();
+    return Math.floorDiv(timestampObj.getEpochMicros(), EpochCalendar.MICROS_PER_SECOND);
   }
 }
@@ -12,13 +12,14 @@
 
 package com.rawlabs.snapi.truffle.ast.expressions.function;
 
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.rawlabs.snapi.truffle.SnapiContext;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.runtime.function.Closure;
 import com.rawlabs.snapi.truffle.runtime.function.Function;
-import com.rawlabs.snapi.truffle.runtime.function.FunctionRegistry;
 import com.rawlabs.snapi.truffle.runtime.function.Lambda;
 import java.util.Arrays;
 import java.util.Objects;
@@ -27,15 +28,13 @@ public final class MethodNode extends ExpressionNode {
 
   @CompilationFinal private final Function parentFunction;
 
-  @CompilationFinal(dimensions = 1)
-  private Object[] defaultArguments;
-
-  @CompilationFinal private Object function;
+  // the lambda of a method without optional arguments nor free variables, which doesn't depend on
+  // the execution.
+  @CompilationFinal private Object lambda;
   @Children private final ExpressionNode[] defaultArgumentExps;
   private final String name;
   private final boolean hasFreeVars;
   private final boolean hasOptionalArgs;
-  private final FunctionRegistry functionRegistry = SnapiContext.get(this).getFunctionRegistry();
 
   public MethodNode(
       String name, Function f, ExpressionNode[] defaultArgumentExps, boolean hasFreeVars) {
@@ -48,34 +47,42 @@ public final class MethodNode extends ExpressionNode {
 
   @Override
   public Object executeGeneric(VirtualFrame virtualFrame) {
-    // Method can be cached
-    if (function == null) {
-      // if the method has optional arguments, we need to create a closure
-      if (hasOptionalArgs || hasFreeVars) {
-        int nArgs = defaultArgumentExps.length;
-        defaultArguments = new Object[nArgs];
-        for (int i = 0; i < nArgs; i++) {
-          if (defaultArgumentExps[i] != null) {
-            defaultArguments[i] = defaultArgumentExps[i].executeGeneric(virtualFrame);
-          } else {
-            defaultArguments[i] = null;
-          }
+    Object function;
+    // if the method has optional arguments, we need to create a closure
+    if (hasOptionalArgs || hasFreeVars) {
+      int nArgs = defaultArgumentExps.length;
+      Object[] defaultArguments = new Object[nArgs];
+      for (int i = 0; i < nArgs; i++) {
+        if (defaultArgumentExps[i] != null) {
+          defaultArguments[i] = defaultArgumentExps[i].executeGeneric(virtualFrame);
+        } else {
+          defaultArguments[i] = null;
         }
-        function =
-            new Closure(
-                this.parentFunction,
-                defaultArguments,
-                hasFreeVars ? virtualFrame.materialize() : null);
-      }
-      // Otherwise it is a lambda
-      else {
-        function = new Lambda(this.parentFunction.getCallTarget());
       }
-      // Only put actual methods in registry
-      if (name != null) {
-        functionRegistry.register(name, function);
+      function =
+          new Closure(
+              this.parentFunction,
+              defaultArguments,
+              hasFreeVars ? virtualFrame.materialize() : null);
+    }
+    // Otherwise it is a lambda, which can be cached
+    else {
+      if (lambda == null) {
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        lambda = new Lambda(this.parentFunction.getCallTarget());
       }
+      function = lambda;
+    }
+    // Only put actual methods in registry. The program may be cached and run again by another
+    // context, so they are registered in the registry of the current one.
+    if (name != null) {
+      register(name, function);
     }
     return function;
   }
+
+  @TruffleBoundary
+  private void register(String name, Object function) {
+    SnapiContext.get(this).getFunctionRegistry().register(name, function);
+  }
 }
@@ -23,9 +23,17 @@ import com.rawlabs.snapi.truffle.ast.TypeGuards;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleInternalErrorException;
 import com.rawlabs.snapi.truffle.runtime.list.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class ArrayOperationNodes {
 
+  // Capacity of the arrays that lists of unknown size are built in (see ArrayAppendNode).
+  public static final int INITIAL_CAPACITY = 16;
+
+  private static int grownCapacity(int capacity) {
+    return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(INITIAL_CAPACITY, 2L * capacity));
+  }
+
   @NodeInfo(shortName = "ArrayOperation.Build")
   @GenerateUncached
   @GenerateInline
@@ -198,4 +206,134 @@ public class ArrayOperationNodes {
       array[idx] = item;
     }
   }
+
+  /**
+   * Sets the item at the given index of an array built by ArrayBuildNode, after growing the array
+   * geometrically if it is full. Returns the array, which is a new one if it grew. Used to build
+   * lists of unknown size in an array of their element type, without boxing their items.
+   */
+  @NodeInfo(shortName = "ArrayOperation.Append")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class ArrayAppendNode extends Node {
+
+    public abstract Object execute(Node node, Object array, Object item, int idx);
+
+    @Specialization
+    static byte[] appendByte(Node node, byte[] array, byte item, int idx) {
+      byte[] result = idx < array.length ? array : Arrays.copyOf(array, grownCapacity(idx));
+      result[idx] = item;
+      return result;
+    }
+
+    @Specialization
+    static short[] appendShort(Node node, short[] array, short item, int idx) {
+      short[] result = idx < array.length ? array : Arrays.copyOf(array, grownCapacity(idx));
+      result[idx] = item;
+      return result;
+    }
+
+    @Specialization
+    static int[] appendInt(Node node, int[] array, int item, int idx) {
+      int[] result = idx < array.length ? array : Arrays.copyOf(array, grownCapacity(idx));
+      result[idx] = item;
+      return result;
+    }
+
+    @Specialization
+    static long[] appendLong(Node node, long[] array, long item, int idx) {
+      long[] result = idx < array.length ? array : Arrays.copyOf(array, grownCapacity(idx));
+      result[idx] = item;
+      return result;
+    }
+
+    @Specialization
+    static float[] appendFloat(Node node, float[] array, float item, int idx) {
+      float[] result = idx < array.length ? array : Arrays.copyOf(array, grownCapacity(idx));
+      result[idx] = item;
+      return result;
+    }
+
+    @Specialization
+    static double[] appendDouble(Node node, double[] array, double item, int idx) {
+      double[] result = idx < array.length ? array : Arrays.copyOf(array, grownCapacity(idx));
+      result[idx] = item;
+      return result;
+    }
+
+    @Specialization
+    static boolean[] appendBoolean(Node node, boolean[] array, boolean item, int idx) {
+      boolean[] result = idx < array.length ? array : Arrays.copyOf(array, grownCapacity(idx));
+      result[idx] = item;
+      return result;
+    }
+
+    @Specialization
+    static String[] appendString(Node node, String[] array, String item, int idx) {
+      String[] result = idx < array.length ? array : Arrays.copyOf(array, grownCapacity(idx));
+      result[idx] = item;
+      return result;
+    }
+
+    @Specialization
+    static Object[] appendObject(Node node, Object[] array, Object item, int idx) {
+      Object[] result = idx < array.length ? array : Arrays.copyOf(array, grownCapacity(idx));
+      result[idx] = item;
+      return result;
+    }
+  }
+
+  /** Returns an array with the first items of the given one, which is itself if they all are. */
+  @NodeInfo(shortName = "ArrayOperation.Trim")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class ArrayTrimNode extends Node {
+
+    public abstract Object execute(Node node, Object array, int size);
+
+    @Specialization
+    static byte[] trimByte(Node node, byte[] array, int size) {
+      return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+    @Specialization
+    static short[] trimShort(Node node, short[] array, int size) {
+      return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+    @Specialization
+    static int[] trimInt(Node node, int[] array, int size) {
+      return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+    @Specialization
+    static long[] trimLong(Node node, long[] array, int size) {
+      return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+    @Specialization
+    static float[] trimFloat(Node node, float[] array, int size) {
+      return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+    @Specialization
+    static double[] trimDouble(Node node, double[] array, int size) {
+      return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+    @Specialization
+    static boolean[] trimBoolean(Node node, boolean[] array, int size) {
+      return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+    @Specialization
+    static String[] trimString(Node node, String[] array, int size) {
+      return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+    @Specialization
+    static Object[] trimObject(Node node, Object[] array, int size) {
+      return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+  }
 }
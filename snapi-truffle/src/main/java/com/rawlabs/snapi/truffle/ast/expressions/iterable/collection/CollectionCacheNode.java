@@ -0,0 +1,35 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.ast.expressions.iterable.collection;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
+import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.iterable.operations.CacheCollection;
+
+@NodeInfo(shortName = "Collection.Cache")
+public class CollectionCacheNode extends ExpressionNode {
+  @Child private ExpressionNode input;
+  private final SnapiTypeWithProperties rowType;
+
+  public CollectionCacheNode(ExpressionNode input, SnapiTypeWithProperties rowType) {
+    this.input = input;
+    this.rowType = rowType;
+  }
+
+  @Override
+  public Object executeGeneric(VirtualFrame frame) {
+    return new CacheCollection(input.executeGeneric(frame), rowType);
+  }
+}
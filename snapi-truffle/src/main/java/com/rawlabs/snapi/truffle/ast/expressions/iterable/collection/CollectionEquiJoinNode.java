@@ -1,5 +1,5 @@
 /*
- * Copyright 2023 RAW Labs S.A.
+ * Copyright 2024 RAW Labs S.A.
  *
  * Use of this software is governed by the Business Source License
  * included in the file licenses/BSL.txt.
@@ -12,84 +12,88 @@
 
 package com.rawlabs.snapi.truffle.ast.expressions.iterable.collection;
 
+import com.oracle.truffle.api.dsl.*;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers;
 import com.rawlabs.snapi.truffle.runtime.iterable.operations.EquiJoinCollection;
 
 @NodeInfo(shortName = "Collection.EquiJoin")
-public class CollectionEquiJoinNode extends ExpressionNode {
-  @Child private ExpressionNode left;
-  @Child private ExpressionNode right;
-  @Child private ExpressionNode leftKeyFun;
-  @Child private ExpressionNode rightKeyFun;
-  @Child private ExpressionNode remapFun;
+@NodeChild("left")
+@NodeChild("leftKeyFun")
+@NodeChild("right")
+@NodeChild("rightKeyFun")
+@NodeChild("remapFun")
+@NodeField(name = "keyType", type = SnapiTypeWithProperties.class)
+@NodeField(name = "leftValueType", type = SnapiTypeWithProperties.class)
+@NodeField(name = "rightValueType", type = SnapiTypeWithProperties.class)
+@NodeField(name = "computeNextSlot", type = int.class)
+@NodeField(name = "shouldContinueSlot", type = int.class)
+@NodeField(name = "generatorSlot", type = int.class)
+@NodeField(name = "keyFunctionSlot", type = int.class)
+@NodeField(name = "mapSlot", type = int.class)
+@ImportStatic(StaticInitializers.class)
+public abstract class CollectionEquiJoinNode extends ExpressionNode {
 
-  private final SnapiTypeWithProperties leftValueType;
-  private final SnapiTypeWithProperties rightValueType;
-  private final SnapiTypeWithProperties keyType;
+  @Idempotent
+  protected abstract SnapiTypeWithProperties getKeyType();
 
-  private final int computeNextSlot;
-  private final int shouldContinueSlot;
-  private final int generatorSlot;
-  private final int keyFunctionSlot;
-  private final int mapSlot;
+  @Idempotent
+  protected abstract SnapiTypeWithProperties getLeftValueType();
 
-  public CollectionEquiJoinNode(
-      ExpressionNode left,
-      ExpressionNode right,
-      ExpressionNode leftKeyFun,
-      ExpressionNode rightKeyFun,
-      SnapiTypeWithProperties keyType,
-      SnapiTypeWithProperties leftValueType,
-      SnapiTypeWithProperties rightValueType,
-      ExpressionNode remapFun,
-      int computeNextSlot,
-      int shouldContinueSlot,
-      int generatorSlot,
-      int keyFunctionSlot,
-      int mapSlot) {
-    this.remapFun = remapFun;
-    this.keyType = keyType;
-    // left
-    this.left = left;
-    this.leftKeyFun = leftKeyFun;
-    this.leftValueType = leftValueType;
-    // right
-    this.right = right;
-    this.rightKeyFun = rightKeyFun;
-    this.rightValueType = rightValueType;
+  @Idempotent
+  protected abstract SnapiTypeWithProperties getRightValueType();
 
-    this.computeNextSlot = computeNextSlot;
-    this.shouldContinueSlot = shouldContinueSlot;
-    this.generatorSlot = generatorSlot;
-    this.keyFunctionSlot = keyFunctionSlot;
-    this.mapSlot = mapSlot;
-  }
+  @Idempotent
+  protected abstract int getComputeNextSlot();
+
+  @Idempotent
+  protected abstract int getShouldContinueSlot();
+
+  @Idempotent
+  protected abstract int getGeneratorSlot();
+
+  @Idempotent
+  protected abstract int getKeyFunctionSlot();
 
-  @Override
-  public Object executeGeneric(VirtualFrame frame) {
-    Object leftIterable = left.executeGeneric(frame);
-    Object leftKeyF = leftKeyFun.executeGeneric(frame);
-    Object rightIterable = right.executeGeneric(frame);
-    Object rightKeyF = rightKeyFun.executeGeneric(frame);
-    Object remapF = remapFun.executeGeneric(frame);
+  @Idempotent
+  protected abstract int getMapSlot();
 
+  @Specialization
+  protected static Object doEquiJoin(
+      VirtualFrame frame,
+      Object leftIterable,
+      Object leftKeyF,
+      Object rightIterable,
+      Object rightKeyF,
+      Object remapF,
+      @Bind("$node") Node thisNode,
+      @Cached(value = "useHashJoin(thisNode)", allowUncached = true) boolean hashJoin,
+      @Cached(value = "getContextValues(thisNode)", dimensions = 1, allowUncached = true)
+          long[] contextValues) {
+    CollectionEquiJoinNode equiJoinNode = (CollectionEquiJoinNode) thisNode;
     return new EquiJoinCollection(
         leftIterable,
         leftKeyF,
-        leftValueType,
+        equiJoinNode.getLeftValueType(),
         rightIterable,
         rightKeyF,
-        rightValueType,
-        keyType,
+        equiJoinNode.getRightValueType(),
+        equiJoinNode.getKeyType(),
         remapF,
+        hashJoin,
+        contextValues[0],
+        (int) contextValues[1],
+        (int) contextValues[2],
+        (int) contextValues[5],
         frame.materialize(),
-        computeNextSlot,
-        shouldContinueSlot,
-        generatorSlot,
-        keyFunctionSlot,
-        mapSlot);
+        equiJoinNode.getComputeNextSlot(),
+        equiJoinNode.getShouldContinueSlot(),
+        equiJoinNode.getGeneratorSlot(),
+        equiJoinNode.getKeyFunctionSlot(),
+        equiJoinNode.getMapSlot());
   }
 }
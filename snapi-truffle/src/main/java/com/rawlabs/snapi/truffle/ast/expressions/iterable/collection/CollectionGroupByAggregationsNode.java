@@ -0,0 +1,91 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.ast.expressions.iterable.collection;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
+import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.GroupAggregations;
+import com.rawlabs.snapi.truffle.runtime.iterable.operations.GroupByCollection;
+
+// Collection.GroupBy whose groups are only used through aggregations. The group records have the
+// results of the aggregations instead of the group.
+@NodeInfo(shortName = "Collection.GroupBy")
+public class CollectionGroupByAggregationsNode extends ExpressionNode {
+
+  @Child private ExpressionNode iterableNode;
+  @Child private ExpressionNode keyFunNode;
+
+  // functions applied to the rows before aggregating them, null to aggregate the rows.
+  @Children private final ExpressionNode[] functionNodes;
+
+  private final SnapiTypeWithProperties keyType;
+  private final SnapiTypeWithProperties rowType;
+  private final byte[] aggregationTypes;
+  private final SnapiTypeWithProperties[] resultTypes;
+  private final String[] fields;
+  private final int generatorSlot;
+  private final int functionSlot;
+  private final int mapSlot;
+
+  public CollectionGroupByAggregationsNode(
+      ExpressionNode iterableNode,
+      ExpressionNode keyFunNode,
+      ExpressionNode[] functionNodes,
+      SnapiTypeWithProperties keyType,
+      SnapiTypeWithProperties rowType,
+      byte[] aggregationTypes,
+      SnapiTypeWithProperties[] resultTypes,
+      String[] fields,
+      int generatorSlot,
+      int functionSlot,
+      int mapSlot) {
+    this.iterableNode = iterableNode;
+    this.keyFunNode = keyFunNode;
+    this.functionNodes = functionNodes;
+    this.keyType = keyType;
+    this.rowType = rowType;
+    this.aggregationTypes = aggregationTypes;
+    this.resultTypes = resultTypes;
+    this.fields = fields;
+    this.generatorSlot = generatorSlot;
+    this.functionSlot = functionSlot;
+    this.mapSlot = mapSlot;
+  }
+
+  @Override
+  @ExplodeLoop
+  public Object executeGeneric(VirtualFrame frame) {
+    Object iterable = iterableNode.executeGeneric(frame);
+    Object keyFun = keyFunNode.executeGeneric(frame);
+    Object[] functions = new Object[functionNodes.length];
+    for (int i = 0; i < functionNodes.length; i++) {
+      if (functionNodes[i] != null) {
+        functions[i] = functionNodes[i].executeGeneric(frame);
+      }
+    }
+    return new GroupByCollection(
+        iterable,
+        keyFun,
+        keyType,
+        rowType,
+        frame.materialize(),
+        generatorSlot,
+        functionSlot,
+        mapSlot,
+        new GroupAggregations(aggregationTypes, functions, resultTypes, fields),
+        true);
+  }
+}
@@ -27,6 +27,7 @@ import com.rawlabs.snapi.truffle.runtime.iterable.operations.GroupByCollection;
 @NodeField(name = "generatorSlot", type = int.class)
 @NodeField(name = "functionSlot", type = int.class)
 @NodeField(name = "mapSlot", type = int.class)
+@NodeField(name = "hashed", type = boolean.class)
 public abstract class CollectionGroupByNode extends ExpressionNode {
 
   @Idempotent
@@ -44,6 +45,9 @@ public abstract class CollectionGroupByNode extends ExpressionNode {
   @Idempotent
   protected abstract int getMapSlot();
 
+  @Idempotent
+  protected abstract boolean getHashed();
+
   @Specialization
   protected Object doGroup(VirtualFrame frame, Object iterable, Object keyFun) {
     return new GroupByCollection(
@@ -54,6 +58,8 @@ public abstract class CollectionGroupByNode extends ExpressionNode {
         frame.materialize(),
         getGeneratorSlot(),
         getFunctionSlot(),
-        getMapSlot());
+        getMapSlot(),
+        null,
+        getHashed());
   }
 }
@@ -65,8 +65,8 @@ public abstract class CollectionJoinNode extends ExpressionNode {
       Object remap,
       Object predicate,
       @Bind("$node") Node thisNode,
-      @Cached(value = "getKryoOutputBufferSize(thisNode)", neverDefault = true)
-          int kryoOutputBufferSize) {
+      @Cached(value = "getContextValues(thisNode)", dimensions = 1, allowUncached = true)
+          long[] contextValues) {
     CollectionJoinNode joinNode = (CollectionJoinNode) thisNode;
     return new JoinCollection(
         leftIterable,
@@ -75,7 +75,10 @@ public abstract class CollectionJoinNode extends ExpressionNode {
         predicate,
         joinNode.getRightType(),
         joinNode.getReshapeBeforePredicate(),
-        kryoOutputBufferSize,
+        (int) contextValues[1],
+        (int) contextValues[2],
+        contextValues[0],
+        (int) contextValues[4],
         frame.materialize(),
         joinNode.getComputeNextSlot(),
         joinNode.getShouldContinueSlot(),
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.ast.expressions.iterable.collection;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.nodes.UnexpectedResultException;
+import com.rawlabs.snapi.truffle.SnapiContext;
+import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
+import com.rawlabs.snapi.truffle.runtime.iterable.operations.OrderByCollection;
+import com.rawlabs.snapi.truffle.runtime.iterable.operations.TakeCollection;
+import com.rawlabs.snapi.truffle.runtime.iterable.operations.TopKCollection;
+
+// Collection.Take of a Collection.OrderBy. When few enough rows are taken, they are kept in a
+// bounded heap while the collection is read, instead of sorting the whole collection. `orderBy` is
+// the Collection.OrderBy node itself, not an operator: the top-k is reported in its place.
+@NodeInfo(shortName = "Collection.TopK")
+public class CollectionTopKNode extends ExpressionNode {
+  @Child private ExpressionNode orderBy;
+  @Child private ExpressionNode takeCount;
+  private final int heapSlot;
+
+  public CollectionTopKNode(ExpressionNode orderBy, ExpressionNode takeCount, int heapSlot) {
+    this.orderBy = orderBy;
+    this.takeCount = takeCount;
+    this.heapSlot = heapSlot;
+  }
+
+  @Override
+  public Object executeGeneric(VirtualFrame frame) {
+    OrderByCollection sorted = (OrderByCollection) orderBy.executeGeneric(frame);
+    long count;
+    try {
+      count = takeCount.executeLong(frame);
+    } catch (UnexpectedResultException e) {
+      throw new TruffleRuntimeException(e.getMessage(), e, this);
+    }
+    if (count <= SnapiContext.get(this).getTopKMaxSize()) {
+      return new TopKCollection(sorted, (int) Math.max(0, count), heapSlot);
+    }
+    return new TakeCollection(sorted, count);
+  }
+}
@@ -22,15 +22,12 @@ import com.rawlabs.snapi.truffle.ast.expressions.iterable.ArrayOperationNodes;
 import com.rawlabs.snapi.truffle.ast.expressions.iterable.ArrayOperationNodesFactory;
 import com.rawlabs.snapi.truffle.ast.osr.OSRGeneratorNode;
 import com.rawlabs.snapi.truffle.ast.osr.bodies.OSRListFilterBodyNode;
-import com.rawlabs.snapi.truffle.ast.osr.bodies.OSRToArrayBodyNode;
 import com.rawlabs.snapi.truffle.ast.osr.conditions.OSRHasNextConditionNode;
-import com.rawlabs.snapi.truffle.ast.osr.conditions.OSRIsLessThanSizeConditionNode;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodesFactory;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodes;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodesFactory;
 import com.rawlabs.snapi.truffle.runtime.list.*;
-import java.util.ArrayList;
 
 @NodeInfo(shortName = "List.Filter")
 public class ListFilterNode extends ExpressionNode {
@@ -38,7 +35,6 @@ public class ListFilterNode extends ExpressionNode {
   @Child private ExpressionNode listNode;
   @Child private ExpressionNode functionNode;
   @Child private LoopNode filterLoopNode;
-  @Child private LoopNode toArrayLoopNode;
 
   @Child
   private GeneratorNodes.GeneratorInitNode generatorInitNode =
@@ -63,12 +59,14 @@ public class ListFilterNode extends ExpressionNode {
   ArrayOperationNodes.ArrayBuildListNode arrayBuildListNode =
       ArrayOperationNodesFactory.ArrayBuildListNodeGen.create();
 
+  @Child
+  private ArrayOperationNodes.ArrayTrimNode arrayTrimNode =
+      ArrayOperationNodesFactory.ArrayTrimNodeGen.create();
+
   private final SnapiType resultType;
 
   private final int generatorSlot;
   private final int functionSlot;
-  private final int llistSlot;
-  private final int currentIdxSlot;
   private final int listSizeSlot;
   private final int resultSlot;
 
@@ -78,8 +76,6 @@ public class ListFilterNode extends ExpressionNode {
       SnapiType resultType,
       int generatorSlot,
       int functionSlot,
-      int listSlot,
-      int currentIdxSlot,
       int listSizeSlot,
       int resultSlot) {
     this.resultType = resultType;
@@ -87,8 +83,6 @@ public class ListFilterNode extends ExpressionNode {
     this.functionNode = functionNode;
     this.generatorSlot = generatorSlot;
     this.functionSlot = functionSlot;
-    this.llistSlot = listSlot;
-    this.currentIdxSlot = currentIdxSlot;
     this.listSizeSlot = listSizeSlot;
     this.resultSlot = resultSlot;
     this.filterLoopNode =
@@ -96,13 +90,8 @@ public class ListFilterNode extends ExpressionNode {
             .createLoopNode(
                 new OSRGeneratorNode(
                     new OSRHasNextConditionNode(generatorSlot),
-                    new OSRListFilterBodyNode(generatorSlot, functionSlot, listSlot)));
-    toArrayLoopNode =
-        Truffle.getRuntime()
-            .createLoopNode(
-                new OSRGeneratorNode(
-                    new OSRIsLessThanSizeConditionNode(currentIdxSlot, listSizeSlot),
-                    new OSRToArrayBodyNode(resultType, listSlot, currentIdxSlot, resultSlot)));
+                    new OSRListFilterBodyNode(
+                        generatorSlot, functionSlot, resultSlot, listSizeSlot)));
   }
 
   @Override
@@ -115,17 +104,14 @@ public class ListFilterNode extends ExpressionNode {
       generatorInitNode.execute(this, generator);
       frame.setObject(generatorSlot, generator);
       frame.setObject(functionSlot, function);
-      frame.setObject(llistSlot, new ArrayList<>());
+      frame.setObject(
+          resultSlot,
+          arrayBuildNode.execute(this, resultType, ArrayOperationNodes.INITIAL_CAPACITY));
+      frame.setInt(listSizeSlot, 0);
       filterLoopNode.execute(frame);
-      @SuppressWarnings("unchecked")
-      ArrayList<Object> llist = (ArrayList<Object>) frame.getObject(llistSlot);
-      int size = llist.size();
-      frame.setObject(resultSlot, arrayBuildNode.execute(this, resultType, size));
-      frame.setInt(currentIdxSlot, 0);
-      frame.setInt(listSizeSlot, size);
-      frame.setObject(llistSlot, llist);
-      toArrayLoopNode.execute(frame);
-      return arrayBuildListNode.execute(this, frame.getObject(resultSlot));
+      Object result =
+          arrayTrimNode.execute(this, frame.getObject(resultSlot), frame.getInt(listSizeSlot));
+      return arrayBuildListNode.execute(this, result);
     } finally {
       generatorCloseNode.execute(this, generator);
     }
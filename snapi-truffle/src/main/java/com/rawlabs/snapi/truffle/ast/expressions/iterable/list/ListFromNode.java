@@ -23,23 +23,19 @@ import com.rawlabs.snapi.truffle.ast.expressions.iterable.ArrayOperationNodes;
 import com.rawlabs.snapi.truffle.ast.expressions.iterable.ArrayOperationNodesFactory;
 import com.rawlabs.snapi.truffle.ast.osr.OSRGeneratorNode;
 import com.rawlabs.snapi.truffle.ast.osr.bodies.OSRListFromBodyNode;
-import com.rawlabs.snapi.truffle.ast.osr.bodies.OSRToArrayBodyNode;
 import com.rawlabs.snapi.truffle.ast.osr.conditions.OSRHasNextConditionNode;
-import com.rawlabs.snapi.truffle.ast.osr.conditions.OSRIsLessThanSizeConditionNode;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodesFactory;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodes;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodesFactory;
 import com.rawlabs.snapi.truffle.runtime.primitives.ErrorObject;
-import java.util.ArrayList;
 
 @ImportStatic(value = TypeGuards.class)
 public class ListFromNode extends ExpressionNode {
 
   @Child private ExpressionNode iterableNode;
   @Child private LoopNode listFromLoopNode;
-  @Child private LoopNode toArrayLoopNode;
 
   @Child
   private GeneratorNodes.GeneratorInitNode generatorInitNode =
@@ -61,11 +57,13 @@ public class ListFromNode extends ExpressionNode {
   private ArrayOperationNodes.ArrayBuildListNode arrayBuildListNode =
       ArrayOperationNodesFactory.ArrayBuildListNodeGen.create();
 
+  @Child
+  private ArrayOperationNodes.ArrayTrimNode arrayTrimNode =
+      ArrayOperationNodesFactory.ArrayTrimNodeGen.create();
+
   private final SnapiType resultType;
 
   private final int generatorSlot;
-  private final int listSlot;
-  private final int currentIdxSlot;
   private final int listSizeSlot;
   private final int resultSlot;
 
@@ -73,15 +71,11 @@ public class ListFromNode extends ExpressionNode {
       ExpressionNode iterableNode,
       SnapiType resultType,
       int generatorSlot,
-      int listSlot,
-      int currentIdxSlot,
       int listSizeSlot,
       int resultSlot) {
     this.resultType = resultType;
     this.iterableNode = iterableNode;
     this.generatorSlot = generatorSlot;
-    this.listSlot = listSlot;
-    this.currentIdxSlot = currentIdxSlot;
     this.listSizeSlot = listSizeSlot;
     this.resultSlot = resultSlot;
     this.listFromLoopNode =
@@ -89,13 +83,7 @@ public class ListFromNode extends ExpressionNode {
             .createLoopNode(
                 new OSRGeneratorNode(
                     new OSRHasNextConditionNode(generatorSlot),
-                    new OSRListFromBodyNode(generatorSlot, listSlot)));
-    toArrayLoopNode =
-        Truffle.getRuntime()
-            .createLoopNode(
-                new OSRGeneratorNode(
-                    new OSRIsLessThanSizeConditionNode(currentIdxSlot, listSizeSlot),
-                    new OSRToArrayBodyNode(resultType, listSlot, currentIdxSlot, resultSlot)));
+                    new OSRListFromBodyNode(generatorSlot, resultSlot, listSizeSlot)));
   }
 
   @Override
@@ -105,17 +93,14 @@ public class ListFromNode extends ExpressionNode {
     try {
       generatorInitNode.execute(this, generator);
       frame.setObject(generatorSlot, generator);
-      frame.setObject(listSlot, new ArrayList<>());
+      frame.setObject(
+          resultSlot,
+          arrayBuildNode.execute(this, resultType, ArrayOperationNodes.INITIAL_CAPACITY));
+      frame.setInt(listSizeSlot, 0);
       listFromLoopNode.execute(frame);
-      @SuppressWarnings("unchecked")
-      ArrayList<Object> llist = (ArrayList<Object>) frame.getObject(listSlot);
-      int size = llist.size();
-      frame.setObject(resultSlot, arrayBuildNode.execute(this, resultType, size));
-      frame.setInt(currentIdxSlot, 0);
-      frame.setInt(listSizeSlot, size);
-      frame.setObject(listSlot, llist);
-      toArrayLoopNode.execute(frame);
-      return arrayBuildListNode.execute(this, frame.getObject(resultSlot));
+      Object result =
+          arrayTrimNode.execute(this, frame.getObject(resultSlot), frame.getInt(listSizeSlot));
+      return arrayBuildListNode.execute(this, result);
     } catch (TruffleRuntimeException ex) {
       return new ErrorObject(ex.getMessage());
     } finally {
@@ -20,6 +20,7 @@ import com.oracle.truffle.api.nodes.LoopNode;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.ast.expressions.iterable.ArrayOperationNodes;
 import com.rawlabs.snapi.truffle.ast.osr.OSRGeneratorNode;
 import com.rawlabs.snapi.truffle.ast.osr.bodies.OSRListEquiJoinInitBodyNode;
 import com.rawlabs.snapi.truffle.ast.osr.bodies.OSRListFromBodyNode;
@@ -29,13 +30,14 @@ import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodesFact
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.OffHeapNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.OffHeapNodesFactory;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapGroupByKey;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapHashGroupBy;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.record_shaper.RecordShaper;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodes;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodesFactory;
 import com.rawlabs.snapi.truffle.runtime.list.ListNodes;
 import com.rawlabs.snapi.truffle.runtime.list.ListNodesFactory;
-import com.rawlabs.snapi.truffle.runtime.list.TruffleArrayList;
-import java.util.ArrayList;
+import com.rawlabs.snapi.truffle.runtime.list.ObjectList;
+import java.util.Arrays;
 
 @NodeInfo(shortName = "List.GroupBy")
 public class ListGroupByNode extends ExpressionNode {
@@ -71,9 +73,15 @@ public class ListGroupByNode extends ExpressionNode {
   private final int keyFunctionSlot;
   private final int mapSlot;
   private final int listSlot;
+  private final int listSizeSlot;
   private final long maxSize;
   private final int kryoOutputBufferSize;
   private final int kryoInputBufferSize;
+  private final int mergeFanIn;
+  private final int partitionCount;
+  // whether the order of the groups can't be observed, so that they are grouped in a hash map
+  // instead of by key order.
+  private final boolean hashed;
 
   public ListGroupByNode(
       ExpressionNode inputNode,
@@ -83,7 +91,9 @@ public class ListGroupByNode extends ExpressionNode {
       int generatorSlot,
       int keyFunctionSlot,
       int mapSlot,
-      int listSlot) {
+      int listSlot,
+      int listSizeSlot,
+      boolean hashed) {
     this.inputNode = inputNode;
     this.keyFunNode = keyFunNode;
     this.rowType = rowType;
@@ -94,6 +104,8 @@ public class ListGroupByNode extends ExpressionNode {
 
     this.mapSlot = mapSlot;
     this.listSlot = listSlot;
+    this.listSizeSlot = listSizeSlot;
+    this.hashed = hashed;
     this.equiJoinInitLoopNode =
         Truffle.getRuntime()
             .createLoopNode(
@@ -107,12 +119,14 @@ public class ListGroupByNode extends ExpressionNode {
             .createLoopNode(
                 new OSRGeneratorNode(
                     new OSRHasNextConditionNode(this.generatorSlot),
-                    new OSRListFromBodyNode(this.generatorSlot, this.listSlot)));
+                    new OSRListFromBodyNode(this.generatorSlot, this.listSlot, this.listSizeSlot)));
 
     long[] contextValues = getContextValues(this);
     this.maxSize = contextValues[0];
     this.kryoOutputBufferSize = (int) contextValues[1];
     this.kryoInputBufferSize = (int) contextValues[2];
+    this.mergeFanIn = (int) contextValues[3];
+    this.partitionCount = (int) contextValues[5];
   }
 
   @Override
@@ -120,14 +134,7 @@ public class ListGroupByNode extends ExpressionNode {
     Object input = inputNode.executeGeneric(frame);
     Object keyFun = keyFunNode.executeGeneric(frame);
     Object iterable = toIterableNode.execute(this, input);
-    OffHeapGroupByKey map =
-        new OffHeapGroupByKey(
-            this.keyType,
-            this.rowType,
-            new RecordShaper(true),
-            this.maxSize,
-            this.kryoOutputBufferSize,
-            this.kryoInputBufferSize);
+    Object map = newMap();
     Object generator = getGeneratorNode.execute(this, iterable);
 
     try {
@@ -143,13 +150,35 @@ public class ListGroupByNode extends ExpressionNode {
     try {
       generatorInitNode.execute(this, mapGenerator);
       frame.setObject(generatorSlot, mapGenerator);
-      frame.setObject(listSlot, new ArrayList<>());
+      frame.setObject(listSlot, new Object[ArrayOperationNodes.INITIAL_CAPACITY]);
+      frame.setInt(listSizeSlot, 0);
       listFromLoopNode.execute(frame);
-      @SuppressWarnings("unchecked")
-      ArrayList<Object> llist = (ArrayList<Object>) frame.getObject(listSlot);
-      return new TruffleArrayList(llist);
+      Object[] groups = (Object[]) frame.getObject(listSlot);
+      return new ObjectList(Arrays.copyOf(groups, frame.getInt(listSizeSlot)));
     } finally {
       generatorCloseNode.execute(this, mapGenerator);
     }
   }
+
+  // the groups come out in key order, unless they are hashed.
+  private Object newMap() {
+    if (hashed) {
+      return new OffHeapHashGroupBy(
+          this.keyType,
+          this.rowType,
+          new RecordShaper(true),
+          this.maxSize,
+          this.kryoOutputBufferSize,
+          this.kryoInputBufferSize,
+          this.partitionCount);
+    }
+    return new OffHeapGroupByKey(
+        this.keyType,
+        this.rowType,
+        new RecordShaper(true),
+        this.maxSize,
+        this.kryoOutputBufferSize,
+        this.kryoInputBufferSize,
+        this.mergeFanIn);
+  }
 }
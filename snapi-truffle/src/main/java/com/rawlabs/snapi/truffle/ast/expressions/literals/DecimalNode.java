@@ -16,7 +16,6 @@ import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.runtime.primitives.DecimalObject;
-import java.math.BigDecimal;
 
 public class DecimalNode extends ExpressionNode {
 
@@ -33,6 +32,6 @@ public class DecimalNode extends ExpressionNode {
 
   @TruffleBoundary
   private DecimalObject createDecimal() {
-    return new DecimalObject(new BigDecimal(value));
+    return DecimalObject.parse(value);
   }
 }
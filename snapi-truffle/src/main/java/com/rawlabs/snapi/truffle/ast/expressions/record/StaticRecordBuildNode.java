@@ -0,0 +1,72 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.ast.expressions.record;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.nodes.UnexpectedResultException;
+import com.oracle.truffle.api.staticobject.StaticProperty;
+import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleInternalErrorException;
+import com.rawlabs.snapi.truffle.runtime.record.StaticRecord;
+import com.rawlabs.snapi.truffle.runtime.record.StaticRecordLayout;
+
+// Builds records without duplicate keys: one allocation and one store per field, primitive fields
+// being executed as such.
+@NodeInfo(shortName = "Record.Build")
+public class StaticRecordBuildNode extends ExpressionNode {
+
+  @Children private final ExpressionNode[] elementNodes;
+
+  private final StaticRecordLayout layout;
+
+  public StaticRecordBuildNode(ExpressionNode[] elementNodes, StaticRecordLayout layout) {
+    CompilerAsserts.compilationConstant(elementNodes.length);
+    this.elementNodes = elementNodes;
+    this.layout = layout;
+  }
+
+  @ExplodeLoop
+  @Override
+  public Object executeGeneric(VirtualFrame frame) {
+    StaticRecord record = layout.create();
+    for (int i = 0; i < elementNodes.length; i++) {
+      Class<?> type = layout.getType(i);
+      StaticProperty property = layout.getProperty(i);
+      try {
+        if (type == int.class) {
+          property.setInt(record, elementNodes[i].executeInt(frame));
+        } else if (type == long.class) {
+          property.setLong(record, elementNodes[i].executeLong(frame));
+        } else if (type == double.class) {
+          property.setDouble(record, elementNodes[i].executeDouble(frame));
+        } else if (type == boolean.class) {
+          property.setBoolean(record, elementNodes[i].executeBoolean(frame));
+        } else if (type == byte.class) {
+          property.setByte(record, elementNodes[i].executeByte(frame));
+        } else if (type == short.class) {
+          property.setShort(record, elementNodes[i].executeShort(frame));
+        } else if (type == float.class) {
+          property.setFloat(record, elementNodes[i].executeFloat(frame));
+        } else {
+          property.setObject(record, elementNodes[i].executeGeneric(frame));
+        }
+      } catch (UnexpectedResultException e) {
+        throw new TruffleInternalErrorException("Unexpected field value", e);
+      }
+    }
+    return record;
+  }
+}
@@ -51,9 +51,14 @@ public abstract class NegNode extends ExpressionNode {
     return -value;
   }
 
-  @Specialization
+  @Specialization(guards = "value.isCompact()", rewriteOn = ArithmeticException.class)
+  protected DecimalObject negCompactDecimal(DecimalObject value) {
+    return DecimalObject.negateExact(value);
+  }
+
+  @Specialization(replaces = "negCompactDecimal")
   @TruffleBoundary
   protected DecimalObject negDecimal(DecimalObject value) {
-    return new DecimalObject(value.getBigDecimal().negate());
+    return DecimalObject.valueOf(value.getBigDecimal().negate());
   }
 }
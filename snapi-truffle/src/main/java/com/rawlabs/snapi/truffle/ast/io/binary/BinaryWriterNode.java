@@ -15,11 +15,10 @@ package com.rawlabs.snapi.truffle.ast.io.binary;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.DirectCallNode;
 import com.oracle.truffle.api.nodes.NodeInfo;
-import com.rawlabs.snapi.truffle.SnapiContext;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.ast.ProgramStatementNode;
 import com.rawlabs.snapi.truffle.ast.StatementNode;
-import java.io.OutputStream;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers;
 
 @NodeInfo(shortName = "Binary.Write")
 public class BinaryWriterNode extends StatementNode {
@@ -28,8 +27,6 @@ public class BinaryWriterNode extends StatementNode {
 
   @Child private DirectCallNode innerWriter;
 
-  private final OutputStream os = SnapiContext.get(this).getOutput();
-
   public BinaryWriterNode(ExpressionNode binaryNode, ProgramStatementNode innerWriter) {
     this.innerWriter = DirectCallNode.create(innerWriter.getCallTarget());
     this.binaryNode = binaryNode;
@@ -38,6 +35,6 @@ public class BinaryWriterNode extends StatementNode {
   @Override
   public void executeVoid(VirtualFrame frame) {
     Object binaryObject = binaryNode.executeGeneric(frame);
-    innerWriter.call(binaryObject, os);
+    innerWriter.call(binaryObject, StaticInitializers.getOutputStream(this));
   }
 }
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.ast.io.csv.reader.parser;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+// Splits CSV text in rows and fields over a char buffer. Fields without quotes or escapes are
+// kept as a range of the buffer, so that they can be skipped, compared or parsed as numbers
+// without allocating. Quoted or escaped fields are copied to a builder.
+final class CsvTokenizer {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Reader reader;
+  private final char delimiter;
+  private final boolean useQuote;
+  private final char quoteChar;
+  private final char escapeChar;
+
+  private char[] buffer = new char[BUFFER_SIZE];
+  private int position = 0;
+  private int limit = 0;
+  private boolean eof = false;
+
+  // offset in the text of the first char of the buffer, and of the current line.
+  private long bufferOffset = 0;
+  private long lineStart = 0;
+  private int line = 1;
+
+  // the last field ended the row. If it ended at a newline, that newline isn't consumed yet.
+  private boolean endOfRow = true;
+  private boolean pendingNewLine = false;
+
+  // the current field: buffer[fieldStart, fieldEnd), or the builder if it was copied.
+  private int fieldStart = 0;
+  private int fieldEnd = 0;
+  private boolean copied = false;
+  private final StringBuilder builder = new StringBuilder();
+
+  CsvTokenizer(
+      Reader reader, char delimiter, boolean useQuote, char quoteChar, char escapeChar) {
+    this.reader = reader;
+    this.delimiter = delimiter;
+    this.useQuote = useQuote;
+    this.quoteChar = quoteChar;
+    this.escapeChar = escapeChar;
+  }
+
+  int line() {
+    return line;
+  }
+
+  int column() {
+    return (int) (bufferOffset + position - lineStart) + 1;
+  }
+
+  boolean endOfRow() {
+    return endOfRow;
+  }
+
+  // Moves to the next row, false when the text is over.
+  boolean nextRow() throws IOException {
+    if (pendingNewLine) {
+      pendingNewLine = false;
+      consumeNewLine();
+    }
+    if (position >= limit && !fill(position)) {
+      return false;
+    }
+    endOfRow = false;
+    return true;
+  }
+
+  // Reads the next field of the row. Leading and trailing spaces are trimmed.
+  void nextField() throws IOException {
+    copied = false;
+    char c;
+    while (true) {
+      if (position >= limit && !fill(position)) {
+        fieldStart = fieldEnd = position;
+        endOfRow = true;
+        return;
+      }
+      c = buffer[position];
+      if (!isSpace(c)) {
+        break;
+      }
+      position++;
+    }
+    fieldStart = position;
+    if ((useQuote && c == quoteChar) || isEscape(c)) {
+      copyField();
+      return;
+    }
+    int end;
+    while (true) {
+      if (position >= limit && !fill(fieldStart)) {
+        end = position;
+        endOfRow = true;
+        break;
+      }
+      c = buffer[position];
+      if (c == delimiter) {
+        end = position++;
+        break;
+      }
+      if (c == '\n' || c == '\r') {
+        end = position;
+        endOfRow = true;
+        pendingNewLine = true;
+        break;
+      }
+      if (isEscape(c)) {
+        copyField();
+        return;
+      }
+      position++;
+    }
+    while (end > fieldStart && isSpace(buffer[end - 1])) {
+      end--;
+    }
+    fieldEnd = end;
+  }
+
+  // Reads the rest of a field that has quotes or escapes, from fieldStart, into the builder.
+  @TruffleBoundary
+  private void copyField() throws IOException {
+    StringBuilder sb = builder;
+    sb.setLength(0);
+    sb.append(buffer, fieldStart, position - fieldStart);
+    // the length of the field once trailing spaces (outside quotes) are trimmed.
+    int length = sb.length();
+    while (length > 0 && isSpace(sb.charAt(length - 1))) {
+      length--;
+    }
+    boolean quoted = false;
+    boolean atStart = sb.length() == 0;
+    while (true) {
+      if (position >= limit && !fill(position)) {
+        if (quoted) {
+          throw new IOException("missing closing quote for value");
+        }
+        endOfRow = true;
+        break;
+      }
+      char c = buffer[position];
+      if (quoted) {
+        position++;
+        if (c == quoteChar) {
+          if (nextIs(quoteChar)) {
+            sb.append(quoteChar);
+            position++;
+          } else {
+            quoted = false;
+          }
+        } else if (isEscape(c)) {
+          sb.append(unescape(readEscaped()));
+        } else {
+          if (c == '\n' || (c == '\r' && !nextIs('\n'))) {
+            line++;
+            lineStart = bufferOffset + position;
+          }
+          sb.append(c);
+        }
+        length = sb.length();
+        continue;
+      }
+      if (c == delimiter) {
+        position++;
+        break;
+      }
+      if (c == '\n' || c == '\r') {
+        endOfRow = true;
+        pendingNewLine = true;
+        break;
+      }
+      position++;
+      if (atStart && useQuote && c == quoteChar) {
+        quoted = true;
+      } else if (isEscape(c)) {
+        sb.append(unescape(readEscaped()));
+        length = sb.length();
+      } else {
+        sb.append(c);
+        if (!isSpace(c)) {
+          length = sb.length();
+        }
+      }
+      atStart = false;
+    }
+    sb.setLength(length);
+    copied = true;
+  }
+
+  private char readEscaped() throws IOException {
+    if (position >= limit && !fill(position)) {
+      throw new IOException("unexpected end of data after escape character");
+    }
+    return buffer[position++];
+  }
+
+  private boolean nextIs(char c) throws IOException {
+    return (position < limit || fill(position)) && buffer[position] == c;
+  }
+
+  private static char unescape(char c) {
+    switch (c) {
+      case '0':
+        return '\0';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 't':
+        return '\t';
+      default:
+        return c;
+    }
+  }
+
+  private void consumeNewLine() throws IOException {
+    char c = buffer[position++];
+    if (c == '\r' && nextIs('\n')) {
+      position++;
+    }
+    line++;
+    lineStart = bufferOffset + position;
+  }
+
+  // Reads more text, keeping the buffer from index keep on (moved to the beginning of the buffer).
+  @TruffleBoundary
+  private boolean fill(int keep) throws IOException {
+    if (eof) {
+      return false;
+    }
+    if (keep > 0) {
+      System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+      bufferOffset += keep;
+      position -= keep;
+      fieldStart -= keep;
+      limit -= keep;
+    } else if (limit == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+    int read = reader.read(buffer, limit, buffer.length - limit);
+    if (read < 0) {
+      eof = true;
+      return false;
+    }
+    limit += read;
+    return true;
+  }
+
+  private boolean isSpace(char c) {
+    return (c == ' ' || c == '\t') && c != delimiter;
+  }
+
+  private boolean isEscape(char c) {
+    return escapeChar != 0 && c == escapeChar;
+  }
+
+  @TruffleBoundary
+  String text() {
+    return copied ? builder.toString() : new String(buffer, fieldStart, fieldEnd - fieldStart);
+  }
+
+  boolean textEquals(String s) {
+    int length = copied ? builder.length() : fieldEnd - fieldStart;
+    if (length != s.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      char c = copied ? builder.charAt(i) : buffer[fieldStart + i];
+      if (c != s.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Parses the field as an integer in [min, max], without allocating.
+  long parseLong(long min, long max) {
+    int length = fieldEnd - fieldStart;
+    if (copied || length == 0 || length > 18) {
+      return parseLongSlow(min, max);
+    }
+    int i = fieldStart;
+    boolean negative = buffer[i] == '-';
+    if (negative || buffer[i] == '+') {
+      i++;
+      if (i == fieldEnd) {
+        throw numberFormatException();
+      }
+    }
+    long value = 0;
+    for (; i < fieldEnd; i++) {
+      int digit = buffer[i] - '0';
+      if (digit < 0 || digit > 9) {
+        throw numberFormatException();
+      }
+      value = value * 10 + digit;
+    }
+    value = negative ? -value : value;
+    if (value < min || value > max) {
+      throw numberFormatException();
+    }
+    return value;
+  }
+
+  @TruffleBoundary
+  private long parseLongSlow(long min, long max) {
+    long value = Long.parseLong(text());
+    if (value < min || value > max) {
+      throw numberFormatException();
+    }
+    return value;
+  }
+
+  @TruffleBoundary
+  private NumberFormatException numberFormatException() {
+    return new NumberFormatException(text());
+  }
+
+  @TruffleBoundary
+  void close() throws IOException {
+    reader.close();
+  }
+}
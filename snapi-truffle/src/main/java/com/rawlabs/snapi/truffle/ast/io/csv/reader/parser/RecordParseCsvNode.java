@@ -37,11 +37,15 @@ public class RecordParseCsvNode extends ExpressionNode {
   private final boolean hasDuplicateKeys;
   private final SnapiLanguage language = SnapiLanguage.get(this);
 
+  // Columns without a parser aren't used by the query: they are skipped and left out of the
+  // record.
   public RecordParseCsvNode(ProgramExpressionNode[] columnParsers, SnapiAttrType[] columns) {
     this.columns = columns;
     this.childDirectCalls = new DirectCallNode[columnParsers.length];
     for (int i = 0; i < columnParsers.length; i++) {
-      this.childDirectCalls[i] = DirectCallNode.create(columnParsers[i].getCallTarget());
+      if (columnParsers[i] != null) {
+        this.childDirectCalls[i] = DirectCallNode.create(columnParsers[i].getCallTarget());
+      }
     }
     addPropNode = new RecordNodes.AddPropNode[columns.length];
     for (int i = 0; i < columns.length; i++) {
@@ -66,6 +70,10 @@ public class RecordParseCsvNode extends ExpressionNode {
       record = language.createPureRecord();
     }
     for (int i = 0; i < columns.length; i++) {
+      if (childDirectCalls[i] == null) {
+        parser.skipField();
+        continue;
+      }
       String fieldName = columns[i].idn();
       parser.getNextField();
       Object value = childDirectCalls[i].call(parser);
@@ -12,27 +12,20 @@
 
 package com.rawlabs.snapi.truffle.ast.io.csv.reader.parser;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.JsonToken;
-import com.fasterxml.jackson.dataformat.csv.CsvFactory;
-import com.fasterxml.jackson.dataformat.csv.CsvParser;
-import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleLogger;
 import com.rawlabs.snapi.truffle.SnapiLanguage;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.DateTimeFormatCache;
+import com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.TemporalParser;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import com.rawlabs.snapi.truffle.runtime.exceptions.csv.CsvExpectedNothingException;
 import com.rawlabs.snapi.truffle.runtime.exceptions.csv.CsvParserTruffleException;
 import com.rawlabs.snapi.truffle.runtime.exceptions.csv.CsvReaderTruffleException;
 import com.rawlabs.snapi.truffle.runtime.primitives.*;
+import com.rawlabs.snapi.truffle.runtime.utils.SplitCharInputStream;
 import com.rawlabs.snapi.truffle.runtime.utils.TruffleCharStream;
 import java.io.IOException;
-import java.io.Reader;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.Objects;
@@ -45,7 +38,7 @@ public class TruffleCsvParser {
   final String dateFormat, timeFormat, timestampFormat;
   final DateTimeFormatter dateFormatter, timeFormatter, timestampFormatter;
 
-  private final CsvParser jacksonParser;
+  private final CsvTokenizer tokenizer;
   final TruffleCharStream stream;
 
   @TruffleBoundary
@@ -61,52 +54,54 @@ public class TruffleCsvParser {
       this.dateFormatter = DateTimeFormatCache.get(settings.dateFormat);
       this.timeFormatter = DateTimeFormatCache.get(settings.timeFormat);
       this.timestampFormatter = DateTimeFormatCache.get(settings.timestampFormat);
-      CsvFactory csvFactory = new CsvFactory();
-      csvFactory.enable(CsvParser.Feature.TRIM_SPACES);
-      Reader reader = stream.getReader();
-      jacksonParser = csvFactory.createParser(reader);
-      CsvSchema.Builder builder = CsvSchema.builder();
-      builder.setColumnSeparator(settings.delimiter);
-      if (settings.useQuote) {
-        builder.setQuoteChar(settings.quoteChar);
-      } else {
-        builder.disableQuoteChar();
-      }
-      builder.setEscapeChar(settings.escapeChar);
-      jacksonParser.setSchema(builder.build());
-    } catch (IOException | IllegalArgumentException ex) {
+      this.tokenizer =
+          new CsvTokenizer(
+              stream.getReader(),
+              settings.delimiter,
+              settings.useQuote,
+              settings.quoteChar,
+              settings.escapeChar);
+    } catch (IllegalArgumentException ex) {
       throw new CsvReaderTruffleException(stream, ex);
     }
   }
 
-  @TruffleBoundary
+  private int fieldsRead = 0;
+
   boolean startingNewLine(ExpressionNode location) {
-    return jacksonParser.currentToken() == JsonToken.START_ARRAY;
+    return fieldsRead == 0;
   }
 
   private int line = -1;
   private int column = -1;
 
-  @TruffleBoundary
   void getNextField() {
-    line = jacksonParser.getCurrentLocation().getLineNr();
-    column = jacksonParser.getCurrentLocation().getColumnNr();
+    nextField();
+  }
+
+  // Moves past the next field without decoding it, for columns the query doesn't use.
+  void skipField() {
+    nextField();
+  }
+
+  private void nextField() {
+    line = tokenizer.line();
+    column = tokenizer.column();
+    if (tokenizer.endOfRow()) {
+      throw new CsvReaderTruffleException("not enough columns found", this, stream);
+    }
     try {
-      JsonToken token = jacksonParser.nextToken();
-      if (token == JsonToken.VALUE_STRING) {
-        return;
-      }
-      if (token == null) {
-        throw new CsvReaderTruffleException("unexpected EOF", this, stream);
-      } else if (token == JsonToken.END_ARRAY) {
-        throw new CsvReaderTruffleException("not enough columns found", this, stream);
-      }
+      tokenizer.nextField();
     } catch (IOException ex) {
       throw new CsvReaderTruffleException(stream, ex);
     }
+    fieldsRead++;
   }
 
   public int currentTokenLine() {
+    if (stream instanceof SplitCharInputStream) {
+      return ((SplitCharInputStream) stream).lineInFile(line);
+    }
     return line;
   }
 
@@ -114,16 +109,14 @@ public class TruffleCsvParser {
     return column;
   }
 
-  @TruffleBoundary
   public void finishLine(ExpressionNode location) {
-    JsonToken token;
-    do {
-      try {
-        token = jacksonParser.nextToken();
-      } catch (IOException ex) {
-        throw new CsvParserTruffleException(this, ex, location);
+    try {
+      while (!tokenizer.endOfRow()) {
+        tokenizer.nextField();
       }
-    } while (token != null && token != JsonToken.END_ARRAY);
+    } catch (IOException ex) {
+      throw new CsvParserTruffleException(this, ex, location);
+    }
   }
 
   private static final TruffleLogger LOG =
@@ -132,7 +125,7 @@ public class TruffleCsvParser {
   @TruffleBoundary
   public void close() {
     try {
-      jacksonParser.close();
+      tokenizer.close();
     } catch (IOException ex) {
       // ignore but log
       LOG.severe(ex.getMessage());
@@ -143,391 +136,222 @@ public class TruffleCsvParser {
   public void skipHeaderLines() {
     try {
       for (int i = 0; i < headerLines; i++) {
-        JsonToken token;
-        do {
-          token = jacksonParser.nextToken();
-          if (token == null) {
-            return;
-          }
-        } while (token != JsonToken.END_ARRAY);
+        if (!tokenizer.nextRow()) {
+          return;
+        }
+        while (!tokenizer.endOfRow()) {
+          tokenizer.nextField();
+        }
       }
     } catch (IOException ex) {
       throw new CsvReaderTruffleException(stream, ex);
     }
   }
 
-  @TruffleBoundary
   public boolean done() {
+    fieldsRead = 0;
     try {
-      return jacksonParser.nextToken() == null;
+      return !tokenizer.nextRow();
     } catch (IOException ex) {
       throw new CsvReaderTruffleException(stream, ex);
     }
   }
 
-  @TruffleBoundary
-  byte getByte(ExpressionNode location) {
-    try {
-      try {
-        return jacksonParser.getByteValue();
-      } catch (JsonProcessingException ex) {
-        String malformed =
-            jacksonParser.getText(); // shouldn't throw since we read already the token
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as a byte", malformed), this, stream, ex, location);
+  private boolean isNull() {
+    for (String nullToken : nulls) {
+      if (tokenizer.textEquals(nullToken)) {
+        return true;
       }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
     }
+    return false;
   }
 
-  @TruffleBoundary
-  Object getOptionByte(ExpressionNode location) {
-    try {
-      try {
-        String token = jacksonParser.getText();
-        for (String nullToken : nulls) {
-          if (token.equals(nullToken)) {
-            return NullObject.INSTANCE;
-          }
-        }
-        return jacksonParser.getByteValue();
-      } catch (JsonProcessingException ex) {
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as a byte", jacksonParser.getText()),
-            this,
-            stream,
-            ex,
-            location);
+  private boolean isNaN() {
+    for (String nanToken : nans) {
+      if (tokenizer.textEquals(nanToken)) {
+        return true;
       }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
     }
+    return false;
   }
 
-  @TruffleBoundary
-  Object getOptionShort(ExpressionNode location) {
+  private long getIntegral(long min, long max, String typeName, ExpressionNode location) {
     try {
-      try {
-        String token = jacksonParser.getText();
-        for (String nullToken : nulls) {
-          if (token.equals(nullToken)) {
-            return NullObject.INSTANCE;
-          }
-        }
-        return jacksonParser.getShortValue();
-      } catch (JsonProcessingException ex) {
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as a short", jacksonParser.getText()),
-            this,
-            stream,
-            ex,
-            location);
-      }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+      return tokenizer.parseLong(min, max);
+    } catch (NumberFormatException ex) {
+      throw new CsvParserTruffleException(
+          cannotParse(typeName), this, stream, ex, location);
     }
   }
 
   @TruffleBoundary
-  int getInt(ExpressionNode location) {
-    try {
-      try {
-        return jacksonParser.getIntValue();
-      } catch (JsonProcessingException ex) {
-        String malformed =
-            jacksonParser.getText(); // shouldn't throw since we read already the token
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as an int", malformed), this, stream, ex, location);
-      }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+  private String cannotParse(String typeName) {
+    return String.format("cannot parse '%s' as %s", tokenizer.text(), typeName);
+  }
+
+  byte getByte(ExpressionNode location) {
+    return (byte) getIntegral(Byte.MIN_VALUE, Byte.MAX_VALUE, "a byte", location);
+  }
+
+  Object getOptionByte(ExpressionNode location) {
+    if (isNull()) {
+      return NullObject.INSTANCE;
     }
+    return getByte(location);
+  }
+
+  Object getOptionShort(ExpressionNode location) {
+    if (isNull()) {
+      return NullObject.INSTANCE;
+    }
+    return (short) getIntegral(Short.MIN_VALUE, Short.MAX_VALUE, "a short", location);
+  }
+
+  int getInt(ExpressionNode location) {
+    return (int) getIntegral(Integer.MIN_VALUE, Integer.MAX_VALUE, "an int", location);
   }
 
-  @TruffleBoundary
   Object getOptionInt(ExpressionNode location) {
-    try {
-      try {
-        String token = jacksonParser.getText();
-        for (String nullToken : nulls) {
-          if (token.equals(nullToken)) {
-            return NullObject.INSTANCE;
-          }
-        }
-        return jacksonParser.getIntValue();
-      } catch (JsonProcessingException ex) {
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as an int", jacksonParser.getText()),
-            this,
-            stream,
-            ex,
-            location);
-      }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+    if (isNull()) {
+      return NullObject.INSTANCE;
     }
+    return getInt(location);
   }
 
-  @TruffleBoundary
   long getLong(ExpressionNode location) {
-    try {
-      try {
-        return jacksonParser.getLongValue();
-      } catch (JsonProcessingException ex) {
-        String malformed =
-            jacksonParser.getText(); // shouldn't throw since we read already the token
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as a long", malformed), this, stream, ex, location);
-      }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
-    }
+    return getIntegral(Long.MIN_VALUE, Long.MAX_VALUE, "a long", location);
   }
 
-  @TruffleBoundary
   Object getOptionLong(ExpressionNode location) {
-    try {
-      try {
-        String token = jacksonParser.getText();
-        for (String nullToken : nulls) {
-          if (token.equals(nullToken)) {
-            return NullObject.INSTANCE;
-          }
-        }
-        return jacksonParser.getLongValue();
-      } catch (JsonProcessingException ex) {
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as a long", jacksonParser.getText()),
-            this,
-            stream,
-            ex,
-            location);
-      }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+    if (isNull()) {
+      return NullObject.INSTANCE;
     }
+    return getLong(location);
   }
 
-  @TruffleBoundary
   Object getOptionFloat(ExpressionNode location) {
-    try {
-      try {
-        String token = jacksonParser.getText();
-        for (String nullToken : nulls) {
-          if (token.equals(nullToken)) {
-            return NullObject.INSTANCE;
-          }
-        }
-        for (String nanToken : nans) {
-          if (token.equals(nanToken)) {
-            return Float.NaN;
-          }
-        }
-        return jacksonParser.getFloatValue();
-      } catch (JsonProcessingException ex) {
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as a float", jacksonParser.getText()),
-            this,
-            stream,
-            ex,
-            location);
-      }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+    if (isNull()) {
+      return NullObject.INSTANCE;
     }
+    if (isNaN()) {
+      return Float.NaN;
+    }
+    return parseFloat(location);
   }
 
   @TruffleBoundary
-  double getDouble(ExpressionNode location) {
+  private float parseFloat(ExpressionNode location) {
     try {
-      try {
-        String token = jacksonParser.getText();
-        for (String nanToken : nans) {
-          if (token.equals(nanToken)) {
-            return Double.NaN;
-          }
-        }
-        return jacksonParser.getDoubleValue();
-      } catch (JsonProcessingException ex) {
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as a double", jacksonParser.getText()),
-            this,
-            stream,
-            ex,
-            location);
-      }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+      return Float.parseFloat(tokenizer.text());
+    } catch (NumberFormatException ex) {
+      throw new CsvParserTruffleException(cannotParse("a float"), this, stream, ex, location);
     }
   }
 
-  @TruffleBoundary
+  double getDouble(ExpressionNode location) {
+    if (isNaN()) {
+      return Double.NaN;
+    }
+    return parseDouble(location);
+  }
+
   Object getOptionDouble(ExpressionNode location) {
+    if (isNull()) {
+      return NullObject.INSTANCE;
+    }
+    return getDouble(location);
+  }
+
+  @TruffleBoundary
+  private double parseDouble(ExpressionNode location) {
     try {
-      try {
-        String token = jacksonParser.getText();
-        for (String nullToken : nulls) {
-          if (token.equals(nullToken)) {
-            return NullObject.INSTANCE;
-          }
-        }
-        for (String nanToken : nans) {
-          if (token.equals(nanToken)) {
-            return Double.NaN;
-          }
-        }
-        return jacksonParser.getDoubleValue();
-      } catch (JsonProcessingException ex) {
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as a double", jacksonParser.getText()),
-            this,
-            stream,
-            ex,
-            location);
-      }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+      return Double.parseDouble(tokenizer.text());
+    } catch (NumberFormatException ex) {
+      throw new CsvParserTruffleException(cannotParse("a double"), this, stream, ex, location);
     }
   }
 
   @TruffleBoundary
   DecimalObject getDecimal(ExpressionNode location) {
     try {
-
-      try {
-        return new DecimalObject(jacksonParser.getDecimalValue());
-      } catch (JsonProcessingException | NumberFormatException ex) {
-        String malformed =
-            jacksonParser.getText(); // shouldn't throw since we read already the token
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as a decimal", malformed), this, stream, ex, location);
-      }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+      return DecimalObject.parse(tokenizer.text());
+    } catch (NumberFormatException ex) {
+      throw new CsvParserTruffleException(cannotParse("a decimal"), this, stream, ex, location);
     }
   }
 
-  @TruffleBoundary
   Object getOptionDecimal(ExpressionNode location) {
-    try {
-      try {
-        String malformed = jacksonParser.getText();
-        for (String nullToken : nulls) {
-          if (malformed.equals(nullToken)) {
-            return NullObject.INSTANCE;
-          }
-        }
-        return new DecimalObject(jacksonParser.getDecimalValue());
-      } catch (JsonProcessingException | NumberFormatException ex) {
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as a decimal", jacksonParser.getText()),
-            this,
-            stream,
-            ex,
-            location);
-      }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+    if (isNull()) {
+      return NullObject.INSTANCE;
     }
+    return getDecimal(location);
   }
 
   @TruffleBoundary
   boolean getBool(ExpressionNode location) {
-    try {
-      String text = jacksonParser.getText();
-      String normalized = text.toLowerCase().strip();
-      if (Objects.equals(normalized, "true")) {
-        return true;
-      } else if (Objects.equals(normalized, "false")) {
-        return false;
-      } else {
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as a bool", text), this, stream, location);
-      }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+    String text = tokenizer.text();
+    String normalized = text.toLowerCase().strip();
+    if (Objects.equals(normalized, "true")) {
+      return true;
+    } else if (Objects.equals(normalized, "false")) {
+      return false;
+    } else {
+      throw new CsvParserTruffleException(
+          String.format("cannot parse '%s' as a bool", text), this, stream, location);
     }
   }
 
   @TruffleBoundary
   Object getOptionUndefined(ExpressionNode location) {
-    try {
-      String text = jacksonParser.getText();
-      String normalized = text.toLowerCase().strip();
-      for (String nullToken : nulls) {
-        if (normalized.equals(nullToken)) {
-          return NullObject.INSTANCE;
-        }
+    String text = tokenizer.text();
+    String normalized = text.toLowerCase().strip();
+    for (String nullToken : nulls) {
+      if (normalized.equals(nullToken)) {
+        return NullObject.INSTANCE;
       }
-      throw new CsvExpectedNothingException(text, this, stream, location);
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
     }
+    throw new CsvExpectedNothingException(text, this, stream, location);
   }
 
   @TruffleBoundary
   Object getUndefined(ExpressionNode location) {
-    try {
-      String text = jacksonParser.getText();
-      throw new CsvExpectedNothingException(text, this, stream, location);
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
-    }
+    throw new CsvExpectedNothingException(tokenizer.text(), this, stream, location);
   }
 
   @TruffleBoundary
   Object getOptionBool(ExpressionNode location) {
-    try {
-      String text = jacksonParser.getText();
-      String normalized = text.toLowerCase().strip();
-      if (Objects.equals(normalized, "true")) {
-        return true;
-      } else if (Objects.equals(normalized, "false")) {
-        return false;
-      } else {
-        for (String nullToken : nulls) {
-          if (normalized.equals(nullToken)) {
-            return NullObject.INSTANCE;
-          }
+    String text = tokenizer.text();
+    String normalized = text.toLowerCase().strip();
+    if (Objects.equals(normalized, "true")) {
+      return true;
+    } else if (Objects.equals(normalized, "false")) {
+      return false;
+    } else {
+      for (String nullToken : nulls) {
+        if (normalized.equals(nullToken)) {
+          return NullObject.INSTANCE;
         }
-        throw new CsvParserTruffleException(
-            String.format("cannot parse '%s' as a bool", text), this, stream, location);
       }
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+      throw new CsvParserTruffleException(
+          String.format("cannot parse '%s' as a bool", text), this, stream, location);
     }
   }
 
-  @TruffleBoundary
   String getString(ExpressionNode location) {
-    try {
-      return jacksonParser.getText();
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
-    }
+    return tokenizer.text();
   }
 
-  @TruffleBoundary
   Object getOptionString(ExpressionNode location) {
-    try {
-      String token = jacksonParser.getText();
-      for (String nullToken : nulls) {
-        if (token.equals(nullToken)) {
-          return NullObject.INSTANCE;
-        }
-      }
-      return token;
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+    if (isNull()) {
+      return NullObject.INSTANCE;
     }
+    return tokenizer.text();
   }
 
   @TruffleBoundary
   public DateObject getDate(ExpressionNode location) {
     try {
-      String token = jacksonParser.getText();
-      return new DateObject(LocalDate.parse(token, dateFormatter));
+      return TemporalParser.parseDate(tokenizer.text(), dateFormat, dateFormatter);
     } catch (DateTimeParseException ex) {
       throw new CsvParserTruffleException(
           String.format(
@@ -536,39 +360,22 @@ public class TruffleCsvParser {
           stream,
           ex,
           location);
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+    } catch (TruffleRuntimeException ex) {
+      throw new CsvParserTruffleException(ex.getMessage(), this, stream, ex, location);
     }
   }
 
-  @TruffleBoundary
   Object getOptionDate(ExpressionNode location) {
-    try {
-      String token = jacksonParser.getText();
-      for (String nullToken : nulls) {
-        if (token.equals(nullToken)) {
-          return NullObject.INSTANCE;
-        }
-      }
-      return new DateObject(LocalDate.parse(token, dateFormatter));
-    } catch (DateTimeParseException ex) {
-      throw new CsvParserTruffleException(
-          String.format(
-              "string '%s' does not match date template '%s'", ex.getParsedString(), dateFormat),
-          this,
-          stream,
-          ex,
-          location);
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+    if (isNull()) {
+      return NullObject.INSTANCE;
     }
+    return getDate(location);
   }
 
   @TruffleBoundary
   public TimeObject getTime(ExpressionNode location) {
     try {
-      String token = jacksonParser.getText();
-      return new TimeObject(LocalTime.parse(token, timeFormatter));
+      return TemporalParser.parseTime(tokenizer.text(), timeFormat, timeFormatter);
     } catch (DateTimeParseException ex) {
       throw new CsvParserTruffleException(
           String.format(
@@ -577,39 +384,20 @@ public class TruffleCsvParser {
           stream,
           ex,
           location);
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
     }
   }
 
-  @TruffleBoundary
   Object getOptionTime(ExpressionNode location) {
-    try {
-      String token = jacksonParser.getText();
-      for (String nullToken : nulls) {
-        if (token.equals(nullToken)) {
-          return NullObject.INSTANCE;
-        }
-      }
-      return new TimeObject(LocalTime.parse(token, timeFormatter));
-    } catch (DateTimeParseException ex) {
-      throw new CsvParserTruffleException(
-          String.format(
-              "string '%s' does not match time template '%s'", ex.getParsedString(), timeFormat),
-          this,
-          stream,
-          ex,
-          location);
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+    if (isNull()) {
+      return NullObject.INSTANCE;
     }
+    return getTime(location);
   }
 
   @TruffleBoundary
   public TimestampObject getTimestamp(ExpressionNode location) {
     try {
-      String token = jacksonParser.getText();
-      return new TimestampObject(LocalDateTime.parse(token, timestampFormatter));
+      return TemporalParser.parseTimestamp(tokenizer.text(), timestampFormat, timestampFormatter);
     } catch (DateTimeParseException ex) {
       throw new CsvParserTruffleException(
           String.format(
@@ -619,32 +407,15 @@ public class TruffleCsvParser {
           stream,
           ex,
           location);
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+    } catch (TruffleRuntimeException ex) {
+      throw new CsvParserTruffleException(ex.getMessage(), this, stream, ex, location);
     }
   }
 
-  @TruffleBoundary
   Object getOptionTimestamp(ExpressionNode location) {
-    try {
-      String token = jacksonParser.getText();
-      for (String nullToken : nulls) {
-        if (token.equals(nullToken)) {
-          return NullObject.INSTANCE;
-        }
-      }
-      return new TimestampObject(LocalDateTime.parse(token, timestampFormatter));
-    } catch (DateTimeParseException ex) {
-      throw new CsvParserTruffleException(
-          String.format(
-              "string '%s' does not match timestamp template '%s'",
-              ex.getParsedString(), timeFormat),
-          this,
-          stream,
-          ex,
-          location);
-    } catch (IOException ex) {
-      throw new CsvReaderTruffleException(stream, ex, location);
+    if (isNull()) {
+      return NullObject.INSTANCE;
     }
+    return getTimestamp(location);
   }
 }
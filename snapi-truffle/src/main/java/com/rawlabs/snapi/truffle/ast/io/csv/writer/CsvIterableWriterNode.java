@@ -22,12 +22,12 @@ import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.DirectCallNode;
-import com.rawlabs.snapi.truffle.SnapiContext;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.ast.StatementNode;
 import com.rawlabs.snapi.truffle.runtime.exceptions.csv.CsvWriterTruffleException;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodes;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodesFactory;
 import java.io.IOException;
@@ -62,8 +62,6 @@ public class CsvIterableWriterNode extends StatementNode {
   private final String[] columnNames;
   private final String lineSeparator;
 
-  private final OutputStream os = SnapiContext.get(this).getOutput();
-
   public CsvIterableWriterNode(
       ExpressionNode dataNode,
       RootCallTarget writeRootCallTarget,
@@ -79,7 +77,7 @@ public class CsvIterableWriterNode extends StatementNode {
   public void executeVoid(VirtualFrame frame) {
     Object iterable = dataNode.executeGeneric(frame);
     Object generator = getGeneratorNode.execute(this, iterable);
-    try (CsvGenerator gen = createGenerator(os)) {
+    try (CsvGenerator gen = createGenerator(StaticInitializers.getOutputStream(this))) {
       generatorInitNode.execute(this, generator);
       while (generatorHasNextNode.execute(this, generator)) {
         Object item = generatorNextNode.execute(this, generator);
@@ -22,10 +22,10 @@ import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.DirectCallNode;
-import com.rawlabs.snapi.truffle.SnapiContext;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.ast.StatementNode;
 import com.rawlabs.snapi.truffle.runtime.exceptions.csv.CsvWriterTruffleException;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers;
 import com.rawlabs.snapi.truffle.runtime.list.ListNodes;
 import com.rawlabs.snapi.truffle.runtime.list.ListNodesFactory;
 import com.rawlabs.snapi.truffle.runtime.list.ObjectList;
@@ -44,7 +44,6 @@ public class CsvListWriterNode extends StatementNode {
 
   private final String[] columnNames;
   private final String lineSeparator;
-  private final OutputStream os;
 
   public CsvListWriterNode(
       ExpressionNode dataNode,
@@ -55,12 +54,11 @@ public class CsvListWriterNode extends StatementNode {
     itemWriter = DirectCallNode.create(writeRootCallTarget);
     this.columnNames = columnNames;
     this.lineSeparator = lineSeparator;
-    this.os = SnapiContext.get(this).getOutput();
   }
 
   @Override
   public void executeVoid(VirtualFrame frame) {
-    try (CsvGenerator gen = createGenerator(os)) {
+    try (CsvGenerator gen = createGenerator(StaticInitializers.getOutputStream(this))) {
       ObjectList list = (ObjectList) dataNode.executeGeneric(frame);
       long size = sizeNode.execute(this, list);
       for (long i = 0; i < size; i++) {
@@ -20,9 +20,9 @@ import com.rawlabs.snapi.truffle.runtime.primitives.BinaryObject;
 @NodeInfo(shortName = "Jdbc.BinaryRead")
 public class BinaryReadJdbcQuery extends ExpressionNode {
 
-  private final String idx;
+  private final int idx;
 
-  public BinaryReadJdbcQuery(String idx) {
+  public BinaryReadJdbcQuery(int idx) {
     this.idx = idx;
   }
 
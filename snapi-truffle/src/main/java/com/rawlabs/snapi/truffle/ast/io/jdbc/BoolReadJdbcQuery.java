@@ -19,9 +19,9 @@ import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 @NodeInfo(shortName = "Jdbc.BoolRead")
 public class BoolReadJdbcQuery extends ExpressionNode {
 
-  private final String idx;
+  private final int idx;
 
-  public BoolReadJdbcQuery(String idx) {
+  public BoolReadJdbcQuery(int idx) {
     this.idx = idx;
   }
 
@@ -19,9 +19,9 @@ import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 @NodeInfo(shortName = "Jdbc.ByteRead")
 public class ByteReadJdbcQuery extends ExpressionNode {
 
-  private final String idx;
+  private final int idx;
 
-  public ByteReadJdbcQuery(String idx) {
+  public ByteReadJdbcQuery(int idx) {
     this.idx = idx;
   }
 
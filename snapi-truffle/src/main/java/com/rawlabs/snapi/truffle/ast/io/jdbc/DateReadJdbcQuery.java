@@ -20,9 +20,9 @@ import com.rawlabs.snapi.truffle.runtime.primitives.DateObject;
 @NodeInfo(shortName = "Jdbc.DateRead")
 public class DateReadJdbcQuery extends ExpressionNode {
 
-  private final String idx;
+  private final int idx;
 
-  public DateReadJdbcQuery(String idx) {
+  public DateReadJdbcQuery(int idx) {
     this.idx = idx;
   }
 
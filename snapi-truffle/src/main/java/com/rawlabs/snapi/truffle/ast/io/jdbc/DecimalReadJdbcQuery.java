@@ -20,9 +20,9 @@ import com.rawlabs.snapi.truffle.runtime.primitives.DecimalObject;
 @NodeInfo(shortName = "Jdbc.DecimalRead")
 public class DecimalReadJdbcQuery extends ExpressionNode {
 
-  private final String idx;
+  private final int idx;
 
-  public DecimalReadJdbcQuery(String idx) {
+  public DecimalReadJdbcQuery(int idx) {
     this.idx = idx;
   }
 
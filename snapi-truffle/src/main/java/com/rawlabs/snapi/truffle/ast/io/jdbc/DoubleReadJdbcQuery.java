@@ -19,9 +19,9 @@ import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 @NodeInfo(shortName = "Jdbc.DoubleRead")
 public class DoubleReadJdbcQuery extends ExpressionNode {
 
-  private final String idx;
+  private final int idx;
 
-  public DoubleReadJdbcQuery(String idx) {
+  public DoubleReadJdbcQuery(int idx) {
     this.idx = idx;
   }
 
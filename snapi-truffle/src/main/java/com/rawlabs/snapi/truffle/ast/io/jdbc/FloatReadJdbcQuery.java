@@ -19,9 +19,9 @@ import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 @NodeInfo(shortName = "Jdbc.FloatRead")
 public class FloatReadJdbcQuery extends ExpressionNode {
 
-  private final String idx;
+  private final int idx;
 
-  public FloatReadJdbcQuery(String idx) {
+  public FloatReadJdbcQuery(int idx) {
     this.idx = idx;
   }
 
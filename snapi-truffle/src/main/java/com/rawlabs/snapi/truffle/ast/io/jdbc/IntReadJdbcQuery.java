@@ -19,9 +19,9 @@ import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 @NodeInfo(shortName = "Jdbc.IntRead")
 public class IntReadJdbcQuery extends ExpressionNode {
 
-  private final String idx;
+  private final int idx;
 
-  public IntReadJdbcQuery(String idx) {
+  public IntReadJdbcQuery(int idx) {
     this.idx = idx;
   }
 
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.ast.io.jdbc;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.rawlabs.snapi.frontend.snapi.extensions.LocationDescription;
+import com.rawlabs.snapi.truffle.runtime.primitives.LocationObject;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Idle database connections kept per location, so that queries to the same database reuse them
+ * instead of connecting each time. Connections are keyed by the description of their location,
+ * which includes the credentials, so they are only reused for the same server, database and user.
+ *
+ * <p>The number of connections open at once isn't bounded, since a program can run several queries
+ * to the same database at once (e.g. a join of two queries); only the number of idle ones kept per
+ * location is. Idle connections are checked before being reused if they have been idle for a
+ * while, and closed by a background thread once they expired. All of them are closed when the pool
+ * is closed.
+ */
+public final class JdbcConnectionPool {
+
+  // Connections used less than this ago are reused without being checked.
+  private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+  private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+  private final int maxIdle;
+  private final long idleTimeoutNanos;
+
+  private final Map<LocationDescription, ArrayDeque<IdleConnection>> idle = new HashMap<>();
+
+  private ScheduledExecutorService reaper = null; // started with the first idle connection.
+
+  private boolean closed = false;
+
+  private record IdleConnection(Connection connection, long since) {}
+
+  public JdbcConnectionPool(int maxIdle, long idleTimeoutNanos) {
+    this.maxIdle = maxIdle;
+    this.idleTimeoutNanos = idleTimeoutNanos;
+  }
+
+  /** Returns an idle connection to the location, or a new one if none can be reused. */
+  @TruffleBoundary
+  public Connection acquire(LocationObject location) {
+    IdleConnection candidate;
+    while ((candidate = poll(location.getLocationDescription())) != null) {
+      long idleFor = System.nanoTime() - candidate.since();
+      if (idleFor > idleTimeoutNanos) {
+        closeQuietly(candidate.connection());
+      } else if (idleFor < VALIDATION_BYPASS_NANOS || isValid(candidate.connection())) {
+        return candidate.connection();
+      } else {
+        closeQuietly(candidate.connection());
+      }
+    }
+    return location.getJdbcServerLocation().getJdbcConnection();
+  }
+
+  /**
+   * Hands a connection back once its statement is closed. It is closed instead of kept if it isn't
+   * reusable (e.g. its query failed), or if enough connections to the location are idle already.
+   */
+  @TruffleBoundary
+  public void release(LocationObject location, Connection connection, boolean reusable) {
+    if (reusable && maxIdle > 0) {
+      try {
+        if (!connection.isClosed()) {
+          if (!connection.getAutoCommit()) connection.rollback();
+          connection.clearWarnings();
+          if (offer(location.getLocationDescription(), connection)) return;
+        }
+      } catch (SQLException ignored) {
+      }
+    }
+    closeQuietly(connection);
+  }
+
+  private synchronized IdleConnection poll(LocationDescription key) {
+    ArrayDeque<IdleConnection> connections = idle.get(key);
+    if (connections == null) return null;
+    // The most recently used connection is the most likely to still be alive.
+    IdleConnection connection = connections.pollLast();
+    if (connections.isEmpty()) idle.remove(key);
+    return connection;
+  }
+
+  private synchronized boolean offer(LocationDescription key, Connection connection) {
+    if (closed) return false;
+    if (reaper == null) {
+      reaper =
+          Executors.newSingleThreadScheduledExecutor(
+              r -> {
+                Thread t = new Thread(r, "raw-jdbc-pool");
+                t.setDaemon(true);
+                return t;
+              });
+      long period = Math.max(idleTimeoutNanos / 2, TimeUnit.SECONDS.toNanos(1));
+      reaper.scheduleWithFixedDelay(this::evictExpired, period, period, TimeUnit.NANOSECONDS);
+    }
+    ArrayDeque<IdleConnection> connections = idle.computeIfAbsent(key, k -> new ArrayDeque<>());
+    if (connections.size() >= maxIdle) {
+      // Make room by dropping the oldest one if it expired.
+      IdleConnection oldest = connections.peekFirst();
+      if (System.nanoTime() - oldest.since() <= idleTimeoutNanos) return false;
+      connections.pollFirst();
+      closeQuietly(oldest.connection());
+    }
+    connections.addLast(new IdleConnection(connection, System.nanoTime()));
+    return true;
+  }
+
+  /** Closes the connections that have been idle for longer than the timeout. */
+  @TruffleBoundary
+  public void evictExpired() {
+    List<Connection> expired = new ArrayList<>();
+    synchronized (this) {
+      long now = System.nanoTime();
+      Iterator<ArrayDeque<IdleConnection>> it = idle.values().iterator();
+      while (it.hasNext()) {
+        ArrayDeque<IdleConnection> connections = it.next();
+        // the oldest connections are first.
+        while (!connections.isEmpty() && now - connections.peekFirst().since() > idleTimeoutNanos) {
+          expired.add(connections.pollFirst().connection());
+        }
+        if (connections.isEmpty()) it.remove();
+      }
+    }
+    expired.forEach(JdbcConnectionPool::closeQuietly);
+  }
+
+  /** Closes the idle connections, and the connections handed back from now on. */
+  @TruffleBoundary
+  public void close() {
+    List<Connection> connections = new ArrayList<>();
+    synchronized (this) {
+      closed = true;
+      if (reaper != null) {
+        reaper.shutdownNow();
+        reaper = null;
+      }
+      idle.values().forEach(c -> c.forEach(i -> connections.add(i.connection())));
+      idle.clear();
+    }
+    connections.forEach(JdbcConnectionPool::closeQuietly);
+  }
+
+  private static boolean isValid(Connection connection) {
+    try {
+      return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  private static void closeQuietly(Connection connection) {
+    try {
+      connection.close();
+    } catch (SQLException ignored) {
+    }
+  }
+}
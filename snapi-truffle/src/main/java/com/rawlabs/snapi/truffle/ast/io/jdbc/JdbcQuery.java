@@ -14,211 +14,346 @@ package com.rawlabs.snapi.truffle.ast.io.jdbc;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.nodes.Node;
+import com.rawlabs.snapi.truffle.SnapiLanguage;
 import com.rawlabs.snapi.truffle.runtime.exceptions.rdbms.JdbcExceptionHandler;
 import com.rawlabs.snapi.truffle.runtime.exceptions.rdbms.JdbcReaderTruffleException;
 import com.rawlabs.snapi.truffle.runtime.primitives.*;
 import com.rawlabs.utils.core.RawException;
 import com.rawlabs.utils.core.RawSettings;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.temporal.ChronoField;
 
+/**
+ * The result of a query, read by batches of rows into one vector per column of the record type, so
+ * that the column readers get their values with plain array accesses. Columns are looked up by
+ * name once, when the query is executed. Errors reading a value are kept with it, and only thrown
+ * when the value is read, so that tryable columns can catch them.
+ */
 public class JdbcQuery {
 
+  /** What a column is read as. */
+  public enum ColumnType {
+    BYTE,
+    SHORT,
+    INT,
+    LONG,
+    FLOAT,
+    DOUBLE,
+    DECIMAL,
+    STRING,
+    BOOL,
+    DATE,
+    TIME,
+    TIMESTAMP,
+    BINARY
+  }
+
   private final String publicDescription;
+  private final LocationObject locationObject;
+  private final JdbcConnectionPool connectionPool;
   private final Connection connection;
+  private final PreparedStatement stmt;
   private final ResultSet rs;
   private final JdbcExceptionHandler exceptionHandler;
 
+  private final String[] columnNames;
+  private final ColumnType[] columnTypes;
+  // The result set indexes of the columns, or the error looking them up.
+  private final int[] columnIndexes;
+  private final SQLException[] columnErrors;
+
+  private final int batchSize;
+  private final Object[] values; // one array per column, of the Java type of its ColumnType.
+  private final boolean[][] nulls;
+  private final SQLException[][] errors; // allocated for a column on its first error.
+
+  private int batchRows = 0;
+  private int row = -1;
+  private boolean exhausted = false;
+  // Failure to move to the next row, thrown once the rows read before it are consumed.
+  private SQLException pendingError = null;
+  private boolean reusable = true;
+
   @TruffleBoundary
   public JdbcQuery(
       LocationObject locationObject,
       String query,
+      String[] columnNames,
+      ColumnType[] columnTypes,
       RawSettings rawSettings,
       JdbcExceptionHandler exceptionHandler) {
     this.publicDescription = locationObject.getPublicDescription();
+    this.locationObject = locationObject;
     this.exceptionHandler = exceptionHandler;
+    this.columnNames = columnNames;
+    this.columnTypes = columnTypes;
+    this.batchSize = Math.max(1, rawSettings.getInt("raw.runtime.rdbms.batch-size"));
+    this.connectionPool = SnapiLanguage.get(null).getJdbcConnectionPool(rawSettings);
+    int fetchSize = rawSettings.getInt("raw.runtime.rdbms.fetch-size");
     try {
-      PreparedStatement stmt;
-      int fetchSize = rawSettings.getInt("raw.runtime.rdbms.fetch-size");
-      // FIXME (msb): What is crashes during construction? Must release connection.
-      connection = locationObject.getJdbcServerLocation().getJdbcConnection();
-      try {
-        stmt = connection.prepareStatement(query);
-        stmt.setFetchSize(fetchSize);
-        rs = stmt.executeQuery();
-      } catch (SQLException e) {
-        throw exceptionHandler.rewrite(e, this);
-      }
+      connection = connectionPool.acquire(locationObject);
     } catch (RawException e) {
       // Exceptions due to location errors (e.g. connection failures) are turned into runtime
       // exceptions.
       throw new JdbcReaderTruffleException(e.getMessage(), this, e, null);
     }
+    PreparedStatement statement = null;
+    try {
+      statement = connection.prepareStatement(query);
+      statement.setFetchSize(fetchSize);
+      rs = statement.executeQuery();
+      stmt = statement;
+    } catch (SQLException e) {
+      if (statement != null) {
+        try {
+          statement.close();
+        } catch (SQLException ignored) {
+        }
+      }
+      connectionPool.release(locationObject, connection, false);
+      throw exceptionHandler.rewrite(e, this);
+    }
+
+    int nColumns = columnNames.length;
+    columnIndexes = new int[nColumns];
+    columnErrors = new SQLException[nColumns];
+    for (int i = 0; i < nColumns; i++) {
+      try {
+        columnIndexes[i] = rs.findColumn(columnNames[i]);
+      } catch (SQLException e) {
+        columnErrors[i] = e;
+      }
+    }
+    values = new Object[nColumns];
+    for (int i = 0; i < nColumns; i++) {
+      values[i] = newVector(columnTypes[i], batchSize);
+    }
+    nulls = new boolean[nColumns][batchSize];
+    errors = new SQLException[nColumns][];
+  }
+
+  private static Object newVector(ColumnType type, int size) {
+    return switch (type) {
+      case BYTE -> new byte[size];
+      case SHORT -> new short[size];
+      case INT -> new int[size];
+      case LONG -> new long[size];
+      case FLOAT -> new float[size];
+      case DOUBLE -> new double[size];
+      case BOOL -> new boolean[size];
+      default -> new Object[size];
+    };
   }
 
   @TruffleBoundary
   public void close() {
     if (rs != null) {
+      // a connection of which the result set or statement didn't close isn't reused.
       try {
         rs.close();
-        connection.close();
       } catch (SQLException ignored) {
+        reusable = false;
+      }
+      try {
+        stmt.close();
+      } catch (SQLException ignored) {
+        reusable = false;
       }
+      connectionPool.release(locationObject, connection, reusable);
     }
   }
 
-  @TruffleBoundary
   public boolean next() {
-    try {
-      return rs.next();
-    } catch (SQLException e) {
-      throw exceptionHandler.rewrite(e, this);
+    if (++row < batchRows) {
+      return true;
     }
+    return nextBatch();
   }
 
   @TruffleBoundary
-  byte getByte(String colName, Node node) {
+  private boolean nextBatch() {
+    if (pendingError != null) {
+      reusable = false;
+      throw exceptionHandler.rewrite(pendingError, this);
+    }
+    if (exhausted) {
+      return false;
+    }
+    row = 0;
+    batchRows = 0;
+    for (int i = 0; i < errors.length; i++) {
+      errors[i] = null;
+    }
     try {
-      return rs.getByte(colName);
+      while (batchRows < batchSize) {
+        if (!rs.next()) {
+          exhausted = true;
+          break;
+        }
+        readRow(batchRows++);
+      }
     } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
+      if (batchRows == 0) {
+        reusable = false;
+        throw exceptionHandler.rewrite(e, this);
+      }
+      pendingError = e;
     }
+    return batchRows > 0;
   }
 
-  @TruffleBoundary
-  short getShort(String colName, Node node) {
-    try {
-      return rs.getShort(colName);
-    } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
+  private void readRow(int r) {
+    for (int i = 0; i < values.length; i++) {
+      if (columnErrors[i] != null) {
+        setError(i, r, columnErrors[i]);
+        continue;
+      }
+      int index = columnIndexes[i];
+      try {
+        switch (columnTypes[i]) {
+          case BYTE -> ((byte[]) values[i])[r] = rs.getByte(index);
+          case SHORT -> ((short[]) values[i])[r] = rs.getShort(index);
+          case INT -> ((int[]) values[i])[r] = rs.getInt(index);
+          case LONG -> ((long[]) values[i])[r] = rs.getLong(index);
+          case FLOAT -> ((float[]) values[i])[r] = rs.getFloat(index);
+          case DOUBLE -> ((double[]) values[i])[r] = rs.getDouble(index);
+          case BOOL -> ((boolean[]) values[i])[r] = rs.getBoolean(index);
+          case DECIMAL -> ((Object[]) values[i])[r] = toDecimal(rs.getBigDecimal(index));
+          case STRING -> ((Object[]) values[i])[r] = rs.getString(index);
+          case DATE -> ((Object[]) values[i])[r] = toDate(rs.getDate(index));
+          case TIME -> ((Object[]) values[i])[r] = toTime(rs.getTime(index));
+          case TIMESTAMP -> ((Object[]) values[i])[r] = toTimestamp(rs.getTimestamp(index));
+          case BINARY -> ((Object[]) values[i])[r] = rs.getBytes(index);
+        }
+        nulls[i][r] = rs.wasNull();
+      } catch (SQLException e) {
+        setError(i, r, e);
+      }
     }
   }
 
-  @TruffleBoundary
-  int getInt(String colName, Node node) {
-    try {
-      return rs.getInt(colName);
-    } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
+  private void setError(int column, int r, SQLException e) {
+    if (errors[column] == null) {
+      errors[column] = new SQLException[batchSize];
     }
+    errors[column][r] = e;
+    // Reading a null never fails, so the value isn't null.
+    nulls[column][r] = false;
   }
 
-  @TruffleBoundary
-  long getLong(String colName, Node node) {
-    try {
-      return rs.getLong(colName);
-    } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
-    }
+  private static DecimalObject toDecimal(BigDecimal bigDecimal) {
+    return bigDecimal == null ? null : DecimalObject.valueOf(bigDecimal);
   }
 
-  @TruffleBoundary
-  float getFloat(String colName, Node node) {
-    try {
-      return rs.getFloat(colName);
-    } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
-    }
+  private static DateObject toDate(java.sql.Date sqlDate) {
+    return sqlDate == null ? null : new DateObject(sqlDate.toLocalDate());
   }
 
-  @TruffleBoundary
-  double getDouble(String colName, Node node) {
-    try {
-      return rs.getDouble(colName);
-    } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
+  private static TimeObject toTime(java.sql.Time sqlTime) {
+    if (sqlTime == null) {
+      return null;
     }
+    // Turn the SQL time into LocalTime. It does something proper with potential timezone
+    // conversion, but doesn't have the milliseconds (toLocalTime's doc says it sets the LocalTime
+    // nanoseconds field to zero).
+    java.time.LocalTime withoutMilliseconds = sqlTime.toLocalTime();
+    // Get the value as milliseconds (possibly shifted by a certain timezone) but we have the
+    // milliseconds.
+    long asMillis = sqlTime.getTime();
+    // Extract the actual milliseconds.
+    long millis = asMillis % 1000;
+    // Fix the LocalTime milliseconds.
+    java.time.LocalTime localTime = withoutMilliseconds.with(ChronoField.MILLI_OF_SECOND, millis);
+    return new TimeObject(localTime);
   }
 
-  @TruffleBoundary
-  DecimalObject getDecimal(String colName, Node node) {
-    try {
-      return new DecimalObject(rs.getBigDecimal(colName));
-    } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
-    }
+  private static TimestampObject toTimestamp(java.sql.Timestamp sqlTimestamp) {
+    return sqlTimestamp == null ? null : new TimestampObject(sqlTimestamp.toLocalDateTime());
   }
 
-  @TruffleBoundary
-  String getString(String colName, Node node) {
-    try {
-      return rs.getString(colName);
-    } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
+  private void checkError(int column, Node node) {
+    SQLException[] columnErrors = errors[column];
+    if (columnErrors != null && columnErrors[row] != null) {
+      throw columnParseError(column, node);
     }
   }
 
   @TruffleBoundary
-  boolean getBool(String colName, Node node) {
-    try {
-      return rs.getBoolean(colName);
-    } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
-    }
+  private RuntimeException columnParseError(int column, Node node) {
+    return exceptionHandler.columnParseError(errors[column][row], columnNames[column], node);
   }
 
-  @TruffleBoundary
-  DateObject getDate(String colName, Node node) {
-    try {
-      java.sql.Date sqlDate = rs.getDate(colName);
-      return new DateObject(sqlDate.toLocalDate());
-    } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
-    }
+  byte getByte(int column, Node node) {
+    checkError(column, node);
+    return ((byte[]) values[column])[row];
   }
 
-  @TruffleBoundary
-  TimeObject getTime(String colName, Node node) {
-    try {
-      // Extract the SQL time (a JDBC object) from the result set.
-      java.sql.Time sqlTime = rs.getTime(colName);
-      // Turn it into LocalTime. It does something proper with potential timezone conversion, but
-      // doesn't have the milliseconds (toLocalTime's doc says it sets the LocalTime nanoseconds
-      // field to zero).
-      java.time.LocalTime withoutMilliseconds = sqlTime.toLocalTime();
-      // Get the value as milliseconds (possibly shifted by a certain timezone) but we have the
-      // milliseconds.
-      long asMillis = sqlTime.getTime();
-      // Extract the actual milliseconds.
-      long millis = asMillis % 1000;
-      // Fix the LocalTime milliseconds.
-      java.time.LocalTime localTime = withoutMilliseconds.with(ChronoField.MILLI_OF_SECOND, millis);
-      return new TimeObject(localTime);
-    } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
-    }
+  short getShort(int column, Node node) {
+    checkError(column, node);
+    return ((short[]) values[column])[row];
   }
 
-  @TruffleBoundary
-  TimestampObject getTimestamp(String colName, Node node) {
-    try {
-      java.sql.Timestamp sqlTimestamp = rs.getTimestamp(colName);
-      return new TimestampObject(sqlTimestamp.toLocalDateTime());
-    } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
-    }
+  int getInt(int column, Node node) {
+    checkError(column, node);
+    return ((int[]) values[column])[row];
   }
 
-  @TruffleBoundary
-  byte[] getBytes(String colName, Node node) {
-    try {
-      return rs.getBytes(colName);
-    } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
-    }
+  long getLong(int column, Node node) {
+    checkError(column, node);
+    return ((long[]) values[column])[row];
   }
 
-  @TruffleBoundary
-  boolean isNull(String colName, Node node) {
-    try {
-      rs.getObject(colName);
-      return rs.wasNull();
-    } catch (SQLException e) {
-      throw exceptionHandler.columnParseError(e, colName, node);
-    }
+  float getFloat(int column, Node node) {
+    checkError(column, node);
+    return ((float[]) values[column])[row];
+  }
+
+  double getDouble(int column, Node node) {
+    checkError(column, node);
+    return ((double[]) values[column])[row];
+  }
+
+  DecimalObject getDecimal(int column, Node node) {
+    checkError(column, node);
+    return (DecimalObject) ((Object[]) values[column])[row];
+  }
+
+  String getString(int column, Node node) {
+    checkError(column, node);
+    return (String) ((Object[]) values[column])[row];
+  }
+
+  boolean getBool(int column, Node node) {
+    checkError(column, node);
+    return ((boolean[]) values[column])[row];
+  }
+
+  DateObject getDate(int column, Node node) {
+    checkError(column, node);
+    return (DateObject) ((Object[]) values[column])[row];
+  }
+
+  TimeObject getTime(int column, Node node) {
+    checkError(column, node);
+    return (TimeObject) ((Object[]) values[column])[row];
+  }
+
+  TimestampObject getTimestamp(int column, Node node) {
+    checkError(column, node);
+    return (TimestampObject) ((Object[]) values[column])[row];
+  }
+
+  byte[] getBytes(int column, Node node) {
+    checkError(column, node);
+    return (byte[]) ((Object[]) values[column])[row];
+  }
+
+  boolean isNull(int column, Node node) {
+    return nulls[column][row];
   }
 
   public String getPublicDescription() {
@@ -19,9 +19,9 @@ import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 @NodeInfo(shortName = "Jdbc.LongRead")
 public class LongReadJdbcQuery extends ExpressionNode {
 
-  private final String idx;
+  private final int idx;
 
-  public LongReadJdbcQuery(String idx) {
+  public LongReadJdbcQuery(int idx) {
     this.idx = idx;
   }
 
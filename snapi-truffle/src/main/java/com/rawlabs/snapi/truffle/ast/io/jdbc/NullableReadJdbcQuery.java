@@ -23,9 +23,9 @@ import com.rawlabs.snapi.truffle.runtime.primitives.NullObject;
 public class NullableReadJdbcQuery extends ExpressionNode {
 
   @Child private DirectCallNode innerParse;
-  private final String idx;
+  private final int idx;
 
-  public NullableReadJdbcQuery(ProgramExpressionNode innerParse, String idx) {
+  public NullableReadJdbcQuery(ProgramExpressionNode innerParse, int idx) {
     this.innerParse = DirectCallNode.create(innerParse.getCallTarget());
     this.idx = idx;
   }
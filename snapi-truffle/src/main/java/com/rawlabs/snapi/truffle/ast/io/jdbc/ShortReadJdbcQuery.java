@@ -19,9 +19,9 @@ import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 @NodeInfo(shortName = "Jdbc.ShortRead")
 public class ShortReadJdbcQuery extends ExpressionNode {
 
-  private final String idx;
+  private final int idx;
 
-  public ShortReadJdbcQuery(String idx) {
+  public ShortReadJdbcQuery(int idx) {
     this.idx = idx;
   }
 
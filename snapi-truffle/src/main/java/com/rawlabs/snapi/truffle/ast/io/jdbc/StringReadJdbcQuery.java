@@ -19,9 +19,9 @@ import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 @NodeInfo(shortName = "StringReadJdbcQuery")
 public class StringReadJdbcQuery extends ExpressionNode {
 
-  private final String idx;
+  private final int idx;
 
-  public StringReadJdbcQuery(String idx) {
+  public StringReadJdbcQuery(int idx) {
     this.idx = idx;
   }
 
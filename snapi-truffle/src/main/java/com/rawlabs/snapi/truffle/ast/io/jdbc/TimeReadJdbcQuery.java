@@ -20,9 +20,9 @@ import com.rawlabs.snapi.truffle.runtime.primitives.TimeObject;
 @NodeInfo(shortName = "Time.DateRead")
 public class TimeReadJdbcQuery extends ExpressionNode {
 
-  private final String idx;
+  private final int idx;
 
-  public TimeReadJdbcQuery(String idx) {
+  public TimeReadJdbcQuery(int idx) {
     this.idx = idx;
   }
 
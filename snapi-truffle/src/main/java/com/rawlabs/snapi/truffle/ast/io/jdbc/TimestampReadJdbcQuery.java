@@ -20,9 +20,9 @@ import com.rawlabs.snapi.truffle.runtime.primitives.TimestampObject;
 @NodeInfo(shortName = "Timestamp.DateRead")
 public class TimestampReadJdbcQuery extends ExpressionNode {
 
-  private final String idx;
+  private final int idx;
 
-  public TimestampReadJdbcQuery(String idx) {
+  public TimestampReadJdbcQuery(int idx) {
     this.idx = idx;
   }
 
@@ -24,9 +24,9 @@ import com.rawlabs.snapi.truffle.runtime.primitives.ErrorObject;
 public class TryableReadJdbcQuery extends ExpressionNode {
 
   @Child private DirectCallNode innerParse;
-  private final String idx;
+  private final int idx;
 
-  public TryableReadJdbcQuery(ProgramExpressionNode innerParse, String idx) {
+  public TryableReadJdbcQuery(ProgramExpressionNode innerParse, int idx) {
     this.innerParse = DirectCallNode.create(innerParse.getCallTarget());
     this.idx = idx;
   }
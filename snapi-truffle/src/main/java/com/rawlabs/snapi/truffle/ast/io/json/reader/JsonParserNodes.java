@@ -15,6 +15,7 @@ package com.rawlabs.snapi.truffle.ast.io.json.reader;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
 import com.fasterxml.jackson.core.json.JsonReadFeature;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -24,6 +25,7 @@ import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.truffle.SnapiLanguage;
 import com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.DateTimeFormatCache;
+import com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.TemporalParser;
 import com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.interval_package.IntervalNodes;
 import com.rawlabs.snapi.truffle.ast.expressions.record.RecordStaticInitializers;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
@@ -36,10 +38,6 @@ import com.rawlabs.snapi.truffle.runtime.record.RecordNodes;
 import com.rawlabs.snapi.truffle.runtime.utils.TruffleCharInputStream;
 import java.io.IOException;
 import java.io.Reader;
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Base64;
@@ -49,6 +47,16 @@ public final class JsonParserNodes {
   private static final TruffleLogger LOG =
       TruffleLogger.getLogger(SnapiLanguage.ID, TruffleRuntimeException.class);
 
+  // Shared by all the parsers, so that their field names are looked up in the same symbol table
+  // instead of one per parse. Field names are interned, see RecordParseJsonNode.
+  public static final JsonFactory JSON_FACTORY =
+      JsonFactory.builder()
+          .enable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES)
+          .enable(JsonFactory.Feature.INTERN_FIELD_NAMES)
+          .disable(StreamReadFeature.AUTO_CLOSE_SOURCE) // TODO (msb): Auto-disable or enable?
+          .enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS)
+          .build();
+
   @NodeInfo(shortName = "JsonParser.Initialize")
   @GenerateUncached
   @GenerateInline
@@ -65,11 +73,7 @@ public final class JsonParserNodes {
         @Cached @Cached.Shared("close") CloseJsonParserNode closeParser) {
       JsonParser parser = null;
       try {
-        JsonFactory jsonFactory = new JsonFactory();
-        jsonFactory.disable(
-            JsonParser.Feature.AUTO_CLOSE_SOURCE); // TODO (msb): Auto-disable or actually enable?
-        parser = jsonFactory.createParser(value);
-        parser.enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS.mappedFeature());
+        parser = JSON_FACTORY.createParser(value);
         return parser;
       } catch (IOException e) {
         JsonReaderTruffleException ex = new JsonReaderTruffleException(e, thisNode);
@@ -87,12 +91,8 @@ public final class JsonParserNodes {
         @Cached @Cached.Shared("close") CloseJsonParserNode closeParser) {
       JsonParser parser = null;
       try {
-        JsonFactory jsonFactory = new JsonFactory();
-        jsonFactory.disable(
-            JsonParser.Feature.AUTO_CLOSE_SOURCE); // TODO (msb): Auto-disable or actually enable?
         Reader reader = stream.getReader();
-        parser = jsonFactory.createParser(reader);
-        parser.enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS.mappedFeature());
+        parser = JSON_FACTORY.createParser(reader);
         return parser;
       } catch (IOException e) {
         JsonReaderTruffleException ex = new JsonReaderTruffleException(parser, stream, e, thisNode);
@@ -268,7 +268,8 @@ public final class JsonParserNodes {
         Node node, JsonParser parser, String format, @Bind("$node") Node thisNode) {
       try {
         String text = parser.getText();
-        DateObject date = new DateObject(LocalDate.parse(text, DateTimeFormatCache.get(format)));
+        DateObject date =
+            TemporalParser.parseDate(text, format, DateTimeFormatCache.get(format));
         parser.nextToken();
         return date;
       } catch (DateTimeParseException ex) {
@@ -277,6 +278,8 @@ public final class JsonParserNodes {
                 "string '%s' does not match date template '%s'", ex.getParsedString(), format),
             ex,
             thisNode);
+      } catch (TruffleRuntimeException ex) {
+        throw new JsonParserTruffleException(ex.getMessage(), ex, thisNode);
       } catch (IOException | IllegalArgumentException e) {
         throw new JsonParserTruffleException(e.getMessage(), e, thisNode);
       }
@@ -294,9 +297,13 @@ public final class JsonParserNodes {
     @TruffleBoundary
     static DecimalObject doParse(Node node, JsonParser parser, @Bind("$node") Node thisNode) {
       try {
-        BigDecimal v = parser.getDecimalValue();
+        // Numbers are parsed from their text, which is compact when it has few digits.
+        DecimalObject v =
+            parser.currentToken().isNumeric()
+                ? DecimalObject.parse(parser.getText())
+                : DecimalObject.valueOf(parser.getDecimalValue());
         parser.nextToken();
-        return new DecimalObject(v);
+        return v;
       } catch (IOException e) {
         throw new JsonParserTruffleException(e.getMessage(), e, thisNode);
       }
@@ -465,7 +472,8 @@ public final class JsonParserNodes {
         Node node, JsonParser parser, String format, @Bind("$node") Node thisNode) {
       try {
         String text = parser.getText();
-        TimeObject time = new TimeObject(LocalTime.parse(text, DateTimeFormatCache.get(format)));
+        TimeObject time =
+            TemporalParser.parseTime(text, format, DateTimeFormatCache.get(format));
         parser.nextToken();
         return time;
       } catch (DateTimeParseException ex) {
@@ -494,7 +502,7 @@ public final class JsonParserNodes {
       try {
         String text = parser.getText();
         TimestampObject timestamp =
-            new TimestampObject(LocalDateTime.parse(text, DateTimeFormatCache.get(format)));
+            TemporalParser.parseTimestamp(text, format, DateTimeFormatCache.get(format));
         parser.nextToken();
         return timestamp;
       } catch (DateTimeParseException ex) {
@@ -503,6 +511,8 @@ public final class JsonParserNodes {
                 "string '%s' does not match timestamp template '%s'", ex.getParsedString(), format),
             ex,
             thisNode);
+      } catch (TruffleRuntimeException ex) {
+        throw new JsonParserTruffleException(ex.getMessage(), ex, thisNode);
       } catch (IOException e) {
         throw new JsonParserTruffleException(e.getMessage(), e, thisNode);
       }
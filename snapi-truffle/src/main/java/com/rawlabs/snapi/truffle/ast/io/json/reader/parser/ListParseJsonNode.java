@@ -27,19 +27,14 @@ import com.rawlabs.snapi.truffle.ast.io.json.reader.JsonParserNodes;
 import com.rawlabs.snapi.truffle.ast.io.json.reader.JsonParserNodesFactory;
 import com.rawlabs.snapi.truffle.ast.osr.OSRGeneratorNode;
 import com.rawlabs.snapi.truffle.ast.osr.bodies.OSRListParseJsonBodyNode;
-import com.rawlabs.snapi.truffle.ast.osr.bodies.OSRToArrayBodyNode;
-import com.rawlabs.snapi.truffle.ast.osr.conditions.OSRIsLessThanSizeConditionNode;
 import com.rawlabs.snapi.truffle.ast.osr.conditions.OSRListParseJsonConditionNode;
 import com.rawlabs.snapi.truffle.runtime.exceptions.json.JsonUnexpectedTokenException;
-import java.util.ArrayList;
 
 @NodeInfo(shortName = "IterableParseJson")
 public class ListParseJsonNode extends ExpressionNode {
 
   @Child private LoopNode listParseLoopNode;
 
-  @Child private LoopNode toArrayLoopNode;
-
   @Child
   private JsonParserNodes.CurrentTokenJsonParserNode currentToken =
       JsonParserNodesFactory.CurrentTokenJsonParserNodeGen.create();
@@ -52,15 +47,17 @@ public class ListParseJsonNode extends ExpressionNode {
   private ArrayOperationNodes.ArrayBuildListNode arrayBuildListNode =
       ArrayOperationNodesFactory.ArrayBuildListNodeGen.create();
 
+  @Child
+  private ArrayOperationNodes.ArrayTrimNode arrayTrimNode =
+      ArrayOperationNodesFactory.ArrayTrimNodeGen.create();
+
   @Child
   private ArrayOperationNodes.ArrayBuildNode arrayBuildNode =
       ArrayOperationNodesFactory.ArrayBuildNodeGen.create();
 
   private final SnapiType resultType;
 
-  private final int currentIdxSlot;
   private final int listSizeSlot;
-  private final int llistSlot;
   private final int resultSlot;
 
   private final int parserSlot;
@@ -69,16 +66,12 @@ public class ListParseJsonNode extends ExpressionNode {
       SnapiType resultType,
       RootCallTarget childCallTarget,
       int parserSlot,
-      int llistSlot,
-      int currentIdxSlot,
       int listSizeSlot,
       int resultSlot) {
     this.parserSlot = parserSlot;
     this.resultType = resultType;
     this.listSizeSlot = listSizeSlot;
-    this.currentIdxSlot = currentIdxSlot;
     this.resultSlot = resultSlot;
-    this.llistSlot = llistSlot;
 
     this.listParseLoopNode =
         Truffle.getRuntime()
@@ -86,15 +79,7 @@ public class ListParseJsonNode extends ExpressionNode {
                 new OSRGeneratorNode(
                     new OSRListParseJsonConditionNode(this.parserSlot),
                     new OSRListParseJsonBodyNode(
-                        childCallTarget, this.llistSlot, this.parserSlot)));
-
-    toArrayLoopNode =
-        Truffle.getRuntime()
-            .createLoopNode(
-                new OSRGeneratorNode(
-                    new OSRIsLessThanSizeConditionNode(currentIdxSlot, listSizeSlot),
-                    new OSRToArrayBodyNode(
-                        this.resultType, this.llistSlot, this.currentIdxSlot, this.resultSlot)));
+                        childCallTarget, this.resultSlot, this.listSizeSlot, this.parserSlot)));
   }
 
   @Override
@@ -109,20 +94,15 @@ public class ListParseJsonNode extends ExpressionNode {
     nextToken.execute(this, parser);
 
     frame.setObject(parserSlot, parser);
-    frame.setObject(llistSlot, new ArrayList<>());
+    frame.setObject(
+        resultSlot, arrayBuildNode.execute(this, resultType, ArrayOperationNodes.INITIAL_CAPACITY));
+    frame.setInt(listSizeSlot, 0);
     listParseLoopNode.execute(frame);
 
     nextToken.execute(this, parser);
 
-    @SuppressWarnings("unchecked")
-    ArrayList<Object> llist = (ArrayList<Object>) frame.getObject(llistSlot);
-    int size = llist.size();
-
-    frame.setObject(resultSlot, arrayBuildNode.execute(this, resultType, size));
-    frame.setInt(this.currentIdxSlot, 0);
-    frame.setInt(listSizeSlot, size);
-    frame.setObject(llistSlot, llist);
-    toArrayLoopNode.execute(frame);
-    return arrayBuildListNode.execute(this, frame.getObject(resultSlot));
+    Object result =
+        arrayTrimNode.execute(this, frame.getObject(resultSlot), frame.getInt(listSizeSlot));
+    return arrayBuildListNode.execute(this, result);
   }
 }
@@ -71,6 +71,16 @@ public class RecordParseJsonNode extends ExpressionNode {
 
   private final boolean hasDuplicateKeys;
 
+  // Field names by index. They are interned like the ones returned by the parsers (see
+  // JsonParserNodes.JSON_FACTORY), so that they are mostly compared by reference.
+  @CompilerDirectives.CompilationFinal(dimensions = 1)
+  private final String[] fieldNames;
+
+  // Speculates that the fields of the objects come in the order of the record type. They are then
+  // parsed by a straight sequence of calls to the field parsers, which can be inlined. The first
+  // object with fields out of order, missing or unknown deoptimizes and turns it off.
+  @CompilerDirectives.CompilationFinal private boolean inOrder;
+
   public RecordParseJsonNode(
       ProgramExpressionNode[] childProgramExpressionNode,
       LinkedHashMap<String, Integer> fieldNamesMap,
@@ -89,6 +99,27 @@ public class RecordParseJsonNode extends ExpressionNode {
       this.addPropNode[i] = RecordNodesFactory.AddPropNodeGen.create();
     }
     this.hasDuplicateKeys = hasDuplicateKeys;
+    this.fieldNames = new String[this.fieldsSize];
+    fieldNamesMap.forEach((name, index) -> this.fieldNames[index] = name.intern());
+    this.inOrder = !hasDuplicateKeys;
+  }
+
+  // Parses the fields as long as they come in order. Returns how many did.
+  @ExplodeLoop
+  private int parseInOrder(JsonParser parser, Object record) {
+    for (int i = 0; i < fieldsSize; i++) {
+      if (currentTokenNode.execute(this, parser) != JsonToken.FIELD_NAME) {
+        return i;
+      }
+      String fieldName = currentFieldNode.execute(this, parser);
+      if (fieldName != fieldNames[i] && !fieldNames[i].equals(fieldName)) {
+        return i;
+      }
+      nextTokenNode.execute(this, parser); // skip the field name
+      addPropNode[i].execute(
+          this, record, fieldNames[i], childDirectCalls[i].call(parser), hasDuplicateKeys);
+    }
+    return fieldsSize;
   }
 
   @CompilerDirectives.TruffleBoundary
@@ -117,7 +148,6 @@ public class RecordParseJsonNode extends ExpressionNode {
   public Object executeGeneric(VirtualFrame frame) {
     Object[] args = frame.getArguments();
     JsonParser parser = (JsonParser) args[0];
-    BitSet currentBitSet = new BitSet(this.fieldsSize);
 
     JsonToken token = currentTokenNode.execute(this, parser);
     if (token != JsonToken.START_OBJECT) {
@@ -133,8 +163,19 @@ public class RecordParseJsonNode extends ExpressionNode {
       record = language.createPureRecord();
     }
 
-    // todo: (az) need to find a solution for the array of direct calls,
-    // the json object can be out of order, the child nodes cannot be inlined
+    BitSet currentBitSet = new BitSet(this.fieldsSize);
+    if (inOrder) {
+      int parsed = parseInOrder(parser, record);
+      if (parsed == fieldsSize && currentTokenNode.execute(this, parser) == JsonToken.END_OBJECT) {
+        nextTokenNode.execute(this, parser); // skip the END_OBJECT token
+        return record;
+      }
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      inOrder = false;
+      currentBitSet.set(0, parsed);
+    }
+
+    // The remaining fields, in any order, looked up by name.
     executeWhileLoop(parser, currentBitSet, record);
 
     nextTokenNode.execute(this, parser); // skip the END_OBJECT token
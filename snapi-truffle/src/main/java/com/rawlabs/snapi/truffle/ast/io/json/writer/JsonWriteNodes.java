@@ -28,6 +28,7 @@ import com.rawlabs.snapi.truffle.runtime.primitives.*;
 import com.rawlabs.snapi.truffle.runtime.record.DuplicateKeyRecord;
 import com.rawlabs.snapi.truffle.runtime.record.PureRecord;
 import com.rawlabs.snapi.truffle.runtime.record.RecordNodes;
+import com.rawlabs.snapi.truffle.runtime.record.StaticRecord;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.time.LocalDateTime;
@@ -509,6 +510,32 @@ public final class JsonWriteNodes {
       endObject.execute(thisNode, gen);
     }
 
+    @Specialization
+    protected static void doWriteRecord(
+        Node node,
+        StaticRecord record,
+        JsonGenerator gen,
+        @Bind("$node") Node thisNode,
+        @Cached(inline = false) @Cached.Shared("writeAny") WriteAnyJsonParserNode writeAny,
+        @Cached @Cached.Shared("write") WriteFieldNameJsonWriterNode writeField,
+        @Cached @Cached.Shared("start") WriteStartObjectJsonWriterNode startObject,
+        @Cached @Cached.Shared("end") WriteEndObjectJsonWriterNode endObject,
+        @Cached @Cached.Shared("getValue") RecordNodes.GetValueNode getValue,
+        @Cached @Cached.Shared("getKeys") RecordNodes.GetKeysNode getKeys) {
+      Object[] keys = getKeys.execute(thisNode, record);
+
+      startObject.execute(thisNode, gen);
+      String fieldName;
+      Object member;
+      for (Object key : keys) {
+        fieldName = (String) key;
+        writeField.execute(thisNode, fieldName, gen);
+        member = getValue.execute(thisNode, record, fieldName);
+        writeAny.execute(thisNode, member, gen);
+      }
+      endObject.execute(thisNode, gen);
+    }
+
     @Specialization
     protected static void doWrite(
         Node node,
@@ -42,8 +42,8 @@ public abstract class JsonWriterNode extends StatementNode {
       Object value,
       @Bind("$node") Node thisNode,
       @Cached(inline = true) JsonWriteNodes.InitGeneratorJsonWriterNode initGeneratorNode,
-      @Cached("create(getChildCallTarget())") DirectCallNode childDirectCall,
-      @Cached(value = "getOutputStream(thisNode)", neverDefault = true) OutputStream outputStream) {
+      @Cached("create(getChildCallTarget())") DirectCallNode childDirectCall) {
+    OutputStream outputStream = StaticInitializers.getOutputStream(thisNode);
     try (JsonGenerator gen = initGeneratorNode.execute(this, outputStream)) {
       childDirectCall.call(value, gen);
     } catch (IOException e) {
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.ast.io.xml.parser;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.DirectCallNode;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.ast.ProgramExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.exceptions.xml.XmlOrTypeParserException;
+import com.rawlabs.snapi.truffle.runtime.exceptions.xml.XmlParserTruffleException;
+import com.rawlabs.snapi.truffle.runtime.or.OrObject;
+import java.util.ArrayList;
+
+// An or type of primitives. The text of the element, attribute or text content is read once, and
+// parsed with each type in turn, without reading the element again.
+@NodeInfo(shortName = "OrTypeParseXmlText")
+public class OrTypeParseXmlText extends ExpressionNode {
+
+  @Children private DirectCallNode[] options;
+  private final boolean isAttribute;
+  private final boolean isText;
+
+  public OrTypeParseXmlText(ProgramExpressionNode[] options, boolean isAttribute, boolean isText) {
+    this.options = new DirectCallNode[options.length];
+    for (int i = 0; i < options.length; i++) {
+      this.options[i] = DirectCallNode.create(options[i].getCallTarget());
+    }
+    this.isAttribute = isAttribute;
+    this.isText = isText;
+  }
+
+  @ExplodeLoop
+  public OrObject executeGeneric(VirtualFrame frame) {
+    Object[] args = frame.getArguments();
+    TruffleXmlParser parser = (TruffleXmlParser) args[0];
+    String text;
+    if (isAttribute) text = parser.getStringAttribute((int) args[1]);
+    else if (isText) text = parser.getText();
+    else text = parser.getAsString();
+    ArrayList<String> parseErrors = new ArrayList<>();
+    for (int i = 0; i < options.length; i++) {
+      try {
+        Object value = options[i].call(parser, text);
+        if (!isAttribute && !isText) parser.nextToken(); // skip the end element
+        return new OrObject(i, value);
+      } catch (XmlParserTruffleException e) {
+        parseErrors.add(e.getMessage());
+      }
+    }
+    throw new XmlOrTypeParserException(parseErrors, parser, this);
+  }
+}
@@ -43,6 +43,7 @@ public class RecordParseXmlNode extends ExpressionNode {
   private final SnapiTypeWithProperties[] fieldTypes;
   private final Map<String, ArrayList<Object>> collectionValues = new HashMap<>();
   private final Map<String, Integer> fieldsIndex = new HashMap<>();
+  // Attribute fields by the name of the attribute (without '@')
   private final Map<String, Integer> attributesIndex = new HashMap<>();
   private final Map<String, Integer> collectionsIndex = new HashMap<>();
   private final BitSet refBitSet;
@@ -69,7 +70,7 @@ public class RecordParseXmlNode extends ExpressionNode {
           DirectCallNode.create(childProgramExpressionNode[index].getCallTarget());
       // take note of fields that should be parsed as attributes
       if (fieldName.startsWith("@")) {
-        attributesIndex.put(fieldName, index);
+        attributesIndex.put(fieldName.substring(1), index);
       }
       // take note of fields that should be parsed as collections
       Type fieldType = fieldTypes[index];
@@ -108,17 +109,14 @@ public class RecordParseXmlNode extends ExpressionNode {
       record = language.createPureRecord();
     }
 
-    Vector<String> attributes = parser.attributes();
-    int nAttributes = attributes.size();
-    // Loop through all existing attributes
+    // Loop through all existing attributes, unless the record has no attribute field
+    int nAttributes = attributesIndex.isEmpty() ? 0 : parser.attributeCount();
     for (int attributeIndex = 0; attributeIndex < nAttributes; attributeIndex++) {
-      String attributeName = attributes.get(attributeIndex);
-      String fieldName = '@' + attributeName;
-      Integer index = attributesIndex.get(fieldName);
+      Integer index = attributesIndex.get(parser.attributeName(attributeIndex));
       if (index != null) {
         // A record field exists with a matching name. Use the related parser.
         Object value = childDirectCalls[index].call(parser, attributeIndex);
-        storeFieldValue(fieldName, index, value, record);
+        storeFieldValue(fields[index], index, value, record);
       }
     }
     String recordTag = parser.getCurrentName();
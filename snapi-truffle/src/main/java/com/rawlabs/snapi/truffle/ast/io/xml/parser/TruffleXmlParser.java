@@ -14,7 +14,9 @@ package com.rawlabs.snapi.truffle.ast.io.xml.parser;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.DateTimeFormatCache;
+import com.rawlabs.snapi.truffle.ast.expressions.builtin.temporals.TemporalParser;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleInternalErrorException;
+import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import com.rawlabs.snapi.truffle.runtime.exceptions.xml.XmlParserTruffleException;
 import com.rawlabs.snapi.truffle.runtime.exceptions.xml.XmlReaderTruffleException;
 import com.rawlabs.snapi.truffle.runtime.primitives.DateObject;
@@ -23,24 +25,20 @@ import com.rawlabs.snapi.truffle.runtime.primitives.TimeObject;
 import com.rawlabs.snapi.truffle.runtime.primitives.TimestampObject;
 import com.rawlabs.snapi.truffle.runtime.utils.TruffleCharStream;
 import com.rawlabs.snapi.truffle.runtime.utils.TruffleStringCharStream;
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.Objects;
-import java.util.Vector;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import org.apache.commons.text.StringEscapeUtils;
+import org.codehaus.stax2.XMLStreamReader2;
 
 public class TruffleXmlParser {
 
   private int currentLine;
   private int currentColumn;
-  private final XMLStreamReader xmlStreamReader;
+  private final XMLStreamReader2 xmlStreamReader;
   private final TruffleCharStream stream;
   private int currentToken;
   private String currentTag;
@@ -67,7 +65,8 @@ public class TruffleXmlParser {
     this.settings = settings;
     try {
       xmlStreamReader =
-          TruffleXmlParserFactory.singleton().createXMLStreamReader(stream.getReader());
+          (XMLStreamReader2)
+              TruffleXmlParserFactory.singleton().createXMLStreamReader(stream.getReader());
     } catch (XMLStreamException e) {
       // TODO !!!!!!!!!!!!!!!!!!!!! Like in CSV/Json
       throw new XmlReaderTruffleException("Error creating XMLStreamReader", e, null);
@@ -81,6 +80,7 @@ public class TruffleXmlParser {
     return new TruffleXmlParser(stream, settings);
   }
 
+  // Used to try each type of an or type of records on the element (see OrTypeParseXml).
   public TruffleXmlParser duplicateFor(String text) {
     TruffleCharStream subStream = new TruffleStringCharStream(text);
     return new TruffleXmlParser(subStream, settings);
@@ -156,52 +156,52 @@ public class TruffleXmlParser {
     return xmlStreamReader.getLocalName();
   }
 
+  // Skips the element (or text) the parser is on. The reader parses lazily, so the text and
+  // attributes of a skipped element are scanned but never decoded.
   @TruffleBoundary
   public void skipTag() {
-    int depth = 0;
     try {
-      while (xmlStreamReader.hasNext()) {
-        int token = xmlStreamReader.getEventType();
-        if (token == XMLStreamConstants.START_ELEMENT) depth += 1;
-        else if (token == XMLStreamConstants.END_ELEMENT) depth -= 1;
-        nextToken();
-        if (depth == 0) break;
+      if (xmlStreamReader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+        xmlStreamReader.skipElement();
       }
     } catch (XMLStreamException ex) {
       throw new XmlParserTruffleException(ex, this);
     }
+    nextToken();
   }
 
+  // Skips the rest of the element the parser is in, e.g. after an error in that element.
   @TruffleBoundary
   public void finishConsuming() {
     int depth = 1;
     try {
-      while (xmlStreamReader.hasNext()) {
-        int token = xmlStreamReader.getEventType();
+      int token = xmlStreamReader.getEventType();
+      while (true) {
         if (token == XMLStreamConstants.START_ELEMENT) depth += 1;
         else if (token == XMLStreamConstants.END_ELEMENT) depth -= 1;
-        nextToken();
-        if (depth == 0) break;
+        if (depth == 0 || !xmlStreamReader.hasNext()) break;
+        token = xmlStreamReader.next();
       }
     } catch (XMLStreamException ex) {
       throw new XmlReaderTruffleException(ex, stream, null);
     }
+    if (depth == 0) nextToken();
   }
 
   @TruffleBoundary
-  public Vector<String> attributes() {
-    Vector<String> names = new Vector<>();
+  public int attributeCount() {
     try {
-      int n = xmlStreamReader.getAttributeCount();
-      for (int i = 0; i < n; i++) {
-        names.add(xmlStreamReader.getAttributeLocalName(i));
-      }
-      return names;
+      return xmlStreamReader.getAttributeCount();
     } catch (IllegalStateException ex) {
       throw new XmlReaderTruffleException(ex, stream, null);
     }
   }
 
+  @TruffleBoundary
+  public String attributeName(int index) {
+    return xmlStreamReader.getAttributeLocalName(index);
+  }
+
   @TruffleBoundary
   public int nextToken() {
     boolean skip = true;
@@ -217,7 +217,7 @@ public class TruffleXmlParser {
                 || token == XMLStreamConstants.END_DOCUMENT
                 || token == XMLStreamConstants.START_DOCUMENT
                 || token == XMLStreamConstants.DTD
-                || (token == XMLStreamConstants.CHARACTERS && xmlStreamReader.getText().isBlank());
+                || (token == XMLStreamConstants.CHARACTERS && xmlStreamReader.isWhiteSpace());
       }
       currentTokenValid = !skip;
       if (currentTokenValid) {
@@ -244,12 +244,24 @@ public class TruffleXmlParser {
 
   // String
 
+  private boolean onText() {
+    int token = xmlStreamReader.getEventType();
+    return token == XMLStreamConstants.CHARACTERS
+        || token == XMLStreamConstants.CDATA
+        || token == XMLStreamConstants.ENTITY_REFERENCE;
+  }
+
+  // The reader coalesces adjacent text and CDATA, so the text is usually a single event and is
+  // returned as is. The builder is only used when entity references split it.
   @TruffleBoundary
   public String getText() {
+    if (!onText()) return "";
+    String text = xmlStreamReader.getText();
+    nextToken();
+    if (!onText()) return text;
     stringBuilder.setLength(0);
-    while (xmlStreamReader.getEventType() == XMLStreamConstants.ENTITY_REFERENCE
-        || xmlStreamReader.getEventType() == XMLStreamConstants.CHARACTERS
-        || xmlStreamReader.getEventType() == XMLStreamConstants.CDATA) {
+    stringBuilder.append(text);
+    while (onText()) {
       stringBuilder.append(xmlStreamReader.getText());
       nextToken();
     }
@@ -336,7 +348,7 @@ public class TruffleXmlParser {
   @TruffleBoundary
   public DecimalObject decimalFrom(String content) {
     try {
-      return new DecimalObject(new BigDecimal(content.strip()));
+      return DecimalObject.parse(content.strip());
     } catch (NumberFormatException e) {
       throw new XmlParserTruffleException(
           "cannot cast '" + content + "' to decimal", this, e, null);
@@ -358,7 +370,7 @@ public class TruffleXmlParser {
   @TruffleBoundary
   public DateObject dateFrom(String content) {
     try {
-      return new DateObject(LocalDate.parse(content.strip(), dateFormatter));
+      return TemporalParser.parseDate(content.strip(), settings.dateFormat, dateFormatter);
     } catch (DateTimeParseException ex) {
       throw new XmlParserTruffleException(
           String.format(
@@ -366,13 +378,15 @@ public class TruffleXmlParser {
           this,
           ex,
           null);
+    } catch (TruffleRuntimeException ex) {
+      throw new XmlParserTruffleException(ex.getMessage(), this, ex, null);
     }
   }
 
   @TruffleBoundary
   public TimeObject timeFrom(String content) {
     try {
-      return new TimeObject(LocalTime.parse(content.strip(), timeFormatter));
+      return TemporalParser.parseTime(content.strip(), settings.timeFormat, timeFormatter);
     } catch (DateTimeParseException ex) {
       throw new XmlParserTruffleException(
           String.format(
@@ -386,7 +400,8 @@ public class TruffleXmlParser {
   @TruffleBoundary
   public TimestampObject timestampFrom(String content) {
     try {
-      return new TimestampObject(LocalDateTime.parse(content.strip(), timestampFormatter));
+      return TemporalParser.parseTimestamp(
+          content.strip(), settings.timestampFormat, timestampFormatter);
     } catch (DateTimeParseException ex) {
       throw new XmlParserTruffleException(
           String.format(
@@ -395,6 +410,8 @@ public class TruffleXmlParser {
           this,
           ex,
           null);
+    } catch (TruffleRuntimeException ex) {
+      throw new XmlParserTruffleException(ex.getMessage(), this, ex, null);
     }
   }
 
@@ -27,6 +27,8 @@ public class TruffleXmlParserFactory extends WstxInputFactory {
         WstxInputProperties.P_INPUT_PARSING_MODE, WstxInputProperties.PARSING_MODE_DOCUMENTS);
     setProperty(XMLInputFactory2.P_LAZY_PARSING, true);
     setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    // adjacent text and CDATA sections are read as a single event.
+    setProperty(XMLInputFactory.IS_COALESCING, true);
   }
 
   private static TruffleXmlParserFactory singleton = null;
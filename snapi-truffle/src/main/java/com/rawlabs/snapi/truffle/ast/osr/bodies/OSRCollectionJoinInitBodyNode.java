@@ -12,15 +12,23 @@
 
 package com.rawlabs.snapi.truffle.ast.osr.bodies;
 
+import static com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers.getMemoryBudget;
+
 import com.esotericsoftware.kryo.io.Output;
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.compute_next.operations.JoinComputeNext;
 import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodes;
 import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.utils.IOUtils;
+import java.util.ArrayList;
 
+// Reads the right side of a join. Its rows are kept in memory, their measured size reserved in the
+// query memory budget, and only written to a scratch file once they no longer fit.
 public class OSRCollectionJoinInitBodyNode extends ExpressionNode {
 
   @Child
@@ -29,6 +37,9 @@ public class OSRCollectionJoinInitBodyNode extends ExpressionNode {
 
   @Child KryoNodes.KryoWriteNode kryoWrite = KryoNodesFactory.KryoWriteNodeGen.create();
 
+  @Child
+  KryoNodes.KryoFootPrintNode footPrintNode = KryoNodesFactory.KryoFootPrintNodeGen.create();
+
   private final int generatorSlot;
   private final int computeNextSlot;
   private final int outputBufferSlot;
@@ -44,13 +55,47 @@ public class OSRCollectionJoinInitBodyNode extends ExpressionNode {
   public Object executeGeneric(VirtualFrame frame) {
     Object generator = frame.getObject(generatorSlot);
     JoinComputeNext computeNext = (JoinComputeNext) frame.getObject(computeNextSlot);
-    Output buffer = (Output) frame.getObject(outputBufferSlot);
     Object row = nextNode.execute(this, generator);
-    kryoWrite.execute(this, buffer, computeNext.getRightRowType(), row);
     computeNext.setSpilledRight(computeNext.getSpilledRight() + 1);
+    ArrayList<Object> rightRows = computeNext.getRightRows();
+    if (rightRows == null) {
+      // the right side was already spilled, the row goes to the scratch file.
+      Output buffer = (Output) frame.getObject(outputBufferSlot);
+      kryoWrite.execute(this, buffer, computeNext.getRightRowType(), row);
+      return null;
+    }
+    long bytes = footPrintNode.execute(this, computeNext.getRightRowType(), row);
+    rightRows.add(row);
+    computeNext.setSpilledRightSize(computeNext.getSpilledRightSize() + bytes);
+    computeNext.setReserved(computeNext.getReserved() + bytes);
+    boolean full =
+        getMemoryBudget(this)
+            .reserve(bytes, computeNext.getSpilledRightSize(), computeNext.getMaxSize());
+    if (full) {
+      // the right side doesn't fit in memory, write the rows read so far to the scratch file,
+      // it will be read back from disk.
+      Output buffer = createOutput(computeNext);
+      frame.setObject(outputBufferSlot, buffer);
+      for (int i = 0; i < rightRows.size(); i++) {
+        kryoWrite.execute(this, buffer, computeNext.getRightRowType(), rightRows.get(i));
+      }
+      computeNext.setRightRows(null);
+      StaticInitializers.releaseMemory(this, computeNext.getReserved());
+      computeNext.setReserved(0);
+    }
     return null;
   }
 
+  @CompilerDirectives.TruffleBoundary
+  private Output createOutput(JoinComputeNext computeNext) {
+    computeNext.setDiskRight(
+        IOUtils.getScratchFile("cartesian.", ".kryo", StaticInitializers.getRawSettings(this))
+            .toFile());
+    return new Output(
+        StaticInitializers.openScratchFile(computeNext.getDiskRight(), this),
+        computeNext.getKryoOutputBufferSize());
+  }
+
   @Override
   public void executeVoid(VirtualFrame virtualFrame) {
     executeGeneric(virtualFrame);
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.ast.osr.bodies;
+
+import static com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers.getMemoryBudget;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.function.FunctionExecuteNodes;
+import com.rawlabs.snapi.truffle.runtime.function.FunctionExecuteNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.compute_next.operations.HashEquiJoinComputeNext;
+import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodes;
+import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodesFactory;
+
+// Reads one row of each side of a hash join, until one side ends or the memory budget is used.
+// The measured size of the buffered rows is reserved in the query memory budget.
+public class OSRHashEquiJoinInitBodyNode extends ExpressionNode {
+
+  @Child
+  private GeneratorNodes.GeneratorHasNextNode hasNextNode1 =
+      GeneratorNodesFactory.GeneratorHasNextNodeGen.create();
+
+  @Child
+  private GeneratorNodes.GeneratorHasNextNode hasNextNode2 =
+      GeneratorNodesFactory.GeneratorHasNextNodeGen.create();
+
+  @Child
+  private GeneratorNodes.GeneratorNextNode nextNode1 =
+      GeneratorNodesFactory.GeneratorNextNodeGen.create();
+
+  @Child
+  private GeneratorNodes.GeneratorNextNode nextNode2 =
+      GeneratorNodesFactory.GeneratorNextNodeGen.create();
+
+  @Child
+  FunctionExecuteNodes.FunctionExecuteOne functionExecuteOneNode1 =
+      FunctionExecuteNodesFactory.FunctionExecuteOneNodeGen.create();
+
+  @Child
+  FunctionExecuteNodes.FunctionExecuteOne functionExecuteOneNode2 =
+      FunctionExecuteNodesFactory.FunctionExecuteOneNodeGen.create();
+
+  @Child
+  KryoNodes.KryoFootPrintNode keyFootPrintNode1 = KryoNodesFactory.KryoFootPrintNodeGen.create();
+
+  @Child
+  KryoNodes.KryoFootPrintNode keyFootPrintNode2 = KryoNodesFactory.KryoFootPrintNodeGen.create();
+
+  @Child
+  KryoNodes.KryoFootPrintNode rowFootPrintNode1 = KryoNodesFactory.KryoFootPrintNodeGen.create();
+
+  @Child
+  KryoNodes.KryoFootPrintNode rowFootPrintNode2 = KryoNodesFactory.KryoFootPrintNodeGen.create();
+
+  private final int computeNextSlot;
+  private final int shouldContinueSlot;
+
+  public OSRHashEquiJoinInitBodyNode(int computeNextSlot, int shouldContinueSlot) {
+    this.computeNextSlot = computeNextSlot;
+    this.shouldContinueSlot = shouldContinueSlot;
+  }
+
+  @Override
+  public Object executeGeneric(VirtualFrame frame) {
+    HashEquiJoinComputeNext computeNext =
+        (HashEquiJoinComputeNext) frame.getObject(computeNextSlot);
+    long bytes = 0;
+    boolean leftHasNext = hasNextNode1.execute(this, computeNext.getLeftGen());
+    if (leftHasNext) {
+      Object row = nextNode1.execute(this, computeNext.getLeftGen());
+      Object key = functionExecuteOneNode1.execute(this, computeNext.getLeftKeyF(), row);
+      computeNext.getLeftBuffer().add(new Object[] {key, row});
+      long size =
+          keyFootPrintNode1.execute(this, computeNext.getKeyType(), key)
+              + rowFootPrintNode1.execute(this, computeNext.getLeftRowType(), row);
+      computeNext.setLeftBufferSize(computeNext.getLeftBufferSize() + size);
+      bytes += size;
+    }
+    boolean rightHasNext = hasNextNode2.execute(this, computeNext.getRightGen());
+    if (rightHasNext) {
+      Object row = nextNode2.execute(this, computeNext.getRightGen());
+      Object key = functionExecuteOneNode2.execute(this, computeNext.getRightKeyF(), row);
+      computeNext.getRightBuffer().add(new Object[] {key, row});
+      long size =
+          keyFootPrintNode2.execute(this, computeNext.getKeyType(), key)
+              + rowFootPrintNode2.execute(this, computeNext.getRightRowType(), row);
+      computeNext.setRightBufferSize(computeNext.getRightBufferSize() + size);
+      bytes += size;
+    }
+    computeNext.setReserved(computeNext.getReserved() + bytes);
+    boolean full =
+        getMemoryBudget(this)
+            .reserve(
+                bytes,
+                computeNext.getLeftBufferSize() + computeNext.getRightBufferSize(),
+                computeNext.getMaxSize());
+    frame.setBoolean(shouldContinueSlot, leftHasNext && rightHasNext && !full);
+    return null;
+  }
+
+  @Override
+  public void executeVoid(VirtualFrame virtualFrame) {
+    executeGeneric(virtualFrame);
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.ast.osr.bodies;
+
+import static com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers.*;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.data_structures.hashmap.HashMapNodes;
+import com.rawlabs.snapi.truffle.runtime.data_structures.hashmap.HashMapNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.exceptions.BreakException;
+import com.rawlabs.snapi.truffle.runtime.function.FunctionExecuteNodes;
+import com.rawlabs.snapi.truffle.runtime.function.FunctionExecuteNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.compute_next.operations.HashEquiJoinComputeNext;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.hash_partitions.HashPartitions;
+import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodes;
+import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.utils.MemoryBudget;
+import java.util.ArrayList;
+
+// Reads the next probe row of a hash join and looks up its matching build rows. Stops once a probe
+// row has matches.
+public class OSRHashEquiJoinNextBodyNode extends ExpressionNode {
+
+  @Child
+  private GeneratorNodes.GeneratorHasNextNode hasNextNode =
+      GeneratorNodesFactory.GeneratorHasNextNodeGen.create();
+
+  @Child
+  private GeneratorNodes.GeneratorNextNode nextNode =
+      GeneratorNodesFactory.GeneratorNextNodeGen.create();
+
+  @Child
+  FunctionExecuteNodes.FunctionExecuteOne functionExecuteOneNode =
+      FunctionExecuteNodesFactory.FunctionExecuteOneNodeGen.create();
+
+  @Child HashMapNodes.HashMapGet getNode = HashMapNodesFactory.HashMapGetNodeGen.create();
+
+  @Child
+  HashMapNodes.HashMapGetOrCreate getOrCreateNode =
+      HashMapNodesFactory.HashMapGetOrCreateNodeGen.create();
+
+  @Child KryoNodes.KryoReadNode readKeyNode = KryoNodesFactory.KryoReadNodeGen.create();
+
+  @Child KryoNodes.KryoReadNode readLeftNode = KryoNodesFactory.KryoReadNodeGen.create();
+
+  @Child KryoNodes.KryoReadNode readRightNode = KryoNodesFactory.KryoReadNodeGen.create();
+
+  @Child
+  KryoNodes.KryoFootPrintNode keyFootPrintNode = KryoNodesFactory.KryoFootPrintNodeGen.create();
+
+  @Child
+  KryoNodes.KryoFootPrintNode leftFootPrintNode = KryoNodesFactory.KryoFootPrintNodeGen.create();
+
+  @Child
+  KryoNodes.KryoFootPrintNode rightFootPrintNode =
+      KryoNodesFactory.KryoFootPrintNodeGen.create();
+
+  private final int computeNextSlot;
+  private final int shouldContinueSlot;
+
+  public OSRHashEquiJoinNextBodyNode(int computeNextSlot, int shouldContinueSlot) {
+    this.computeNextSlot = computeNextSlot;
+    this.shouldContinueSlot = shouldContinueSlot;
+  }
+
+  private Object readRow(HashEquiJoinComputeNext computeNext, Input input, boolean left) {
+    if (left) {
+      return readLeftNode.execute(this, input, computeNext.getLeftRowType());
+    } else {
+      return readRightNode.execute(this, input, computeNext.getRightRowType());
+    }
+  }
+
+  // Reads the next probe row and its key. Returns false if the probe side is exhausted.
+  private boolean readProbe(HashEquiJoinComputeNext computeNext) {
+    if (computeNext.getLeftPartitions() != null) {
+      if (computeNext.getProbeRemaining() == 0) {
+        return false;
+      }
+      Input input = computeNext.getProbeInput();
+      computeNext.setProbeKey(readKeyNode.execute(this, input, computeNext.getKeyType()));
+      computeNext.setProbeRow(readRow(computeNext, input, !computeNext.isBuildLeft()));
+      computeNext.setProbeRemaining(computeNext.getProbeRemaining() - 1);
+      return true;
+    }
+    // first the probe rows that were read while looking for the smaller side, then the others.
+    ArrayList<Object[]> probeBuffer = computeNext.getProbeBuffer();
+    if (computeNext.getProbeBufferIdx() < probeBuffer.size()) {
+      Object[] entry = probeBuffer.get(computeNext.getProbeBufferIdx());
+      computeNext.setProbeBufferIdx(computeNext.getProbeBufferIdx() + 1);
+      computeNext.setProbeKey(entry[0]);
+      computeNext.setProbeRow(entry[1]);
+      return true;
+    }
+    Object probeGen = computeNext.getProbeGen();
+    if (probeGen != null && hasNextNode.execute(this, probeGen)) {
+      Object row = nextNode.execute(this, probeGen);
+      Object keyF =
+          computeNext.isBuildLeft() ? computeNext.getRightKeyF() : computeNext.getLeftKeyF();
+      computeNext.setProbeKey(functionExecuteOneNode.execute(this, keyF, row));
+      computeNext.setProbeRow(row);
+      return true;
+    }
+    return false;
+  }
+
+  private long rowFootPrint(HashEquiJoinComputeNext computeNext, Object row, boolean left) {
+    if (left) {
+      return leftFootPrintNode.execute(this, computeNext.getLeftRowType(), row);
+    } else {
+      return rightFootPrintNode.execute(this, computeNext.getRightRowType(), row);
+    }
+  }
+
+  // Fills the hash map with the next build rows of the current partition, within the memory
+  // budget. A partition larger than the budget is joined in several chunks, each chunk being
+  // probed by the whole probe partition.
+  private void loadBuildChunk(HashEquiJoinComputeNext computeNext) {
+    computeNext.getMap().clear();
+    MemoryBudget budget = getMemoryBudget(this);
+    budget.release(computeNext.getReserved());
+    Input input = computeNext.getBuildInput();
+    long size = 0;
+    boolean full = false;
+    while (computeNext.getBuildRemaining() > 0 && !full) {
+      Object key = readKeyNode.execute(this, input, computeNext.getKeyType());
+      Object row = readRow(computeNext, input, computeNext.isBuildLeft());
+      @SuppressWarnings("unchecked")
+      ArrayList<Object> rows =
+          (ArrayList<Object>) getOrCreateNode.execute(this, computeNext.getMap(), key);
+      long bytes = rowFootPrint(computeNext, row, computeNext.isBuildLeft());
+      if (rows.isEmpty()) {
+        bytes += keyFootPrintNode.execute(this, computeNext.getKeyType(), key);
+      }
+      rows.add(row);
+      size += bytes;
+      full = budget.reserve(bytes, size, computeNext.getMaxSize());
+      computeNext.setBuildRemaining(computeNext.getBuildRemaining() - 1);
+    }
+    computeNext.setReserved(size);
+  }
+
+  // Moves to the next chunk of the current partition, or to the next partition. Returns false
+  // once all partitions were joined.
+  private boolean nextBuildChunk(HashEquiJoinComputeNext computeNext) {
+    HashPartitions leftPartitions = computeNext.getLeftPartitions();
+    HashPartitions rightPartitions = computeNext.getRightPartitions();
+    int p = computeNext.getPartition();
+    HashPartitions probePartitions =
+        computeNext.isBuildLeft() ? rightPartitions : leftPartitions;
+    if (computeNext.getBuildRemaining() > 0) {
+      // same partition, the probe partition is read again for the next chunk.
+      closeInput(computeNext.getProbeInput());
+      computeNext.setProbeInput(
+          openSpilledFile(
+              probePartitions.getFiles()[p], computeNext.getKryoInputBufferSize(), this));
+      computeNext.setProbeRemaining(probePartitions.getCounts()[p]);
+      loadBuildChunk(computeNext);
+      return true;
+    }
+    closePartitionInputs(computeNext);
+    while (++p < leftPartitions.getPartitionCount()) {
+      computeNext.setPartition(p);
+      int leftCount = leftPartitions.getCounts()[p];
+      int rightCount = rightPartitions.getCounts()[p];
+      if (leftCount == 0 || rightCount == 0) {
+        // no row can match in that partition.
+        deletePartitionFile(leftPartitions, p);
+        deletePartitionFile(rightPartitions, p);
+        continue;
+      }
+      // build on the smaller partition.
+      boolean buildLeft = leftPartitions.getSizes()[p] <= rightPartitions.getSizes()[p];
+      HashPartitions buildPartitions = buildLeft ? leftPartitions : rightPartitions;
+      probePartitions = buildLeft ? rightPartitions : leftPartitions;
+      computeNext.setBuildLeft(buildLeft);
+      computeNext.setBuildInput(
+          openSpilledFile(
+              buildPartitions.getFiles()[p], computeNext.getKryoInputBufferSize(), this));
+      computeNext.setBuildRemaining(buildPartitions.getCounts()[p]);
+      computeNext.setProbeInput(
+          openSpilledFile(
+              probePartitions.getFiles()[p], computeNext.getKryoInputBufferSize(), this));
+      computeNext.setProbeRemaining(probePartitions.getCounts()[p]);
+      loadBuildChunk(computeNext);
+      return true;
+    }
+    computeNext.setPartition(p);
+    return false;
+  }
+
+  // Closes the inputs of the current partition and deletes its files.
+  private void closePartitionInputs(HashEquiJoinComputeNext computeNext) {
+    int p = computeNext.getPartition();
+    if (computeNext.getBuildInput() != null) {
+      closeInput(computeNext.getBuildInput());
+      computeNext.setBuildInput(null);
+    }
+    if (computeNext.getProbeInput() != null) {
+      closeInput(computeNext.getProbeInput());
+      computeNext.setProbeInput(null);
+    }
+    if (p >= 0) {
+      deletePartitionFile(computeNext.getLeftPartitions(), p);
+      deletePartitionFile(computeNext.getRightPartitions(), p);
+    }
+  }
+
+  @Override
+  public Object executeGeneric(VirtualFrame frame) {
+    HashEquiJoinComputeNext computeNext =
+        (HashEquiJoinComputeNext) frame.getObject(computeNextSlot);
+    ArrayList<Object> matches = computeNext.getMatches();
+    if (matches != null && computeNext.getMatchIdx() < matches.size()) {
+      // the current probe row has matches left.
+      frame.setBoolean(shouldContinueSlot, false);
+      return null;
+    }
+    computeNext.setMatches(null);
+    if (readProbe(computeNext)) {
+      @SuppressWarnings("unchecked")
+      ArrayList<Object> rows =
+          (ArrayList<Object>)
+              getNode.execute(this, computeNext.getMap(), computeNext.getProbeKey());
+      computeNext.setMatches(rows);
+      computeNext.setMatchIdx(0);
+    } else if (computeNext.getLeftPartitions() == null || !nextBuildChunk(computeNext)) {
+      // end of the probe side
+      throw new BreakException();
+    }
+    return null;
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private static void closeInput(Input input) {
+    input.close();
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private static void deletePartitionFile(HashPartitions partitions, int p) {
+    if (partitions.getFiles()[p] != null) {
+      partitions.getFiles()[p].delete();
+      partitions.getFiles()[p] = null;
+    }
+  }
+
+  @Override
+  public void executeVoid(VirtualFrame virtualFrame) {
+    executeGeneric(virtualFrame);
+  }
+}
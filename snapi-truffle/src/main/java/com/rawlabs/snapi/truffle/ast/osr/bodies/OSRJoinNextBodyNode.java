@@ -20,17 +20,15 @@ import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.ast.tryable_nullable.TryableNullableNodes;
 import com.rawlabs.snapi.truffle.ast.tryable_nullable.TryableNullableNodesFactory;
 import com.rawlabs.snapi.truffle.runtime.exceptions.BreakException;
-import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import com.rawlabs.snapi.truffle.runtime.function.FunctionExecuteNodes;
 import com.rawlabs.snapi.truffle.runtime.function.FunctionExecuteNodesFactory;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.compute_next.operations.JoinComputeNext;
 import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodes;
 import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodesFactory;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 
 public class OSRJoinNextBodyNode extends ExpressionNode {
 
@@ -67,80 +65,101 @@ public class OSRJoinNextBodyNode extends ExpressionNode {
   }
 
   @CompilerDirectives.TruffleBoundary
-  private Input createInput(File file, Node node) {
-    try {
-      return new Input(new FileInputStream(file));
-    } catch (FileNotFoundException e) {
-      throw new TruffleRuntimeException(e.getMessage(), e, node);
+  private Input createInput(File file, int bufferSize, Node node) {
+    return new Input(StaticInitializers.openSpilledStream(file, node), bufferSize);
+  }
+
+  // Reads the next batch of left rows. Throws a BreakException if there are no more left rows.
+  private void readLeftBatch(JoinComputeNext computeNext) {
+    Object[] leftBatch = computeNext.getLeftBatch();
+    int n = 0;
+    while (n < leftBatch.length && hasNextNode.execute(this, computeNext.getLeftGen())) {
+      leftBatch[n++] = nextNode.execute(this, computeNext.getLeftGen());
+    }
+    if (n == 0) {
+      // end of left, nothing else to read
+      throw new BreakException();
     }
+    computeNext.setLeftBatchCount(n);
+  }
+
+  // Restarts reading the right side from its first row.
+  private void rewindRight(JoinComputeNext computeNext) {
+    computeNext.setReadRight(0);
+    if (!computeNext.isRightInMemory()) {
+      if (computeNext.getKryoRight() != null) {
+        closeInput(computeNext.getKryoRight());
+      }
+      computeNext.setKryoRight(
+          createInput(computeNext.getDiskRight(), computeNext.getKryoInputBufferSize(), this));
+    }
+  }
+
+  // Loads the next block of right rows. Returns false if the right side was fully read.
+  private boolean readRightBlock(JoinComputeNext computeNext) {
+    int rowsLeft = computeNext.getSpilledRight() - computeNext.getReadRight();
+    if (rowsLeft == 0) {
+      return false;
+    }
+    if (computeNext.isRightInMemory()) {
+      // the single block is already in memory.
+      computeNext.setReadRight(computeNext.getSpilledRight());
+      return true;
+    }
+    Object[] rightBlock = computeNext.getRightBlock();
+    int n = Math.min(rowsLeft, rightBlock.length);
+    for (int i = 0; i < n; i++) {
+      rightBlock[i] =
+          kryoReadNode.execute(this, computeNext.getKryoRight(), computeNext.getRightRowType());
+    }
+    computeNext.setRightBlockCount(n);
+    computeNext.setReadRight(computeNext.getReadRight() + n);
+    return true;
   }
 
   @Override
   public Object executeGeneric(VirtualFrame frame) {
     Object row = null;
     JoinComputeNext computeNext = (JoinComputeNext) frame.getObject(computeNextSlot);
-    if (computeNext.getLeftRow() == null || computeNext.getRightRow() == null) {
-      if (computeNext.getLeftRow() == null) {
-        if (hasNextNode.execute(this, computeNext.getLeftGen())) {
-          computeNext.setLeftRow(nextNode.execute(this, computeNext.getLeftGen()));
-        } else {
-          // end of left, nothing else to read
-          throw new BreakException();
-        }
-      }
-      if (computeNext.getKryoRight() == null) {
-        computeNext.setKryoRight(createInput(computeNext.getDiskRight(), this));
-        computeNext.setReadRight(0);
-      }
-      if (computeNext.getRightRow() == null) {
-        if (computeNext.getReadRight() < computeNext.getSpilledRight()) {
-          computeNext.setRightRow(
-              kryoReadNode.execute(
-                  this, computeNext.getKryoRight(), computeNext.getRightRowType()));
-          boolean pass;
-          if (computeNext.getReshapeBeforePredicate()) {
-            row =
-                functionExecuteTwoNode.execute(
-                    this,
-                    computeNext.getRemap(),
-                    computeNext.getLeftRow(),
-                    computeNext.getRightRow());
-            pass =
-                handlePredicateNode.execute(
-                    this,
-                    functionExecuteOneNode.execute(this, computeNext.getPredicate(), row),
-                    false);
-            if (!pass) row = null;
-          } else {
-            pass =
-                handlePredicateNode.execute(
-                    this,
-                    functionExecuteTwoNode.execute(
-                        this,
-                        computeNext.getPredicate(),
-                        computeNext.getLeftRow(),
-                        computeNext.getRightRow()),
-                    false);
-            if (pass)
-              row =
-                  functionExecuteTwoNode.execute(
-                      this,
-                      computeNext.getRemap(),
-                      computeNext.getLeftRow(),
-                      computeNext.getRightRow());
-          }
-
-          computeNext.setReadRight(computeNext.getReadRight() + 1);
-          computeNext.setRightRow(null);
-        } else {
-          // end of right, reset currentLeft to make sure we try another round
-          computeNext.setLeftRow(null);
-          closeInput(computeNext.getKryoRight());
-          computeNext.setRightRow(null);
-          computeNext.setKryoRight(null);
-        }
+    if (computeNext.getSpilledRight() == 0) {
+      // empty right, nothing to join with
+      throw new BreakException();
+    }
+    if (computeNext.getLeftIdx() == computeNext.getLeftBatchCount()) {
+      // all left rows of the batch were joined with the current right block, move to the next
+      // block, or to the next batch of left rows once the whole right side was read.
+      computeNext.setLeftIdx(0);
+      if (!readRightBlock(computeNext)) {
+        readLeftBatch(computeNext);
+        rewindRight(computeNext);
+        readRightBlock(computeNext);
       }
     }
+    Object leftRow = computeNext.getLeftBatch()[computeNext.getLeftIdx()];
+    Object rightRow = computeNext.getRightBlock()[computeNext.getRightIdx()];
+    if (computeNext.getRightIdx() + 1 < computeNext.getRightBlockCount()) {
+      computeNext.setRightIdx(computeNext.getRightIdx() + 1);
+    } else {
+      // end of the right block for that left row, move to the next left row of the batch
+      computeNext.setRightIdx(0);
+      computeNext.setLeftIdx(computeNext.getLeftIdx() + 1);
+    }
+    boolean pass;
+    if (computeNext.getReshapeBeforePredicate()) {
+      row = functionExecuteTwoNode.execute(this, computeNext.getRemap(), leftRow, rightRow);
+      pass =
+          handlePredicateNode.execute(
+              this, functionExecuteOneNode.execute(this, computeNext.getPredicate(), row), false);
+      if (!pass) row = null;
+    } else {
+      pass =
+          handlePredicateNode.execute(
+              this,
+              functionExecuteTwoNode.execute(this, computeNext.getPredicate(), leftRow, rightRow),
+              false);
+      if (pass)
+        row = functionExecuteTwoNode.execute(this, computeNext.getRemap(), leftRow, rightRow);
+    }
     if (row != null) {
       frame.setBoolean(shouldContinueSlot, false);
       frame.setObject(resultSlot, row);
@@ -14,13 +14,14 @@ package com.rawlabs.snapi.truffle.ast.osr.bodies;
 
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.ast.expressions.iterable.ArrayOperationNodes;
+import com.rawlabs.snapi.truffle.ast.expressions.iterable.ArrayOperationNodesFactory;
 import com.rawlabs.snapi.truffle.ast.tryable_nullable.TryableNullableNodes;
 import com.rawlabs.snapi.truffle.ast.tryable_nullable.TryableNullableNodesFactory;
 import com.rawlabs.snapi.truffle.runtime.function.FunctionExecuteNodes;
 import com.rawlabs.snapi.truffle.runtime.function.FunctionExecuteNodesFactory;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodesFactory;
-import java.util.ArrayList;
 
 public class OSRListFilterBodyNode extends ExpressionNode {
 
@@ -36,14 +37,21 @@ public class OSRListFilterBodyNode extends ExpressionNode {
   TryableNullableNodes.HandlePredicateNode handlePredicateNode =
       TryableNullableNodesFactory.HandlePredicateNodeGen.create();
 
+  @Child
+  ArrayOperationNodes.ArrayAppendNode arrayAppendNode =
+      ArrayOperationNodesFactory.ArrayAppendNodeGen.create();
+
   private final int generatorSlot;
   private final int functionSlot;
-  private final int llistSlot;
+  private final int resultSlot;
+  private final int listSizeSlot;
 
-  public OSRListFilterBodyNode(int generatorSlot, int functionSlot, int llistSlot) {
+  public OSRListFilterBodyNode(
+      int generatorSlot, int functionSlot, int resultSlot, int listSizeSlot) {
     this.generatorSlot = generatorSlot;
     this.functionSlot = functionSlot;
-    this.llistSlot = llistSlot;
+    this.resultSlot = resultSlot;
+    this.listSizeSlot = listSizeSlot;
   }
 
   @Override
@@ -55,9 +63,10 @@ public class OSRListFilterBodyNode extends ExpressionNode {
     predicate =
         handlePredicateNode.execute(this, functionExecuteOneNode.execute(this, function, v), false);
     if (predicate) {
-      @SuppressWarnings("unchecked")
-      ArrayList<Object> llist = (ArrayList<Object>) frame.getObject(llistSlot);
-      llist.add(v);
+      int size = frame.getInt(listSizeSlot);
+      Object result = arrayAppendNode.execute(this, frame.getObject(resultSlot), v, size);
+      frame.setObject(resultSlot, result);
+      frame.setInt(listSizeSlot, size + 1);
     }
     return null;
   }
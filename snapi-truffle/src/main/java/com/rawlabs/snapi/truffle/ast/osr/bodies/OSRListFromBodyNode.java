@@ -14,9 +14,10 @@ package com.rawlabs.snapi.truffle.ast.osr.bodies;
 
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.ast.expressions.iterable.ArrayOperationNodes;
+import com.rawlabs.snapi.truffle.ast.expressions.iterable.ArrayOperationNodesFactory;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodesFactory;
-import java.util.ArrayList;
 
 public class OSRListFromBodyNode extends ExpressionNode {
 
@@ -24,20 +25,28 @@ public class OSRListFromBodyNode extends ExpressionNode {
   private GeneratorNodes.GeneratorNextNode nextNode =
       GeneratorNodesFactory.GeneratorNextNodeGen.create();
 
+  @Child
+  ArrayOperationNodes.ArrayAppendNode arrayAppendNode =
+      ArrayOperationNodesFactory.ArrayAppendNodeGen.create();
+
   private final int generatorSlot;
-  private final int llistSlot;
+  private final int resultSlot;
+  private final int listSizeSlot;
 
-  public OSRListFromBodyNode(int generatorSlot, int llistSlot) {
+  public OSRListFromBodyNode(int generatorSlot, int resultSlot, int listSizeSlot) {
     this.generatorSlot = generatorSlot;
-    this.llistSlot = llistSlot;
+    this.resultSlot = resultSlot;
+    this.listSizeSlot = listSizeSlot;
   }
 
   @Override
   public Object executeGeneric(VirtualFrame frame) {
     Object generator = frame.getObject(generatorSlot);
-    @SuppressWarnings("unchecked")
-    ArrayList<Object> llist = (ArrayList<Object>) frame.getObject(llistSlot);
-    llist.add(nextNode.execute(this, generator));
+    Object item = nextNode.execute(this, generator);
+    int size = frame.getInt(listSizeSlot);
+    Object result = arrayAppendNode.execute(this, frame.getObject(resultSlot), item, size);
+    frame.setObject(resultSlot, result);
+    frame.setInt(listSizeSlot, size + 1);
     return null;
   }
 
@@ -16,28 +16,37 @@ import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.DirectCallNode;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
-import java.util.ArrayList;
+import com.rawlabs.snapi.truffle.ast.expressions.iterable.ArrayOperationNodes;
+import com.rawlabs.snapi.truffle.ast.expressions.iterable.ArrayOperationNodesFactory;
 
 public class OSRListParseJsonBodyNode extends ExpressionNode {
 
   @Child DirectCallNode childCallNode;
 
-  private final int llistSlot;
+  @Child
+  ArrayOperationNodes.ArrayAppendNode arrayAppendNode =
+      ArrayOperationNodesFactory.ArrayAppendNodeGen.create();
+
+  private final int resultSlot;
+  private final int listSizeSlot;
   private final int parserSlot;
 
   public OSRListParseJsonBodyNode(
-      RootCallTarget childRootCallTarget, int llistSlot, int parserSlot) {
+      RootCallTarget childRootCallTarget, int resultSlot, int listSizeSlot, int parserSlot) {
     this.childCallNode = DirectCallNode.create(childRootCallTarget);
-    this.llistSlot = llistSlot;
+    this.resultSlot = resultSlot;
+    this.listSizeSlot = listSizeSlot;
     this.parserSlot = parserSlot;
   }
 
   @Override
   public Object executeGeneric(VirtualFrame frame) {
     Object parser = frame.getObject(parserSlot);
-    @SuppressWarnings("unchecked")
-    ArrayList<Object> llist = (ArrayList<Object>) frame.getObject(llistSlot);
-    llist.add(childCallNode.call(parser));
+    Object item = childCallNode.call(parser);
+    int size = frame.getInt(listSizeSlot);
+    Object result = arrayAppendNode.execute(this, frame.getObject(resultSlot), item, size);
+    frame.setObject(resultSlot, result);
+    frame.setInt(listSizeSlot, size + 1);
     return null;
   }
 
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.ast.osr.bodies;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.runtime.data_structures.topk.TopKHeap;
+import com.rawlabs.snapi.truffle.runtime.data_structures.topk.TopKNodes;
+import com.rawlabs.snapi.truffle.runtime.data_structures.topk.TopKNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.function.FunctionExecuteNodes;
+import com.rawlabs.snapi.truffle.runtime.function.FunctionExecuteNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.iterable.operations.OrderByCollection;
+import com.rawlabs.snapi.truffle.runtime.iterable.operations.TopKCollection;
+
+public class OSRTopKGetGeneratorNode extends ExpressionNode {
+
+  @Child
+  private GeneratorNodes.GeneratorNextNode nextNode =
+      GeneratorNodesFactory.GeneratorNextNodeGen.create();
+
+  @Child private TopKNodes.TopKAddNode addNode = TopKNodesFactory.TopKAddNodeGen.create();
+
+  @Child
+  private FunctionExecuteNodes.FunctionExecuteOne functionExecuteOneNode =
+      FunctionExecuteNodesFactory.FunctionExecuteOneNodeGen.create();
+
+  private final int generatorSlot;
+  private final int collectionSlot;
+  private final int heapSlot;
+
+  public OSRTopKGetGeneratorNode(int generatorSlot, int collectionSlot, int heapSlot) {
+    this.generatorSlot = generatorSlot;
+    this.collectionSlot = collectionSlot;
+    this.heapSlot = heapSlot;
+  }
+
+  @Override
+  public Object executeGeneric(VirtualFrame frame) {
+    Object generator = frame.getObject(generatorSlot);
+
+    OrderByCollection collection =
+        ((TopKCollection) frame.getObject(collectionSlot)).getOrderBy();
+
+    TopKHeap heap = (TopKHeap) frame.getObject(heapSlot);
+
+    int funLen = collection.getKeyFunctions().length;
+
+    Object v = nextNode.execute(this, generator);
+    Object[] key = new Object[funLen];
+    for (int i = 0; i < funLen; i++) {
+      key[i] = functionExecuteOneNode.execute(this, collection.getKeyFunctions()[i], v);
+    }
+    addNode.execute(this, heap, key, v);
+    return null;
+  }
+
+  @Override
+  public void executeVoid(VirtualFrame virtualFrame) {
+    executeGeneric(virtualFrame);
+  }
+}
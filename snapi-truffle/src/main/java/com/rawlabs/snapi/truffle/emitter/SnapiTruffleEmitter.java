@@ -27,19 +27,33 @@ import com.rawlabs.snapi.frontend.snapi.*;
 import com.rawlabs.snapi.frontend.snapi.extensions.EntryExtension;
 import com.rawlabs.snapi.frontend.snapi.extensions.SnapiArg;
 import com.rawlabs.snapi.frontend.snapi.source.*;
+import com.rawlabs.snapi.truffle.emitter.builtin.csv_extension.TruffleCsvParseEntry;
+import com.rawlabs.snapi.truffle.emitter.builtin.csv_extension.TruffleCsvReadEntry;
+import com.rawlabs.snapi.truffle.emitter.builtin.collection_extension.TruffleGroupCollectionEntry;
+import com.rawlabs.snapi.truffle.emitter.builtin.list_extension.TruffleGroupListEntry;
+import com.rawlabs.snapi.truffle.emitter.builtin.xml_extension.TruffleParseXmlEntry;
+import com.rawlabs.snapi.truffle.emitter.builtin.xml_extension.TruffleReadXmlEntry;
 import com.rawlabs.snapi.truffle.emitter.builtin.location_extension.TruffleLocationFromStringEntry;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.ast.OperatorNode;
 import com.rawlabs.snapi.truffle.SnapiLanguage;
 import com.rawlabs.snapi.truffle.ast.StatementNode;
 import com.rawlabs.snapi.truffle.ast.ProgramExpressionNode;
 import com.rawlabs.snapi.truffle.ast.controlflow.ExpBlockNode;
 import com.rawlabs.snapi.truffle.ast.controlflow.IfThenElseNode;
+import com.rawlabs.snapi.truffle.ast.expressions.aggregation.AggregateMorselNode;
+import com.rawlabs.snapi.truffle.ast.expressions.aggregation.AggregateSingleNode;
+import com.rawlabs.snapi.truffle.ast.expressions.aggregation.Aggregations;
 import com.rawlabs.snapi.truffle.ast.expressions.binary.*;
 import com.rawlabs.snapi.truffle.ast.expressions.binary.DivNodeGen;
 import com.rawlabs.snapi.truffle.ast.expressions.binary.ModNodeGen;
 import com.rawlabs.snapi.truffle.ast.expressions.binary.MultNodeGen;
 import com.rawlabs.snapi.truffle.ast.expressions.binary.SubNodeGen;
 import com.rawlabs.snapi.truffle.ast.expressions.function.*;
+import com.rawlabs.snapi.truffle.ast.expressions.iterable.collection.CollectionCacheNode;
+import com.rawlabs.snapi.truffle.ast.expressions.iterable.collection.CollectionGroupByAggregationsNode;
+import com.rawlabs.snapi.truffle.ast.expressions.iterable.collection.CollectionTopKNode;
+import com.rawlabs.snapi.truffle.ast.expressions.iterable.collection.CollectionTransformNodeGen;
 import com.rawlabs.snapi.truffle.ast.expressions.literals.*;
 import com.rawlabs.snapi.truffle.ast.expressions.option.OptionNoneNode;
 import com.rawlabs.snapi.truffle.ast.expressions.record.RecordProjNodeGen;
@@ -51,6 +65,7 @@ import com.rawlabs.snapi.truffle.ast.local.ReadLocalVariableNodeGen;
 import com.rawlabs.snapi.truffle.ast.local.WriteLocalVariableNodeGen;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleInternalErrorException;
 import com.rawlabs.snapi.truffle.runtime.function.Function;
+import com.rawlabs.snapi.truffle.runtime.profiler.OperatorTag;
 import scala.collection.JavaConverters;
 
 public class SnapiTruffleEmitter extends TruffleEmitter {
@@ -69,6 +84,15 @@ public class SnapiTruffleEmitter extends TruffleEmitter {
     private final HashMap<Entity, String> funcMap = new HashMap<>();
     private final HashMap<Entity, Integer> entityDepth = new HashMap<>();
 
+    // Aggregations of groups that are computed while grouping, with their index in the group record.
+    private final IdentityHashMap<Exp, Integer> pushedAggregations = new IdentityHashMap<>();
+
+    // CSV and XML reads of which the query only uses some fields of the rows, with these fields.
+    private final IdentityHashMap<Exp, Set<String>> projectedReads = new IdentityHashMap<>();
+
+    // Let-bound collections read more than once, of which the rows are recorded and replayed.
+    private final Set<LetBind> cachedCollections = Collections.newSetFromMap(new IdentityHashMap<>());
+
     private static final EntryExtension[] entries = {
             new com.rawlabs.snapi.truffle.emitter.builtin.aws_extension.TruffleAwsV4SignedRequestEntry(),
             new com.rawlabs.snapi.truffle.emitter.builtin.byte_extension.TruffleByteFromEntry(),
@@ -454,7 +478,11 @@ public class SnapiTruffleEmitter extends TruffleEmitter {
                     default -> throw new TruffleInternalErrorException();
                 };
                 addSlot(entity, Integer.toString(slot));
-                yield WriteLocalVariableNodeGen.create(recurseExp(lb.e()), slot, snapiType);
+                ExpressionNode value = recurseExp(lb.e());
+                if (cachedCollections.contains(lb)) {
+                    value = new CollectionCacheNode(value, (SnapiTypeWithProperties) ((SnapiIterableType) snapiType).innerType());
+                }
+                yield WriteLocalVariableNodeGen.create(value, slot, snapiType);
             }
             case LetFun lf -> {
                 Entity entity = analyzer.entity().apply(lf.i());
@@ -526,8 +554,393 @@ public class SnapiTruffleEmitter extends TruffleEmitter {
         return new ClosureNode(f, new ExpressionNode[]{null});
     }
 
+    private boolean isEntry(Exp e, String pkgName, String entName) {
+        return e instanceof FunApp fa
+                && tipe(fa.f()) instanceof PackageEntryType pet
+                && pet.pkgName().equals(pkgName)
+                && pet.entName().equals(entName);
+    }
+
+    private boolean isParam(Exp e, FunParam param) {
+        return e instanceof IdnExp ie
+                && analyzer.entity().apply(ie.idn()) instanceof FunParamEntity f
+                && f.f() == param;
+    }
+
+    // The aggregation (see Aggregations) of a collection done by the expression, or -1.
+    private byte aggregationOf(Exp e) {
+        if (!(e instanceof FunApp fa) || fa.args().size() != 1) return -1;
+        if (isEntry(e, "Collection", "Count")) return Aggregations.COUNT;
+        if (isEntry(e, "Collection", "Max")) return Aggregations.MAX;
+        if (isEntry(e, "Collection", "Min")) return Aggregations.MIN;
+        if (isEntry(e, "Collection", "Sum")) return Aggregations.SUM;
+        if (isEntry(e, "Collection", "Last")) return Aggregations.LAST;
+        return -1;
+    }
+
+    // The group of the parameter if the expression is that group, or that group transformed by a
+    // function of the row only. Otherwise null.
+    private Proj aggregatedGroup(Exp e, FunParam group) {
+        if (e instanceof Proj p && p.i().equals("group") && isParam(p.e(), group)) return p;
+        if (isEntry(e, "Collection", "Transform")
+                && ((FunApp) e).args().apply(0).e() instanceof Proj p
+                && p.i().equals("group")
+                && isParam(p.e(), group)
+                && ((FunApp) e).args().apply(1).e() instanceof FunAbs f
+                && f.p().ps().size() == 1
+                && isRowExpression(f.p().b().e(), f.p().ps().apply(0))) return p;
+        return null;
+    }
+
+    // Expressions of the row only, so that they can be computed while grouping.
+    private boolean isRowExpression(Exp e, FunParam row) {
+        return switch (e) {
+            case IdnExp ignored -> isParam(e, row);
+            case Const ignored -> true;
+            case Proj p -> isRowExpression(p.e(), row);
+            case UnaryExp ue -> isRowExpression(ue.exp(), row);
+            case BinaryExp be -> isRowExpression(be.left(), row) && isRowExpression(be.right(), row);
+            case IfThenElse ite -> isRowExpression(ite.e1(), row) && isRowExpression(ite.e2(), row) && isRowExpression(ite.e3(), row);
+            default -> false;
+        };
+    }
+
+    // Checks the group is only used for its key or aggregated, collecting its aggregations.
+    private boolean isOnlyAggregated(SourceNode n, FunParam group, List<FunApp> aggregations) {
+        if (n instanceof Proj p && p.i().equals("key") && isParam(p.e(), group)) return true;
+        if (n instanceof FunApp fa && aggregationOf(fa) >= 0 && aggregatedGroup(fa.args().apply(0).e(), group) != null) {
+            aggregations.add(fa);
+            return true;
+        }
+        if (n instanceof Exp e && isParam(e, group)) return false;
+        for (SourceNode child : JavaConverters.asJavaCollection(analyzer.tree().child().apply(n))) {
+            if (!isOnlyAggregated(child, group, aggregations)) return false;
+        }
+        return true;
+    }
+
+    // The aggregations of the groups if the expression is a Collection.Transform of a
+    // Collection.GroupBy that only uses the key of the groups and aggregations of the group.
+    // Otherwise null.
+    private List<FunApp> groupAggregations(FunApp fa) {
+        if (!isEntry(fa, "Collection", "Transform")
+                || !isEntry(fa.args().apply(0).e(), "Collection", "GroupBy")
+                || !(fa.args().apply(1).e() instanceof FunAbs f)
+                || f.p().ps().size() != 1) {
+            return null;
+        }
+        List<FunApp> aggregations = new ArrayList<>();
+        return isOnlyAggregated(f.p().b().e(), f.p().ps().apply(0), aggregations) ? aggregations : null;
+    }
+
+    private SourceNode parentOf(SourceNode n) {
+        return JavaConverters.asJavaCollection(tree.parent().apply(n)).stream().findFirst().orElse(null);
+    }
+
+    private void collectUses(SourceNode n, Entity entity, List<IdnExp> uses) {
+        if (n instanceof IdnExp ie && analyzer.entity().apply(ie.idn()).equals(entity)) uses.add(ie);
+        for (SourceNode child : JavaConverters.asJavaCollection(analyzer.tree().child().apply(n))) {
+            collectUses(child, entity, uses);
+        }
+    }
+
+    private boolean isFloatingPoint(Exp rows) {
+        Type inner = tipe(rows) instanceof SnapiIterableType it ? it.innerType()
+                : tipe(rows) instanceof SnapiListType lt ? lt.innerType() : null;
+        return inner instanceof SnapiDoubleType || inner instanceof SnapiFloatType;
+    }
+
+    // Whether the key of the rows, which are groups, is one of the keys the OrderBy sorts them by.
+    // Keys are unique, so that the order doesn't depend on the order of the groups.
+    private boolean isSortedByGroupKey(FunApp orderBy) {
+        for (int i = 1; i < orderBy.args().size(); i += 2) {
+            if (orderBy.args().apply(i).e() instanceof FunAbs f
+                    && f.p().ps().size() == 1
+                    && f.p().b().e() instanceof Proj p
+                    && p.i().equals("key")
+                    && isParam(p.e(), f.p().ps().apply(0))) return true;
+        }
+        return false;
+    }
+
+    // Whether the order of the rows of the expression can't be observed: they are only counted,
+    // summed (unless they are floating point numbers), their minimum or maximum taken, possibly
+    // after being filtered or transformed. Groups (`groups`) can also be sorted by their key. A
+    // let-bound expression is so if all its uses are.
+    private boolean isOrderIgnored(Exp e, boolean groups) {
+        SourceNode parent = parentOf(e);
+        if (parent instanceof LetBind lb) {
+            List<IdnExp> uses = new ArrayList<>();
+            collectUses(parentOf(lb), analyzer.entity().apply(lb.i()), uses);
+            return uses.stream().allMatch(use -> isOrderIgnored(use, groups));
+        }
+        if (!(parent instanceof FunAppArg arg)
+                || !(parentOf(arg) instanceof FunApp fa)
+                || !(tipe(fa.f()) instanceof PackageEntryType pet)
+                || fa.args().apply(0) != arg
+                || !(pet.pkgName().equals("Collection") || pet.pkgName().equals("List"))) {
+            return false;
+        }
+        return switch (pet.entName()) {
+            case "Count", "Min", "Max" -> true;
+            case "Sum" -> !isFloatingPoint(e);
+            case "OrderBy" -> groups && isSortedByGroupKey(fa);
+            case "Filter" -> isOrderIgnored(fa, groups);
+            case "Transform" -> isOrderIgnored(fa, false);
+            default -> false;
+        };
+    }
+
+    private static String aggregationField(int idx) {
+        return "aggregation" + idx;
+    }
+
+    // The aggregations are computed while grouping, so that the rows of the groups aren't kept. The
+    // group records have the results of the aggregations instead of the group.
+    private ExpressionNode emitGroupAggregations(FunApp transform, List<FunApp> aggregations) {
+        FunApp groupBy = (FunApp) transform.args().apply(0).e();
+        SnapiRecordType record = (SnapiRecordType) ((SnapiIterableType) tipe(groupBy)).innerType();
+        List<SnapiAttrType> atts = JavaConverters.asJavaCollection(record.atts()).stream().map(a -> (SnapiAttrType) a).toList();
+        SnapiTypeWithProperties keyType = (SnapiTypeWithProperties) atts.stream().filter(a -> a.idn().equals("key")).findFirst().orElseThrow().tipe();
+        SnapiIterableType groupType = (SnapiIterableType) atts.stream().filter(a -> a.idn().equals("group")).findFirst().orElseThrow().tipe();
+        SnapiTypeWithProperties rowType = (SnapiTypeWithProperties) groupType.innerType();
+
+        FrameDescriptor.Builder builder = getFrameDescriptorBuilder();
+        int generatorSlot = builder.addSlot(FrameSlotKind.Object, "generator", "a slot to store the generator of osr");
+        int functionSlot = builder.addSlot(FrameSlotKind.Object, "function", "a slot to store the function of osr");
+        int mapSlot = builder.addSlot(FrameSlotKind.Object, "map", "a slot to store the map of osr");
+
+        ExpressionNode iterableNode = recurseExp(groupBy.args().apply(0).e());
+        ExpressionNode keyFunNode = recurseExp(groupBy.args().apply(1).e());
+        int n = aggregations.size();
+        ExpressionNode[] functionNodes = new ExpressionNode[n];
+        byte[] aggregationTypes = new byte[n];
+        SnapiTypeWithProperties[] resultTypes = new SnapiTypeWithProperties[n];
+        String[] fields = new String[n];
+        for (int i = 0; i < n; i++) {
+            FunApp aggregation = aggregations.get(i);
+            aggregationTypes[i] = aggregationOf(aggregation);
+            resultTypes[i] = (SnapiTypeWithProperties) tipe(aggregation);
+            fields[i] = aggregationField(i);
+            // counting doesn't need the transformed rows.
+            if (aggregationTypes[i] != Aggregations.COUNT && aggregation.args().apply(0).e() instanceof FunApp rows) {
+                functionNodes[i] = recurseExp(rows.args().apply(1).e());
+            }
+            pushedAggregations.put(aggregation, i);
+        }
+        ExpressionNode groupsNode = new CollectionGroupByAggregationsNode(
+                iterableNode, keyFunNode, functionNodes, keyType, rowType, aggregationTypes, resultTypes, fields,
+                generatorSlot, functionSlot, mapSlot);
+        return CollectionTransformNodeGen.create(groupsNode, recurseExp(transform.args().apply(1).e()));
+    }
+
+    // Checks the row is only used for its fields, collecting the fields.
+    private boolean isOnlyProjected(SourceNode n, FunParam row, Set<String> fields) {
+        if (n instanceof Proj p && isParam(p.e(), row)) {
+            fields.add(p.i());
+            return true;
+        }
+        if (n instanceof Exp e && isParam(e, row)) return false;
+        for (SourceNode child : JavaConverters.asJavaCollection(analyzer.tree().child().apply(n))) {
+            if (!isOnlyProjected(child, row, fields)) return false;
+        }
+        return true;
+    }
+
+    private boolean isRowFunction(Exp e, Set<String> fields) {
+        return e instanceof FunAbs f
+                && f.p().ps().size() == 1
+                && isOnlyProjected(f.p().b().e(), f.p().ps().apply(0), fields);
+    }
+
+    // The CSV or XML read of a Collection.Transform of such a read (possibly filtered) that uses only
+    // some fields of the rows, or null. The fields are collected in fields.
+    private Exp projectedRead(FunApp fa, Set<String> fields) {
+        if (!isEntry(fa, "Collection", "Transform") || !isRowFunction(fa.args().apply(1).e(), fields)) {
+            return null;
+        }
+        Exp source = fa.args().apply(0).e();
+        while (isEntry(source, "Collection", "Filter")) {
+            FunApp filter = (FunApp) source;
+            if (!isRowFunction(filter.args().apply(1).e(), fields)) return null;
+            source = filter.args().apply(0).e();
+        }
+        if (!isEntry(source, "Csv", "Read") && !isEntry(source, "Csv", "Parse")
+                && !isEntry(source, "Xml", "Read") && !isEntry(source, "Xml", "Parse")) {
+            return null;
+        }
+        if (!(tipe(source) instanceof SnapiIterableType rows) || !(rows.innerType() instanceof SnapiRecordType row)) {
+            return null;
+        }
+        Set<String> columns = new HashSet<>();
+        JavaConverters.asJavaCollection(row.atts()).forEach(a -> columns.add(((SnapiAttrType) a).idn()));
+        // with duplicate field names, a field can't be matched with its column or element.
+        if (columns.size() != row.atts().size() || fields.containsAll(columns)) return null;
+        return source;
+    }
+
+    // Packages of which the functions have no side effect and read no data. Expressions calling only
+    // these can be evaluated on several threads, in any order. Their nodes keep no state outside of
+    // their DSL specializations, and the caches they use (RegexCache, DateTimeFormatCache) are per
+    // thread. Other packages aren't run by worker threads: add one only once its nodes are checked.
+    private static final Set<String> purePackages = Set.of(
+            "Byte", "Short", "Int", "Long", "Float", "Double", "Decimal", "Math", "String", "Regex",
+            "Date", "Time", "Timestamp", "Interval", "Record", "Nullable", "Try", "NullableTryable",
+            "Success", "Error");
+
+    private boolean isPure(SourceNode n) {
+        if (n instanceof FunApp fa) {
+            if (!(tipe(fa.f()) instanceof PackageEntryType pet) || !purePackages.contains(pet.pkgName())) return false;
+            // these read a location.
+            if (pet.pkgName().equals("String") && pet.entName().startsWith("Read")) return false;
+        }
+        for (SourceNode child : JavaConverters.asJavaCollection(analyzer.tree().child().apply(n))) {
+            if (!isPure(child)) return false;
+        }
+        return true;
+    }
+
+    // A Collection.Count, Sum, Min or Max of a pipeline of Collection.Transform and Collection.Filter
+    // with pure functions, which can be computed by morsels on several threads. Sums of floating
+    // point numbers aren't, since their result would depend on the order they're added in.
+    private boolean isParallelAggregation(FunApp fa) {
+        byte aggregation = aggregationOf(fa);
+        if (aggregation == -1 || aggregation == Aggregations.LAST) return false;
+        Exp source = fa.args().apply(0).e();
+        if (aggregation == Aggregations.SUM
+                && tipe(source) instanceof SnapiIterableType rows
+                && (rows.innerType() instanceof SnapiDoubleType || rows.innerType() instanceof SnapiFloatType)) {
+            return false;
+        }
+        boolean pipeline = false;
+        while (isEntry(source, "Collection", "Transform") || isEntry(source, "Collection", "Filter")) {
+            Exp function = ((FunApp) source).args().apply(1).e();
+            if (!(function instanceof FunAbs f) || !isPure(f.p().b().e())) return false;
+            pipeline = true;
+            source = ((FunApp) source).args().apply(0).e();
+        }
+        return pipeline;
+    }
+
+    // The aggregation is computed on the query thread when the source of the pipeline can't be split
+    // (see Morsels). Otherwise each morsel is aggregated by a program of its own on a worker thread.
+    private ExpressionNode emitParallelAggregation(FunApp fa) {
+        FrameDescriptor.Builder builder = getFrameDescriptorBuilder();
+        int generatorSlot = builder.addSlot(FrameSlotKind.Object, "generator", "a slot to store the generator of osr");
+        int resultSlot = builder.addSlot(FrameSlotKind.Object, "result", "a slot to store the result of osr");
+        FrameDescriptor.Builder morselBuilder = FrameDescriptor.newBuilder();
+        int morselGeneratorSlot = morselBuilder.addSlot(FrameSlotKind.Object, "generator", "a slot to store the generator of osr");
+        int morselResultSlot = morselBuilder.addSlot(FrameSlotKind.Object, "result", "a slot to store the result of osr");
+        byte aggregation = aggregationOf(fa);
+        RootCallTarget morselTarget = new ProgramExpressionNode(
+                rawLanguage,
+                morselBuilder.build(),
+                new AggregateMorselNode(aggregation, morselGeneratorSlot, morselResultSlot)).getCallTarget();
+        return new AggregateSingleNode(
+                recurseExp(fa.args().apply(0).e()), aggregation, generatorSlot, resultSlot, morselTarget);
+    }
+
+    // The number of uses of the entity in the node, up to two. A use in a function counts twice,
+    // since the function can be called several times.
+    private int uses(SourceNode n, Entity entity, boolean inFunction) {
+        if (n instanceof IdnExp ie && analyzer.entity().apply(ie.idn()).equals(entity)) return inFunction ? 2 : 1;
+        boolean inFunctionBody = inFunction || n instanceof FunProto;
+        int count = 0;
+        for (SourceNode child : JavaConverters.asJavaCollection(analyzer.tree().child().apply(n))) {
+            count += uses(child, entity, inFunctionBody);
+            if (count > 1) return 2;
+        }
+        return count;
+    }
+
+    // Readers of files of which the rows are worth recording: reading them again decodes the whole
+    // file again, and gives the same rows.
+    private static final Set<String> fileReaders = Set.of(
+            "Csv.Read", "Csv.InferAndRead", "Json.Read", "Json.InferAndRead", "Xml.Read", "Xml.InferAndRead",
+            "String.ReadLines");
+
+    // The number of file readers called by the node, or -1 if it calls anything else than these
+    // readers, pure functions and collection functions (e.g. an HTTP or a database read, or a
+    // function of the program).
+    private int fileReads(SourceNode n) {
+        int count = 0;
+        if (n instanceof FunApp fa) {
+            if (!(tipe(fa.f()) instanceof PackageEntryType pet)) return -1;
+            if (fileReaders.contains(pet.pkgName() + "." + pet.entName())) {
+                count++;
+            } else if (!pet.pkgName().equals("Collection") && !isEntry(fa, "Location", "FromString")
+                    && !(purePackages.contains(pet.pkgName()) && !(pet.pkgName().equals("String") && pet.entName().startsWith("Read")))) {
+                return -1;
+            }
+        }
+        for (SourceNode child : JavaConverters.asJavaCollection(analyzer.tree().child().apply(n))) {
+            int c = fileReads(child);
+            if (c < 0) return -1;
+            count += c;
+        }
+        return count;
+    }
+
+    // A let-bound collection that is read more than once by the let, which would read and decode a
+    // file every time (an alias of another collection is cached with the other collection, if
+    // needed). Collections of other sources aren't cached: recording costs more than building the
+    // rows again, or reading the source again can give other rows.
+    private boolean isReadMoreThanOnce(LetBind lb, Let let) {
+        return tipe(lb.e()) instanceof SnapiIterableType
+                && !(lb.e() instanceof IdnExp)
+                && fileReads(lb.e()) > 0
+                && uses(let, analyzer.entity().apply(lb.i()), false) > 1;
+    }
+
+    // A Collection.Take of a Collection.OrderBy only keeps the rows it takes (see CollectionTopKNode).
+    // The top-k reads the input of the order-by itself, so it is the only operator reported for both.
+    private ExpressionNode emitTopK(FunApp fa) {
+        int heapSlot = getFrameDescriptorBuilder().addSlot(FrameSlotKind.Object, "heap", "a slot to store the heap of osr");
+        ExpressionNode orderBy = emitPackageEntry((FunApp) fa.args().apply(0).e());
+        return new CollectionTopKNode(orderBy, recurseExp(fa.args().apply(1).e()), heapSlot);
+    }
+
+    private ExpressionNode emitPackageEntry(FunApp fa) {
+        Type t = tipe(fa);
+        PackageEntryType pet = (PackageEntryType) tipe(fa.f());
+        TruffleEntryExtension e = getEntry(pet.pkgName(), pet.entName());
+        List<SnapiArg> args = JavaConverters.asJavaCollection(fa.args()).stream().map(a -> new SnapiArg(a.e(), tipe(a.e()), a.idn())).toList();
+        Set<String> fields = projectedReads.get(fa);
+        return switch (e) {
+            case TruffleCsvReadEntry r when fields != null -> r.toTruffle(t, r.snapiargsToTruffleArgs(args, this), rawLanguage, fields);
+            case TruffleCsvParseEntry r when fields != null -> r.toTruffle(t, r.snapiargsToTruffleArgs(args, this), rawLanguage, fields);
+            case TruffleReadXmlEntry r when fields != null -> r.toTruffle(t, args, this, fields);
+            case TruffleParseXmlEntry r when fields != null -> r.toTruffle(t, args, this, fields);
+            case TruffleGroupCollectionEntry g -> g.toTruffle(t, args, this, isOrderIgnored(fa, true));
+            case TruffleGroupListEntry g -> g.toTruffle(t, args, this, isOrderIgnored(fa, true));
+            default -> e.toTruffle(t, args, this);
+        };
+    }
+
+    // The builtins producing collections or lists, and the other Collection and List functions, are
+    // the operators reported by the profiler.
+    private ExpressionNode operator(FunApp fa, ExpressionNode node) {
+        PackageEntryType pet = (PackageEntryType) tipe(fa.f());
+        String name = pet.pkgName() + "." + pet.entName();
+        Type t = tipe(fa);
+        if (t instanceof SnapiIterableType it && it.props().isEmpty()) {
+            return new OperatorNode(node, name, OperatorTag.COLLECTION);
+        } else if (t instanceof SnapiListType) {
+            return new OperatorNode(node, name, OperatorTag.LIST);
+        } else if (pet.pkgName().equals("Collection") || pet.pkgName().equals("List")) {
+            return new OperatorNode(node, name, OperatorTag.VALUE);
+        }
+        return node;
+    }
+
     public ExpressionNode recurseExp(Exp in) {
         return switch (in) {
+            case FunApp fa when pushedAggregations.containsKey(fa) -> {
+                // computed while grouping, it is read from the group record.
+                Exp rows = fa.args().apply(0).e();
+                Proj group = rows instanceof Proj p ? p : (Proj) ((FunApp) rows).args().apply(0).e();
+                yield RecordProjNodeGen.create(recurseExp(group.e()), new StringNode(aggregationField(pushedAggregations.get(fa))));
+            }
             case Exp ignored when tipe(in) instanceof PackageType || tipe(in) instanceof PackageEntryType ->
                     new ZeroedConstNode(SnapiByteType.apply(new scala.collection.immutable.HashSet<SnapiTypeProperty>().seq()));
             case TypeExp typeExp -> new ZeroedConstNode((SnapiType) typeExp.t());
@@ -618,6 +1031,9 @@ public class SnapiTruffleEmitter extends TruffleEmitter {
             case IfThenElse ite -> new IfThenElseNode(recurseExp(ite.e1()), recurseExp(ite.e2()), recurseExp(ite.e3()));
             case Proj proj -> RecordProjNodeGen.create(recurseExp(proj.e()), new StringNode(proj.i()));
             case Let let -> {
+                for (LetDecl decl : JavaConverters.asJavaCollection(let.decls())) {
+                    if (decl instanceof LetBind lb && isReadMoreThanOnce(lb, let)) cachedCollections.add(lb);
+                }
                 StatementNode[] decls = JavaConverters.asJavaCollection(let.decls()).stream().map(this::recurseLetDecl).toArray(StatementNode[]::new);
                 yield new ExpBlockNode(decls, recurseExp(let.e()));
             }
@@ -636,15 +1052,17 @@ public class SnapiTruffleEmitter extends TruffleEmitter {
                     yield new MethodNode(null, f, defaultArgs, false);
                 }
             }
+            case FunApp fa when groupAggregations(fa) != null && isOrderIgnored(fa, false) ->
+                    operator(fa, emitGroupAggregations(fa, groupAggregations(fa)));
+            case FunApp fa when isParallelAggregation(fa) -> operator(fa, emitParallelAggregation(fa));
+            case FunApp fa when isEntry(fa, "Collection", "Take") && isEntry(fa.args().apply(0).e(), "Collection", "OrderBy") ->
+                    operator(fa, emitTopK(fa));
             case FunApp fa when tipe(fa.f()) instanceof PackageEntryType -> {
-                Type t = tipe(fa);
-                PackageEntryType pet = (PackageEntryType) tipe(fa.f());
-                TruffleEntryExtension e = getEntry(pet.pkgName(), pet.entName());
-                yield e.toTruffle(
-                        t,
-                        JavaConverters.asJavaCollection(fa.args()).stream().map(a -> new SnapiArg(a.e(), tipe(a.e()), a.idn())).toList(),
-                        this
-                );
+                // the CSV columns and XML elements the rows aren't read for are skipped by the reader.
+                Set<String> fields = new HashSet<>();
+                Exp read = projectedRead(fa, fields);
+                if (read != null) projectedReads.put(read, fields);
+                yield operator(fa, emitPackageEntry(fa));
             }
             case FunApp fa -> {
                 String[] argNames = JavaConverters.asJavaCollection(fa.args()).stream().map(a -> a.idn().isDefined() ? a.idn().get() : null).toArray(String[]::new);
@@ -32,6 +32,12 @@ public class TruffleGroupCollectionEntry extends GroupCollectionEntry
     implements TruffleEntryExtension {
   @Override
   public ExpressionNode toTruffle(Type type, List<SnapiArg> args, TruffleEmitter emitter) {
+    return toTruffle(type, args, emitter, false);
+  }
+
+  // Groups in a hash map when the order of the groups can't be observed, otherwise in key order.
+  public ExpressionNode toTruffle(
+      Type type, List<SnapiArg> args, TruffleEmitter emitter, boolean hashed) {
     List<TruffleArg> truffleArgs = snapiargsToTruffleArgs(args, emitter);
     FrameDescriptor.Builder builder = emitter.getFrameDescriptorBuilder();
 
@@ -73,6 +79,7 @@ public class TruffleGroupCollectionEntry extends GroupCollectionEntry
         valueType,
         generatorSlot,
         functionSlot,
-        mapSlot);
+        mapSlot,
+        hashed);
   }
 }
@@ -21,7 +21,7 @@ import com.rawlabs.snapi.frontend.snapi.source.FunType;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiIterableType;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
-import com.rawlabs.snapi.truffle.ast.expressions.iterable.collection.CollectionEquiJoinNode;
+import com.rawlabs.snapi.truffle.ast.expressions.iterable.collection.CollectionEquiJoinNodeGen;
 import com.rawlabs.snapi.truffle.emitter.TruffleArg;
 import com.rawlabs.snapi.truffle.emitter.TruffleEmitter;
 import com.rawlabs.snapi.truffle.emitter.TruffleEntryExtension;
@@ -56,15 +56,15 @@ public class TruffleInternalEquiJoinCollectionEntry extends InternalEquiJoinColl
     SnapiIterableType leftValue = (SnapiIterableType) left.type();
     SnapiIterableType rightValue = (SnapiIterableType) right.type();
 
-    return new CollectionEquiJoinNode(
+    return CollectionEquiJoinNodeGen.create(
         left.exprNode(),
-        right.exprNode(),
         leftK.exprNode(),
+        right.exprNode(),
         rightK.exprNode(),
+        remap.exprNode(),
         (SnapiTypeWithProperties) funType.r(),
         (SnapiTypeWithProperties) leftValue.innerType(),
         (SnapiTypeWithProperties) rightValue.innerType(),
-        remap.exprNode(),
         computeNextSlot,
         shouldContinueSlot,
         generatorSlot,
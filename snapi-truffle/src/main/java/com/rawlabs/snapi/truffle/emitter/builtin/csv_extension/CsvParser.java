@@ -32,6 +32,7 @@ import static com.rawlabs.snapi.truffle.emitter.builtin.CompilerScalaConsts.trya
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public class CsvParser {
 
@@ -46,6 +47,8 @@ public class CsvParser {
   private final ExpressionNode timeFormat;
   private final ExpressionNode dateFormat;
   private final ExpressionNode timestampFormat;
+  // the columns used by the query, or null if all of them are.
+  private final Set<String> projectedColumns;
 
   private Optional<ExpressionNode> arg(String kw) {
     return args.stream()
@@ -55,7 +58,12 @@ public class CsvParser {
   }
 
   public CsvParser(List<TruffleArg> args) {
+    this(args, null);
+  }
+
+  public CsvParser(List<TruffleArg> args, Set<String> projectedColumns) {
     this.args = args;
+    this.projectedColumns = projectedColumns;
 
     this.encoding = arg("encoding").orElse(new StringNode("utf-8"));
     this.skip = arg("skip").orElse(new IntNode("0"));
@@ -95,8 +103,7 @@ public class CsvParser {
 
     ProgramExpressionNode[] columnParsers =
         JavaConverters.seqAsJavaList(snapiRecordType.atts()).stream().map(a -> (SnapiAttrType) a)
-            .map(col -> columnParser(col.tipe(), lang))
-            .map(parser -> new ProgramExpressionNode(lang, new FrameDescriptor(), parser))
+            .map(col -> isProjected(col) ? new ProgramExpressionNode(lang, new FrameDescriptor(), columnParser(col.tipe(), lang)) : null)
             .toArray(ProgramExpressionNode[]::new);
 
     return new RecordParseCsvNode(
@@ -104,6 +111,10 @@ public class CsvParser {
         JavaConverters.seqAsJavaList(snapiRecordType.atts()).stream().map(a -> (SnapiAttrType) a).toArray(SnapiAttrType[]::new));
   }
 
+  private boolean isProjected(SnapiAttrType column) {
+    return projectedColumns == null || projectedColumns.contains(column.idn());
+  }
+
   public ExpressionNode stringParser(
           ExpressionNode str, SnapiTypeWithProperties t, SnapiLanguage lang) {
     return new IterableParseCsvString(
@@ -20,11 +20,18 @@ import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.emitter.TruffleArg;
 import com.rawlabs.snapi.truffle.emitter.TruffleEntryExtension;
 import java.util.List;
+import java.util.Set;
 
 public class TruffleCsvParseEntry extends CsvParseEntry implements TruffleEntryExtension {
   @Override
   public ExpressionNode toTruffle(Type type, List<TruffleArg> args, SnapiLanguage rawLanguage) {
-    CsvParser makeParser = new CsvParser(args);
+    return toTruffle(type, args, rawLanguage, null);
+  }
+
+  // Reads only the given columns, the other ones are skipped (null for all columns).
+  public ExpressionNode toTruffle(
+      Type type, List<TruffleArg> args, SnapiLanguage rawLanguage, Set<String> columns) {
+    CsvParser makeParser = new CsvParser(args, columns);
     ExpressionNode url =
         args.stream().filter(a -> a.identifier() == null).findFirst().orElseThrow().exprNode();
     return makeParser.stringParser(url, (SnapiTypeWithProperties) type, rawLanguage);
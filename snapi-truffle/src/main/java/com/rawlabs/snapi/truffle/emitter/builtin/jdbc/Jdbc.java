@@ -40,47 +40,74 @@ public class Jdbc {
 
     FrameDescriptor frameDescriptor = new FrameDescriptor();
 
-    ProgramExpressionNode[] columnParsers =
-        JavaConverters.asJavaCollection(recordType.atts()).stream().map(a -> (SnapiAttrType) a)
-            .map(att -> columnReader(att.idn(), att.tipe(), lang))
-            .toArray(ProgramExpressionNode[]::new);
-    RecordReadJdbcQuery recordParser =
-        new RecordReadJdbcQuery(
-            columnParsers,
-            JavaConverters.asJavaCollection(recordType.atts()).stream().map(a -> (SnapiAttrType) a).toArray(SnapiAttrType[]::new));
+    SnapiAttrType[] columns =
+        JavaConverters.asJavaCollection(recordType.atts()).stream().map(a -> (SnapiAttrType) a).toArray(SnapiAttrType[]::new);
+    // Columns are read by their position in the record type.
+    ProgramExpressionNode[] columnParsers = new ProgramExpressionNode[columns.length];
+    String[] columnNames = new String[columns.length];
+    JdbcQuery.ColumnType[] columnTypes = new JdbcQuery.ColumnType[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      columnParsers[i] = columnReader(i, columns[i].tipe(), lang);
+      columnNames[i] = columns[i].idn();
+      columnTypes[i] = columnType(columns[i].tipe());
+    }
+    RecordReadJdbcQuery recordParser = new RecordReadJdbcQuery(columnParsers, columns);
     return new JdbcQueryNode(
         location,
         query,
         new ProgramExpressionNode(lang, frameDescriptor, recordParser),
+        columnNames,
+        columnTypes,
         exceptionHandler);
   }
 
-  static private ProgramExpressionNode columnReader(String colName, Type t, SnapiLanguage lang) {
+  static private ProgramExpressionNode columnReader(int idx, Type t, SnapiLanguage lang) {
     FrameDescriptor frameDescriptor = new FrameDescriptor();
     ExpressionNode node = switch (t){
       case SnapiTypeWithProperties r when r.props().contains(tryable) -> {
-        ProgramExpressionNode inner = columnReader(colName,r.cloneAndRemoveProp(tryable),lang);
-        yield new TryableReadJdbcQuery(inner, colName);
+        ProgramExpressionNode inner = columnReader(idx,r.cloneAndRemoveProp(tryable),lang);
+        yield new TryableReadJdbcQuery(inner, idx);
       }
       case SnapiTypeWithProperties r when r.props().contains(nullable) -> {
-        ProgramExpressionNode inner = columnReader(colName,r.cloneAndRemoveProp(nullable),lang);
-        yield new NullableReadJdbcQuery(inner, colName);
+        ProgramExpressionNode inner = columnReader(idx,r.cloneAndRemoveProp(nullable),lang);
+        yield new NullableReadJdbcQuery(inner, idx);
       }
-      case SnapiByteType ignored ->  new ByteReadJdbcQuery(colName);
-      case SnapiShortType ignored ->  new ShortReadJdbcQuery(colName);
-      case SnapiIntType ignored ->  new IntReadJdbcQuery(colName);
-      case SnapiLongType ignored ->  new LongReadJdbcQuery(colName);
-      case SnapiFloatType ignored ->  new FloatReadJdbcQuery(colName);
-      case SnapiDoubleType ignored ->  new DoubleReadJdbcQuery(colName);
-      case SnapiDecimalType ignored ->  new DecimalReadJdbcQuery(colName);
-      case SnapiStringType ignored ->  new StringReadJdbcQuery(colName);
-      case SnapiDateType ignored ->  new DateReadJdbcQuery(colName);
-      case SnapiTimeType ignored ->  new TimeReadJdbcQuery(colName);
-      case SnapiTimestampType ignored ->  new TimestampReadJdbcQuery(colName);
-      case SnapiBoolType ignored ->  new BoolReadJdbcQuery(colName);
-      case SnapiBinaryType ignored ->  new BinaryReadJdbcQuery(colName);
+      case SnapiByteType ignored ->  new ByteReadJdbcQuery(idx);
+      case SnapiShortType ignored ->  new ShortReadJdbcQuery(idx);
+      case SnapiIntType ignored ->  new IntReadJdbcQuery(idx);
+      case SnapiLongType ignored ->  new LongReadJdbcQuery(idx);
+      case SnapiFloatType ignored ->  new FloatReadJdbcQuery(idx);
+      case SnapiDoubleType ignored ->  new DoubleReadJdbcQuery(idx);
+      case SnapiDecimalType ignored ->  new DecimalReadJdbcQuery(idx);
+      case SnapiStringType ignored ->  new StringReadJdbcQuery(idx);
+      case SnapiDateType ignored ->  new DateReadJdbcQuery(idx);
+      case SnapiTimeType ignored ->  new TimeReadJdbcQuery(idx);
+      case SnapiTimestampType ignored ->  new TimestampReadJdbcQuery(idx);
+      case SnapiBoolType ignored ->  new BoolReadJdbcQuery(idx);
+      case SnapiBinaryType ignored ->  new BinaryReadJdbcQuery(idx);
       default -> throw new TruffleInternalErrorException();
     };
     return new ProgramExpressionNode(lang, frameDescriptor, node);
   }
+
+  static private JdbcQuery.ColumnType columnType(Type t) {
+    return switch (t){
+      case SnapiTypeWithProperties r when r.props().contains(tryable) -> columnType(r.cloneAndRemoveProp(tryable));
+      case SnapiTypeWithProperties r when r.props().contains(nullable) -> columnType(r.cloneAndRemoveProp(nullable));
+      case SnapiByteType ignored -> JdbcQuery.ColumnType.BYTE;
+      case SnapiShortType ignored -> JdbcQuery.ColumnType.SHORT;
+      case SnapiIntType ignored -> JdbcQuery.ColumnType.INT;
+      case SnapiLongType ignored -> JdbcQuery.ColumnType.LONG;
+      case SnapiFloatType ignored -> JdbcQuery.ColumnType.FLOAT;
+      case SnapiDoubleType ignored -> JdbcQuery.ColumnType.DOUBLE;
+      case SnapiDecimalType ignored -> JdbcQuery.ColumnType.DECIMAL;
+      case SnapiStringType ignored -> JdbcQuery.ColumnType.STRING;
+      case SnapiDateType ignored -> JdbcQuery.ColumnType.DATE;
+      case SnapiTimeType ignored -> JdbcQuery.ColumnType.TIME;
+      case SnapiTimestampType ignored -> JdbcQuery.ColumnType.TIMESTAMP;
+      case SnapiBoolType ignored -> JdbcQuery.ColumnType.BOOL;
+      case SnapiBinaryType ignored -> JdbcQuery.ColumnType.BINARY;
+      default -> throw new TruffleInternalErrorException();
+    };
+  }
 }
@@ -62,11 +62,6 @@ public class JsonParser {
     int parserSlot =
             builder.addSlot(
                     FrameSlotKind.Object, "parser", "a slot to store the parser of osr");
-    int llistSlot =
-            builder.addSlot(
-                    FrameSlotKind.Object, "list", "a slot to store the ArrayList of osr");
-    int currentIdxSlot =
-            builder.addSlot(FrameSlotKind.Int, "currentIdxSlot", "a slot to store the current index of osr");
     int listSizeSlot =
             builder.addSlot(
                     FrameSlotKind.Int, "listSize", "a slot to store the size of the list for osr");
@@ -91,8 +86,6 @@ public class JsonParser {
                     (SnapiTypeWithProperties)r.innerType(),
                     child.getCallTarget(),
                     parserSlot,
-                    llistSlot,
-                    currentIdxSlot,
                     listSizeSlot,
                     resultSlot);
           }
@@ -102,7 +95,7 @@ public class JsonParser {
                     program(new ListParseJsonNode(
                                 (SnapiTypeWithProperties)r.innerType(),
                                 child.getCallTarget(),
-                                parserSlot, llistSlot, currentIdxSlot, listSizeSlot, resultSlot),
+                                parserSlot, listSizeSlot, resultSlot),
                               builder.build(), lang));
           }
           case SnapiRecordType r ->{
@@ -36,11 +36,6 @@ public class TruffleFilterListEntry extends FilterListEntry implements TruffleEn
         builder.addSlot(FrameSlotKind.Object, "generator", "a slot to store the generator of osr");
     int functionSlot =
         builder.addSlot(FrameSlotKind.Object, "function", "a slot to store the function of osr");
-    int listSlot =
-        builder.addSlot(FrameSlotKind.Object, "filterList", "a slot to store the ArrayList of osr");
-    int currentIdxSlot =
-        builder.addSlot(
-            FrameSlotKind.Int, "currentIdxSlot", "a slot to store the current index of osr");
     int listSizeSlot =
         builder.addSlot(
             FrameSlotKind.Int, "listSize", "a slot to store the size of the list for osr");
@@ -53,8 +48,6 @@ public class TruffleFilterListEntry extends FilterListEntry implements TruffleEn
         (SnapiType) listType.innerType(),
         generatorSlot,
         functionSlot,
-        listSlot,
-        currentIdxSlot,
         listSizeSlot,
         resultSlot);
   }
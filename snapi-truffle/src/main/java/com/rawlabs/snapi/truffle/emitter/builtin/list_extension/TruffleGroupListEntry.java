@@ -31,7 +31,12 @@ import scala.collection.immutable.HashSet;
 public class TruffleGroupListEntry extends GroupListEntry implements TruffleEntryExtension {
   @Override
   public ExpressionNode toTruffle(Type type, List<SnapiArg> args, TruffleEmitter emitter) {
+    return toTruffle(type, args, emitter, false);
+  }
 
+  // Groups in a hash map when the order of the groups can't be observed, otherwise in key order.
+  public ExpressionNode toTruffle(
+      Type type, List<SnapiArg> args, TruffleEmitter emitter, boolean hashed) {
     List<TruffleArg> truffleArgs = snapiargsToTruffleArgs(args, emitter);
 
     SnapiListType listType = (SnapiListType) type;
@@ -64,7 +69,10 @@ public class TruffleGroupListEntry extends GroupListEntry implements TruffleEntr
     int mapSlot =
         builder.addSlot(FrameSlotKind.Object, "mapSlot", "a slot to store the map of osr");
     int listSlot =
-        builder.addSlot(FrameSlotKind.Object, "listSize", "a slot to store the list of osr");
+        builder.addSlot(FrameSlotKind.Object, "list", "a slot to store the list of osr");
+    int listSizeSlot =
+        builder.addSlot(
+            FrameSlotKind.Int, "listSize", "a slot to store the size of the list of osr");
 
     return new ListGroupByNode(
         truffleArgs.get(0).exprNode(),
@@ -74,6 +82,8 @@ public class TruffleGroupListEntry extends GroupListEntry implements TruffleEntr
         generatorSlot,
         keyFuncSlot,
         mapSlot,
-        listSlot);
+        listSlot,
+        listSizeSlot,
+        hashed);
   }
 }
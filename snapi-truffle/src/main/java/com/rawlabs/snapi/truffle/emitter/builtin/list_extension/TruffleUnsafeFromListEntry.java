@@ -35,11 +35,6 @@ public class TruffleUnsafeFromListEntry extends UnsafeFromListEntry
     FrameDescriptor.Builder builder = emitter.getFrameDescriptorBuilder();
     int generatorSlot =
         builder.addSlot(FrameSlotKind.Object, "generator", "a slot to store the generator of osr");
-    int listSlot =
-        builder.addSlot(FrameSlotKind.Object, "filterList", "a slot to store the ArrayList of osr");
-    int currentIdxSlot =
-        builder.addSlot(
-            FrameSlotKind.Int, "currentIdxSlot", "a slot to store the current index of osr");
     int listSizeSlot =
         builder.addSlot(
             FrameSlotKind.Int, "listSize", "a slot to store the size of the list of osr");
@@ -49,8 +44,6 @@ public class TruffleUnsafeFromListEntry extends UnsafeFromListEntry
         truffleArgs.get(0).exprNode(),
         (SnapiType) snapiListType.innerType(),
         generatorSlot,
-        listSlot,
-        currentIdxSlot,
         listSizeSlot,
         resultSlot);
   }
@@ -16,11 +16,15 @@ import com.rawlabs.snapi.frontend.base.source.Type;
 import com.rawlabs.snapi.frontend.snapi.extensions.builtin.RecordBuildEntry;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiAttrType;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiRecordType;
+import com.rawlabs.snapi.frontend.snapi.source.SnapiType;
 import com.rawlabs.snapi.truffle.SnapiLanguage;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
+import com.rawlabs.snapi.truffle.ast.TypeGuards;
 import com.rawlabs.snapi.truffle.ast.expressions.record.RecordBuildNode;
+import com.rawlabs.snapi.truffle.ast.expressions.record.StaticRecordBuildNode;
 import com.rawlabs.snapi.truffle.emitter.TruffleArg;
 import com.rawlabs.snapi.truffle.emitter.TruffleEntryExtension;
+import java.util.Arrays;
 import java.util.List;
 import scala.collection.JavaConverters;
 
@@ -39,6 +43,36 @@ public class TruffleRecordBuildEntry extends RecordBuildEntry implements Truffle
     ExpressionNode[] values =
         args.stream().map(a -> ((TruffleArg) a).exprNode()).toArray(ExpressionNode[]::new);
 
-    return new RecordBuildNode(values, fieldNames);
+    if (Arrays.stream(fieldNames).distinct().count() != fieldNames.length) {
+      return new RecordBuildNode(values, fieldNames);
+    }
+
+    Class<?>[] fieldTypes =
+        JavaConverters.asJavaCollection(recordType.atts()).stream()
+            .map(a -> fieldType((SnapiType) ((SnapiAttrType) a).tipe()))
+            .toArray(Class<?>[]::new);
+    return new StaticRecordBuildNode(
+        values, rawLanguage.getStaticRecordLayout(fieldNames, fieldTypes));
+  }
+
+  // Fields that can't be null or failed are stored as primitives.
+  private static Class<?> fieldType(SnapiType type) {
+    if (TypeGuards.isIntKind(type)) {
+      return int.class;
+    } else if (TypeGuards.isLongKind(type)) {
+      return long.class;
+    } else if (TypeGuards.isDoubleKind(type)) {
+      return double.class;
+    } else if (TypeGuards.isBooleanKind(type)) {
+      return boolean.class;
+    } else if (TypeGuards.isByteKind(type)) {
+      return byte.class;
+    } else if (TypeGuards.isShortKind(type)) {
+      return short.class;
+    } else if (TypeGuards.isFloatKind(type)) {
+      return float.class;
+    } else {
+      return Object.class;
+    }
   }
 }
@@ -14,7 +14,6 @@ package com.rawlabs.snapi.truffle.emitter.builtin.xml_extension;
 
 import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.FrameSlotKind;
-import java.util.List;
 import com.rawlabs.snapi.frontend.base.source.Type;
 import com.rawlabs.snapi.frontend.snapi.extensions.SnapiArg;
 import com.rawlabs.snapi.frontend.snapi.extensions.builtin.ParseXmlEntry;
@@ -22,9 +21,6 @@ import com.rawlabs.snapi.frontend.snapi.source.SnapiIterableType;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiListType;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiType;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
-import com.rawlabs.snapi.truffle.emitter.TruffleArg;
-import com.rawlabs.snapi.truffle.emitter.TruffleEmitter;
-import com.rawlabs.snapi.truffle.emitter.TruffleEntryExtension;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.ast.expressions.iterable.list.ListFromNode;
 import com.rawlabs.snapi.truffle.ast.expressions.iterable.list.ListFromUnsafe;
@@ -32,6 +28,11 @@ import com.rawlabs.snapi.truffle.ast.expressions.literals.StringNode;
 import com.rawlabs.snapi.truffle.ast.io.json.reader.TryableTopLevelWrapper;
 import com.rawlabs.snapi.truffle.ast.io.xml.parser.XmlParseCollectionNode;
 import com.rawlabs.snapi.truffle.ast.io.xml.parser.XmlParseValueNode;
+import com.rawlabs.snapi.truffle.emitter.TruffleArg;
+import com.rawlabs.snapi.truffle.emitter.TruffleEmitter;
+import com.rawlabs.snapi.truffle.emitter.TruffleEntryExtension;
+import java.util.List;
+import java.util.Set;
 
 public class TruffleParseXmlEntry extends ParseXmlEntry implements TruffleEntryExtension {
 
@@ -50,7 +51,14 @@ public class TruffleParseXmlEntry extends ParseXmlEntry implements TruffleEntryE
   private static final ExpressionNode defaultDateFormat = new StringNode("yyyy-M-d");
   private static final ExpressionNode defaultTimeFormat = new StringNode("HH:mm[:ss[.SSS]]");
 
+  @Override
   public ExpressionNode toTruffle(Type type, List<SnapiArg> args, TruffleEmitter emitter) {
+    return toTruffle(type, args, emitter, null);
+  }
+
+  // Reads only the given fields of the items, the other ones are skipped (null for all fields).
+  public ExpressionNode toTruffle(
+      Type type, List<SnapiArg> args, TruffleEmitter emitter, Set<String> fields) {
     List<TruffleArg> truffleArgs = snapiargsToTruffleArgs(args, emitter);
     FrameDescriptor.Builder builder = emitter.getFrameDescriptorBuilder();
 
@@ -73,7 +81,9 @@ public class TruffleParseXmlEntry extends ParseXmlEntry implements TruffleEntryE
                 timeFormatExp,
                 timestampFormatExp,
                 XmlRecurse.recurseXmlParser(
-                    (SnapiTypeWithProperties) iterableType.innerType(), emitter.getLanguage()));
+                    (SnapiTypeWithProperties) iterableType.innerType(),
+                    emitter.getLanguage(),
+                    fields));
         if (XmlRecurse.isTryable(iterableType)) {
           // Probably will need to be either reused in json and xml or create a copy
           yield new TryableTopLevelWrapper(parseNode);
@@ -89,17 +99,11 @@ public class TruffleParseXmlEntry extends ParseXmlEntry implements TruffleEntryE
                 timeFormatExp,
                 timestampFormatExp,
                 XmlRecurse.recurseXmlParser(
-                    (SnapiTypeWithProperties) listType.innerType(), emitter.getLanguage()));
+                    (SnapiTypeWithProperties) listType.innerType(), emitter.getLanguage(), fields));
 
         int generatorSlot =
             builder.addSlot(
                 FrameSlotKind.Object, "generator", "a slot to store the generator of osr");
-        int listSlot =
-            builder.addSlot(
-                FrameSlotKind.Object, "filterList", "a slot to store the ArrayList of osr");
-        int currentIdxSlot =
-            builder.addSlot(
-                FrameSlotKind.Int, "currentIdxSlot", "a slot to store the current index of osr");
         int listSizeSlot =
             builder.addSlot(
                 FrameSlotKind.Int, "listSize", "a slot to store the size of the list of osr");
@@ -113,8 +117,6 @@ public class TruffleParseXmlEntry extends ParseXmlEntry implements TruffleEntryE
               parseNode,
               (SnapiType) listType.innerType(),
               generatorSlot,
-              listSlot,
-              currentIdxSlot,
               listSizeSlot,
               resultSlot);
         } else {
@@ -122,8 +124,6 @@ public class TruffleParseXmlEntry extends ParseXmlEntry implements TruffleEntryE
               parseNode,
               (SnapiType) listType.innerType(),
               generatorSlot,
-              listSlot,
-              currentIdxSlot,
               listSizeSlot,
               resultSlot);
         }
@@ -14,7 +14,6 @@ package com.rawlabs.snapi.truffle.emitter.builtin.xml_extension;
 
 import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.FrameSlotKind;
-import java.util.List;
 import com.rawlabs.snapi.frontend.base.source.Type;
 import com.rawlabs.snapi.frontend.snapi.extensions.SnapiArg;
 import com.rawlabs.snapi.frontend.snapi.extensions.builtin.ReadXmlEntry;
@@ -22,9 +21,6 @@ import com.rawlabs.snapi.frontend.snapi.source.SnapiIterableType;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiListType;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiType;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
-import com.rawlabs.snapi.truffle.emitter.TruffleArg;
-import com.rawlabs.snapi.truffle.emitter.TruffleEmitter;
-import com.rawlabs.snapi.truffle.emitter.TruffleEntryExtension;
 import com.rawlabs.snapi.truffle.ast.ExpressionNode;
 import com.rawlabs.snapi.truffle.ast.expressions.iterable.list.ListFromNode;
 import com.rawlabs.snapi.truffle.ast.expressions.iterable.list.ListFromUnsafe;
@@ -32,6 +28,11 @@ import com.rawlabs.snapi.truffle.ast.expressions.literals.StringNode;
 import com.rawlabs.snapi.truffle.ast.io.json.reader.TryableTopLevelWrapper;
 import com.rawlabs.snapi.truffle.ast.io.xml.parser.XmlReadCollectionNode;
 import com.rawlabs.snapi.truffle.ast.io.xml.parser.XmlReadValueNode;
+import com.rawlabs.snapi.truffle.emitter.TruffleArg;
+import com.rawlabs.snapi.truffle.emitter.TruffleEmitter;
+import com.rawlabs.snapi.truffle.emitter.TruffleEntryExtension;
+import java.util.List;
+import java.util.Set;
 
 public class TruffleReadXmlEntry extends ReadXmlEntry implements TruffleEntryExtension {
 
@@ -52,6 +53,12 @@ public class TruffleReadXmlEntry extends ReadXmlEntry implements TruffleEntryExt
 
   @Override
   public ExpressionNode toTruffle(Type type, List<SnapiArg> args, TruffleEmitter emitter) {
+    return toTruffle(type, args, emitter, null);
+  }
+
+  // Reads only the given fields of the items, the other ones are skipped (null for all fields).
+  public ExpressionNode toTruffle(
+      Type type, List<SnapiArg> args, TruffleEmitter emitter, Set<String> fields) {
     List<TruffleArg> truffleArgs = snapiargsToTruffleArgs(args, emitter);
     FrameDescriptor.Builder builder = emitter.getFrameDescriptorBuilder();
 
@@ -75,7 +82,9 @@ public class TruffleReadXmlEntry extends ReadXmlEntry implements TruffleEntryExt
                 timeFormatExp,
                 timestampFormatExp,
                 XmlRecurse.recurseXmlParser(
-                    (SnapiTypeWithProperties) iterableType.innerType(), emitter.getLanguage()));
+                    (SnapiTypeWithProperties) iterableType.innerType(),
+                    emitter.getLanguage(),
+                    fields));
         if (XmlRecurse.isTryable(iterableType)) {
           // Probably will need to be either reused in json and xml or create a copy
           yield new TryableTopLevelWrapper(parseNode);
@@ -92,17 +101,11 @@ public class TruffleReadXmlEntry extends ReadXmlEntry implements TruffleEntryExt
                 timeFormatExp,
                 timestampFormatExp,
                 XmlRecurse.recurseXmlParser(
-                    (SnapiTypeWithProperties) listType.innerType(), emitter.getLanguage()));
+                    (SnapiTypeWithProperties) listType.innerType(), emitter.getLanguage(), fields));
 
         int generatorSlot =
             builder.addSlot(
                 FrameSlotKind.Object, "generator", "a slot to store the generator of osr");
-        int listSlot =
-            builder.addSlot(
-                FrameSlotKind.Object, "filterList", "a slot to store the ArrayList of osr");
-        int currentIdxSlot =
-            builder.addSlot(
-                FrameSlotKind.Int, "currentIdxSlot", "a slot to store the current index of osr");
         int listSizeSlot =
             builder.addSlot(
                 FrameSlotKind.Int, "listSize", "a slot to store the size of the list of osr");
@@ -116,8 +119,6 @@ public class TruffleReadXmlEntry extends ReadXmlEntry implements TruffleEntryExt
               parseNode,
               (SnapiType) listType.innerType(),
               generatorSlot,
-              listSlot,
-              currentIdxSlot,
               listSizeSlot,
               resultSlot);
         } else {
@@ -125,8 +126,6 @@ public class TruffleReadXmlEntry extends ReadXmlEntry implements TruffleEntryExt
               parseNode,
               (SnapiType) listType.innerType(),
               generatorSlot,
-              listSlot,
-              currentIdxSlot,
               listSizeSlot,
               resultSlot);
         }
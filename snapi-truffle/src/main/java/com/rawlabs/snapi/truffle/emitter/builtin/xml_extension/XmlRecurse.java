@@ -22,6 +22,8 @@ import com.rawlabs.snapi.truffle.ast.io.xml.parser.*;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleInternalErrorException;
 import scala.collection.JavaConverters;
 
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 
 public class XmlRecurse {
@@ -47,11 +49,21 @@ public class XmlRecurse {
 
 
   public static ProgramExpressionNode recurseXmlParser(SnapiTypeWithProperties tipe, SnapiLanguage lang) {
+    return recurseXmlParser(tipe, lang, null);
+  }
+
+  // When fields isn't null, only these fields of the record are parsed. The elements and attributes of the
+  // other fields are skipped, and the fields are left out of the record.
+  public static ProgramExpressionNode recurseXmlParser(SnapiTypeWithProperties tipe, SnapiLanguage lang, Set<String> fields) {
     FrameDescriptor frameDescriptor = new FrameDescriptor();
-    return new ProgramExpressionNode(lang, frameDescriptor, recurse(lang, frameDescriptor, tipe, "*"));
+    return new ProgramExpressionNode(lang, frameDescriptor, recurse(lang, frameDescriptor, tipe, "*", fields));
   }
 
   private static ExpressionNode recurse(SnapiLanguage lang, FrameDescriptor frameDescriptor, SnapiTypeWithProperties tipe, String fieldName) {
+    return recurse(lang, frameDescriptor, tipe, fieldName, null);
+  }
+
+  private static ExpressionNode recurse(SnapiLanguage lang, FrameDescriptor frameDescriptor, SnapiTypeWithProperties tipe, String fieldName, Set<String> fields) {
     boolean isAttribute = fieldName.startsWith("@");
     boolean isText = fieldName.equals("#text");
     ExpressionNode parserNode;
@@ -59,7 +71,7 @@ public class XmlRecurse {
       // tryable goes first. That way it can catch errors hit when parsing compound XML elements, but also
       // XML attributes or XML "text" content.
       SnapiTypeWithProperties innerType = (SnapiTypeWithProperties) tipe.cloneAndRemoveProp(new SnapiIsTryableTypeProperty());
-      ExpressionNode source = recurse(lang, frameDescriptor, innerType, fieldName);
+      ExpressionNode source = recurse(lang, frameDescriptor, innerType, fieldName, fields);
       ProgramExpressionNode childRootNode = new ProgramExpressionNode(lang, frameDescriptor, source);
       // errors are recovered differently for attributes
       parserNode = isAttribute ? new TryableParseAttributeXmlNode(childRootNode) : new TryableParseXmlNode(childRootNode);
@@ -78,11 +90,17 @@ public class XmlRecurse {
       } else {
         // other nullables (e.g. records, lists) cannot be null if something is found. When empty (e.g. <person/>)
         // we get a start tag and end tag, and it's their fields that are not found and made null.
-        ExpressionNode source = recurse(lang, frameDescriptor, innerType, fieldName);
+        ExpressionNode source = recurse(lang, frameDescriptor, innerType, fieldName, fields);
         parserNode = OptionSomeNodeGen.create(source);
       }
     } else {
       parserNode = switch (tipe) {
+        case SnapiOrType orType when isPrimitiveOr(orType) -> {
+          // the text is read once and given to the parser of each type in turn.
+          Stream<ProgramExpressionNode> children = JavaConverters.seqAsJavaList(orType.tipes()).stream().map(innerType ->
+              new ProgramExpressionNode(lang, frameDescriptor, primitiveParserNode((SnapiTypeWithProperties) innerType)));
+          yield new OrTypeParseXmlText(children.toArray(ProgramExpressionNode[]::new), isAttribute, isText);
+        }
         case SnapiOrType orType -> {
           Stream<ProgramExpressionNode> children = JavaConverters.seqAsJavaList(orType.tipes()).stream().map(innerType -> {
             ExpressionNode child = recurse(lang, frameDescriptor, (SnapiTypeWithProperties) innerType, fieldName);
@@ -97,12 +115,15 @@ public class XmlRecurse {
           // iterables are parsed with their item parser, and then wrapped in a list
             recurse(lang, frameDescriptor, (SnapiTypeWithProperties) iterableType.innerType(), fieldName);
         case SnapiRecordType recordType -> {
-          Stream<ProgramExpressionNode> children = JavaConverters.seqAsJavaList(recordType.atts()).stream().map(att -> {
+          List<SnapiAttrType> atts = JavaConverters.seqAsJavaList(recordType.atts()).stream()
+              .filter(a -> fields == null || fields.contains(a.idn()))
+              .toList();
+          Stream<ProgramExpressionNode> children = atts.stream().map(att -> {
             ExpressionNode child = recurse(lang, frameDescriptor, (SnapiTypeWithProperties) att.tipe(), att.idn());
             return new ProgramExpressionNode(lang, frameDescriptor, child);
           });
-          String[] idns = JavaConverters.seqAsJavaList(recordType.atts()).stream().map(SnapiAttrType::idn).toArray(String[]::new);
-          SnapiTypeWithProperties[] tipes = JavaConverters.seqAsJavaList(recordType.atts()).stream().map(a -> (SnapiTypeWithProperties) a.tipe()).toArray(SnapiTypeWithProperties[]::new);
+          String[] idns = atts.stream().map(SnapiAttrType::idn).toArray(String[]::new);
+          SnapiTypeWithProperties[] tipes = atts.stream().map(a -> (SnapiTypeWithProperties) a.tipe()).toArray(SnapiTypeWithProperties[]::new);
           yield new RecordParseXmlNode(
               children.toArray(ProgramExpressionNode[]::new),
               idns,
@@ -129,4 +150,10 @@ public class XmlRecurse {
     return tipe.props().contains(new SnapiIsNullableTypeProperty());
   }
 
+  // Or types of plain primitives, which are all parsed from the same text.
+  private static boolean isPrimitiveOr(SnapiOrType orType) {
+    return JavaConverters.seqAsJavaList(orType.tipes()).stream().allMatch(t ->
+        t instanceof SnapiPrimitiveType p && p.props().isEmpty());
+  }
+
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.data_structures.hashmap;
+
+import com.oracle.truffle.api.dsl.*;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.rawlabs.snapi.truffle.runtime.operators.OperatorNodes;
+import java.util.ArrayList;
+
+public class HashMapNodes {
+
+  @NodeInfo(shortName = "HashMap.GetOrCreate")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class HashMapGetOrCreate extends Node {
+
+    public abstract Object execute(Node node, HashMapObject mapObject, Object key);
+
+    @Specialization
+    static Object exec(
+        Node node,
+        HashMapObject hashMapObject,
+        Object key,
+        @Bind("$node") Node thisNode,
+        @Cached OperatorNodes.HashNode hashNode,
+        @Cached OperatorNodes.CompareNode compareNode) {
+      int hash = hashNode.execute(thisNode, key);
+      int mask = hashMapObject.getMask();
+      int slot = HashMapObject.spread(hash) & mask;
+      while (!hashMapObject.isFree(slot)) {
+        if (hashMapObject.getHash(slot) == hash
+            && compareNode.execute(thisNode, key, hashMapObject.getKey(slot)) == 0) {
+          return hashMapObject.getValue(slot);
+        }
+        slot = (slot + 1) & mask;
+      }
+      ArrayList<Object> result = new ArrayList<>();
+      hashMapObject.addEntry(slot, hash, key, result);
+      return result;
+    }
+  }
+
+  @NodeInfo(shortName = "HashMap.Get")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class HashMapGet extends Node {
+
+    // returns null if the key isn't in the map.
+    public abstract Object execute(Node node, HashMapObject mapObject, Object key);
+
+    @Specialization
+    static Object exec(
+        Node node,
+        HashMapObject hashMapObject,
+        Object key,
+        @Bind("$node") Node thisNode,
+        @Cached OperatorNodes.HashNode hashNode,
+        @Cached OperatorNodes.CompareNode compareNode) {
+      int hash = hashNode.execute(thisNode, key);
+      int mask = hashMapObject.getMask();
+      int slot = HashMapObject.spread(hash) & mask;
+      while (!hashMapObject.isFree(slot)) {
+        if (hashMapObject.getHash(slot) == hash
+            && compareNode.execute(thisNode, key, hashMapObject.getKey(slot)) == 0) {
+          return hashMapObject.getValue(slot);
+        }
+        slot = (slot + 1) & mask;
+      }
+      return null;
+    }
+  }
+
+  @NodeInfo(shortName = "HashMap.Put")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class HashMapPut extends Node {
+
+    // the key must not be in the map already.
+    public abstract void execute(Node node, HashMapObject mapObject, Object key, Object value);
+
+    @Specialization
+    static void exec(
+        Node node,
+        HashMapObject hashMapObject,
+        Object key,
+        Object value,
+        @Bind("$node") Node thisNode,
+        @Cached OperatorNodes.HashNode hashNode) {
+      int hash = hashNode.execute(thisNode, key);
+      int mask = hashMapObject.getMask();
+      int slot = HashMapObject.spread(hash) & mask;
+      while (!hashMapObject.isFree(slot)) {
+        slot = (slot + 1) & mask;
+      }
+      hashMapObject.addEntry(slot, hash, key, value);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.data_structures.hashmap;
+
+import com.oracle.truffle.api.interop.TruffleObject;
+
+// Open-addressing hash map (linear probing). Keys are hashed with OperatorNodes.HashNode and
+// compared with OperatorNodes.CompareNode by the nodes in HashMapNodes. The hash of every entry
+// is kept so that growing the table doesn't need to hash keys again.
+public class HashMapObject implements TruffleObject {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int[] hashes;
+  private Object[] keys;
+  private Object[] values; // a null value marks an empty slot.
+  private int size = 0;
+
+  public HashMapObject() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  private void allocate(int capacity) {
+    hashes = new int[capacity];
+    keys = new Object[capacity];
+    values = new Object[capacity];
+  }
+
+  // spreads the bits of a hash so that keys with close hashes don't end up in neighbour slots.
+  public static int spread(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public int getMask() {
+    return values.length - 1;
+  }
+
+  public boolean isFree(int slot) {
+    return values[slot] == null;
+  }
+
+  public int getHash(int slot) {
+    return hashes[slot];
+  }
+
+  public Object getKey(int slot) {
+    return keys[slot];
+  }
+
+  public Object getValue(int slot) {
+    return values[slot];
+  }
+
+  public void addEntry(int slot, int hash, Object key, Object value) {
+    hashes[slot] = hash;
+    keys[slot] = key;
+    values[slot] = value;
+    size++;
+    if (size * 4 > values.length * 3) {
+      grow();
+    }
+  }
+
+  // doubles the capacity, keeping the load factor under 3/4.
+  private void grow() {
+    int[] oldHashes = hashes;
+    Object[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(oldValues.length * 2);
+    int mask = getMask();
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int slot = spread(oldHashes[i]) & mask;
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        hashes[slot] = oldHashes[i];
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  public void clear() {
+    allocate(INITIAL_CAPACITY);
+    size = 0;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.data_structures.topk;
+
+import java.util.Arrays;
+
+// The first rows of a collection ordered by keys, at most a fixed number of them. They are kept in
+// a binary heap whose root is the last of them, so that it is the one replaced by a row that comes
+// before it. Rows with equal keys are ordered by their position in the collection, like the rows
+// of Collection.OrderBy are.
+public class TopKHeap {
+  private final int[] keyOrderings;
+  private final int capacity; // maximum number of rows kept.
+  private Object[][] keys;
+  private Object[] rows;
+  private long[] positions; // position of each row in the collection, to order ties.
+  private int size = 0;
+  private long count = 0; // number of rows added so far.
+
+  public TopKHeap(int[] keyOrderings, int capacity) {
+    this.keyOrderings = keyOrderings;
+    this.capacity = capacity;
+    int initial = Math.min(capacity, 16);
+    this.keys = new Object[initial][];
+    this.rows = new Object[initial];
+    this.positions = new long[initial];
+  }
+
+  public int[] getKeyOrderings() {
+    return keyOrderings;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public Object[] getKey(int i) {
+    return keys[i];
+  }
+
+  public Object getRow(int i) {
+    return rows[i];
+  }
+
+  public long getPosition(int i) {
+    return positions[i];
+  }
+
+  // The position of the next row added.
+  public long nextPosition() {
+    return count++;
+  }
+
+  public void set(int i, Object[] key, Object row, long position) {
+    keys[i] = key;
+    rows[i] = row;
+    positions[i] = position;
+  }
+
+  // Adds a row at the end of the heap, which isn't full.
+  public void append(Object[] key, Object row, long position) {
+    if (size == rows.length) {
+      int length = (int) Math.min(capacity, rows.length * 2L);
+      keys = Arrays.copyOf(keys, length);
+      rows = Arrays.copyOf(rows, length);
+      positions = Arrays.copyOf(positions, length);
+    }
+    set(size++, key, row, position);
+  }
+
+  public void swap(int i, int j) {
+    Object[] key = keys[i];
+    Object row = rows[i];
+    long position = positions[i];
+    set(i, keys[j], rows[j], positions[j]);
+    set(j, key, row, position);
+  }
+
+  // The rows of the heap, once they have been sorted in place.
+  public Object[] getRows() {
+    return Arrays.copyOf(rows, size);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.data_structures.topk;
+
+import com.oracle.truffle.api.dsl.*;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.rawlabs.snapi.truffle.runtime.operators.OperatorNodes;
+
+public class TopKNodes {
+
+  // Compares the rows at i and j of the heap, by keys then by position.
+  private static int compare(
+      Node node, OperatorNodes.CompareKeys compareNode, TopKHeap heap, int i, int j) {
+    int cmp = compareNode.execute(node, heap.getKey(i), heap.getKey(j), heap.getKeyOrderings());
+    return cmp != 0 ? cmp : Long.compare(heap.getPosition(i), heap.getPosition(j));
+  }
+
+  // Moves the row at i down the first `size` rows of the heap, until it's after its children.
+  private static void siftDown(
+      Node node, OperatorNodes.CompareKeys compareNode, TopKHeap heap, int i, int size) {
+    while (2 * i + 1 < size) {
+      int child = 2 * i + 1;
+      if (child + 1 < size && compare(node, compareNode, heap, child + 1, child) > 0) child++;
+      if (compare(node, compareNode, heap, i, child) >= 0) return;
+      heap.swap(i, child);
+      i = child;
+    }
+  }
+
+  @NodeInfo(shortName = "TopK.Add")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class TopKAddNode extends Node {
+
+    public abstract void execute(Node node, TopKHeap heap, Object[] key, Object row);
+
+    @Specialization
+    static void exec(
+        Node node,
+        TopKHeap heap,
+        Object[] key,
+        Object row,
+        @Bind("$node") Node thisNode,
+        @Cached OperatorNodes.CompareKeys compareNode) {
+      long position = heap.nextPosition();
+      if (heap.getSize() < heap.getCapacity()) {
+        // the heap isn't full, the row is moved up from the end.
+        heap.append(key, row, position);
+        int i = heap.getSize() - 1;
+        while (i > 0) {
+          int parent = (i - 1) / 2;
+          if (compare(thisNode, compareNode, heap, i, parent) <= 0) break;
+          heap.swap(i, parent);
+          i = parent;
+        }
+      } else if (heap.getSize() > 0
+          && compareNode.execute(thisNode, key, heap.getKey(0), heap.getKeyOrderings()) < 0) {
+        // the row comes before the last one kept, which it replaces. A row with the same keys as
+        // the last one comes after it in the collection, it isn't kept.
+        heap.set(0, key, row, position);
+        siftDown(thisNode, compareNode, heap, 0, heap.getSize());
+      }
+    }
+  }
+
+  @NodeInfo(shortName = "TopK.Rows")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class TopKRowsNode extends Node {
+
+    public abstract Object[] execute(Node node, TopKHeap heap);
+
+    // The rows kept, in order. The heap is sorted in place.
+    @Specialization
+    static Object[] exec(
+        Node node,
+        TopKHeap heap,
+        @Bind("$node") Node thisNode,
+        @Cached OperatorNodes.CompareKeys compareNode) {
+      for (int end = heap.getSize() - 1; end > 0; end--) {
+        heap.swap(0, end);
+        siftDown(thisNode, compareNode, heap, 0, end);
+      }
+      return heap.getRows();
+    }
+  }
+}
@@ -12,34 +12,53 @@
 
 package com.rawlabs.snapi.truffle.runtime.generator.collection;
 
-import com.esotericsoftware.kryo.KryoException;
+import static com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers.deleteHashPartitions;
+import static com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers.openSpilledFile;
+import static com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers.releaseMemory;
+
 import com.esotericsoftware.kryo.io.Input;
-import com.esotericsoftware.kryo.unsafe.UnsafeInput;
-import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.dsl.*;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeInfo;
+import com.rawlabs.snapi.truffle.runtime.data_structures.hashmap.HashMapObject;
 import com.rawlabs.snapi.truffle.runtime.data_structures.treemap.TreeMapNode;
 import com.rawlabs.snapi.truffle.runtime.exceptions.BreakException;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.AbstractGenerator;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.compute_next.ComputeNextNodes;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.input_buffer.DistinctInputBuffer;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.input_buffer.GroupByInputBuffer;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.input_buffer.InputBufferNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.input_buffer.OrderByInputBuffer;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.merge.MergeHeap;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.merge.MergeHeapNodes;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.OffHeapNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.distinct.DistinctMemoryGenerator;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.distinct.DistinctSpilledFilesGenerator;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.distinct.OffHeapDistinct;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.GroupByMemoryGenerator;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.GroupBySpilledFilesGenerator;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.HashAggregationGenerator;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.HashGroupByGenerator;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapGroupByKey;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapHashAggregation;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapHashGroupBy;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.hash_partitions.HashPartitions;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.order_by.OffHeapGroupByKeys;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.order_by.OrderByMemoryGenerator;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.order_by.OrderBySpilledFilesGenerator;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.record_shaper.RecordShaperNodes;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.replay.RecordingGenerator;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.replay.ReplayBuffer;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.replay.ReplayGenerator;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.replay.ReplayNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.list.ListGenerator;
 import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodes;
 import com.rawlabs.snapi.truffle.runtime.list.ListNodes;
 import com.rawlabs.snapi.truffle.runtime.operators.OperatorNodes;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import com.rawlabs.snapi.truffle.runtime.profiler.ProfiledGenerator;
+import com.rawlabs.snapi.truffle.runtime.profiler.QueryProfile;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -94,9 +113,46 @@ public class GeneratorNodes {
           values.toArray());
     }
 
-    @CompilerDirectives.TruffleBoundary
-    static void closeInput(Input input) {
-      input.close();
+    @Specialization
+    static Object next(
+        Node node,
+        HashGroupByGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive OffHeapNodes.OffHeapHashGroupBySeekNode seekNode,
+        @Cached @Cached.Exclusive RecordShaperNodes.MakeRowNode reshape) {
+      if (!seekNode.execute(thisNode, generator)) {
+        throw new BreakException();
+      }
+      HashMapObject map = generator.getMap();
+      int slot = generator.getSlot();
+      generator.setSlot(slot + 1);
+      @SuppressWarnings("unchecked")
+      ArrayList<Object> values = (ArrayList<Object>) map.getValue(slot);
+      return reshape.execute(
+          thisNode,
+          generator.getOffHeapHashGroupBy().getReshape(),
+          map.getKey(slot),
+          values.toArray());
+    }
+
+    @Specialization
+    static Object next(
+        Node node,
+        HashAggregationGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive OffHeapNodes.OffHeapHashAggregationSeekNode seekNode,
+        @Cached RecordShaperNodes.MakeAggregatedRowNode makeRowNode) {
+      if (!seekNode.execute(thisNode, generator)) {
+        throw new BreakException();
+      }
+      HashMapObject map = generator.getMap();
+      int slot = generator.getSlot();
+      generator.setSlot(slot + 1);
+      return makeRowNode.execute(
+          thisNode,
+          map.getKey(slot),
+          generator.getOffHeapHashAggregation().getAggregations().getFields(),
+          (Object[]) map.getValue(slot));
     }
 
     @Specialization
@@ -104,51 +160,44 @@ public class GeneratorNodes {
         Node node,
         GroupBySpilledFilesGenerator generator,
         @Bind("$node") Node thisNode,
-        @Cached @Cached.Exclusive InputBufferNodes.InputBufferHeadKeyNode headKeyNode,
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapPollNode pollNode,
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapOfferNode offerNode,
         @Cached @Cached.Shared("keyCompare") OperatorNodes.CompareNode keyCompare,
         @Cached @Cached.Exclusive InputBufferNodes.InputBufferReadNode readNode,
         @Cached @Cached.Exclusive RecordShaperNodes.MakeRowNode reshape) {
-      Object key = null;
-      // read missing keys and compute the smallest
-      for (int idx = 0; idx < generator.getInputBuffers().size(); idx++) {
-        GroupByInputBuffer inputBuffer = generator.getInputBuffers().get(idx);
-        try {
-          Object bufferKey = headKeyNode.execute(thisNode, inputBuffer);
-          if (key == null || keyCompare.execute(thisNode, bufferKey, key) < 0) {
-            key = bufferKey;
-          }
-        } catch (KryoException e) {
-          // we reached the end of that buffer
-          final GroupByInputBuffer removed = generator.getInputBuffers().remove(idx);
-          closeInput(removed.getInput());
-          idx--;
-        }
-      }
-
-      // First walk through the buffers to find the ones that expose the same smallest key.
+      MergeHeap mergeHeap = generator.getMergeHeap();
+      GroupByInputBuffer[] matchingBuffers = generator.getMatchingBuffers();
+      // The heap root exposes the smallest key. Pop all buffers that expose that same key. They
+      // come out in run order, which keeps the rows of the group in the order they were spilled.
       // Take note of the number of items stored in each in order to allocate the right amount
-      // of
-      // memory.
-      int numberOfRows = 0;
-      for (GroupByInputBuffer inputBuffer : generator.getInputBuffers()) {
-        Object bufferKey = headKeyNode.execute(thisNode, inputBuffer);
-        if (keyCompare.execute(thisNode, key, bufferKey) == 0) {
-          numberOfRows += inputBuffer.getItemsLeft();
-        }
+      // of memory.
+      GroupByInputBuffer first = (GroupByInputBuffer) pollNode.execute(thisNode, mergeHeap);
+      Object key = first.getKey();
+      matchingBuffers[0] = first;
+      int nMatchingBuffers = 1;
+      int numberOfRows = first.getItemsLeft();
+      while (!mergeHeap.isEmpty()
+          && keyCompare.execute(thisNode, key, ((GroupByInputBuffer) mergeHeap.peek()).getKey())
+              == 0) {
+        GroupByInputBuffer inputBuffer =
+            (GroupByInputBuffer) pollNode.execute(thisNode, mergeHeap);
+        matchingBuffers[nMatchingBuffers++] = inputBuffer;
+        numberOfRows += inputBuffer.getItemsLeft();
       }
       // Allocate the exact amount of memory needed to store the values.
       Object[] values = new Object[numberOfRows];
 
-      // Walk through the buffers that had the matching key and read values into the single
-      // array.
+      // Read values of the matching buffers into the single array, then put the buffers back
+      // in the heap (this reads their next key, or closes them if they are exhausted).
       int n = 0;
-      for (GroupByInputBuffer inputBuffer : generator.getInputBuffers()) {
-        if (keyCompare.execute(thisNode, key, headKeyNode.execute(thisNode, inputBuffer)) == 0) {
-          int inThatBuffer = inputBuffer.getItemsLeft();
-          for (int i = 0; i < inThatBuffer; i++) {
-            values[n++] = readNode.execute(thisNode, inputBuffer);
-          }
+      for (int idx = 0; idx < nMatchingBuffers; idx++) {
+        GroupByInputBuffer inputBuffer = matchingBuffers[idx];
+        matchingBuffers[idx] = null;
+        int inThatBuffer = inputBuffer.getItemsLeft();
+        for (int i = 0; i < inThatBuffer; i++) {
+          values[n++] = readNode.execute(thisNode, inputBuffer);
         }
+        offerNode.execute(thisNode, mergeHeap, inputBuffer);
       }
       return reshape.execute(thisNode, generator.getOffHeapGroupByKey().getReshape(), key, values);
     }
@@ -176,51 +225,21 @@ public class GeneratorNodes {
         Node node,
         OrderBySpilledFilesGenerator generator,
         @Bind("$node") Node thisNode,
-        @Cached @Cached.Exclusive InputBufferNodes.InputBufferHeadKeyNode headKeyNode,
-        @Cached @Cached.Exclusive InputBufferNodes.InputBufferReadNode readNode,
-        @Cached OperatorNodes.CompareKeys keysCompare) {
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapPollNode pollNode,
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapOfferNode offerNode,
+        @Cached @Cached.Exclusive InputBufferNodes.InputBufferReadNode readNode) {
       if (generator.getCurrentKryoBuffer() == null) {
-        // we need to read the next keys and prepare the new buffer to read from.
-        Object[] keys = null;
-        // read missing keys and compute the smallest
-        for (int idx = 0; idx < generator.getInputBuffers().size(); idx++) {
-          OrderByInputBuffer inputBuffer = generator.getInputBuffers().get(idx);
-          try {
-            Object[] bufferKeys = (Object[]) headKeyNode.execute(thisNode, inputBuffer);
-            if (keys == null
-                || keysCompare.execute(
-                        thisNode,
-                        bufferKeys,
-                        keys,
-                        generator.getOffHeapGroupByKeys().getKeyOrderings())
-                    < 0) {
-              keys = bufferKeys;
-            }
-          } catch (KryoException e) {
-            // we reached the end of that buffer
-            OrderByInputBuffer removed = generator.getInputBuffers().remove(idx);
-            closeInput(removed.getInput());
-            idx--;
-          }
-        }
-        // First walk through the buffers to find the ones that expose the same smallest
-        // key.
-        // Take note of the number of items stored in each in order to allocate the right
-        // amount of
-        // memory.
-        for (OrderByInputBuffer inputBuffer : generator.getInputBuffers()) {
-          Object[] bufferKeys = inputBuffer.getKeys();
-          if (keysCompare.execute(
-                  thisNode, keys, bufferKeys, generator.getOffHeapGroupByKeys().getKeyOrderings())
-              == 0) {
-            generator.setCurrentKryoBuffer(inputBuffer);
-            break;
-          }
-        }
+        // the heap root is the buffer exposing the smallest keys, read its rows next.
+        generator.setCurrentKryoBuffer(
+            (OrderByInputBuffer) pollNode.execute(thisNode, generator.getMergeHeap()));
       }
-      Object row = readNode.execute(thisNode, generator.getCurrentKryoBuffer());
-      if (generator.getCurrentKryoBuffer().getItemsLeft() == 0) {
+      OrderByInputBuffer inputBuffer = generator.getCurrentKryoBuffer();
+      Object row = readNode.execute(thisNode, inputBuffer);
+      if (inputBuffer.getItemsLeft() == 0) {
+        // put the buffer back in the heap (this reads its next keys, or closes it if it is
+        // exhausted).
         generator.setCurrentKryoBuffer(null);
+        offerNode.execute(thisNode, generator.getMergeHeap(), inputBuffer);
       }
       return row;
     }
@@ -235,41 +254,23 @@ public class GeneratorNodes {
         Node node,
         DistinctSpilledFilesGenerator generator,
         @Bind("$node") Node thisNode,
-        @Cached KryoNodes.KryoReadNode reader,
-        @Cached @Cached.Shared("keyCompare") OperatorNodes.CompareNode keyCompare) {
-      Object key = null;
-      // read missing keys and compute the smallest
-      for (int idx = 0; idx < generator.getKryoBuffers().size(); idx++) {
-        Object bufferKey = generator.getHeadKeys().get(idx);
-        if (bufferKey == null) {
-          // The buffer next key hasn't been read yet.
-          Input buffer = generator.getKryoBuffers().get(idx);
-          try {
-            bufferKey =
-                reader.execute(thisNode, buffer, generator.getOffHeapDistinct().getItemType());
-          } catch (KryoException e) {
-            // we reached the end of that buffer
-            // remove both the buffer and its key from the lists
-            final Input removed = generator.getKryoBuffers().remove(idx);
-            closeInput(removed);
-            generator.getHeadKeys().remove(idx);
-            idx--;
-            continue;
-          }
-          generator.getHeadKeys().set(idx, bufferKey);
-        }
-        if (key == null || keyCompare.execute(thisNode, bufferKey, key) < 0) {
-          key = bufferKey;
-        }
-      }
-
-      // Walk through the buffers to consume the ones that expose the same smallest key.
-      for (int idx = 0; idx < generator.getKryoBuffers().size(); idx++) {
-        Object bufferKey = generator.getHeadKeys().get(idx);
-        if (keyCompare.execute(thisNode, key, bufferKey) == 0) {
-          // reset the key since we read its data
-          generator.getHeadKeys().set(idx, null);
-        }
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapPollNode pollNode,
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapOfferNode offerNode,
+        @Cached @Cached.Shared("keyCompare") OperatorNodes.CompareNode keyCompare,
+        @Cached @Cached.Exclusive InputBufferNodes.InputBufferReadNode readNode) {
+      MergeHeap mergeHeap = generator.getMergeHeap();
+      // The heap root exposes the smallest key.
+      DistinctInputBuffer first = (DistinctInputBuffer) pollNode.execute(thisNode, mergeHeap);
+      Object key = readNode.execute(thisNode, first);
+      offerNode.execute(thisNode, mergeHeap, first);
+      // Consume the other buffers that expose the same key.
+      while (!mergeHeap.isEmpty()
+          && keyCompare.execute(thisNode, key, ((DistinctInputBuffer) mergeHeap.peek()).getKey())
+              == 0) {
+        DistinctInputBuffer inputBuffer =
+            (DistinctInputBuffer) pollNode.execute(thisNode, mergeHeap);
+        readNode.execute(thisNode, inputBuffer);
+        offerNode.execute(thisNode, mergeHeap, inputBuffer);
       }
       return key;
     }
@@ -284,6 +285,64 @@ public class GeneratorNodes {
       generator.incrementPosition();
       return item;
     }
+
+    @Specialization
+    static Object next(
+        Node node,
+        RecordingGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached(inline = false) @Cached.Exclusive GeneratorNextNode nextNode,
+        @Cached ReplayNodes.ReplayRecordNode recordNode) {
+      Object row = nextNode.execute(thisNode, generator.getGenerator());
+      ReplayBuffer buffer = generator.getBuffer();
+      if (buffer != null) {
+        if (generator.getCollection().getReplay() != null) {
+          // another generator recorded the rows already.
+          buffer.discard(thisNode);
+          generator.setBuffer(null);
+        } else {
+          recordNode.execute(thisNode, buffer, row);
+        }
+      }
+      return row;
+    }
+
+    @Specialization
+    static Object next(
+        Node node,
+        ReplayGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive KryoNodes.KryoReadNode readNode) {
+      ReplayBuffer buffer = generator.getBuffer();
+      if (generator.getPosition() >= buffer.getCount()) {
+        throw new BreakException();
+      }
+      Object row;
+      if (generator.getInput() == null) {
+        row = buffer.getMemoryRows()[generator.getPosition()];
+      } else {
+        row = readNode.execute(thisNode, generator.getInput(), buffer.getRowType());
+      }
+      generator.incrementPosition();
+      return row;
+    }
+
+    @Specialization
+    static Object next(
+        Node node,
+        ProfiledGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached(inline = false) @Cached.Exclusive GeneratorNextNode nextNode) {
+      QueryProfile.enter(generator.getProfile());
+      long rows = 0;
+      try {
+        Object row = nextNode.execute(thisNode, generator.getGenerator());
+        rows = 1;
+        return row;
+      } finally {
+        QueryProfile.exit(rows);
+      }
+    }
   }
 
   @NodeInfo(shortName = "AbstractGenerator.HasNext")
@@ -319,35 +378,28 @@ public class GeneratorNodes {
       return generator.getTreeNodesIterator().hasNext();
     }
 
-    @CompilerDirectives.TruffleBoundary
-    static void closeInput(Input input) {
-      input.close();
+    @Specialization
+    static boolean hasNext(
+        Node node,
+        HashGroupByGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached OffHeapNodes.OffHeapHashGroupBySeekNode seekNode) {
+      return seekNode.execute(thisNode, generator);
     }
 
     @Specialization
     static boolean hasNext(
         Node node,
-        GroupBySpilledFilesGenerator generator,
+        HashAggregationGenerator generator,
         @Bind("$node") Node thisNode,
-        @Cached @Cached.Exclusive InputBufferNodes.InputBufferHeadKeyNode headKeyNode,
-        @Cached @Cached.Shared("keyCompare") OperatorNodes.CompareNode keyCompare) {
-      Object key = null;
-      // read missing keys and compute the smallest
-      for (int idx = 0; idx < generator.getInputBuffers().size(); idx++) {
-        GroupByInputBuffer inputBuffer = generator.getInputBuffers().get(idx);
-        try {
-          Object bufferKey = headKeyNode.execute(thisNode, inputBuffer);
-          if (key == null || keyCompare.execute(thisNode, bufferKey, key) < 0) {
-            key = bufferKey;
-          }
-        } catch (KryoException e) {
-          // we reached the end of that buffer
-          final GroupByInputBuffer removed = generator.getInputBuffers().remove(idx);
-          closeInput(removed.getInput());
-          idx--;
-        }
-      }
-      return key != null;
+        @Cached OffHeapNodes.OffHeapHashAggregationSeekNode seekNode) {
+      return seekNode.execute(thisNode, generator);
+    }
+
+    @Specialization
+    static boolean hasNext(Node node, GroupBySpilledFilesGenerator generator) {
+      // exhausted buffers are dropped from the heap.
+      return !generator.getMergeHeap().isEmpty();
     }
 
     @Specialization
@@ -356,36 +408,8 @@ public class GeneratorNodes {
     }
 
     @Specialization
-    static boolean hasNext(
-        Node node,
-        OrderBySpilledFilesGenerator generator,
-        @Bind("$node") Node thisNode,
-        @Cached @Cached.Exclusive InputBufferNodes.InputBufferHeadKeyNode headKeyNode,
-        @Cached OperatorNodes.CompareKeys keysCompare) {
-      // we need to read the next keys and prepare the new buffer to read from.
-      Object[] keys = null;
-      // read missing keys and compute the smallest
-      for (int idx = 0; idx < generator.getInputBuffers().size(); idx++) {
-        OrderByInputBuffer inputBuffer = generator.getInputBuffers().get(idx);
-        try {
-          Object[] bufferKeys = (Object[]) headKeyNode.execute(thisNode, inputBuffer);
-          if (keys == null
-              || keysCompare.execute(
-                      thisNode,
-                      bufferKeys,
-                      keys,
-                      generator.getOffHeapGroupByKeys().getKeyOrderings())
-                  < 0) {
-            keys = bufferKeys;
-          }
-        } catch (KryoException e) {
-          // we reached the end of that buffer
-          OrderByInputBuffer removed = generator.getInputBuffers().remove(idx);
-          closeInput(removed.getInput());
-          idx--;
-        }
-      }
-      return keys != null;
+    static boolean hasNext(Node node, OrderBySpilledFilesGenerator generator) {
+      return generator.getCurrentKryoBuffer() != null || !generator.getMergeHeap().isEmpty();
     }
 
     @Specialization
@@ -393,48 +417,60 @@ public class GeneratorNodes {
       return generator.getItems().hasNext();
     }
 
+    @Specialization
+    static boolean hasNext(Node node, DistinctSpilledFilesGenerator generator) {
+      return !generator.getMergeHeap().isEmpty();
+    }
+
     @Specialization
     static boolean hasNext(
         Node node,
-        DistinctSpilledFilesGenerator generator,
+        ListGenerator generator,
         @Bind("$node") Node thisNode,
-        @Cached KryoNodes.KryoReadNode reader,
-        @Cached @Cached.Shared("keyCompare") OperatorNodes.CompareNode keyCompare) {
-      Object key = null;
-      // read missing keys and compute the smallest
-      for (int idx = 0; idx < generator.getKryoBuffers().size(); idx++) {
-        Object bufferKey = generator.getHeadKeys().get(idx);
-        if (bufferKey == null) {
-          // The buffer next key hasn't been read yet.
-          Input buffer = generator.getKryoBuffers().get(idx);
-          try {
-            bufferKey =
-                reader.execute(thisNode, buffer, generator.getOffHeapDistinct().getItemType());
-          } catch (KryoException e) {
-            // we reached the end of that buffer
-            // remove both the buffer and its key from the lists
-            final Input removed = generator.getKryoBuffers().remove(idx);
-            closeInput(removed);
-            generator.getHeadKeys().remove(idx);
-            idx--;
-            continue;
-          }
-          generator.getHeadKeys().set(idx, bufferKey);
-        }
-        if (key == null || keyCompare.execute(thisNode, bufferKey, key) < 0) {
-          key = bufferKey;
+        @Cached ListNodes.SizeNode sizeNode) {
+      return generator.getPosition() < sizeNode.execute(thisNode, generator.getList());
+    }
+
+    @Specialization
+    static boolean hasNext(
+        Node node,
+        RecordingGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached(inline = false) @Cached.Exclusive GeneratorHasNextNode hasNextNode) {
+      if (hasNextNode.execute(thisNode, generator.getGenerator())) {
+        return true;
+      }
+      ReplayBuffer buffer = generator.getBuffer();
+      if (buffer != null) {
+        // all rows were recorded, unless another generator recorded them first.
+        if (generator.getCollection().getReplay() == null) {
+          buffer.finish();
+          generator.getCollection().setReplay(buffer);
+        } else {
+          buffer.discard(thisNode);
         }
+        generator.setBuffer(null);
       }
-      return key != null;
+      return false;
+    }
+
+    @Specialization
+    static boolean hasNext(Node node, ReplayGenerator generator) {
+      return generator.getPosition() < generator.getBuffer().getCount();
     }
 
     @Specialization
     static boolean hasNext(
         Node node,
-        ListGenerator generator,
+        ProfiledGenerator generator,
         @Bind("$node") Node thisNode,
-        @Cached ListNodes.SizeNode sizeNode) {
-      return generator.getPosition() < sizeNode.execute(thisNode, generator.getList());
+        @Cached(inline = false) @Cached.Exclusive GeneratorHasNextNode hasNextNode) {
+      QueryProfile.enter(generator.getProfile());
+      try {
+        return hasNextNode.execute(thisNode, generator.getGenerator());
+      } finally {
+        QueryProfile.exit(0);
+      }
     }
   }
 
@@ -457,31 +493,34 @@ public class GeneratorNodes {
     @Specialization
     static void init(Node node, GroupByMemoryGenerator generator) {}
 
+    @Specialization
+    static void init(Node node, HashGroupByGenerator generator) {}
+
+    @Specialization
+    static void init(Node node, HashAggregationGenerator generator) {}
+
     @Specialization
     static void init(
-        Node node, GroupBySpilledFilesGenerator generator, @Bind("$node") Node thisNode) {
-      // turn the list of spilled files into a list of Kryo buffers. Buffers will be read and
-      // dropped from
-      // the list as they are exhausted.
-      int nSpilledFiles = generator.getOffHeapGroupByKey().getSpilledBuffers().size();
-      generator.setInputBuffers(new ArrayList<>(nSpilledFiles));
-      generator
-          .getOffHeapGroupByKey()
-          .getSpilledBuffers()
-          .forEach(
-              file -> {
-                try {
-                  Input kryoBuffer =
-                      new UnsafeInput(
-                          new FileInputStream(file),
-                          generator.getOffHeapGroupByKey().getKryoInputBufferSize());
-                  GroupByInputBuffer buffer =
-                      new GroupByInputBuffer(generator.getOffHeapGroupByKey(), kryoBuffer);
-                  generator.addInputBuffer(buffer);
-                } catch (FileNotFoundException e) {
-                  throw new TruffleRuntimeException(e.getMessage(), e, thisNode);
-                }
-              });
+        Node node,
+        GroupBySpilledFilesGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapOfferNode offerNode) {
+      // turn the list of spilled files into a heap of Kryo buffers. Buffers are dropped from the
+      // heap as they are exhausted.
+      OffHeapGroupByKey offHeapGroupByKey = generator.getOffHeapGroupByKey();
+      ArrayList<File> spilledFiles = offHeapGroupByKey.getSpilledBuffers();
+      int nSpilledFiles = spilledFiles.size();
+      generator.setMergeHeap(new MergeHeap(nSpilledFiles));
+      generator.setMatchingBuffers(new GroupByInputBuffer[nSpilledFiles]);
+      for (int idx = 0; idx < nSpilledFiles; idx++) {
+        Input kryoBuffer =
+            openSpilledFile(
+                spilledFiles.get(idx), offHeapGroupByKey.getKryoInputBufferSize(), thisNode);
+        offerNode.execute(
+            thisNode,
+            generator.getMergeHeap(),
+            new GroupByInputBuffer(offHeapGroupByKey, kryoBuffer, idx));
+      }
     }
 
     @Specialization
@@ -489,26 +528,23 @@ public class GeneratorNodes {
 
     @Specialization
     static void init(
-        Node node, OrderBySpilledFilesGenerator generator, @Bind("$node") Node thisNode) {
-      int nSpilledFiles = generator.getOffHeapGroupByKeys().getSpilledBuffers().size();
-      generator.setInputBuffers(new ArrayList<>(nSpilledFiles));
-      generator
-          .getOffHeapGroupByKeys()
-          .getSpilledBuffers()
-          .forEach(
-              file -> {
-                try {
-                  Input kryoBuffer =
-                      new UnsafeInput(
-                          new FileInputStream(file),
-                          generator.getOffHeapGroupByKeys().getKryoInputBufferSize());
-                  OrderByInputBuffer buffer =
-                      new OrderByInputBuffer(generator.getOffHeapGroupByKeys(), kryoBuffer);
-                  generator.addInputBuffer(buffer);
-                } catch (FileNotFoundException e) {
-                  throw new TruffleRuntimeException(e.getMessage(), e, thisNode);
-                }
-              });
+        Node node,
+        OrderBySpilledFilesGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapOfferNode offerNode) {
+      OffHeapGroupByKeys offHeapGroupByKeys = generator.getOffHeapGroupByKeys();
+      ArrayList<File> spilledFiles = offHeapGroupByKeys.getSpilledBuffers();
+      int nSpilledFiles = spilledFiles.size();
+      generator.setMergeHeap(new MergeHeap(nSpilledFiles));
+      for (int idx = 0; idx < nSpilledFiles; idx++) {
+        Input kryoBuffer =
+            openSpilledFile(
+                spilledFiles.get(idx), offHeapGroupByKeys.getKryoInputBufferSize(), thisNode);
+        offerNode.execute(
+            thisNode,
+            generator.getMergeHeap(),
+            new OrderByInputBuffer(offHeapGroupByKeys, kryoBuffer, idx));
+      }
     }
 
     @Specialization
@@ -516,31 +552,59 @@ public class GeneratorNodes {
 
     @Specialization
     static void init(
-        Node node, DistinctSpilledFilesGenerator generator, @Bind("$node") Node thisNode) {
-      int nSpilledFiles = generator.getOffHeapDistinct().getSpilledBuffers().size();
-      generator.setKryoBuffers(new ArrayList<>(nSpilledFiles));
-      generator.setHeadKeys(new ArrayList<>(nSpilledFiles));
-      generator
-          .getOffHeapDistinct()
-          .getSpilledBuffers()
-          .forEach(
-              file -> {
-                try {
-                  generator
-                      .getKryoBuffers()
-                      .add(
-                          new UnsafeInput(
-                              new FileInputStream(file),
-                              generator.getOffHeapDistinct().getKryoInputBufferSize()));
-                  generator.getHeadKeys().add(null);
-                } catch (FileNotFoundException e) {
-                  throw new TruffleRuntimeException(e.getMessage(), e, thisNode);
-                }
-              });
+        Node node,
+        DistinctSpilledFilesGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapOfferNode offerNode) {
+      OffHeapDistinct offHeapDistinct = generator.getOffHeapDistinct();
+      ArrayList<File> spilledFiles = offHeapDistinct.getSpilledBuffers();
+      int nSpilledFiles = spilledFiles.size();
+      generator.setMergeHeap(new MergeHeap(nSpilledFiles));
+      for (int idx = 0; idx < nSpilledFiles; idx++) {
+        Input kryoBuffer =
+            openSpilledFile(
+                spilledFiles.get(idx), offHeapDistinct.getKryoInputBufferSize(), thisNode);
+        offerNode.execute(
+            thisNode,
+            generator.getMergeHeap(),
+            new DistinctInputBuffer(offHeapDistinct, kryoBuffer, idx));
+      }
     }
 
     @Specialization
     static void init(Node node, ListGenerator generator) {}
+
+    @Specialization
+    static void init(
+        Node node,
+        RecordingGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached(inline = false) @Cached.Exclusive GeneratorInitNode initNode) {
+      initNode.execute(thisNode, generator.getGenerator());
+    }
+
+    @Specialization
+    static void init(Node node, ReplayGenerator generator, @Bind("$node") Node thisNode) {
+      ReplayBuffer buffer = generator.getBuffer();
+      if (buffer.getFile() != null) {
+        generator.setInput(
+            openSpilledFile(buffer.getFile(), buffer.getKryoInputBufferSize(), thisNode));
+      }
+    }
+
+    @Specialization
+    static void init(
+        Node node,
+        ProfiledGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached(inline = false) @Cached.Exclusive GeneratorInitNode initNode) {
+      QueryProfile.enter(generator.getProfile());
+      try {
+        initNode.execute(thisNode, generator.getGenerator());
+      } finally {
+        QueryProfile.exit(0);
+      }
+    }
   }
 
   @NodeInfo(shortName = "Generator.Close")
@@ -550,11 +614,6 @@ public class GeneratorNodes {
 
     public abstract void execute(Node node, Object generator);
 
-    @CompilerDirectives.TruffleBoundary
-    static void closeInput(Input input) {
-      input.close();
-    }
-
     @Specialization
     static void close(
         Node node,
@@ -565,30 +624,120 @@ public class GeneratorNodes {
     }
 
     @Specialization
-    static void close(Node node, GroupByMemoryGenerator generator) {}
+    static void close(Node node, GroupByMemoryGenerator generator) {
+      // the groups were held in memory until now.
+      OffHeapGroupByKey offHeapGroupByKey = generator.getOffHeapGroupByKey();
+      releaseMemory(node, offHeapGroupByKey.getSize());
+      offHeapGroupByKey.setSize(0);
+    }
 
     @Specialization
-    static void close(Node node, GroupBySpilledFilesGenerator generator) {
-      generator.getInputBuffers().forEach(buffer -> closeInput(buffer.getInput()));
+    static void close(Node node, HashGroupByGenerator generator) {
+      // deletes the partition files that weren't read.
+      OffHeapHashGroupBy offHeapHashGroupBy = generator.getOffHeapHashGroupBy();
+      HashPartitions partitions = offHeapHashGroupBy.getPartitions();
+      if (partitions != null) {
+        deleteHashPartitions(partitions);
+      }
+      releaseMemory(node, offHeapHashGroupBy.getSize());
+      offHeapHashGroupBy.setSize(0);
     }
 
     @Specialization
-    static void close(Node node, OrderByMemoryGenerator generator) {}
+    static void close(Node node, HashAggregationGenerator generator) {
+      // deletes the partition files that weren't read.
+      OffHeapHashAggregation offHeapHashAggregation = generator.getOffHeapHashAggregation();
+      HashPartitions partitions = offHeapHashAggregation.getPartitions();
+      if (partitions != null) {
+        deleteHashPartitions(partitions);
+      }
+      releaseMemory(node, offHeapHashAggregation.getSize());
+      offHeapHashAggregation.setSize(0);
+    }
 
     @Specialization
-    static void close(Node node, OrderBySpilledFilesGenerator generator) {
-      generator.getInputBuffers().forEach(buffer -> closeInput(buffer.getInput()));
+    static void close(
+        Node node,
+        GroupBySpilledFilesGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Shared("closeHeap") MergeHeapNodes.MergeHeapCloseNode closeHeapNode) {
+      closeHeapNode.execute(thisNode, generator.getMergeHeap());
     }
 
     @Specialization
-    static void close(Node node, DistinctMemoryGenerator generator) {}
+    static void close(Node node, OrderByMemoryGenerator generator) {
+      // the rows were held in memory until now.
+      OffHeapGroupByKeys offHeapGroupByKeys = generator.getOffHeapGroupByKeys();
+      releaseMemory(node, offHeapGroupByKeys.getSize());
+      offHeapGroupByKeys.setSize(0);
+    }
 
     @Specialization
-    static void close(Node node, DistinctSpilledFilesGenerator generator) {
-      generator.getKryoBuffers().forEach(GeneratorCloseNode::closeInput);
+    static void close(
+        Node node,
+        OrderBySpilledFilesGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Shared("closeHeap") MergeHeapNodes.MergeHeapCloseNode closeHeapNode,
+        @Cached @Cached.Exclusive InputBufferNodes.InputBufferCloseNode closeBufferNode) {
+      // the buffer being read is out of the heap.
+      if (generator.getCurrentKryoBuffer() != null) {
+        closeBufferNode.execute(thisNode, generator.getCurrentKryoBuffer());
+        generator.setCurrentKryoBuffer(null);
+      }
+      closeHeapNode.execute(thisNode, generator.getMergeHeap());
+    }
+
+    @Specialization
+    static void close(Node node, DistinctMemoryGenerator generator) {
+      // the items were held in memory until now.
+      OffHeapDistinct offHeapDistinct = generator.getOffHeapDistinct();
+      releaseMemory(node, offHeapDistinct.getBinarySize());
+      offHeapDistinct.setBinarySize(0);
+    }
+
+    @Specialization
+    static void close(
+        Node node,
+        DistinctSpilledFilesGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Shared("closeHeap") MergeHeapNodes.MergeHeapCloseNode closeHeapNode) {
+      closeHeapNode.execute(thisNode, generator.getMergeHeap());
     }
 
     @Specialization
     static void close(Node node, ListGenerator generator) {}
+
+    @Specialization
+    static void close(
+        Node node,
+        RecordingGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached(inline = false) @Cached.Exclusive GeneratorCloseNode closeNode) {
+      closeNode.execute(thisNode, generator.getGenerator());
+      // the collection wasn't read entirely, its rows can't be replayed.
+      if (generator.getBuffer() != null) {
+        generator.getBuffer().discard(thisNode);
+        generator.setBuffer(null);
+      }
+    }
+
+    @Specialization
+    static void close(Node node, ReplayGenerator generator) {
+      generator.closeInput();
+    }
+
+    @Specialization
+    static void close(
+        Node node,
+        ProfiledGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached(inline = false) @Cached.Exclusive GeneratorCloseNode closeNode) {
+      QueryProfile.enter(generator.getProfile());
+      try {
+        closeNode.execute(thisNode, generator.getGenerator());
+      } finally {
+        QueryProfile.exit(0);
+      }
+    }
   }
 }
@@ -12,20 +12,40 @@
 
 package com.rawlabs.snapi.truffle.runtime.generator.collection;
 
+import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.unsafe.UnsafeInput;
+import com.esotericsoftware.kryo.unsafe.UnsafeOutput;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.nodes.Node;
 import com.rawlabs.snapi.truffle.SnapiContext;
+import com.rawlabs.snapi.truffle.ast.io.csv.reader.parser.TruffleCsvParserSettings;
+import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleInternalErrorException;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.distinct.OffHeapDistinct;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapGroupByKey;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.hash_partitions.HashPartitions;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.order_by.OffHeapGroupByKeys;
+import com.rawlabs.snapi.truffle.runtime.profiler.QueryProfile;
+import com.rawlabs.snapi.truffle.runtime.utils.BlockInputStream;
+import com.rawlabs.snapi.truffle.runtime.utils.BlockOutputStream;
 import com.rawlabs.snapi.truffle.runtime.utils.IOUtils;
+import com.rawlabs.snapi.truffle.runtime.utils.MemoryBudget;
+import com.rawlabs.snapi.truffle.runtime.utils.PrefetchInputStream;
+import com.rawlabs.snapi.truffle.runtime.utils.SpillOutputStream;
+import com.rawlabs.snapi.truffle.runtime.utils.SplitCharInputStream;
+import com.rawlabs.snapi.truffle.runtime.utils.SplitScan;
+import com.rawlabs.snapi.truffle.runtime.utils.TruffleCharInputStream;
 import com.rawlabs.utils.core.RawSettings;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class StaticInitializers {
 
@@ -35,44 +55,166 @@ public class StaticInitializers {
   }
 
   @CompilerDirectives.TruffleBoundary
-  public static FileOutputStream getGroupByKeyNewDiskBuffer(
+  public static OutputStream getGroupByKeyNewDiskBuffer(
       OffHeapGroupByKey offHeapGroupByKey, Node node) {
     RawSettings settings = SnapiContext.get(node).getSettings();
     File file;
     file = IOUtils.getScratchFile("groupby.", ".kryo", settings).toFile();
     offHeapGroupByKey.getSpilledBuffers().add(file);
-    try {
-      return new FileOutputStream(file);
-    } catch (FileNotFoundException e) {
-      throw new TruffleRuntimeException(e, node);
-    }
+    return openScratchFile(file, node);
   }
 
   @CompilerDirectives.TruffleBoundary
-  public static FileOutputStream groupByKeysNextFile(
+  public static OutputStream groupByKeysNextFile(
       OffHeapGroupByKeys offHeapGroupByKeys, Node node) {
     File file;
     RawSettings settings = SnapiContext.get(node).getSettings();
     file = IOUtils.getScratchFile("orderby.", ".kryo", settings).toFile();
     offHeapGroupByKeys.getSpilledBuffers().add(file);
-    try {
-      return new FileOutputStream(file);
-    } catch (FileNotFoundException e) {
-      throw new TruffleRuntimeException(e, node);
-    }
+    return openScratchFile(file, node);
   }
 
   @CompilerDirectives.TruffleBoundary
-  public static FileOutputStream distinctNextFile(OffHeapDistinct offHeapDistinct, Node node) {
+  public static OutputStream distinctNextFile(OffHeapDistinct offHeapDistinct, Node node) {
     File file;
     RawSettings settings = SnapiContext.get(node).getSettings();
     file = IOUtils.getScratchFile("distinct.", ".kryo", settings).toFile();
     offHeapDistinct.getSpilledBuffers().add(file);
+    return openScratchFile(file, node);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public static File newScratchFile(String prefix, Node node) {
+    RawSettings settings = SnapiContext.get(node).getSettings();
+    return IOUtils.getScratchFile(prefix, ".kryo", settings).toFile();
+  }
+
+  // Spilled files are written as compressed blocks when spill compression is enabled, and in the
+  // background when spill I/O threads are enabled (blocks are then compressed by those threads).
+  @CompilerDirectives.TruffleBoundary
+  public static OutputStream openScratchFile(File file, Node node) {
+    SnapiContext context = SnapiContext.get(node);
+    RawSettings settings = context.getSettings();
+    OutputStream out;
     try {
-      return new FileOutputStream(file);
+      out = new FileOutputStream(file);
     } catch (FileNotFoundException e) {
       throw new TruffleRuntimeException(e, node);
     }
+    if (settings.getBoolean("raw.runtime.external.spill-compression")) {
+      int blockSize = (int) settings.getMemorySize("raw.runtime.external.spill-block-size");
+      out = new BlockOutputStream(out, blockSize);
+    }
+    ExecutorService executor = context.getSpillExecutor();
+    return QueryProfile.profiledSpill(
+        executor == null
+            ? out
+            : new SpillOutputStream(out, executor, context.getMemoryBudget(), 2));
+  }
+
+  // Reads back a file written by openScratchFile. It is read ahead (and decompressed) in the
+  // background when spill I/O threads are enabled.
+  @CompilerDirectives.TruffleBoundary
+  public static InputStream openSpilledStream(File file, Node node) {
+    SnapiContext context = SnapiContext.get(node);
+    RawSettings settings = context.getSettings();
+    InputStream in;
+    try {
+      in = new FileInputStream(file);
+    } catch (FileNotFoundException e) {
+      throw new TruffleRuntimeException(e.getMessage(), e, node);
+    }
+    if (settings.getBoolean("raw.runtime.external.spill-compression")) {
+      in = new BlockInputStream(in);
+    }
+    ExecutorService executor = context.getSpillExecutor();
+    if (executor == null) {
+      return QueryProfile.profiledSpill(in);
+    }
+    int blockSize = (int) settings.getMemorySize("raw.runtime.external.prefetch-block-size");
+    return QueryProfile.profiledSpill(
+        new PrefetchInputStream(in, executor, context.getMemoryBudget(), blockSize));
+  }
+
+  // The text of a CSV file, read by byte ranges on background threads if it is a large local file
+  // and split scans are enabled.
+  @CompilerDirectives.TruffleBoundary
+  public static TruffleCharInputStream openCsvStream(
+      TruffleCharInputStream stream, TruffleCsvParserSettings csvSettings, Node node) {
+    SnapiContext context = SnapiContext.get(node);
+    SplitScan scan =
+        SplitScan.forCsv(
+            stream,
+            csvSettings.delimiter,
+            csvSettings.useQuote,
+            csvSettings.quoteChar,
+            csvSettings.escapeChar,
+            csvSettings.headerLines,
+            context.getSplitScanExecutor(),
+            context.getSettings());
+    return scan == null ? stream : new SplitCharInputStream(stream, scan);
+  }
+
+  // The lines of a file read by byte ranges on background threads, or null if it is read
+  // sequentially.
+  @CompilerDirectives.TruffleBoundary
+  public static SplitScan openLinesScan(TruffleCharInputStream stream, Node node) {
+    SnapiContext context = SnapiContext.get(node);
+    return SplitScan.forLines(stream, context.getSplitScanExecutor(), context.getSettings());
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public static Input openSpilledFile(File file, int kryoInputBufferSize, Node node) {
+    return new UnsafeInput(openSpilledStream(file, node), kryoInputBufferSize);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public static void deleteSpilledFile(File file) {
+    file.delete();
+  }
+
+  // opens the file of a partition on its first entry.
+  @CompilerDirectives.TruffleBoundary
+  public static Output hashPartitionOutput(HashPartitions partitions, int p, Node node) {
+    Output kryoOutput = partitions.getOutputs()[p];
+    if (kryoOutput == null) {
+      File file = newScratchFile("partition.", node);
+      partitions.getFiles()[p] = file;
+      kryoOutput =
+          new UnsafeOutput(openScratchFile(file, node), partitions.getKryoOutputBufferSize());
+      partitions.getOutputs()[p] = kryoOutput;
+    }
+    return kryoOutput;
+  }
+
+  // closes the partition files once all entries were written, recording their size.
+  @CompilerDirectives.TruffleBoundary
+  public static void closeHashPartitions(HashPartitions partitions) {
+    Output[] outputs = partitions.getOutputs();
+    for (int i = 0; i < outputs.length; i++) {
+      if (outputs[i] != null) {
+        partitions.getSizes()[i] = outputs[i].total();
+        outputs[i].close();
+        outputs[i] = null;
+      }
+    }
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public static void deleteHashPartitions(HashPartitions partitions) {
+    closeHashPartitions(partitions);
+    File[] files = partitions.getFiles();
+    for (int i = 0; i < files.length; i++) {
+      if (files[i] != null) {
+        files[i].delete();
+        files[i] = null;
+      }
+    }
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public static boolean useHashJoin(Node node) {
+    return SnapiContext.get(node).getSettings().getBoolean("raw.runtime.external.hash-join");
   }
 
   @CompilerDirectives.TruffleBoundary
@@ -80,6 +222,11 @@ public class StaticInitializers {
     kryoOutput.close();
   }
 
+  @CompilerDirectives.TruffleBoundary
+  public static void kryoInputClose(Input kryoInput) {
+    kryoInput.close();
+  }
+
   public static int getKryoOutputBufferSize(Node node) {
     return (int)
         SnapiContext.get(node).getSettings().getMemorySize("raw.runtime.kryo.output-buffer-size");
@@ -88,13 +235,71 @@ public class StaticInitializers {
   @CompilerDirectives.TruffleBoundary
   public static long[] getContextValues(Node node) {
     RawSettings rawSettings = SnapiContext.get(node).getSettings();
-    long[] contextValues = new long[3];
+    long[] contextValues = new long[6];
     contextValues[0] = rawSettings.getMemorySize("raw.runtime.external.disk-block-max-size");
     contextValues[1] = getKryoOutputBufferSize(node);
     contextValues[2] = (int) rawSettings.getMemorySize("raw.runtime.kryo.input-buffer-size");
+    // a merge needs at least two runs to make progress.
+    contextValues[3] = Math.max(2, rawSettings.getInt("raw.runtime.external.merge-fan-in"));
+    contextValues[4] = Math.max(1, rawSettings.getInt("raw.runtime.external.join-left-batch-size"));
+    contextValues[5] = Math.max(1, rawSettings.getInt("raw.runtime.external.hash-partitions"));
     return contextValues;
   }
 
+  // Polyglot worker threads that can serialize spilled runs, or null if they are serialized by the
+  // query thread. Only contexts running parallel aggregations have them.
+  @CompilerDirectives.TruffleBoundary
+  public static ExecutorService getRunWriterExecutor(Node node) {
+    return SnapiContext.get(node).getParallelExecutor();
+  }
+
+  // Writes a run on a worker thread once the previous run was written, so that at most one run is
+  // held in memory besides the one being filled. The memory of the run is released once written.
+  @CompilerDirectives.TruffleBoundary
+  public static Future<?> submitRun(Future<?> previous, Runnable write, long size, Node node) {
+    awaitRun(previous);
+    SnapiContext context = SnapiContext.get(node);
+    MemoryBudget budget = context.getMemoryBudget();
+    return context
+        .getParallelExecutor()
+        .submit(
+            () -> {
+              try {
+                write.run();
+              } finally {
+                budget.release(size);
+              }
+            });
+  }
+
+  // Waits for a run written by a worker thread, and reports its failure.
+  @CompilerDirectives.TruffleBoundary
+  public static void awaitRun(Future<?> run) {
+    if (run == null) {
+      return;
+    }
+    try {
+      run.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TruffleInternalErrorException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException r) throw r;
+      if (e.getCause() instanceof Error r) throw r;
+      throw new TruffleInternalErrorException(e.getCause());
+    }
+  }
+
+  public static MemoryBudget getMemoryBudget(Node node) {
+    return SnapiContext.get(node).getMemoryBudget();
+  }
+
+  // returns the memory held by an off-heap operator to the query budget.
+  @CompilerDirectives.TruffleBoundary
+  public static void releaseMemory(Node node, long size) {
+    SnapiContext.get(node).getMemoryBudget().release(size);
+  }
+
   @CompilerDirectives.TruffleBoundary
   public static RawSettings getRawSettings(Node node) {
     return SnapiContext.get(node).getSettings();
@@ -24,7 +24,6 @@ import com.oracle.truffle.api.nodes.DirectCallNode;
 import com.oracle.truffle.api.nodes.LoopNode;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeInfo;
-import com.rawlabs.snapi.truffle.SnapiContext;
 import com.rawlabs.snapi.truffle.SnapiLanguage;
 import com.rawlabs.snapi.truffle.ast.io.csv.reader.CsvParserNodes;
 import com.rawlabs.snapi.truffle.ast.io.json.reader.JsonParserNodes;
@@ -35,6 +34,8 @@ import com.rawlabs.snapi.truffle.ast.osr.conditions.OSRCollectionFilterCondition
 import com.rawlabs.snapi.truffle.ast.osr.conditions.OSRFromBodyConditionNode;
 import com.rawlabs.snapi.truffle.ast.osr.conditions.OSRHasNextConditionNode;
 import com.rawlabs.snapi.truffle.ast.tryable_nullable.TryableNullableNodes;
+import com.rawlabs.snapi.truffle.runtime.data_structures.hashmap.HashMapNodes;
+import com.rawlabs.snapi.truffle.runtime.data_structures.hashmap.HashMapObject;
 import com.rawlabs.snapi.truffle.runtime.exceptions.BreakException;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import com.rawlabs.snapi.truffle.runtime.exceptions.csv.CsvParserTruffleException;
@@ -49,18 +50,17 @@ import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator
 import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.compute_next.sources.*;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.OffHeapNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapGroupByKey;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.hash_partitions.HashPartitions;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodes;
 import com.rawlabs.snapi.truffle.runtime.iterable.sources.EmptyCollection;
 import com.rawlabs.snapi.truffle.runtime.record.RecordNodes;
-import com.rawlabs.snapi.truffle.runtime.utils.IOUtils;
 import com.rawlabs.snapi.truffle.runtime.utils.TruffleCharInputStream;
 import com.rawlabs.snapi.truffle.runtime.utils.TruffleInputStream;
 import com.rawlabs.snapi.truffle.runtime.utils.TruffleStringCharStream;
-import com.rawlabs.utils.core.RawSettings;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import java.util.ArrayList;
 
 public class ComputeNextNodes {
 
@@ -447,6 +447,45 @@ public class ComputeNextNodes {
       return joinedRow;
     }
 
+    public static LoopNode getHashEquiJoinNextLoopNode(HashEquiJoinComputeNext computeNext) {
+      return Truffle.getRuntime()
+          .createLoopNode(
+              new OSRGeneratorNode(
+                  new OSRFromBodyConditionNode(computeNext.getShouldContinueSlot()),
+                  new OSRHashEquiJoinNextBodyNode(
+                      computeNext.getComputeNextSlot(), computeNext.getShouldContinueSlot())));
+    }
+
+    @Specialization(guards = "cachedComputeNext.hasSameSlots(computeNext)", limit = "8", unroll = 8)
+    static Object next(
+        Node node,
+        HashEquiJoinComputeNext computeNext,
+        @Bind("$node") Node thisNode,
+        @Cached("computeNext") HashEquiJoinComputeNext cachedComputeNext,
+        @Cached(
+                value = "getHashEquiJoinNextLoopNode(cachedComputeNext)",
+                inline = false,
+                allowUncached = true)
+            LoopNode loopNode,
+        @Cached FunctionExecuteNodes.FunctionExecuteTwo functionExecuteTwoNode) {
+      Frame frame = computeNext.getFrame();
+      frame.setObject(computeNext.getComputeNextSlot(), computeNext);
+      frame.setBoolean(computeNext.getShouldContinueSlot(), true);
+
+      // find the next probe row with matches (throws a BreakException at the end)
+      loopNode.execute(computeNext.getFrame());
+
+      Object match = computeNext.getMatches().get(computeNext.getMatchIdx());
+      computeNext.setMatchIdx(computeNext.getMatchIdx() + 1);
+      if (computeNext.isBuildLeft()) {
+        return functionExecuteTwoNode.execute(
+            thisNode, computeNext.getMkJoinedRecord(), match, computeNext.getProbeRow());
+      } else {
+        return functionExecuteTwoNode.execute(
+            thisNode, computeNext.getMkJoinedRecord(), computeNext.getProbeRow(), match);
+      }
+    }
+
     @TruffleBoundary
     private static Input createInput(File file, Node node) {
       try {
@@ -509,7 +548,10 @@ public class ComputeNextNodes {
       try {
         TruffleInputStream truffleInputStream = new TruffleInputStream(computeNext.getLocation());
         computeNext.setStream(
-            new TruffleCharInputStream(truffleInputStream, computeNext.getEncoding()));
+            StaticInitializers.openCsvStream(
+                new TruffleCharInputStream(truffleInputStream, computeNext.getEncoding()),
+                computeNext.getSettings(),
+                thisNode));
         computeNext.setParser(
             initParser.execute(thisNode, computeNext.getStream(), computeNext.getSettings()));
       } catch (TruffleRuntimeException ex) {
@@ -584,8 +626,8 @@ public class ComputeNextNodes {
     static void init(Node node, LongRangeComputeNext computeNext) {}
 
     @Specialization
-    static void init(Node node, ReadLinesComputeNext computeNext) {
-      computeNext.init();
+    static void init(Node node, ReadLinesComputeNext computeNext, @Bind("$node") Node thisNode) {
+      computeNext.init(StaticInitializers.openLinesScan(computeNext.getStream(), thisNode));
     }
 
     @Specialization
@@ -728,7 +770,8 @@ public class ComputeNextNodes {
               null,
               contextValues[0],
               (int) contextValues[1],
-              (int) contextValues[2]);
+              (int) contextValues[2],
+              (int) contextValues[3]);
 
       Object leftGenerator = getGenerator.execute(thisNode, computeNext.getLeftIterable());
       try {
@@ -751,7 +794,8 @@ public class ComputeNextNodes {
               null,
               contextValues[0],
               (int) contextValues[1],
-              (int) contextValues[2]);
+              (int) contextValues[2],
+              (int) contextValues[3]);
       Object rightGenerator = getGenerator.execute(thisNode, computeNext.getRightIterable());
       try {
         initRightNode.execute(thisNode, rightGenerator);
@@ -766,17 +810,174 @@ public class ComputeNextNodes {
       initRightNode.execute(thisNode, computeNext.getRightMapGenerator());
     }
 
-    @TruffleBoundary
-    private static Output createOutput(JoinComputeNext computeNext, Node node) {
-      try {
-        return new Output(
-            new FileOutputStream(computeNext.getDiskRight()),
-            computeNext.getKryoOutputBufferSize());
-      } catch (FileNotFoundException e) {
-        throw new TruffleRuntimeException(e.getMessage(), e, node);
+    public static LoopNode getHashEquiJoinInitLoopNode(HashEquiJoinComputeNext computeNext) {
+      return Truffle.getRuntime()
+          .createLoopNode(
+              new OSRGeneratorNode(
+                  new OSRFromBodyConditionNode(computeNext.getShouldContinueSlot()),
+                  new OSRHashEquiJoinInitBodyNode(
+                      computeNext.getComputeNextSlot(), computeNext.getShouldContinueSlot())));
+    }
+
+    public static LoopNode getHashEquiJoinPartitionLoopNode(HashEquiJoinComputeNext computeNext) {
+      return Truffle.getRuntime()
+          .createLoopNode(
+              new OSRGeneratorNode(
+                  new OSRHasNextConditionNode(computeNext.getGeneratorSlot()),
+                  new OSRCollectionEquiJoinInitBodyNode(
+                      computeNext.getGeneratorSlot(),
+                      computeNext.getKeyFunctionSlot(),
+                      computeNext.getMapSlot())));
+    }
+
+    @Specialization(guards = "cachedComputeNext.hasSameSlots(computeNext)", limit = "8", unroll = 8)
+    static void init(
+        Node node,
+        HashEquiJoinComputeNext computeNext,
+        @Bind("$node") Node thisNode,
+        @Cached("computeNext") HashEquiJoinComputeNext cachedComputeNext,
+        @Cached(
+                value = "getHashEquiJoinInitLoopNode(cachedComputeNext)",
+                inline = false,
+                allowUncached = true)
+            LoopNode loopNode,
+        @Cached(
+                value = "getHashEquiJoinPartitionLoopNode(cachedComputeNext)",
+                inline = false,
+                allowUncached = true)
+            LoopNode partitionLoopNode1,
+        @Cached(
+                value = "getHashEquiJoinPartitionLoopNode(cachedComputeNext)",
+                inline = false,
+                allowUncached = true)
+            LoopNode partitionLoopNode2,
+        @Cached @Cached.Shared("getGenerator") IterableNodes.GetGeneratorNode getGenerator,
+        @Cached(inline = false) @Cached.Shared("init1")
+            GeneratorNodes.GeneratorInitNode initLeftNode,
+        @Cached(inline = false) @Cached.Shared("init2")
+            GeneratorNodes.GeneratorInitNode initRightNode,
+        @Cached @Cached.Shared("close1") GeneratorNodes.GeneratorCloseNode closeLeftNode,
+        @SuppressWarnings("truffle-sharing") @Cached
+            GeneratorNodes.GeneratorCloseNode closeRightNode,
+        @Cached(inline = false) GeneratorNodes.GeneratorHasNextNode hasNextLeftNode,
+        @Cached(inline = false) GeneratorNodes.GeneratorHasNextNode hasNextRightNode,
+        @Cached HashMapNodes.HashMapGetOrCreate getOrCreateNode,
+        @Cached OffHeapNodes.OffHeapGroupByPutNode partitionPutNode) {
+      Frame frame = computeNext.getFrame();
+      Object leftGen = getGenerator.execute(thisNode, computeNext.getLeftIterable());
+      Object rightGen = getGenerator.execute(thisNode, computeNext.getRightIterable());
+      computeNext.setLeftGen(leftGen);
+      computeNext.setRightGen(rightGen);
+      initLeftNode.execute(thisNode, leftGen);
+      initRightNode.execute(thisNode, rightGen);
+
+      // read both sides in turn until one of them ends, it is the smaller one.
+      computeNext.setLeftBuffer(new ArrayList<>());
+      computeNext.setRightBuffer(new ArrayList<>());
+      frame.setObject(computeNext.getComputeNextSlot(), computeNext);
+      frame.setBoolean(computeNext.getShouldContinueSlot(), true);
+      loopNode.execute(computeNext.getFrame());
+
+      boolean leftDone = !hasNextLeftNode.execute(thisNode, leftGen);
+      boolean rightDone = !hasNextRightNode.execute(thisNode, rightGen);
+      computeNext.setMap(new HashMapObject());
+      if (leftDone || rightDone) {
+        // one side fits in memory, build the hash map with it. The other side is streamed.
+        boolean buildLeft =
+            leftDone
+                && (!rightDone
+                    || computeNext.getLeftBufferSize() <= computeNext.getRightBufferSize());
+        computeNext.setBuildLeft(buildLeft);
+        ArrayList<Object[]> buildBuffer =
+            buildLeft ? computeNext.getLeftBuffer() : computeNext.getRightBuffer();
+        for (int i = 0; i < buildBuffer.size(); i++) {
+          Object[] entry = buildBuffer.get(i);
+          @SuppressWarnings("unchecked")
+          ArrayList<Object> rows =
+              (ArrayList<Object>) getOrCreateNode.execute(thisNode, computeNext.getMap(), entry[0]);
+          rows.add(entry[1]);
+        }
+        if (buildLeft) {
+          closeLeftNode.execute(thisNode, leftGen);
+          computeNext.setLeftGen(null);
+          computeNext.setProbeBuffer(computeNext.getRightBuffer());
+          computeNext.setProbeGen(rightGen);
+        } else {
+          closeRightNode.execute(thisNode, rightGen);
+          computeNext.setRightGen(null);
+          computeNext.setProbeBuffer(computeNext.getLeftBuffer());
+          computeNext.setProbeGen(leftGen);
+        }
+      } else {
+        // neither side fits in memory, split both in partitions on disk.
+        int partitionBufferSize =
+            Math.max(4096, computeNext.getKryoOutputBufferSize() / computeNext.getPartitionCount());
+        HashPartitions leftPartitions =
+            new HashPartitions(
+                computeNext.getKeyType(),
+                computeNext.getLeftRowType(),
+                computeNext.getPartitionCount(),
+                partitionBufferSize);
+        HashPartitions rightPartitions =
+            new HashPartitions(
+                computeNext.getKeyType(),
+                computeNext.getRightRowType(),
+                computeNext.getPartitionCount(),
+                partitionBufferSize);
+        computeNext.setLeftPartitions(leftPartitions);
+        computeNext.setRightPartitions(rightPartitions);
+        ArrayList<Object[]> leftBuffer = computeNext.getLeftBuffer();
+        for (int i = 0; i < leftBuffer.size(); i++) {
+          partitionPutNode.execute(
+              thisNode, leftPartitions, leftBuffer.get(i)[0], leftBuffer.get(i)[1]);
+        }
+        ArrayList<Object[]> rightBuffer = computeNext.getRightBuffer();
+        for (int i = 0; i < rightBuffer.size(); i++) {
+          partitionPutNode.execute(
+              thisNode, rightPartitions, rightBuffer.get(i)[0], rightBuffer.get(i)[1]);
+        }
+        computeNext.setLeftBuffer(null);
+        computeNext.setRightBuffer(null);
+        // the buffered rows are on disk now.
+        StaticInitializers.releaseMemory(thisNode, computeNext.getReserved());
+        computeNext.setReserved(0);
+
+        frame.setObject(computeNext.getMapSlot(), leftPartitions);
+        frame.setObject(computeNext.getGeneratorSlot(), leftGen);
+        frame.setObject(computeNext.getKeyFunctionSlot(), computeNext.getLeftKeyF());
+        partitionLoopNode1.execute(computeNext.getFrame());
+        closeLeftNode.execute(thisNode, leftGen);
+        computeNext.setLeftGen(null);
+
+        frame.setObject(computeNext.getMapSlot(), rightPartitions);
+        frame.setObject(computeNext.getGeneratorSlot(), rightGen);
+        frame.setObject(computeNext.getKeyFunctionSlot(), computeNext.getRightKeyF());
+        partitionLoopNode2.execute(computeNext.getFrame());
+        closeRightNode.execute(thisNode, rightGen);
+        computeNext.setRightGen(null);
+
+        StaticInitializers.closeHashPartitions(leftPartitions);
+        StaticInitializers.closeHashPartitions(rightPartitions);
+        // partitions are joined one by one, starting with the first one.
+        computeNext.setPartition(-1);
       }
     }
 
+    @TruffleBoundary
+    private static void closeOutput(Output output) {
+      output.close();
+    }
+
+    @TruffleBoundary
+    private static long outputSize(Output output) {
+      return output.total();
+    }
+
+    @TruffleBoundary
+    private static Object[] toArray(ArrayList<Object> rows) {
+      return rows.toArray();
+    }
+
     public static LoopNode getJoinInitLoopNode(JoinComputeNext computeNext) {
       return Truffle.getRuntime()
           .createLoopNode(
@@ -803,21 +1004,48 @@ public class ComputeNextNodes {
         @Cached(inline = false) @Cached.Shared("init") GeneratorNodes.GeneratorInitNode initNode,
         @Cached @Cached.Shared("close1") GeneratorNodes.GeneratorCloseNode closeNode) {
 
-      RawSettings settings = SnapiContext.get(thisNode).getSettings();
-      computeNext.setDiskRight(IOUtils.getScratchFile("cartesian.", ".kryo", settings).toFile());
-
-      // save right to disk
+      // keep the right rows in memory, they are only saved to disk if they don't fit.
+      computeNext.setRightRows(new ArrayList<>());
       Object rightGen = getGeneratorNode.execute(thisNode, computeNext.getRightIterable());
-      try (Output buffer = createOutput(computeNext, thisNode)) {
+      Frame frame = computeNext.getFrame();
+      frame.setObject(computeNext.getOutputBufferSlot(), null);
+      try {
         initNode.execute(thisNode, rightGen);
-        Frame frame = computeNext.getFrame();
         frame.setObject(computeNext.getGeneratorSlot(), rightGen);
-        frame.setObject(computeNext.getOutputBufferSlot(), buffer);
         frame.setObject(computeNext.getComputeNextSlot(), computeNext);
         loopNode.execute(computeNext.getFrame());
       } finally {
         closeNode.execute(thisNode, rightGen);
+        Output buffer = (Output) frame.getObject(computeNext.getOutputBufferSlot());
+        if (buffer != null) {
+          computeNext.setSpilledRightSize(outputSize(buffer));
+          closeOutput(buffer);
+        }
       }
+      if (computeNext.getRightRows() != null) {
+        // the whole right side fits in memory, it is joined from there as a single block, which
+        // keeps the left rows order.
+        computeNext.setRightInMemory(true);
+        computeNext.setRightBlock(toArray(computeNext.getRightRows()));
+        computeNext.setRightBlockCount(computeNext.getSpilledRight());
+        computeNext.setLeftBatch(new Object[1]);
+      } else {
+        // the right side is read back from disk, one block of rows fitting in memory at a time,
+        // and each block is joined with a batch of left rows.
+        long rowSize =
+            Math.max(1, computeNext.getSpilledRightSize() / computeNext.getSpilledRight());
+        int blockSize =
+            (int) Math.max(1, Math.min(Integer.MAX_VALUE, computeNext.getMaxSize() / rowSize));
+        computeNext.setRightBlock(new Object[blockSize]);
+        computeNext.setLeftBatch(new Object[computeNext.getLeftBatchSize()]);
+        // the block is needed whatever the memory pressure, only account for it.
+        long bytes = blockSize * rowSize;
+        StaticInitializers.getMemoryBudget(thisNode).reserve(bytes, bytes, Long.MAX_VALUE);
+        computeNext.setReserved(bytes);
+      }
+      computeNext.setRightRows(null);
+      // nothing has been joined yet, mark the right side as fully read.
+      computeNext.setReadRight(computeNext.getSpilledRight());
       // initialize left
       computeNext.setLeftGen(getGeneratorNode.execute(thisNode, computeNext.getLeftIterable()));
       initNode.execute(thisNode, computeNext.getLeftGen());
@@ -986,6 +1214,45 @@ public class ComputeNextNodes {
       }
     }
 
+    @Specialization
+    static void close(
+        Node node,
+        HashEquiJoinComputeNext computeNext,
+        @Bind("$node") Node thisNode,
+        @Cached(inline = false) @Cached.Shared("close1")
+            GeneratorNodes.GeneratorCloseNode closeNode1,
+        @Cached(inline = false) @Cached.Shared("close2")
+            GeneratorNodes.GeneratorCloseNode closeNode2) {
+      if (computeNext.getLeftGen() != null) {
+        closeNode1.execute(thisNode, computeNext.getLeftGen());
+        computeNext.setLeftGen(null);
+      }
+      if (computeNext.getRightGen() != null) {
+        closeNode2.execute(thisNode, computeNext.getRightGen());
+        computeNext.setRightGen(null);
+      }
+      if (computeNext.getBuildInput() != null) {
+        computeNext.getBuildInput().close();
+        computeNext.setBuildInput(null);
+      }
+      if (computeNext.getProbeInput() != null) {
+        computeNext.getProbeInput().close();
+        computeNext.setProbeInput(null);
+      }
+      StaticInitializers.releaseMemory(thisNode, computeNext.getReserved());
+      computeNext.setReserved(0);
+      if (computeNext.getLeftPartitions() != null) {
+        StaticInitializers.deleteHashPartitions(computeNext.getLeftPartitions());
+        StaticInitializers.deleteHashPartitions(computeNext.getRightPartitions());
+      }
+      computeNext.setMap(null);
+      computeNext.setMatches(null);
+      computeNext.setLeftBuffer(null);
+      computeNext.setRightBuffer(null);
+      computeNext.setProbeBuffer(null);
+      computeNext.setProbeGen(null);
+    }
+
     @Specialization
     static void close(
         Node node,
@@ -995,6 +1262,10 @@ public class ComputeNextNodes {
             GeneratorNodes.GeneratorCloseNode closeNode) {
       closeNode.execute(thisNode, computeNext.getLeftGen());
       if (computeNext.getKryoRight() != null) computeNext.getKryoRight().close();
+      computeNext.setRightBlock(null);
+      computeNext.setLeftBatch(null);
+      StaticInitializers.releaseMemory(thisNode, computeNext.getReserved());
+      computeNext.setReserved(0);
     }
   }
   // ==================== CloseNodes end =======================
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.compute_next.operations;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.oracle.truffle.api.frame.MaterializedFrame;
+import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
+import com.rawlabs.snapi.truffle.runtime.data_structures.hashmap.HashMapObject;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.hash_partitions.HashPartitions;
+import java.util.ArrayList;
+
+// Equi-join using a hash map built on the smaller side, which is found by reading both sides in
+// turn until one of them ends. The other side is streamed and probes the map. When neither side
+// fits in memory, both are split in partitions on disk which are joined one by one.
+public class HashEquiJoinComputeNext {
+
+  private final Object leftIterable, rightIterable;
+  private final Object leftKeyF, rightKeyF, mkJoinedRecord;
+  private final SnapiTypeWithProperties leftRowType, rightRowType, keyType;
+  private final long maxSize; // memory budget of the hash map (and of the buffered rows).
+  private final int kryoOutputBufferSize, kryoInputBufferSize;
+  private final int partitionCount;
+
+  private Object leftGen = null, rightGen = null;
+  // rows ({key, row} pairs) read from both sides before knowing which one is the smaller.
+  private ArrayList<Object[]> leftBuffer = null, rightBuffer = null;
+  private long leftBufferSize = 0, rightBufferSize = 0;
+  private long reserved = 0; // bytes held in the query memory budget.
+
+  private boolean buildLeft = false; // whether the hash map holds the left rows.
+  private HashMapObject map = null;
+
+  // probe side
+  private ArrayList<Object[]> probeBuffer = null;
+  private int probeBufferIdx = 0;
+  private Object probeGen = null;
+  private Object probeKey = null, probeRow = null;
+  private ArrayList<Object> matches = null; // build rows matching the current probe row.
+  private int matchIdx = 0;
+
+  // partitions, when neither side fits in memory
+  private HashPartitions leftPartitions = null, rightPartitions = null;
+  private int partition = -1;
+  private Input buildInput = null, probeInput = null;
+  private int buildRemaining = 0, probeRemaining = 0;
+
+  private final MaterializedFrame frame;
+  private final int computeNextSlot;
+  private final int shouldContinueSlot;
+  private final int generatorSlot;
+  private final int keyFunctionSlot;
+  private final int mapSlot;
+
+  public HashEquiJoinComputeNext(
+      Object leftIterable,
+      Object leftKeyF,
+      SnapiTypeWithProperties leftRowType,
+      Object rightIterable,
+      Object rightKeyF,
+      SnapiTypeWithProperties rightRowType,
+      SnapiTypeWithProperties keyType,
+      Object mkJoinedRecord,
+      long maxSize,
+      int kryoOutputBufferSize,
+      int kryoInputBufferSize,
+      int partitionCount,
+      MaterializedFrame frame,
+      int computeNextSlot,
+      int shouldContinueSlot,
+      int generatorSlot,
+      int keyFunctionSlot,
+      int mapSlot) {
+    this.leftIterable = leftIterable;
+    this.leftKeyF = leftKeyF;
+    this.leftRowType = leftRowType;
+    this.rightIterable = rightIterable;
+    this.rightKeyF = rightKeyF;
+    this.rightRowType = rightRowType;
+    this.keyType = keyType;
+    this.mkJoinedRecord = mkJoinedRecord;
+    this.maxSize = maxSize;
+    this.kryoOutputBufferSize = kryoOutputBufferSize;
+    this.kryoInputBufferSize = kryoInputBufferSize;
+    this.partitionCount = partitionCount;
+    this.frame = frame;
+    this.computeNextSlot = computeNextSlot;
+    this.shouldContinueSlot = shouldContinueSlot;
+    this.generatorSlot = generatorSlot;
+    this.keyFunctionSlot = keyFunctionSlot;
+    this.mapSlot = mapSlot;
+  }
+
+  public Object getLeftIterable() {
+    return leftIterable;
+  }
+
+  public Object getRightIterable() {
+    return rightIterable;
+  }
+
+  public Object getLeftKeyF() {
+    return leftKeyF;
+  }
+
+  public Object getRightKeyF() {
+    return rightKeyF;
+  }
+
+  public Object getMkJoinedRecord() {
+    return mkJoinedRecord;
+  }
+
+  public SnapiTypeWithProperties getLeftRowType() {
+    return leftRowType;
+  }
+
+  public SnapiTypeWithProperties getRightRowType() {
+    return rightRowType;
+  }
+
+  public SnapiTypeWithProperties getKeyType() {
+    return keyType;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public int getKryoOutputBufferSize() {
+    return kryoOutputBufferSize;
+  }
+
+  public int getKryoInputBufferSize() {
+    return kryoInputBufferSize;
+  }
+
+  public int getPartitionCount() {
+    return partitionCount;
+  }
+
+  public long getReserved() {
+    return reserved;
+  }
+
+  public void setReserved(long reserved) {
+    this.reserved = reserved;
+  }
+
+  public Object getLeftGen() {
+    return leftGen;
+  }
+
+  public void setLeftGen(Object leftGen) {
+    this.leftGen = leftGen;
+  }
+
+  public Object getRightGen() {
+    return rightGen;
+  }
+
+  public void setRightGen(Object rightGen) {
+    this.rightGen = rightGen;
+  }
+
+  public ArrayList<Object[]> getLeftBuffer() {
+    return leftBuffer;
+  }
+
+  public void setLeftBuffer(ArrayList<Object[]> leftBuffer) {
+    this.leftBuffer = leftBuffer;
+  }
+
+  public ArrayList<Object[]> getRightBuffer() {
+    return rightBuffer;
+  }
+
+  public void setRightBuffer(ArrayList<Object[]> rightBuffer) {
+    this.rightBuffer = rightBuffer;
+  }
+
+  public long getLeftBufferSize() {
+    return leftBufferSize;
+  }
+
+  public void setLeftBufferSize(long leftBufferSize) {
+    this.leftBufferSize = leftBufferSize;
+  }
+
+  public long getRightBufferSize() {
+    return rightBufferSize;
+  }
+
+  public void setRightBufferSize(long rightBufferSize) {
+    this.rightBufferSize = rightBufferSize;
+  }
+
+  public boolean isBuildLeft() {
+    return buildLeft;
+  }
+
+  public void setBuildLeft(boolean buildLeft) {
+    this.buildLeft = buildLeft;
+  }
+
+  public HashMapObject getMap() {
+    return map;
+  }
+
+  public void setMap(HashMapObject map) {
+    this.map = map;
+  }
+
+  public ArrayList<Object[]> getProbeBuffer() {
+    return probeBuffer;
+  }
+
+  public void setProbeBuffer(ArrayList<Object[]> probeBuffer) {
+    this.probeBuffer = probeBuffer;
+  }
+
+  public int getProbeBufferIdx() {
+    return probeBufferIdx;
+  }
+
+  public void setProbeBufferIdx(int probeBufferIdx) {
+    this.probeBufferIdx = probeBufferIdx;
+  }
+
+  public Object getProbeGen() {
+    return probeGen;
+  }
+
+  public void setProbeGen(Object probeGen) {
+    this.probeGen = probeGen;
+  }
+
+  public Object getProbeKey() {
+    return probeKey;
+  }
+
+  public void setProbeKey(Object probeKey) {
+    this.probeKey = probeKey;
+  }
+
+  public Object getProbeRow() {
+    return probeRow;
+  }
+
+  public void setProbeRow(Object probeRow) {
+    this.probeRow = probeRow;
+  }
+
+  public ArrayList<Object> getMatches() {
+    return matches;
+  }
+
+  public void setMatches(ArrayList<Object> matches) {
+    this.matches = matches;
+  }
+
+  public int getMatchIdx() {
+    return matchIdx;
+  }
+
+  public void setMatchIdx(int matchIdx) {
+    this.matchIdx = matchIdx;
+  }
+
+  public HashPartitions getLeftPartitions() {
+    return leftPartitions;
+  }
+
+  public void setLeftPartitions(HashPartitions leftPartitions) {
+    this.leftPartitions = leftPartitions;
+  }
+
+  public HashPartitions getRightPartitions() {
+    return rightPartitions;
+  }
+
+  public void setRightPartitions(HashPartitions rightPartitions) {
+    this.rightPartitions = rightPartitions;
+  }
+
+  public int getPartition() {
+    return partition;
+  }
+
+  public void setPartition(int partition) {
+    this.partition = partition;
+  }
+
+  public Input getBuildInput() {
+    return buildInput;
+  }
+
+  public void setBuildInput(Input buildInput) {
+    this.buildInput = buildInput;
+  }
+
+  public Input getProbeInput() {
+    return probeInput;
+  }
+
+  public void setProbeInput(Input probeInput) {
+    this.probeInput = probeInput;
+  }
+
+  public int getBuildRemaining() {
+    return buildRemaining;
+  }
+
+  public void setBuildRemaining(int buildRemaining) {
+    this.buildRemaining = buildRemaining;
+  }
+
+  public int getProbeRemaining() {
+    return probeRemaining;
+  }
+
+  public void setProbeRemaining(int probeRemaining) {
+    this.probeRemaining = probeRemaining;
+  }
+
+  public MaterializedFrame getFrame() {
+    return frame;
+  }
+
+  public int getComputeNextSlot() {
+    return computeNextSlot;
+  }
+
+  public int getShouldContinueSlot() {
+    return shouldContinueSlot;
+  }
+
+  public int getGeneratorSlot() {
+    return generatorSlot;
+  }
+
+  public int getKeyFunctionSlot() {
+    return keyFunctionSlot;
+  }
+
+  public int getMapSlot() {
+    return mapSlot;
+  }
+
+  public boolean hasSameSlots(HashEquiJoinComputeNext other) {
+    return this.computeNextSlot == other.computeNextSlot
+        && this.shouldContinueSlot == other.shouldContinueSlot
+        && this.generatorSlot == other.generatorSlot
+        && this.keyFunctionSlot == other.keyFunctionSlot
+        && this.mapSlot == other.mapSlot;
+  }
+}
@@ -17,21 +17,34 @@ import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
 import java.io.File;
+import java.util.ArrayList;
 
 public class JoinComputeNext {
   @CompilationFinal private File diskRight;
   private final int kryoOutputBufferSize;
+  private final int kryoInputBufferSize;
+  private final long maxSize; // memory budget for the right rows kept in memory.
+  private final int leftBatchSize; // number of left rows joined with each right block.
   protected final Object leftIterable;
   protected final Object rightIterable;
   private Object leftGen = null;
   private final Object remap;
   private final Object predicate;
-  private Object leftRow = null;
-  private Object rightRow = null;
   Input kryoRight = null;
   private final SnapiTypeWithProperties rightRowType; // grouped key and value types.
   private int spilledRight = 0;
+  private long spilledRightSize = 0; // size in bytes of the right rows.
+  private long reserved = 0; // bytes held in the query memory budget.
   private int readRight = 0;
+  private ArrayList<Object>
+      rightRows; // right rows collected before spilling, as long as they fit in memory.
+  private boolean rightInMemory = false; // the whole right side is held in the right block.
+  private Object[] rightBlock; // block of right rows being joined with the left batch.
+  private int rightBlockCount = 0;
+  private int rightIdx = 0;
+  private Object[] leftBatch; // batch of left rows being joined with the right block.
+  private int leftBatchCount = 0;
+  private int leftIdx = 0;
   private final Boolean reshapeBeforePredicate;
   private final MaterializedFrame frame;
   private final int computeNextSlot;
@@ -48,6 +61,9 @@ public class JoinComputeNext {
       Boolean reshapeBeforePredicate,
       SnapiTypeWithProperties rightRowType,
       int kryoOutputBufferSize,
+      int kryoInputBufferSize,
+      long maxSize,
+      int leftBatchSize,
       MaterializedFrame frame,
       int computeNextSlot,
       int shouldContinueSlot,
@@ -67,6 +83,9 @@ public class JoinComputeNext {
     this.generatorSlot = generatorSlot;
     this.outputBufferSlot = outputBufferSlot;
     this.kryoOutputBufferSize = kryoOutputBufferSize;
+    this.kryoInputBufferSize = kryoInputBufferSize;
+    this.maxSize = maxSize;
+    this.leftBatchSize = leftBatchSize;
   }
 
   public Object getLeftIterable() {
@@ -93,22 +112,6 @@ public class JoinComputeNext {
     return predicate;
   }
 
-  public Object getLeftRow() {
-    return leftRow;
-  }
-
-  public void setLeftRow(Object leftRow) {
-    this.leftRow = leftRow;
-  }
-
-  public Object getRightRow() {
-    return rightRow;
-  }
-
-  public void setRightRow(Object rightRow) {
-    this.rightRow = rightRow;
-  }
-
   public Input getKryoRight() {
     return kryoRight;
   }
@@ -121,6 +124,18 @@ public class JoinComputeNext {
     return kryoOutputBufferSize;
   }
 
+  public int getKryoInputBufferSize() {
+    return kryoInputBufferSize;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public int getLeftBatchSize() {
+    return leftBatchSize;
+  }
+
   public SnapiTypeWithProperties getRightRowType() {
     return rightRowType;
   }
@@ -133,6 +148,22 @@ public class JoinComputeNext {
     this.spilledRight = spilledRight;
   }
 
+  public long getSpilledRightSize() {
+    return spilledRightSize;
+  }
+
+  public void setSpilledRightSize(long spilledRightSize) {
+    this.spilledRightSize = spilledRightSize;
+  }
+
+  public long getReserved() {
+    return reserved;
+  }
+
+  public void setReserved(long reserved) {
+    this.reserved = reserved;
+  }
+
   public int getReadRight() {
     return readRight;
   }
@@ -141,6 +172,70 @@ public class JoinComputeNext {
     this.readRight = readRight;
   }
 
+  public ArrayList<Object> getRightRows() {
+    return rightRows;
+  }
+
+  public void setRightRows(ArrayList<Object> rightRows) {
+    this.rightRows = rightRows;
+  }
+
+  public boolean isRightInMemory() {
+    return rightInMemory;
+  }
+
+  public void setRightInMemory(boolean rightInMemory) {
+    this.rightInMemory = rightInMemory;
+  }
+
+  public Object[] getRightBlock() {
+    return rightBlock;
+  }
+
+  public void setRightBlock(Object[] rightBlock) {
+    this.rightBlock = rightBlock;
+  }
+
+  public int getRightBlockCount() {
+    return rightBlockCount;
+  }
+
+  public void setRightBlockCount(int rightBlockCount) {
+    this.rightBlockCount = rightBlockCount;
+  }
+
+  public int getRightIdx() {
+    return rightIdx;
+  }
+
+  public void setRightIdx(int rightIdx) {
+    this.rightIdx = rightIdx;
+  }
+
+  public Object[] getLeftBatch() {
+    return leftBatch;
+  }
+
+  public void setLeftBatch(Object[] leftBatch) {
+    this.leftBatch = leftBatch;
+  }
+
+  public int getLeftBatchCount() {
+    return leftBatchCount;
+  }
+
+  public void setLeftBatchCount(int leftBatchCount) {
+    this.leftBatchCount = leftBatchCount;
+  }
+
+  public int getLeftIdx() {
+    return leftIdx;
+  }
+
+  public void setLeftIdx(int leftIdx) {
+    this.leftIdx = leftIdx;
+  }
+
   public File getDiskRight() {
     return diskRight;
   }
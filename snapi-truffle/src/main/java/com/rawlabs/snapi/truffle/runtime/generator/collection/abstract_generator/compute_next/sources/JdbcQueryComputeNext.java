@@ -22,6 +22,8 @@ public class JdbcQueryComputeNext {
 
   private final LocationObject dbLocation;
   private final String query;
+  private final String[] columnNames;
+  private final JdbcQuery.ColumnType[] columnTypes;
   private final RawSettings rawSettings;
   private final RootCallTarget rowParserCallTarget;
   private final JdbcExceptionHandler exceptionHandler;
@@ -31,11 +33,15 @@ public class JdbcQueryComputeNext {
   public JdbcQueryComputeNext(
       LocationObject dbLocation,
       String query,
+      String[] columnNames,
+      JdbcQuery.ColumnType[] columnTypes,
       RawSettings rawSettings,
       RootCallTarget rowParserCallTarget,
       JdbcExceptionHandler exceptionHandler) {
     this.dbLocation = dbLocation;
     this.query = query;
+    this.columnNames = columnNames;
+    this.columnTypes = columnTypes;
     this.rawSettings = rawSettings;
     this.rowParserCallTarget = rowParserCallTarget;
     this.exceptionHandler = exceptionHandler;
@@ -46,7 +52,14 @@ public class JdbcQueryComputeNext {
   }
 
   public void init() {
-    this.rs = new JdbcQuery(this.dbLocation, this.query, this.rawSettings, this.exceptionHandler);
+    this.rs =
+        new JdbcQuery(
+            this.dbLocation,
+            this.query,
+            this.columnNames,
+            this.columnTypes,
+            this.rawSettings,
+            this.exceptionHandler);
   }
 
   public void close() {
@@ -15,6 +15,7 @@ package com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generato
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.rawlabs.snapi.truffle.runtime.exceptions.BreakException;
 import com.rawlabs.snapi.truffle.runtime.exceptions.ReadLinesTruffleException;
+import com.rawlabs.snapi.truffle.runtime.utils.SplitScan;
 import com.rawlabs.snapi.truffle.runtime.utils.TruffleCharInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -25,17 +26,30 @@ public class ReadLinesComputeNext {
 
   private BufferedReader reader;
 
+  // lines read by byte ranges on background threads, instead of the reader.
+  private SplitScan scan;
+  private String[] lines = new String[0];
+  private int index = 0;
+
   public ReadLinesComputeNext(TruffleCharInputStream stream) {
     this.stream = stream;
   }
 
+  public TruffleCharInputStream getStream() {
+    return stream;
+  }
+
   @TruffleBoundary
-  public void init() {
-    this.reader = new BufferedReader(stream.getReader());
+  public void init(SplitScan scan) {
+    this.scan = scan;
+    if (scan == null) {
+      this.reader = new BufferedReader(stream.getReader());
+    }
   }
 
   @TruffleBoundary
   public void close() {
+    IOUtils.closeQuietly(scan);
     IOUtils.closeQuietly(reader);
   }
 
@@ -52,6 +66,17 @@ public class ReadLinesComputeNext {
   @TruffleBoundary
   private String readLine() {
     try {
+      if (scan != null) {
+        while (index == lines.length) {
+          lines = scan.nextLines();
+          index = 0;
+          if (lines == null) {
+            lines = new String[0];
+            return null;
+          }
+        }
+        return lines[index++];
+      }
       return this.reader.readLine();
     } catch (IOException e) {
       throw new ReadLinesTruffleException(e.getMessage(), stream, e, null);
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.input_buffer;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.distinct.OffHeapDistinct;
+
+public class DistinctInputBuffer {
+  private final OffHeapDistinct offHeapDistinct;
+  private final Input input;
+  private final int runIndex; // position of the spilled run, used to break ties when merging.
+  private Object key;
+
+  public DistinctInputBuffer(OffHeapDistinct offHeapDistinct, Input input, int runIndex) {
+    this.input = input;
+    this.runIndex = runIndex;
+    this.key = null;
+    this.offHeapDistinct = offHeapDistinct;
+  }
+
+  public void setKey(Object key) {
+    this.key = key;
+  }
+
+  public Input getInput() {
+    return input;
+  }
+
+  public int getRunIndex() {
+    return runIndex;
+  }
+
+  public Object getKey() {
+    return key;
+  }
+
+  public OffHeapDistinct getOffHeapDistinct() {
+    return offHeapDistinct;
+  }
+}
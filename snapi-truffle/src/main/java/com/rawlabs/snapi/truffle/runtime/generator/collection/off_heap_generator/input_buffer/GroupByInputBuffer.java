@@ -19,11 +19,13 @@ import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator
 public class GroupByInputBuffer {
   private final OffHeapGroupByKey offHeapGroupByKey;
   private final Input input;
+  private final int runIndex; // position of the spilled run, used to break ties when merging.
   private Object key;
   private int itemsLeft;
 
-  public GroupByInputBuffer(OffHeapGroupByKey offHeapGroupByKey, Input input) {
+  public GroupByInputBuffer(OffHeapGroupByKey offHeapGroupByKey, Input input, int runIndex) {
     this.input = input;
+    this.runIndex = runIndex;
     this.key = null;
     this.itemsLeft = 0;
     this.offHeapGroupByKey = offHeapGroupByKey;
@@ -46,6 +48,10 @@ public class GroupByInputBuffer {
     return input;
   }
 
+  public int getRunIndex() {
+    return runIndex;
+  }
+
   public Object getKey() {
     return key;
   }
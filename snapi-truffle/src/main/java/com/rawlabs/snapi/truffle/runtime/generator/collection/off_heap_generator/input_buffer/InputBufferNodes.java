@@ -12,11 +12,14 @@
 
 package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.input_buffer;
 
+import com.esotericsoftware.kryo.io.Input;
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.dsl.*;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
 import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodes;
+import com.rawlabs.snapi.truffle.runtime.operators.OperatorNodes;
 
 public class InputBufferNodes {
 
@@ -61,6 +64,21 @@ public class InputBufferNodes {
       }
       return buffer.getKeys();
     }
+
+    @Specialization
+    static Object headKey(
+        Node node,
+        DistinctInputBuffer buffer,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive KryoNodes.KryoReadNode kryoRead) {
+      // read the next key (if it is null, otherwise keep the current one).
+      if (buffer.getKey() == null) {
+        buffer.setKey(
+            kryoRead.execute(
+                thisNode, buffer.getInput(), buffer.getOffHeapDistinct().getItemType()));
+      }
+      return buffer.getKey();
+    }
   }
 
   @NodeInfo(shortName = "InputBuffer.Read")
@@ -97,5 +115,98 @@ public class InputBufferNodes {
       return kryoRead.execute(
           thisNode, buffer.getInput(), buffer.getOffHeapGroupByKey().getRowType());
     }
+
+    @Specialization
+    static Object read(Node node, DistinctInputBuffer buffer) {
+      // distinct runs only contain keys, reading consumes the head key.
+      Object key = buffer.getKey();
+      buffer.setKey(null);
+      return key;
+    }
+  }
+
+  @NodeInfo(shortName = "InputBuffer.Compare")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class InputBufferCompareNode extends Node {
+
+    // Compares the head keys of two buffers. Buffers exposing the same key are ordered by run
+    // index, so that rows sharing a key are merged in the order they were spilled.
+    public abstract int execute(Node node, Object buffer1, Object buffer2);
+
+    @Specialization
+    static int compare(
+        Node node,
+        GroupByInputBuffer buffer1,
+        GroupByInputBuffer buffer2,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive OperatorNodes.CompareNode keyCompare) {
+      int result = keyCompare.execute(thisNode, buffer1.getKey(), buffer2.getKey());
+      if (result != 0) {
+        return result;
+      }
+      return Integer.compare(buffer1.getRunIndex(), buffer2.getRunIndex());
+    }
+
+    @Specialization
+    static int compare(
+        Node node,
+        OrderByInputBuffer buffer1,
+        OrderByInputBuffer buffer2,
+        @Bind("$node") Node thisNode,
+        @Cached OperatorNodes.CompareKeys keysCompare) {
+      int result =
+          keysCompare.execute(
+              thisNode,
+              buffer1.getKeys(),
+              buffer2.getKeys(),
+              buffer1.getOffHeapGroupByKey().getKeyOrderings());
+      if (result != 0) {
+        return result;
+      }
+      return Integer.compare(buffer1.getRunIndex(), buffer2.getRunIndex());
+    }
+
+    @Specialization
+    static int compare(
+        Node node,
+        DistinctInputBuffer buffer1,
+        DistinctInputBuffer buffer2,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive OperatorNodes.CompareNode keyCompare) {
+      int result = keyCompare.execute(thisNode, buffer1.getKey(), buffer2.getKey());
+      if (result != 0) {
+        return result;
+      }
+      return Integer.compare(buffer1.getRunIndex(), buffer2.getRunIndex());
+    }
+  }
+
+  @NodeInfo(shortName = "InputBuffer.Close")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class InputBufferCloseNode extends Node {
+
+    public abstract void execute(Node node, Object buffer);
+
+    @CompilerDirectives.TruffleBoundary
+    static void closeInput(Input input) {
+      input.close();
+    }
+
+    @Specialization
+    static void close(Node node, GroupByInputBuffer buffer) {
+      closeInput(buffer.getInput());
+    }
+
+    @Specialization
+    static void close(Node node, OrderByInputBuffer buffer) {
+      closeInput(buffer.getInput());
+    }
+
+    @Specialization
+    static void close(Node node, DistinctInputBuffer buffer) {
+      closeInput(buffer.getInput());
+    }
   }
 }
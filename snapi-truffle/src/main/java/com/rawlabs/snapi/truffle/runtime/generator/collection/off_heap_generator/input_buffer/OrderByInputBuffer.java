@@ -20,11 +20,13 @@ public class OrderByInputBuffer {
 
   private final OffHeapGroupByKeys offHeapGroupByKeys;
   private final Input input;
+  private final int runIndex; // position of the spilled run, used to break ties when merging.
   private Object[] keys;
   private int itemsLeft;
 
-  public OrderByInputBuffer(OffHeapGroupByKeys offHeapGroupByKeys, Input input) {
+  public OrderByInputBuffer(OffHeapGroupByKeys offHeapGroupByKeys, Input input, int runIndex) {
     this.input = input;
+    this.runIndex = runIndex;
     this.keys = null;
     this.offHeapGroupByKeys = offHeapGroupByKeys;
   }
@@ -46,6 +48,10 @@ public class OrderByInputBuffer {
     return input;
   }
 
+  public int getRunIndex() {
+    return runIndex;
+  }
+
   public Object[] getKeys() {
     return keys;
   }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.merge;
+
+/**
+ * Binary min-heap of input buffers, ordered by their head key. It is used to merge spilled runs:
+ * the buffer exposing the smallest key is always at the root, so picking the next key costs
+ * O(log runs) comparisons instead of a scan of all runs.
+ */
+public class MergeHeap {
+  private final Object[] buffers;
+  private int size;
+
+  public MergeHeap(int capacity) {
+    this.buffers = new Object[capacity];
+    this.size = 0;
+  }
+
+  public Object get(int index) {
+    return buffers[index];
+  }
+
+  public void set(int index, Object buffer) {
+    buffers[index] = buffer;
+  }
+
+  public Object peek() {
+    return buffers[0];
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public void setSize(int size) {
+    this.size = size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+}
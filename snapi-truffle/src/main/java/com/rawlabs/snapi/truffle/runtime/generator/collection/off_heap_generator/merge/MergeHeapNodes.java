@@ -0,0 +1,127 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.merge;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.oracle.truffle.api.dsl.*;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.input_buffer.InputBufferNodes;
+
+public class MergeHeapNodes {
+
+  @NodeInfo(shortName = "MergeHeap.Offer")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class MergeHeapOfferNode extends Node {
+
+    public abstract void execute(Node node, MergeHeap heap, Object buffer);
+
+    @Specialization
+    static void offer(
+        Node node,
+        MergeHeap heap,
+        Object buffer,
+        @Bind("$node") Node thisNode,
+        @Cached InputBufferNodes.InputBufferHeadKeyNode headKeyNode,
+        @Cached InputBufferNodes.InputBufferCloseNode closeNode,
+        @Cached InputBufferNodes.InputBufferCompareNode compareNode) {
+      // make sure the head key of the buffer is loaded, the heap compares buffers by head key.
+      try {
+        headKeyNode.execute(thisNode, buffer);
+      } catch (KryoException e) {
+        // we reached the end of that buffer, it doesn't go back to the heap.
+        closeNode.execute(thisNode, buffer);
+        return;
+      }
+      // sift up from the last position.
+      int idx = heap.getSize();
+      heap.setSize(idx + 1);
+      while (idx > 0) {
+        int parentIdx = (idx - 1) >>> 1;
+        Object parent = heap.get(parentIdx);
+        if (compareNode.execute(thisNode, buffer, parent) >= 0) {
+          break;
+        }
+        heap.set(idx, parent);
+        idx = parentIdx;
+      }
+      heap.set(idx, buffer);
+    }
+  }
+
+  @NodeInfo(shortName = "MergeHeap.Poll")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class MergeHeapPollNode extends Node {
+
+    public abstract Object execute(Node node, MergeHeap heap);
+
+    @Specialization
+    static Object poll(
+        Node node,
+        MergeHeap heap,
+        @Bind("$node") Node thisNode,
+        @Cached InputBufferNodes.InputBufferCompareNode compareNode) {
+      Object top = heap.peek();
+      int size = heap.getSize() - 1;
+      heap.setSize(size);
+      Object last = heap.get(size);
+      heap.set(size, null);
+      if (size > 0) {
+        // sift down the last buffer from the root.
+        int idx = 0;
+        int childIdx = 1;
+        while (childIdx < size) {
+          Object child = heap.get(childIdx);
+          if (childIdx + 1 < size) {
+            Object right = heap.get(childIdx + 1);
+            if (compareNode.execute(thisNode, right, child) < 0) {
+              childIdx++;
+              child = right;
+            }
+          }
+          if (compareNode.execute(thisNode, last, child) <= 0) {
+            break;
+          }
+          heap.set(idx, child);
+          idx = childIdx;
+          childIdx = 2 * idx + 1;
+        }
+        heap.set(idx, last);
+      }
+      return top;
+    }
+  }
+
+  @NodeInfo(shortName = "MergeHeap.Close")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class MergeHeapCloseNode extends Node {
+
+    public abstract void execute(Node node, MergeHeap heap);
+
+    @Specialization
+    static void close(
+        Node node,
+        MergeHeap heap,
+        @Bind("$node") Node thisNode,
+        @Cached InputBufferNodes.InputBufferCloseNode closeNode) {
+      for (int idx = 0; idx < heap.getSize(); idx++) {
+        closeNode.execute(thisNode, heap.get(idx));
+        heap.set(idx, null);
+      }
+      heap.setSize(0);
+    }
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.merge;
+
+import static com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers.*;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.unsafe.UnsafeOutput;
+import com.oracle.truffle.api.dsl.*;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.input_buffer.DistinctInputBuffer;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.input_buffer.GroupByInputBuffer;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.input_buffer.InputBufferNodes;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.input_buffer.OrderByInputBuffer;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.distinct.OffHeapDistinct;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapGroupByKey;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.order_by.OffHeapGroupByKeys;
+import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodes;
+import com.rawlabs.snapi.truffle.runtime.operators.OperatorNodes;
+import java.io.File;
+import java.util.ArrayList;
+
+public class RunMergeNodes {
+
+  // Reduces the number of spilled runs to at most the merge fan-in of the operator, so that the
+  // final merge keeps a bounded number of files open. Consecutive runs are merged together in
+  // several passes, which keeps rows sharing a key in the order they were spilled.
+  @NodeInfo(shortName = "OffHeap.MergeRuns")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class RunMergeNode extends Node {
+
+    public abstract void execute(Node node, Object offHeap);
+
+    @Specialization
+    static void merge(
+        Node node,
+        OffHeapGroupByKey offHeapGroupByKey,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Shared("mergeRunGroup") RunGroupMergeNode mergeNode) {
+      mergeRuns(
+          thisNode,
+          offHeapGroupByKey,
+          offHeapGroupByKey.getSpilledBuffers(),
+          offHeapGroupByKey.getMergeFanIn(),
+          offHeapGroupByKey.getKryoInputBufferSize(),
+          offHeapGroupByKey.getKryoOutputBufferSize(),
+          "groupby.",
+          mergeNode);
+    }
+
+    @Specialization
+    static void merge(
+        Node node,
+        OffHeapGroupByKeys offHeapGroupByKeys,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Shared("mergeRunGroup") RunGroupMergeNode mergeNode) {
+      mergeRuns(
+          thisNode,
+          offHeapGroupByKeys,
+          offHeapGroupByKeys.getSpilledBuffers(),
+          offHeapGroupByKeys.getMergeFanIn(),
+          offHeapGroupByKeys.getKryoInputBufferSize(),
+          offHeapGroupByKeys.getKryoOutputBufferSize(),
+          "orderby.",
+          mergeNode);
+    }
+
+    @Specialization
+    static void merge(
+        Node node,
+        OffHeapDistinct offHeapDistinct,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Shared("mergeRunGroup") RunGroupMergeNode mergeNode) {
+      mergeRuns(
+          thisNode,
+          offHeapDistinct,
+          offHeapDistinct.getSpilledBuffers(),
+          offHeapDistinct.getMergeFanIn(),
+          offHeapDistinct.getKryoInputBufferSize(),
+          offHeapDistinct.getKryoOutputBufferSize(),
+          "distinct.",
+          mergeNode);
+    }
+
+    private static void mergeRuns(
+        Node node,
+        Object offHeap,
+        ArrayList<File> runs,
+        int fanIn,
+        int kryoInputBufferSize,
+        int kryoOutputBufferSize,
+        String prefix,
+        RunGroupMergeNode mergeNode) {
+      while (runs.size() > fanIn) {
+        ArrayList<File> mergedRuns = new ArrayList<>();
+        for (int from = 0; from < runs.size(); from += fanIn) {
+          int to = Math.min(from + fanIn, runs.size());
+          if (to - from == 1) {
+            // a single run left, nothing to merge it with.
+            mergedRuns.add(runs.get(from));
+            continue;
+          }
+          Input[] inputs = new Input[to - from];
+          for (int idx = from; idx < to; idx++) {
+            inputs[idx - from] = openSpilledFile(runs.get(idx), kryoInputBufferSize, node);
+          }
+          File file = newScratchFile(prefix, node);
+          Output kryoOutput = new UnsafeOutput(openScratchFile(file, node), kryoOutputBufferSize);
+          mergeNode.execute(node, offHeap, inputs, kryoOutput);
+          kryoOutputClose(kryoOutput);
+          for (int idx = from; idx < to; idx++) {
+            deleteSpilledFile(runs.get(idx));
+          }
+          mergedRuns.add(file);
+        }
+        runs.clear();
+        runs.addAll(mergedRuns);
+      }
+    }
+  }
+
+  // Merges a group of runs of an operator into a single run, written to `kryoOutput`.
+  @NodeInfo(shortName = "OffHeap.MergeRunGroup")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class RunGroupMergeNode extends Node {
+
+    public abstract void execute(Node node, Object offHeap, Input[] inputs, Output kryoOutput);
+
+    @Specialization
+    static void merge(
+        Node node,
+        OffHeapGroupByKey offHeapGroupByKey,
+        Input[] inputs,
+        Output kryoOutput,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapPollNode pollNode,
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapOfferNode offerNode,
+        @Cached @Cached.Exclusive OperatorNodes.CompareNode keyCompare,
+        @Cached @Cached.Exclusive InputBufferNodes.InputBufferReadNode readNode,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer1,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer2) {
+      MergeHeap mergeHeap = new MergeHeap(inputs.length);
+      for (int idx = 0; idx < inputs.length; idx++) {
+        offerNode.execute(
+            thisNode, mergeHeap, new GroupByInputBuffer(offHeapGroupByKey, inputs[idx], idx));
+      }
+      GroupByInputBuffer[] matchingBuffers = new GroupByInputBuffer[inputs.length];
+      while (!mergeHeap.isEmpty()) {
+        GroupByInputBuffer first = (GroupByInputBuffer) pollNode.execute(thisNode, mergeHeap);
+        Object key = first.getKey();
+        matchingBuffers[0] = first;
+        int nMatchingBuffers = 1;
+        int numberOfRows = first.getItemsLeft();
+        while (!mergeHeap.isEmpty()
+            && keyCompare.execute(thisNode, key, ((GroupByInputBuffer) mergeHeap.peek()).getKey())
+                == 0) {
+          GroupByInputBuffer inputBuffer =
+              (GroupByInputBuffer) pollNode.execute(thisNode, mergeHeap);
+          matchingBuffers[nMatchingBuffers++] = inputBuffer;
+          numberOfRows += inputBuffer.getItemsLeft();
+        }
+        // write key, then n, then values.
+        writer1.execute(thisNode, kryoOutput, offHeapGroupByKey.getKeyType(), key);
+        kryoWriteInt(kryoOutput, numberOfRows);
+        for (int idx = 0; idx < nMatchingBuffers; idx++) {
+          GroupByInputBuffer inputBuffer = matchingBuffers[idx];
+          matchingBuffers[idx] = null;
+          int inThatBuffer = inputBuffer.getItemsLeft();
+          for (int i = 0; i < inThatBuffer; i++) {
+            writer2.execute(
+                thisNode,
+                kryoOutput,
+                offHeapGroupByKey.getRowType(),
+                readNode.execute(thisNode, inputBuffer));
+          }
+          offerNode.execute(thisNode, mergeHeap, inputBuffer);
+        }
+      }
+    }
+
+    @Specialization
+    static void merge(
+        Node node,
+        OffHeapGroupByKeys offHeapGroupByKeys,
+        Input[] inputs,
+        Output kryoOutput,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapPollNode pollNode,
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapOfferNode offerNode,
+        @Cached OperatorNodes.CompareKeys keysCompare,
+        @Cached @Cached.Exclusive InputBufferNodes.InputBufferReadNode readNode,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer1,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer2) {
+      MergeHeap mergeHeap = new MergeHeap(inputs.length);
+      for (int idx = 0; idx < inputs.length; idx++) {
+        offerNode.execute(
+            thisNode, mergeHeap, new OrderByInputBuffer(offHeapGroupByKeys, inputs[idx], idx));
+      }
+      OrderByInputBuffer[] matchingBuffers = new OrderByInputBuffer[inputs.length];
+      while (!mergeHeap.isEmpty()) {
+        OrderByInputBuffer first = (OrderByInputBuffer) pollNode.execute(thisNode, mergeHeap);
+        Object[] keys = first.getKeys();
+        matchingBuffers[0] = first;
+        int nMatchingBuffers = 1;
+        int numberOfRows = first.getItemsLeft();
+        while (!mergeHeap.isEmpty()
+            && keysCompare.execute(
+                    thisNode,
+                    keys,
+                    ((OrderByInputBuffer) mergeHeap.peek()).getKeys(),
+                    offHeapGroupByKeys.getKeyOrderings())
+                == 0) {
+          OrderByInputBuffer inputBuffer =
+              (OrderByInputBuffer) pollNode.execute(thisNode, mergeHeap);
+          matchingBuffers[nMatchingBuffers++] = inputBuffer;
+          numberOfRows += inputBuffer.getItemsLeft();
+        }
+        // write keys, then n, then values.
+        for (int i = 0; i < offHeapGroupByKeys.getKeyTypes().length; i++) {
+          writer1.execute(thisNode, kryoOutput, offHeapGroupByKeys.getKeyTypes()[i], keys[i]);
+        }
+        kryoWriteInt(kryoOutput, numberOfRows);
+        for (int idx = 0; idx < nMatchingBuffers; idx++) {
+          OrderByInputBuffer inputBuffer = matchingBuffers[idx];
+          matchingBuffers[idx] = null;
+          int inThatBuffer = inputBuffer.getItemsLeft();
+          for (int i = 0; i < inThatBuffer; i++) {
+            writer2.execute(
+                thisNode,
+                kryoOutput,
+                offHeapGroupByKeys.getRowType(),
+                readNode.execute(thisNode, inputBuffer));
+          }
+          offerNode.execute(thisNode, mergeHeap, inputBuffer);
+        }
+      }
+    }
+
+    @Specialization
+    static void merge(
+        Node node,
+        OffHeapDistinct offHeapDistinct,
+        Input[] inputs,
+        Output kryoOutput,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapPollNode pollNode,
+        @Cached @Cached.Exclusive MergeHeapNodes.MergeHeapOfferNode offerNode,
+        @Cached @Cached.Exclusive OperatorNodes.CompareNode keyCompare,
+        @Cached @Cached.Exclusive InputBufferNodes.InputBufferReadNode readNode,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer) {
+      MergeHeap mergeHeap = new MergeHeap(inputs.length);
+      for (int idx = 0; idx < inputs.length; idx++) {
+        offerNode.execute(
+            thisNode, mergeHeap, new DistinctInputBuffer(offHeapDistinct, inputs[idx], idx));
+      }
+      while (!mergeHeap.isEmpty()) {
+        DistinctInputBuffer first = (DistinctInputBuffer) pollNode.execute(thisNode, mergeHeap);
+        Object key = readNode.execute(thisNode, first);
+        offerNode.execute(thisNode, mergeHeap, first);
+        // drop the other occurrences of the same key.
+        while (!mergeHeap.isEmpty()
+            && keyCompare.execute(thisNode, key, ((DistinctInputBuffer) mergeHeap.peek()).getKey())
+                == 0) {
+          DistinctInputBuffer inputBuffer =
+              (DistinctInputBuffer) pollNode.execute(thisNode, mergeHeap);
+          readNode.execute(thisNode, inputBuffer);
+          offerNode.execute(thisNode, mergeHeap, inputBuffer);
+        }
+        writer.execute(thisNode, kryoOutput, offHeapDistinct.getItemType(), key);
+      }
+    }
+  }
+}
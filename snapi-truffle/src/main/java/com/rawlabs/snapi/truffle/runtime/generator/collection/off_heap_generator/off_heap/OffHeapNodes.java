@@ -14,25 +14,46 @@ package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generato
 
 import static com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers.*;
 
+import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.unsafe.UnsafeOutput;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.*;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeInfo;
+import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
+import com.rawlabs.snapi.truffle.ast.expressions.aggregation.AggregatorNodes;
+import com.rawlabs.snapi.truffle.runtime.data_structures.hashmap.HashMapNodes;
+import com.rawlabs.snapi.truffle.runtime.data_structures.hashmap.HashMapObject;
 import com.rawlabs.snapi.truffle.runtime.data_structures.treemap.TreeMapIterator;
 import com.rawlabs.snapi.truffle.runtime.data_structures.treemap.TreeMapNode;
 import com.rawlabs.snapi.truffle.runtime.data_structures.treemap.TreeMapNodes;
+import com.rawlabs.snapi.truffle.runtime.data_structures.treemap.TreeMapObject;
+import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
+import com.rawlabs.snapi.truffle.runtime.function.FunctionExecuteNodes;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.merge.RunMergeNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.distinct.DistinctMemoryGenerator;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.distinct.DistinctSpilledFilesGenerator;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.distinct.OffHeapDistinct;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.GroupAggregations;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.GroupByMemoryGenerator;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.GroupBySpilledFilesGenerator;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.HashAggregationGenerator;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.HashGroupByGenerator;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapGroupByKey;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapHashAggregation;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapHashGroupBy;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.hash_partitions.HashPartitions;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.order_by.OffHeapGroupByKeys;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.order_by.OrderByMemoryGenerator;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.order_by.OrderBySpilledFilesGenerator;
 import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodes;
+import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.operators.OperatorNodes;
+import com.rawlabs.snapi.truffle.runtime.primitives.ErrorObject;
+import com.rawlabs.snapi.truffle.runtime.utils.MemoryBudget;
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 
 public class OffHeapNodes {
   @NodeInfo(shortName = "OffHeap.Put")
@@ -49,47 +70,110 @@ public class OffHeapNodes {
         Object key,
         Object value,
         @Bind("$node") Node thisNode,
-        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer1,
-        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer2,
-        @Cached TreeMapNodes.TreeMapGetOrCreate putIfNotExistNode) {
+        @Cached @Cached.Exclusive KryoNodes.KryoFootPrintNode keyFootPrint,
+        @Cached @Cached.Exclusive KryoNodes.KryoFootPrintNode rowFootPrint,
+        @Cached TreeMapNodes.TreeMapGetOrCreate putIfNotExistNode,
+        @Cached @Cached.Exclusive OffHeapFlushNode flushNode) {
       @SuppressWarnings("unchecked")
       ArrayList<Object> list =
           (ArrayList<Object>)
               putIfNotExistNode.execute(thisNode, offHeapGroupByKey.getMemMap(), key);
-      // add the size of the key to the memory footprint. (Row size added below in main path.)
+      // add the size of the row, and of the key if it is new, to the memory footprint.
+      long bytes = rowFootPrint.execute(thisNode, offHeapGroupByKey.getRowType(), value);
       if (list.isEmpty()) {
-        offHeapGroupByKey.setSize(offHeapGroupByKey.getSize() + offHeapGroupByKey.getKeySize());
+        bytes += keyFootPrint.execute(thisNode, offHeapGroupByKey.getKeyType(), key);
       }
 
       list.add(value);
-      // add the size of the row to the memory footprint.
-      offHeapGroupByKey.setSize(offHeapGroupByKey.getSize() + offHeapGroupByKey.getRowSize());
-
-      if (offHeapGroupByKey.getSize() >= offHeapGroupByKey.getMaxSize()) {
-        // flush
-        Output kryoOutput =
-            new UnsafeOutput(
-                getGroupByKeyNewDiskBuffer(offHeapGroupByKey, thisNode),
-                offHeapGroupByKey.getKryoOutputBufferSize());
-        TreeMapIterator iterator = offHeapGroupByKey.getMemMap().iterator();
-
-        while (iterator.hasNext()) {
-          TreeMapNode treeNode = iterator.nextNode();
-          @SuppressWarnings("unchecked")
-          ArrayList<Object> values = (ArrayList<Object>) treeNode.getValue();
-          // write key, then n, then values.
-          writer1.execute(thisNode, kryoOutput, offHeapGroupByKey.getKeyType(), treeNode.getKey());
-          kryoWriteInt(kryoOutput, values.size());
-          for (Object v : values) {
-            writer2.execute(thisNode, kryoOutput, offHeapGroupByKey.getRowType(), v);
-          }
+      offHeapGroupByKey.setSize(offHeapGroupByKey.getSize() + bytes);
+
+      MemoryBudget budget = getMemoryBudget(thisNode);
+      if (budget.reserve(bytes, offHeapGroupByKey.getSize(), offHeapGroupByKey.getMaxSize())) {
+        flushNode.execute(thisNode, offHeapGroupByKey);
+      }
+    }
+
+    @Specialization
+    static void put(
+        Node node,
+        OffHeapHashGroupBy offHeapHashGroupBy,
+        Object key,
+        Object value,
+        @Bind("$node") Node thisNode,
+        @Cached HashMapNodes.HashMapGetOrCreate getOrCreateNode,
+        @Cached @Cached.Exclusive KryoNodes.KryoFootPrintNode keyFootPrint,
+        @Cached @Cached.Exclusive KryoNodes.KryoFootPrintNode rowFootPrint,
+        @Cached @Cached.Exclusive OffHeapHashGroupBySpillNode spillNode) {
+      @SuppressWarnings("unchecked")
+      ArrayList<Object> list =
+          (ArrayList<Object>)
+              getOrCreateNode.execute(thisNode, offHeapHashGroupBy.getMemMap(), key);
+      // add the size of the row, and of the key if it is new, to the memory footprint.
+      long bytes = rowFootPrint.execute(thisNode, offHeapHashGroupBy.getRowType(), value);
+      if (list.isEmpty()) {
+        bytes += keyFootPrint.execute(thisNode, offHeapHashGroupBy.getKeyType(), key);
+      }
+
+      list.add(value);
+      offHeapHashGroupBy.setSize(offHeapHashGroupBy.getSize() + bytes);
+
+      MemoryBudget budget = getMemoryBudget(thisNode);
+      if (budget.reserve(bytes, offHeapHashGroupBy.getSize(), offHeapHashGroupBy.getMaxSize())) {
+        spillNode.execute(thisNode, offHeapHashGroupBy);
+      }
+    }
+
+    @Specialization
+    static void put(
+        Node node,
+        OffHeapHashAggregation offHeapHashAggregation,
+        Object key,
+        Object value,
+        @Bind("$node") Node thisNode,
+        @Cached HashMapNodes.HashMapGet getNode,
+        @Cached HashMapNodes.HashMapPut putNode,
+        @Cached AggregatorNodes.Zero zeroNode,
+        @Cached AggregatorNodes.Merge mergeNode,
+        @Cached FunctionExecuteNodes.FunctionExecuteOne functionExecuteOneNode,
+        @Cached @Cached.Exclusive KryoNodes.KryoFootPrintNode keyFootPrint,
+        @Cached @Cached.Exclusive OffHeapHashAggregationSpillNode spillNode) {
+      GroupAggregations aggregations = offHeapHashAggregation.getAggregations();
+      byte[] aggregationTypes = aggregations.getAggregationTypes();
+      Object[] functions = aggregations.getFunctions();
+      HashMapObject memMap = offHeapHashAggregation.getMemMap();
+      Object[] results = (Object[]) getNode.execute(thisNode, memMap, key);
+      long bytes = 0;
+      if (results == null) {
+        results = new Object[aggregationTypes.length];
+        for (int i = 0; i < aggregationTypes.length; i++) {
+          results[i] = zeroNode.execute(thisNode, aggregationTypes[i]);
         }
+        putNode.execute(thisNode, memMap, key, results);
+        // add the size of the key and of its results to the memory footprint.
+        bytes =
+            keyFootPrint.execute(thisNode, offHeapHashAggregation.getKeyType(), key)
+                + offHeapHashAggregation.getResultsSize();
+        offHeapHashAggregation.setSize(offHeapHashAggregation.getSize() + bytes);
+      }
 
-        kryoOutputClose(kryoOutput);
-        // reset both the memory map and memory footprint.
+      for (int i = 0; i < aggregationTypes.length; i++) {
+        if (GroupAggregations.hasFailed(aggregationTypes[i], results[i])) {
+          continue;
+        }
+        try {
+          Object v =
+              functions[i] == null
+                  ? value
+                  : functionExecuteOneNode.execute(thisNode, functions[i], value);
+          results[i] = mergeNode.execute(thisNode, aggregationTypes[i], results[i], v);
+        } catch (TruffleRuntimeException e) {
+          results[i] = new ErrorObject(e.getMessage());
+        }
+      }
 
-        offHeapGroupByKey.getMemMap().clear();
-        offHeapGroupByKey.setSize(0);
+      if (getMemoryBudget(thisNode)
+          .reserve(bytes, offHeapHashAggregation.getSize(), offHeapHashAggregation.getMaxSize())) {
+        spillNode.execute(thisNode, offHeapHashAggregation);
       }
     }
 
@@ -100,9 +184,10 @@ public class OffHeapNodes {
         Object[] keys,
         Object value,
         @Bind("$node") Node thisNode,
-        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer1,
-        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer2,
-        @Cached TreeMapNodes.TreeMapGetOrCreateArrayKeysNode getOrCreateArrayKeysNode) {
+        @Cached @Cached.Exclusive KryoNodes.KryoFootPrintNode keyFootPrint,
+        @Cached @Cached.Exclusive KryoNodes.KryoFootPrintNode rowFootPrint,
+        @Cached TreeMapNodes.TreeMapGetOrCreateArrayKeysNode getOrCreateArrayKeysNode,
+        @Cached @Cached.Exclusive OffHeapFlushNode flushNode) {
       @SuppressWarnings("unchecked")
       ArrayList<Object> list =
           (ArrayList<Object>)
@@ -112,40 +197,19 @@ public class OffHeapNodes {
                   keys,
                   offHeapGroupByKeys.getKeyOrderings());
 
+      // add the size of the row, and of the keys if they are new, to the memory footprint.
+      long bytes = rowFootPrint.execute(thisNode, offHeapGroupByKeys.getRowType(), value);
       if (list.isEmpty()) {
-        offHeapGroupByKeys.setSize(offHeapGroupByKeys.getSize() + offHeapGroupByKeys.getKeysSize());
+        for (int i = 0; i < keys.length; i++) {
+          bytes += keyFootPrint.execute(thisNode, offHeapGroupByKeys.getKeyTypes()[i], keys[i]);
+        }
       }
 
       list.add(value);
-      // add the size of the row to the memory footprint.
-      offHeapGroupByKeys.setSize(offHeapGroupByKeys.getSize() + offHeapGroupByKeys.getRowSize());
-      if (offHeapGroupByKeys.getSize() >= offHeapGroupByKeys.getMaxSize()) {
-        // flush
-        Output kryoOutput =
-            new UnsafeOutput(
-                groupByKeysNextFile(offHeapGroupByKeys, thisNode),
-                offHeapGroupByKeys.getKryoOutputBufferSize());
-        TreeMapIterator iterator = offHeapGroupByKeys.getMemMap().iterator();
-
-        while (iterator.hasNext()) {
-          TreeMapNode treeNode = iterator.nextNode();
-          // write keys, then n, then values.
-          for (int i = 0; i < offHeapGroupByKeys.getKeyTypes().length; i++) {
-            Object[] k = (Object[]) treeNode.getKey();
-            writer1.execute(thisNode, kryoOutput, offHeapGroupByKeys.getKeyTypes()[i], k[i]);
-          }
-          @SuppressWarnings("unchecked")
-          ArrayList<Object> values = (ArrayList<Object>) treeNode.getValue();
-          kryoWriteInt(kryoOutput, values.size());
-          for (Object v : values) {
-            writer2.execute(thisNode, kryoOutput, offHeapGroupByKeys.getRowType(), v);
-          }
-        }
-
-        kryoOutputClose(kryoOutput);
-        // reset the memory map and footprint
-        offHeapGroupByKeys.getMemMap().clear();
-        offHeapGroupByKeys.setSize(0);
+      offHeapGroupByKeys.setSize(offHeapGroupByKeys.getSize() + bytes);
+      MemoryBudget budget = getMemoryBudget(thisNode);
+      if (budget.reserve(bytes, offHeapGroupByKeys.getSize(), offHeapGroupByKeys.getMaxSize())) {
+        flushNode.execute(thisNode, offHeapGroupByKeys);
       }
     }
 
@@ -156,120 +220,580 @@ public class OffHeapNodes {
         Object item,
         Object value,
         @Bind("$node") Node thisNode,
-        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer,
-        @Cached @Cached.Exclusive TreeMapNodes.TreeMapGetOrCreateDistinct addDistinct) {
+        @Cached @Cached.Exclusive KryoNodes.KryoFootPrintNode itemFootPrint,
+        @Cached @Cached.Exclusive TreeMapNodes.TreeMapGetOrCreateDistinct addDistinct,
+        @Cached @Cached.Exclusive OffHeapFlushNode flushNode) {
       // append the value to the list of values for the key.
       boolean added = addDistinct.execute(thisNode, offHeapDistinct.getIndex(), item);
       if (added) {
-        offHeapDistinct.setBinarySize(
-            offHeapDistinct.getBinarySize() + offHeapDistinct.getItemSize());
-        if (offHeapDistinct.getBinarySize() >= offHeapDistinct.getBlockSize()) {
-          // flush
-          Output kryoOutput =
-              new UnsafeOutput(
-                  distinctNextFile(offHeapDistinct, node),
-                  offHeapDistinct.getKryoInputBufferSize());
-          TreeMapIterator iterator = offHeapDistinct.getIndex().iterator();
-
-          while (iterator.hasNext()) {
-            Object key = iterator.nextKey();
-            writer.execute(thisNode, kryoOutput, offHeapDistinct.getItemType(), key);
-          }
-
-          kryoOutputClose(kryoOutput);
-          // reset the memory map and footprint
-          offHeapDistinct.getIndex().clear();
-          offHeapDistinct.setBinarySize(0);
+        long bytes = itemFootPrint.execute(thisNode, offHeapDistinct.getItemType(), item);
+        offHeapDistinct.setBinarySize(offHeapDistinct.getBinarySize() + bytes);
+        MemoryBudget budget = getMemoryBudget(thisNode);
+        if (budget.reserve(
+            bytes, offHeapDistinct.getBinarySize(), offHeapDistinct.getBlockSize())) {
+          flushNode.execute(thisNode, offHeapDistinct);
         }
       }
     }
+
+    @Specialization
+    static void put(
+        Node node,
+        HashPartitions partitions,
+        Object key,
+        Object value,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer1,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer2,
+        @Cached OperatorNodes.HashNode hashNode) {
+      int p = partitions.partitionOf(hashNode.execute(thisNode, key));
+      Output kryoOutput = hashPartitionOutput(partitions, p, thisNode);
+      // write key, then the row.
+      writer1.execute(thisNode, kryoOutput, partitions.getKeyType(), key);
+      writer2.execute(thisNode, kryoOutput, partitions.getRowType(), value);
+      partitions.getCounts()[p]++;
+    }
   }
 
-  @NodeInfo(shortName = "OffHeap.Generator")
+  // Writes the in-memory run of an off-heap operator, in the order of its tree map, to a new
+  // spilled file, and starts a new run. With polyglot worker threads, a worker serializes and
+  // writes the run while the query thread fills the next one. The memory of the run stays reserved
+  // until it is written.
+  @NodeInfo(shortName = "OffHeap.Flush")
   @GenerateUncached
   @GenerateInline
-  public abstract static class OffHeapGeneratorNode extends Node {
+  public abstract static class OffHeapFlushNode extends Node {
 
-    public abstract Object execute(Node node, Object offHeap);
+    private static final KryoNodes.KryoWriteNode uncachedWriter =
+        KryoNodesFactory.KryoWriteNodeGen.getUncached();
 
-    @Specialization(guards = "offHeapGroupByKey.getSpilledBuffers().isEmpty()")
-    static GroupByMemoryGenerator generator(Node node, OffHeapGroupByKey offHeapGroupByKey) {
-      return new GroupByMemoryGenerator(offHeapGroupByKey);
-    }
+    public abstract void execute(Node node, Object offHeap);
 
-    @Specialization(guards = "!offHeapGroupByKey.getSpilledBuffers().isEmpty()")
-    static GroupBySpilledFilesGenerator generator(
+    @Specialization
+    static void flush(
         Node node,
         OffHeapGroupByKey offHeapGroupByKey,
         @Bind("$node") Node thisNode,
         @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer1,
         @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer2) {
-      // flush
+      TreeMapObject run = offHeapGroupByKey.getMemMap();
+      long size = offHeapGroupByKey.getSize();
       Output kryoOutput =
           new UnsafeOutput(
               getGroupByKeyNewDiskBuffer(offHeapGroupByKey, thisNode),
               offHeapGroupByKey.getKryoOutputBufferSize());
-      TreeMapIterator iterator = offHeapGroupByKey.getMemMap().iterator();
+      offHeapGroupByKey.setMemMap(new TreeMapObject());
+      offHeapGroupByKey.setSize(0);
+      if (getRunWriterExecutor(thisNode) == null) {
+        writeRun(thisNode, writer1, writer2, offHeapGroupByKey, run, kryoOutput);
+        releaseMemory(thisNode, size);
+      } else {
+        offHeapGroupByKey.setPendingRun(
+            writeRunInBackground(offHeapGroupByKey, run, kryoOutput, size, thisNode));
+      }
+    }
 
+    @TruffleBoundary
+    private static Future<?> writeRunInBackground(
+        OffHeapGroupByKey offHeapGroupByKey,
+        TreeMapObject run,
+        Output kryoOutput,
+        long size,
+        Node node) {
+      return submitRun(
+          offHeapGroupByKey.getPendingRun(),
+          () ->
+              writeRun(null, uncachedWriter, uncachedWriter, offHeapGroupByKey, run, kryoOutput),
+          size,
+          node);
+    }
+
+    private static void writeRun(
+        Node node,
+        KryoNodes.KryoWriteNode writer1,
+        KryoNodes.KryoWriteNode writer2,
+        OffHeapGroupByKey offHeapGroupByKey,
+        TreeMapObject run,
+        Output kryoOutput) {
+      TreeMapIterator iterator = run.iterator();
       while (iterator.hasNext()) {
         TreeMapNode treeNode = iterator.nextNode();
         @SuppressWarnings("unchecked")
         ArrayList<Object> values = (ArrayList<Object>) treeNode.getValue();
         // write key, then n, then values.
-        writer1.execute(thisNode, kryoOutput, offHeapGroupByKey.getKeyType(), treeNode.getKey());
+        writer1.execute(node, kryoOutput, offHeapGroupByKey.getKeyType(), treeNode.getKey());
         kryoWriteInt(kryoOutput, values.size());
-        for (Object value : values) {
-          writer2.execute(thisNode, kryoOutput, offHeapGroupByKey.getRowType(), value);
+        for (Object v : values) {
+          writer2.execute(node, kryoOutput, offHeapGroupByKey.getRowType(), v);
         }
       }
-
       kryoOutputClose(kryoOutput);
-      // reset both the memory map and memory footprint.
-
-      offHeapGroupByKey.getMemMap().clear();
-      offHeapGroupByKey.setSize(0);
-
-      return new GroupBySpilledFilesGenerator(offHeapGroupByKey);
-    }
-
-    @Specialization(guards = "offHeapGroupByKeys.getSpilledBuffers().isEmpty()")
-    static OrderByMemoryGenerator generator(Node node, OffHeapGroupByKeys offHeapGroupByKeys) {
-      return new OrderByMemoryGenerator(offHeapGroupByKeys);
     }
 
-    @Specialization(guards = "!offHeapGroupByKeys.getSpilledBuffers().isEmpty()")
-    static OrderBySpilledFilesGenerator generator(
+    @Specialization
+    static void flush(
         Node node,
         OffHeapGroupByKeys offHeapGroupByKeys,
         @Bind("$node") Node thisNode,
         @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer1,
         @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer2) {
-      // flush
+      TreeMapObject run = offHeapGroupByKeys.getMemMap();
+      long size = offHeapGroupByKeys.getSize();
       Output kryoOutput =
           new UnsafeOutput(
               groupByKeysNextFile(offHeapGroupByKeys, thisNode),
               offHeapGroupByKeys.getKryoOutputBufferSize());
-      TreeMapIterator iterator = offHeapGroupByKeys.getMemMap().iterator();
+      offHeapGroupByKeys.setMemMap(new TreeMapObject());
+      offHeapGroupByKeys.setSize(0);
+      if (getRunWriterExecutor(thisNode) == null) {
+        writeRun(thisNode, writer1, writer2, offHeapGroupByKeys, run, kryoOutput);
+        releaseMemory(thisNode, size);
+      } else {
+        offHeapGroupByKeys.setPendingRun(
+            writeRunInBackground(offHeapGroupByKeys, run, kryoOutput, size, thisNode));
+      }
+    }
+
+    @TruffleBoundary
+    private static Future<?> writeRunInBackground(
+        OffHeapGroupByKeys offHeapGroupByKeys,
+        TreeMapObject run,
+        Output kryoOutput,
+        long size,
+        Node node) {
+      return submitRun(
+          offHeapGroupByKeys.getPendingRun(),
+          () ->
+              writeRun(null, uncachedWriter, uncachedWriter, offHeapGroupByKeys, run, kryoOutput),
+          size,
+          node);
+    }
 
+    private static void writeRun(
+        Node node,
+        KryoNodes.KryoWriteNode writer1,
+        KryoNodes.KryoWriteNode writer2,
+        OffHeapGroupByKeys offHeapGroupByKeys,
+        TreeMapObject run,
+        Output kryoOutput) {
+      TreeMapIterator iterator = run.iterator();
       while (iterator.hasNext()) {
         TreeMapNode treeNode = iterator.nextNode();
         // write keys, then n, then values.
         for (int i = 0; i < offHeapGroupByKeys.getKeyTypes().length; i++) {
           Object[] k = (Object[]) treeNode.getKey();
-          writer1.execute(thisNode, kryoOutput, offHeapGroupByKeys.getKeyTypes()[i], k[i]);
+          writer1.execute(node, kryoOutput, offHeapGroupByKeys.getKeyTypes()[i], k[i]);
         }
         @SuppressWarnings("unchecked")
         ArrayList<Object> values = (ArrayList<Object>) treeNode.getValue();
         kryoWriteInt(kryoOutput, values.size());
         for (Object v : values) {
-          writer2.execute(thisNode, kryoOutput, offHeapGroupByKeys.getRowType(), v);
+          writer2.execute(node, kryoOutput, offHeapGroupByKeys.getRowType(), v);
         }
       }
+      kryoOutputClose(kryoOutput);
+    }
+
+    @Specialization
+    static void flush(
+        Node node,
+        OffHeapDistinct offHeapDistinct,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer) {
+      TreeMapObject run = offHeapDistinct.getIndex();
+      long size = offHeapDistinct.getBinarySize();
+      Output kryoOutput =
+          new UnsafeOutput(
+              distinctNextFile(offHeapDistinct, thisNode),
+              offHeapDistinct.getKryoInputBufferSize());
+      offHeapDistinct.setIndex(new TreeMapObject());
+      offHeapDistinct.setBinarySize(0);
+      if (getRunWriterExecutor(thisNode) == null) {
+        writeRun(thisNode, writer, offHeapDistinct, run, kryoOutput);
+        releaseMemory(thisNode, size);
+      } else {
+        offHeapDistinct.setPendingRun(
+            writeRunInBackground(offHeapDistinct, run, kryoOutput, size, thisNode));
+      }
+    }
+
+    @TruffleBoundary
+    private static Future<?> writeRunInBackground(
+        OffHeapDistinct offHeapDistinct,
+        TreeMapObject run,
+        Output kryoOutput,
+        long size,
+        Node node) {
+      return submitRun(
+          offHeapDistinct.getPendingRun(),
+          () -> writeRun(null, uncachedWriter, offHeapDistinct, run, kryoOutput),
+          size,
+          node);
+    }
 
+    private static void writeRun(
+        Node node,
+        KryoNodes.KryoWriteNode writer,
+        OffHeapDistinct offHeapDistinct,
+        TreeMapObject run,
+        Output kryoOutput) {
+      TreeMapIterator iterator = run.iterator();
+      while (iterator.hasNext()) {
+        Object key = iterator.nextKey();
+        writer.execute(node, kryoOutput, offHeapDistinct.getItemType(), key);
+      }
       kryoOutputClose(kryoOutput);
-      // reset the memory map and footprint
-      offHeapGroupByKeys.getMemMap().clear();
-      offHeapGroupByKeys.setSize(0);
+    }
+  }
+
+  @NodeInfo(shortName = "OffHeap.HashGroupBySpill")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class OffHeapHashGroupBySpillNode extends Node {
+
+    public abstract void execute(Node node, OffHeapHashGroupBy offHeapHashGroupBy);
+
+    @Specialization
+    static void spill(
+        Node node,
+        OffHeapHashGroupBy offHeapHashGroupBy,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer1,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer2) {
+      HashPartitions partitions = offHeapHashGroupBy.getPartitions();
+      if (partitions == null) {
+        // the kryo buffer is shared by the partitions, which are all open at once.
+        partitions =
+            new HashPartitions(
+                offHeapHashGroupBy.getKeyType(),
+                offHeapHashGroupBy.getRowType(),
+                offHeapHashGroupBy.getPartitionCount(),
+                Math.max(
+                    4096,
+                    offHeapHashGroupBy.getKryoOutputBufferSize()
+                        / offHeapHashGroupBy.getPartitionCount()));
+        offHeapHashGroupBy.setPartitions(partitions);
+      }
+      HashMapObject memMap = offHeapHashGroupBy.getMemMap();
+      int capacity = memMap.getMask() + 1;
+      for (int slot = 0; slot < capacity; slot++) {
+        if (!memMap.isFree(slot)) {
+          int p = partitions.partitionOf(memMap.getHash(slot));
+          Output kryoOutput = hashPartitionOutput(partitions, p, thisNode);
+          @SuppressWarnings("unchecked")
+          ArrayList<Object> values = (ArrayList<Object>) memMap.getValue(slot);
+          // write key, then n, then values.
+          writer1.execute(thisNode, kryoOutput, partitions.getKeyType(), memMap.getKey(slot));
+          kryoWriteInt(kryoOutput, values.size());
+          for (Object v : values) {
+            writer2.execute(thisNode, kryoOutput, partitions.getRowType(), v);
+          }
+          partitions.getCounts()[p]++;
+        }
+      }
+      // reset both the memory map and memory footprint.
+      memMap.clear();
+      releaseMemory(thisNode, offHeapHashGroupBy.getSize());
+      offHeapHashGroupBy.setSize(0);
+    }
+  }
+
+  @NodeInfo(shortName = "OffHeap.HashGroupBySeek")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class OffHeapHashGroupBySeekNode extends Node {
+
+    // Moves the generator to its next group. Returns false if there are no more groups.
+    public abstract boolean execute(Node node, HashGroupByGenerator generator);
+
+    @Specialization
+    static boolean seek(
+        Node node,
+        HashGroupByGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive KryoNodes.KryoReadNode reader1,
+        @Cached @Cached.Exclusive KryoNodes.KryoReadNode reader2,
+        @Cached HashMapNodes.HashMapGetOrCreate getOrCreateNode) {
+      OffHeapHashGroupBy offHeapHashGroupBy = generator.getOffHeapHashGroupBy();
+      HashPartitions partitions = offHeapHashGroupBy.getPartitions();
+      while (true) {
+        HashMapObject map = generator.getMap();
+        if (map != null) {
+          int capacity = map.getMask() + 1;
+          int slot = generator.getSlot();
+          while (slot < capacity && map.isFree(slot)) {
+            slot++;
+          }
+          generator.setSlot(slot);
+          if (slot < capacity) {
+            return true;
+          }
+        }
+        if (partitions == null) {
+          return false;
+        }
+        // the map is exhausted, group the next partition.
+        int p = generator.getPartition() + 1;
+        while (p < partitions.getPartitionCount() && partitions.getCounts()[p] == 0) {
+          p++;
+        }
+        generator.setMap(null);
+        generator.setPartition(p);
+        if (p >= partitions.getPartitionCount()) {
+          return false;
+        }
+        HashMapObject partitionMap = new HashMapObject();
+        Input kryoInput =
+            openSpilledFile(
+                partitions.getFiles()[p], offHeapHashGroupBy.getKryoInputBufferSize(), thisNode);
+        try {
+          // the same key can have been spilled several times, its rows are appended in the
+          // order they were spilled.
+          for (int i = 0; i < partitions.getCounts()[p]; i++) {
+            Object key = reader1.execute(thisNode, kryoInput, partitions.getKeyType());
+            @SuppressWarnings("unchecked")
+            ArrayList<Object> values =
+                (ArrayList<Object>) getOrCreateNode.execute(thisNode, partitionMap, key);
+            int n = kryoInput.readInt();
+            for (int j = 0; j < n; j++) {
+              values.add(reader2.execute(thisNode, kryoInput, partitions.getRowType()));
+            }
+          }
+        } finally {
+          kryoInputClose(kryoInput);
+          deleteSpilledFile(partitions.getFiles()[p]);
+          partitions.getFiles()[p] = null;
+        }
+        generator.setMap(partitionMap);
+        generator.setSlot(0);
+      }
+    }
+  }
+
+  @NodeInfo(shortName = "OffHeap.HashAggregationSpill")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class OffHeapHashAggregationSpillNode extends Node {
+
+    public abstract void execute(Node node, OffHeapHashAggregation offHeapHashAggregation);
+
+    @Specialization
+    static void spill(
+        Node node,
+        OffHeapHashAggregation offHeapHashAggregation,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer1,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer2) {
+      HashPartitions partitions = offHeapHashAggregation.getPartitions();
+      if (partitions == null) {
+        // entries are a key and its partial results, written with the types of the results.
+        partitions =
+            new HashPartitions(
+                offHeapHashAggregation.getKeyType(),
+                null,
+                offHeapHashAggregation.getPartitionCount(),
+                Math.max(
+                    4096,
+                    offHeapHashAggregation.getKryoOutputBufferSize()
+                        / offHeapHashAggregation.getPartitionCount()));
+        offHeapHashAggregation.setPartitions(partitions);
+      }
+      SnapiTypeWithProperties[] resultTypes =
+          offHeapHashAggregation.getAggregations().getResultTypes();
+      HashMapObject memMap = offHeapHashAggregation.getMemMap();
+      int capacity = memMap.getMask() + 1;
+      for (int slot = 0; slot < capacity; slot++) {
+        if (!memMap.isFree(slot)) {
+          int p = partitions.partitionOf(memMap.getHash(slot));
+          Output kryoOutput = hashPartitionOutput(partitions, p, thisNode);
+          Object[] results = (Object[]) memMap.getValue(slot);
+          // write key, then the partial results.
+          writer1.execute(thisNode, kryoOutput, partitions.getKeyType(), memMap.getKey(slot));
+          for (int i = 0; i < results.length; i++) {
+            writer2.execute(thisNode, kryoOutput, resultTypes[i], results[i]);
+          }
+          partitions.getCounts()[p]++;
+        }
+      }
+      // reset both the memory map and memory footprint.
+      memMap.clear();
+      releaseMemory(thisNode, offHeapHashAggregation.getSize());
+      offHeapHashAggregation.setSize(0);
+    }
+  }
+
+  @NodeInfo(shortName = "OffHeap.HashAggregationSeek")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class OffHeapHashAggregationSeekNode extends Node {
+
+    // Moves the generator to its next group. Returns false if there are no more groups.
+    public abstract boolean execute(Node node, HashAggregationGenerator generator);
+
+    @Specialization
+    static boolean seek(
+        Node node,
+        HashAggregationGenerator generator,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive KryoNodes.KryoReadNode reader1,
+        @Cached @Cached.Exclusive KryoNodes.KryoReadNode reader2,
+        @Cached HashMapNodes.HashMapGet getNode,
+        @Cached HashMapNodes.HashMapPut putNode,
+        @Cached AggregatorNodes.Combine combineNode) {
+      OffHeapHashAggregation offHeapHashAggregation = generator.getOffHeapHashAggregation();
+      HashPartitions partitions = offHeapHashAggregation.getPartitions();
+      GroupAggregations aggregations = offHeapHashAggregation.getAggregations();
+      byte[] aggregationTypes = aggregations.getAggregationTypes();
+      SnapiTypeWithProperties[] resultTypes = aggregations.getResultTypes();
+      while (true) {
+        HashMapObject map = generator.getMap();
+        if (map != null) {
+          int capacity = map.getMask() + 1;
+          int slot = generator.getSlot();
+          while (slot < capacity && map.isFree(slot)) {
+            slot++;
+          }
+          generator.setSlot(slot);
+          if (slot < capacity) {
+            return true;
+          }
+        }
+        if (partitions == null) {
+          return false;
+        }
+        // the map is exhausted, combine the partial results of the next partition.
+        int p = generator.getPartition() + 1;
+        while (p < partitions.getPartitionCount() && partitions.getCounts()[p] == 0) {
+          p++;
+        }
+        generator.setMap(null);
+        generator.setPartition(p);
+        if (p >= partitions.getPartitionCount()) {
+          return false;
+        }
+        HashMapObject partitionMap = new HashMapObject();
+        Input kryoInput =
+            openSpilledFile(
+                partitions.getFiles()[p],
+                offHeapHashAggregation.getKryoInputBufferSize(),
+                thisNode);
+        try {
+          for (int i = 0; i < partitions.getCounts()[p]; i++) {
+            Object key = reader1.execute(thisNode, kryoInput, partitions.getKeyType());
+            Object[] partials = new Object[aggregationTypes.length];
+            for (int j = 0; j < partials.length; j++) {
+              partials[j] = reader2.execute(thisNode, kryoInput, resultTypes[j]);
+            }
+            Object[] results = (Object[]) getNode.execute(thisNode, partitionMap, key);
+            if (results == null) {
+              putNode.execute(thisNode, partitionMap, key, partials);
+              continue;
+            }
+            // partial results are combined in the order they were spilled.
+            for (int j = 0; j < results.length; j++) {
+              if (GroupAggregations.hasFailed(aggregationTypes[j], results[j])) {
+                continue;
+              }
+              if (GroupAggregations.hasFailed(aggregationTypes[j], partials[j])) {
+                results[j] = partials[j];
+                continue;
+              }
+              try {
+                results[j] =
+                    combineNode.execute(thisNode, aggregationTypes[j], results[j], partials[j]);
+              } catch (TruffleRuntimeException e) {
+                results[j] = new ErrorObject(e.getMessage());
+              }
+            }
+          }
+        } finally {
+          kryoInputClose(kryoInput);
+          deleteSpilledFile(partitions.getFiles()[p]);
+          partitions.getFiles()[p] = null;
+        }
+        generator.setMap(partitionMap);
+        generator.setSlot(0);
+      }
+    }
+  }
+
+  @NodeInfo(shortName = "OffHeap.Generator")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class OffHeapGeneratorNode extends Node {
+
+    public abstract Object execute(Node node, Object offHeap);
+
+    @Specialization(guards = "offHeapGroupByKey.getSpilledBuffers().isEmpty()")
+    static GroupByMemoryGenerator generator(Node node, OffHeapGroupByKey offHeapGroupByKey) {
+      return new GroupByMemoryGenerator(offHeapGroupByKey);
+    }
+
+    @Specialization(guards = "!offHeapGroupByKey.getSpilledBuffers().isEmpty()")
+    static GroupBySpilledFilesGenerator generator(
+        Node node,
+        OffHeapGroupByKey offHeapGroupByKey,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive OffHeapFlushNode flushNode,
+        @Cached @Cached.Exclusive RunMergeNodes.RunMergeNode mergeRunsNode) {
+      flushNode.execute(thisNode, offHeapGroupByKey);
+      // the runs written by worker threads are complete before they are merged.
+      awaitRun(offHeapGroupByKey.getPendingRun());
+      offHeapGroupByKey.setPendingRun(null);
+
+      // bring the number of runs down to the merge fan-in.
+      mergeRunsNode.execute(thisNode, offHeapGroupByKey);
+
+      return new GroupBySpilledFilesGenerator(offHeapGroupByKey);
+    }
+
+    @Specialization
+    static HashGroupByGenerator generator(
+        Node node,
+        OffHeapHashGroupBy offHeapHashGroupBy,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive OffHeapHashGroupBySpillNode spillNode) {
+      if (offHeapHashGroupBy.getPartitions() != null) {
+        // flush the last groups with the others.
+        spillNode.execute(thisNode, offHeapHashGroupBy);
+        closeHashPartitions(offHeapHashGroupBy.getPartitions());
+      }
+      return new HashGroupByGenerator(offHeapHashGroupBy);
+    }
+
+    @Specialization
+    static HashAggregationGenerator generator(
+        Node node,
+        OffHeapHashAggregation offHeapHashAggregation,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive OffHeapHashAggregationSpillNode spillNode) {
+      if (offHeapHashAggregation.getPartitions() != null) {
+        // flush the last groups with the others.
+        spillNode.execute(thisNode, offHeapHashAggregation);
+        closeHashPartitions(offHeapHashAggregation.getPartitions());
+      }
+      return new HashAggregationGenerator(offHeapHashAggregation);
+    }
+
+    @Specialization(guards = "offHeapGroupByKeys.getSpilledBuffers().isEmpty()")
+    static OrderByMemoryGenerator generator(Node node, OffHeapGroupByKeys offHeapGroupByKeys) {
+      return new OrderByMemoryGenerator(offHeapGroupByKeys);
+    }
+
+    @Specialization(guards = "!offHeapGroupByKeys.getSpilledBuffers().isEmpty()")
+    static OrderBySpilledFilesGenerator generator(
+        Node node,
+        OffHeapGroupByKeys offHeapGroupByKeys,
+        @Bind("$node") Node thisNode,
+        @Cached @Cached.Exclusive OffHeapFlushNode flushNode,
+        @Cached @Cached.Exclusive RunMergeNodes.RunMergeNode mergeRunsNode) {
+      flushNode.execute(thisNode, offHeapGroupByKeys);
+      // the runs written by worker threads are complete before they are merged.
+      awaitRun(offHeapGroupByKeys.getPendingRun());
+      offHeapGroupByKeys.setPendingRun(null);
+
+      // bring the number of runs down to the merge fan-in.
+      mergeRunsNode.execute(thisNode, offHeapGroupByKeys);
 
       return new OrderBySpilledFilesGenerator(offHeapGroupByKeys);
     }
@@ -284,23 +808,15 @@ public class OffHeapNodes {
         Node node,
         OffHeapDistinct offHeapDistinct,
         @Bind("$node") Node thisNode,
-        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer) {
-
-      // flush
-      Output kryoOutput =
-          new UnsafeOutput(
-              distinctNextFile(offHeapDistinct, node), offHeapDistinct.getKryoInputBufferSize());
-      TreeMapIterator iterator = offHeapDistinct.getIndex().iterator();
-
-      while (iterator.hasNext()) {
-        Object key = iterator.nextKey();
-        writer.execute(thisNode, kryoOutput, offHeapDistinct.getItemType(), key);
-      }
-
-      kryoOutputClose(kryoOutput);
-      // reset the memory map and footprint
-      offHeapDistinct.getIndex().clear();
-      offHeapDistinct.setBinarySize(0);
+        @Cached @Cached.Exclusive OffHeapFlushNode flushNode,
+        @Cached @Cached.Exclusive RunMergeNodes.RunMergeNode mergeRunsNode) {
+      flushNode.execute(thisNode, offHeapDistinct);
+      // the runs written by worker threads are complete before they are merged.
+      awaitRun(offHeapDistinct.getPendingRun());
+      offHeapDistinct.setPendingRun(null);
+
+      // bring the number of runs down to the merge fan-in.
+      mergeRunsNode.execute(thisNode, offHeapDistinct);
 
       return new DistinctSpilledFilesGenerator(offHeapDistinct);
     }
@@ -28,12 +28,18 @@ import java.util.Objects;
 
 @ExportLibrary(InteropLibrary.class)
 public class DistinctMemoryGenerator implements TruffleObject {
+  private final OffHeapDistinct offHeapDistinct;
   private final TreeMapIterator items;
 
   public DistinctMemoryGenerator(OffHeapDistinct offHeapDistinct) {
+    this.offHeapDistinct = offHeapDistinct;
     this.items = offHeapDistinct.getIndex().iterator();
   }
 
+  public OffHeapDistinct getOffHeapDistinct() {
+    return offHeapDistinct;
+  }
+
   public TreeMapIterator getItems() {
     return items;
   }
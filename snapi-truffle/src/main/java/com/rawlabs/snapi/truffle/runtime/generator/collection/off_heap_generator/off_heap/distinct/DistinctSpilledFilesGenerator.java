@@ -12,7 +12,6 @@
 
 package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.distinct;
 
-import com.esotericsoftware.kryo.io.Input;
 import com.oracle.truffle.api.dsl.Bind;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.interop.InteropLibrary;
@@ -23,34 +22,25 @@ import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
 import com.oracle.truffle.api.nodes.Node;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.merge.MergeHeap;
 import com.rawlabs.snapi.truffle.runtime.list.StringList;
-import java.util.ArrayList;
 import java.util.Objects;
 
 @ExportLibrary(InteropLibrary.class)
 public class DistinctSpilledFilesGenerator implements TruffleObject {
   private final OffHeapDistinct offHeapDistinct;
-  private ArrayList<Input> kryoBuffers; // list of Kryo buffers that contain the spilled data.
-  private ArrayList<Object> headKeys; // list of keys that are currently at the head of each buffer.
+  private MergeHeap mergeHeap; // heap of Kryo buffers that contain the spilled data.
 
   public DistinctSpilledFilesGenerator(OffHeapDistinct offHeapDistinct) {
     this.offHeapDistinct = offHeapDistinct;
   }
 
-  public ArrayList<Input> getKryoBuffers() {
-    return kryoBuffers;
+  public MergeHeap getMergeHeap() {
+    return mergeHeap;
   }
 
-  public void setKryoBuffers(ArrayList<Input> kryoBuffers) {
-    this.kryoBuffers = kryoBuffers;
-  }
-
-  public ArrayList<Object> getHeadKeys() {
-    return headKeys;
-  }
-
-  public void setHeadKeys(ArrayList<Object> headKeys) {
-    this.headKeys = headKeys;
+  public void setMergeHeap(MergeHeap mergeHeap) {
+    this.mergeHeap = mergeHeap;
   }
 
   public OffHeapDistinct getOffHeapDistinct() {
@@ -15,25 +15,24 @@ package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generato
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
 import com.rawlabs.snapi.truffle.runtime.data_structures.treemap.TreeMapObject;
-import com.rawlabs.snapi.truffle.runtime.utils.KryoFootPrint;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 
 public class OffHeapDistinct {
-  private final TreeMapObject
-      index; // in-memory map that's used as long as the data fits in memory.
+  private TreeMapObject index; // in-memory map that's used as long as the data fits in memory.
+  private Future<?> pendingRun = null; // spilled run being written by a worker thread.
   private final ArrayList<File> spilledBuffers =
       new ArrayList<>(); // list of files that contain the spilled data.
   private final long blockSize; // maximum size of a spilled file.
-  private int
-      binarySize; // estimated size of currently memory held objects (when reaching blockSize,
-  // spill
-  // to disk).
+  private long
+      binarySize; // measured size of currently memory held objects (when reaching blockSize, or
+  // when the query memory budget is exhausted, spill to disk).
 
   private final SnapiTypeWithProperties itemType; // grouped key and value types.
-  private final int itemSize; // grouped key and value kryo binary size
   private final int kryoOutputBufferSize,
       kryoInputBufferSize; // size of the kryo buffers used to write and read the data.
+  private final int mergeFanIn; // maximum number of spilled files merged at once.
 
   private final MaterializedFrame frame;
 
@@ -42,18 +41,19 @@ public class OffHeapDistinct {
       MaterializedFrame frame,
       long blockSize,
       int kryoOutputBufferSize,
-      int kryoInputBufferSize) {
+      int kryoInputBufferSize,
+      int mergeFanIn) {
     this.index = new TreeMapObject();
     this.itemType = vType;
-    this.itemSize = KryoFootPrint.of(vType);
     this.binarySize = 0;
     this.blockSize = blockSize;
     this.kryoOutputBufferSize = kryoOutputBufferSize;
     this.kryoInputBufferSize = kryoInputBufferSize;
+    this.mergeFanIn = mergeFanIn;
     this.frame = frame;
   }
 
-  public void setBinarySize(int binarySize) {
+  public void setBinarySize(long binarySize) {
     this.binarySize = binarySize;
   }
 
@@ -61,6 +61,18 @@ public class OffHeapDistinct {
     return index;
   }
 
+  public void setIndex(TreeMapObject index) {
+    this.index = index;
+  }
+
+  public Future<?> getPendingRun() {
+    return pendingRun;
+  }
+
+  public void setPendingRun(Future<?> pendingRun) {
+    this.pendingRun = pendingRun;
+  }
+
   public ArrayList<File> getSpilledBuffers() {
     return spilledBuffers;
   }
@@ -69,7 +81,7 @@ public class OffHeapDistinct {
     return blockSize;
   }
 
-  public int getBinarySize() {
+  public long getBinarySize() {
     return binarySize;
   }
 
@@ -77,10 +89,6 @@ public class OffHeapDistinct {
     return itemType;
   }
 
-  public int getItemSize() {
-    return itemSize;
-  }
-
   public int getKryoOutputBufferSize() {
     return kryoOutputBufferSize;
   }
@@ -89,6 +97,10 @@ public class OffHeapDistinct {
     return kryoInputBufferSize;
   }
 
+  public int getMergeFanIn() {
+    return mergeFanIn;
+  }
+
   public MaterializedFrame getFrame() {
     return frame;
   }
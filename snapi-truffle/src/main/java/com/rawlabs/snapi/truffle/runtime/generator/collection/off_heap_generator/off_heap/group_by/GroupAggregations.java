@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by;
+
+import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
+import com.rawlabs.snapi.truffle.ast.expressions.aggregation.Aggregations;
+import com.rawlabs.snapi.truffle.runtime.primitives.ErrorObject;
+
+// Aggregations of the groups of a group-by that are computed while grouping, when the groups are
+// only used through them. Each aggregation is fed the rows of the group, or the result of a
+// function applied to them.
+public class GroupAggregations {
+  private final byte[] aggregationTypes; // see Aggregations.
+  private final Object[] functions; // function applied to the rows, or null.
+  private final SnapiTypeWithProperties[] resultTypes;
+  private final String[] fields; // fields of the results in the group record, next to its key.
+
+  public GroupAggregations(
+      byte[] aggregationTypes,
+      Object[] functions,
+      SnapiTypeWithProperties[] resultTypes,
+      String[] fields) {
+    this.aggregationTypes = aggregationTypes;
+    this.functions = functions;
+    this.resultTypes = resultTypes;
+    this.fields = fields;
+  }
+
+  public byte[] getAggregationTypes() {
+    return aggregationTypes;
+  }
+
+  public Object[] getFunctions() {
+    return functions;
+  }
+
+  public SnapiTypeWithProperties[] getResultTypes() {
+    return resultTypes;
+  }
+
+  public String[] getFields() {
+    return fields;
+  }
+
+  // an aggregation that failed keeps its error, as Collection aggregations do. Only the last value
+  // can be an error of its own.
+  public static boolean hasFailed(byte aggregationType, Object result) {
+    return aggregationType != Aggregations.LAST && result instanceof ErrorObject;
+  }
+}
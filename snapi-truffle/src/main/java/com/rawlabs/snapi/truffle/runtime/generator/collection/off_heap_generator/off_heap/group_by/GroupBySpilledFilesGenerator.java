@@ -23,31 +23,36 @@ import com.oracle.truffle.api.library.ExportMessage;
 import com.oracle.truffle.api.nodes.Node;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.input_buffer.GroupByInputBuffer;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.merge.MergeHeap;
 import com.rawlabs.snapi.truffle.runtime.list.StringList;
-import java.util.ArrayList;
 import java.util.Objects;
 
 @ExportLibrary(InteropLibrary.class)
 public class GroupBySpilledFilesGenerator implements TruffleObject {
 
   private final OffHeapGroupByKey offHeapGroupByKey;
-  private ArrayList<GroupByInputBuffer>
-      inputBuffers; // list of Kryo buffers that contain the spilled data.
+  private MergeHeap mergeHeap; // heap of Kryo buffers that contain the spilled data.
+  private GroupByInputBuffer[]
+      matchingBuffers; // buffers exposing the key being merged, reused across keys.
 
   public GroupBySpilledFilesGenerator(OffHeapGroupByKey offHeapGroupByKey) {
     this.offHeapGroupByKey = offHeapGroupByKey;
   }
 
-  public void setInputBuffers(ArrayList<GroupByInputBuffer> inputBuffers) {
-    this.inputBuffers = inputBuffers;
+  public void setMergeHeap(MergeHeap mergeHeap) {
+    this.mergeHeap = mergeHeap;
   }
 
-  public void addInputBuffer(GroupByInputBuffer inputBuffer) {
-    this.inputBuffers.add(inputBuffer);
+  public MergeHeap getMergeHeap() {
+    return mergeHeap;
   }
 
-  public ArrayList<GroupByInputBuffer> getInputBuffers() {
-    return inputBuffers;
+  public void setMatchingBuffers(GroupByInputBuffer[] matchingBuffers) {
+    this.matchingBuffers = matchingBuffers;
+  }
+
+  public GroupByInputBuffer[] getMatchingBuffers() {
+    return matchingBuffers;
   }
 
   public OffHeapGroupByKey getOffHeapGroupByKey() {
@@ -15,24 +15,23 @@ package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generato
 import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
 import com.rawlabs.snapi.truffle.runtime.data_structures.treemap.TreeMapObject;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.record_shaper.RecordShaper;
-import com.rawlabs.snapi.truffle.runtime.utils.KryoFootPrint;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 
 public class OffHeapGroupByKey {
-  private final TreeMapObject
-      memMap; // in-memory map that's used as long as the data fits in memory.
+  private TreeMapObject memMap; // in-memory map that's used as long as the data fits in memory.
+  private Future<?> pendingRun = null; // spilled run being written by a worker thread.
   private final ArrayList<File> spilledBuffers =
       new ArrayList<>(); // list of files that contain the spilled data.
   private final long maxSize; // maximum size of a spilled file.
-  private int
-      size; // estimated size of currently memory held objects (when reaching blockSize, spill
-  // to
-  // disk).
+  private long
+      size; // measured size of currently memory held objects (when reaching maxSize, or when the
+  // query memory budget is exhausted, spill to disk).
   private final SnapiTypeWithProperties keyType, rowType; // grouping key and row types.
   private final int kryoOutputBufferSize,
       kryoInputBufferSize; // size of the kryo buffers used to write and read the data.
-  private final int keySize, rowSize; // grouping key and row kryo estimated binary size
+  private final int mergeFanIn; // maximum number of spilled files merged at once.
 
   private final RecordShaper reshape;
 
@@ -42,20 +41,20 @@ public class OffHeapGroupByKey {
       RecordShaper reshape,
       long maxSize,
       int kryoOutputBufferSize,
-      int kryoInputBufferSize) {
+      int kryoInputBufferSize,
+      int mergeFanIn) {
     this.memMap = new TreeMapObject();
     this.keyType = kType;
     this.rowType = rowType;
-    this.rowSize = KryoFootPrint.of(rowType);
-    this.keySize = KryoFootPrint.of(kType);
     this.size = 0;
     this.maxSize = maxSize;
     this.kryoOutputBufferSize = kryoOutputBufferSize;
     this.kryoInputBufferSize = kryoInputBufferSize;
+    this.mergeFanIn = mergeFanIn;
     this.reshape = reshape;
   }
 
-  public void setSize(int size) {
+  public void setSize(long size) {
     this.size = size;
   }
 
@@ -63,6 +62,18 @@ public class OffHeapGroupByKey {
     return memMap;
   }
 
+  public void setMemMap(TreeMapObject memMap) {
+    this.memMap = memMap;
+  }
+
+  public Future<?> getPendingRun() {
+    return pendingRun;
+  }
+
+  public void setPendingRun(Future<?> pendingRun) {
+    this.pendingRun = pendingRun;
+  }
+
   public ArrayList<File> getSpilledBuffers() {
     return spilledBuffers;
   }
@@ -71,7 +82,7 @@ public class OffHeapGroupByKey {
     return maxSize;
   }
 
-  public int getSize() {
+  public long getSize() {
     return size;
   }
 
@@ -91,12 +102,8 @@ public class OffHeapGroupByKey {
     return kryoInputBufferSize;
   }
 
-  public int getKeySize() {
-    return keySize;
-  }
-
-  public int getRowSize() {
-    return rowSize;
+  public int getMergeFanIn() {
+    return mergeFanIn;
   }
 
   public RecordShaper getReshape() {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by;
+
+import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
+import com.rawlabs.snapi.truffle.runtime.data_structures.hashmap.HashMapObject;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.hash_partitions.HashPartitions;
+import com.rawlabs.snapi.truffle.runtime.utils.KryoFootPrint;
+
+// Group-by whose groups are only aggregated. Instead of the rows of each group, the hash map keeps
+// the partial results of its aggregations. When it is full, keys and partial results are appended
+// to partition files, and the partial results of a key spilled several times are combined when its
+// partition is read back.
+public class OffHeapHashAggregation {
+  private final HashMapObject memMap; // in-memory map of the partial results of the groups.
+  private HashPartitions partitions = null; // partition files, once the map was spilled.
+  private final GroupAggregations aggregations;
+  private final long maxSize; // maximum size of the in-memory map.
+  private long size; // measured size of currently memory held objects.
+  private final SnapiTypeWithProperties keyType; // grouping key type.
+  private final int kryoOutputBufferSize,
+      kryoInputBufferSize; // size of the kryo buffers used to write and read the data.
+  private final int partitionCount; // number of partition files, once spilled.
+  // partial results kryo estimated binary size (mostly fixed size numbers, unlike the keys).
+  private final int resultsSize;
+
+  public OffHeapHashAggregation(
+      SnapiTypeWithProperties kType,
+      GroupAggregations aggregations,
+      long maxSize,
+      int kryoOutputBufferSize,
+      int kryoInputBufferSize,
+      int partitionCount) {
+    this.memMap = new HashMapObject();
+    this.keyType = kType;
+    this.aggregations = aggregations;
+    int resultsSize = 0;
+    for (SnapiTypeWithProperties resultType : aggregations.getResultTypes()) {
+      resultsSize += KryoFootPrint.of(resultType);
+    }
+    this.resultsSize = resultsSize;
+    this.size = 0;
+    this.maxSize = maxSize;
+    this.kryoOutputBufferSize = kryoOutputBufferSize;
+    this.kryoInputBufferSize = kryoInputBufferSize;
+    this.partitionCount = partitionCount;
+  }
+
+  public HashMapObject getMemMap() {
+    return memMap;
+  }
+
+  public HashPartitions getPartitions() {
+    return partitions;
+  }
+
+  public void setPartitions(HashPartitions partitions) {
+    this.partitions = partitions;
+  }
+
+  public GroupAggregations getAggregations() {
+    return aggregations;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public void setSize(long size) {
+    this.size = size;
+  }
+
+  public SnapiTypeWithProperties getKeyType() {
+    return keyType;
+  }
+
+  public int getKryoOutputBufferSize() {
+    return kryoOutputBufferSize;
+  }
+
+  public int getKryoInputBufferSize() {
+    return kryoInputBufferSize;
+  }
+
+  public int getPartitionCount() {
+    return partitionCount;
+  }
+
+  public int getResultsSize() {
+    return resultsSize;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by;
+
+import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
+import com.rawlabs.snapi.truffle.runtime.data_structures.hashmap.HashMapObject;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.hash_partitions.HashPartitions;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.record_shaper.RecordShaper;
+
+// Group-by whose groups don't come out in key order. Groups are kept in a hash map. When it is
+// full, its groups are appended to partition files depending on the hash of their key, so that
+// each partition can later be grouped again on its own.
+public class OffHeapHashGroupBy {
+  private final HashMapObject memMap; // in-memory map of the groups.
+  private HashPartitions partitions = null; // partition files, once the map was spilled.
+  private final long maxSize; // maximum size of the in-memory map.
+  private long size; // measured size of currently memory held objects.
+  private final SnapiTypeWithProperties keyType, rowType; // grouping key and row types.
+  private final int kryoOutputBufferSize,
+      kryoInputBufferSize; // size of the kryo buffers used to write and read the data.
+  private final int partitionCount; // number of partition files, once spilled.
+
+  private final RecordShaper reshape;
+
+  public OffHeapHashGroupBy(
+      SnapiTypeWithProperties kType,
+      SnapiTypeWithProperties rowType,
+      RecordShaper reshape,
+      long maxSize,
+      int kryoOutputBufferSize,
+      int kryoInputBufferSize,
+      int partitionCount) {
+    this.memMap = new HashMapObject();
+    this.keyType = kType;
+    this.rowType = rowType;
+    this.size = 0;
+    this.maxSize = maxSize;
+    this.kryoOutputBufferSize = kryoOutputBufferSize;
+    this.kryoInputBufferSize = kryoInputBufferSize;
+    this.partitionCount = partitionCount;
+    this.reshape = reshape;
+  }
+
+  public HashMapObject getMemMap() {
+    return memMap;
+  }
+
+  public HashPartitions getPartitions() {
+    return partitions;
+  }
+
+  public void setPartitions(HashPartitions partitions) {
+    this.partitions = partitions;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public void setSize(long size) {
+    this.size = size;
+  }
+
+  public SnapiTypeWithProperties getKeyType() {
+    return keyType;
+  }
+
+  public SnapiTypeWithProperties getRowType() {
+    return rowType;
+  }
+
+  public int getKryoOutputBufferSize() {
+    return kryoOutputBufferSize;
+  }
+
+  public int getKryoInputBufferSize() {
+    return kryoInputBufferSize;
+  }
+
+  public int getPartitionCount() {
+    return partitionCount;
+  }
+
+  public RecordShaper getReshape() {
+    return reshape;
+  }
+}
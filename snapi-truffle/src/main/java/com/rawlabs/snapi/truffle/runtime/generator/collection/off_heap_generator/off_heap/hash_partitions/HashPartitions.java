@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.hash_partitions;
+
+import com.esotericsoftware.kryo.io.Output;
+import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
+import com.rawlabs.snapi.truffle.runtime.data_structures.hashmap.HashMapObject;
+import java.io.File;
+
+// Data that didn't fit in memory, split in several files depending on the hash of its keys. All
+// entries of a key end up in the same partition, so that partitions can be processed one by one:
+// the hash join joins partitions with the same index of both sides, the hash group-by groups each
+// partition on its own.
+public class HashPartitions {
+  private final File[] files; // partition files, created on the first row of the partition.
+  private final Output[] outputs; // open outputs while partitioning.
+  private final int[] counts; // number of entries of each partition.
+  private final long[] sizes; // binary size of each partition, once written.
+  private final SnapiTypeWithProperties keyType, rowType;
+  private final int kryoOutputBufferSize; // size of the kryo buffer of each partition.
+
+  public HashPartitions(
+      SnapiTypeWithProperties keyType,
+      SnapiTypeWithProperties rowType,
+      int partitionCount,
+      int kryoOutputBufferSize) {
+    this.files = new File[partitionCount];
+    this.outputs = new Output[partitionCount];
+    this.counts = new int[partitionCount];
+    this.sizes = new long[partitionCount];
+    this.keyType = keyType;
+    this.rowType = rowType;
+    this.kryoOutputBufferSize = kryoOutputBufferSize;
+  }
+
+  // uses the high bits of the spread hash, the low ones pick the slot in the hash map.
+  public int partitionOf(int hash) {
+    return (HashMapObject.spread(hash) >>> 16) % files.length;
+  }
+
+  public int getPartitionCount() {
+    return files.length;
+  }
+
+  public File[] getFiles() {
+    return files;
+  }
+
+  public Output[] getOutputs() {
+    return outputs;
+  }
+
+  public int[] getCounts() {
+    return counts;
+  }
+
+  public long[] getSizes() {
+    return sizes;
+  }
+
+  public SnapiTypeWithProperties getKeyType() {
+    return keyType;
+  }
+
+  public SnapiTypeWithProperties getRowType() {
+    return rowType;
+  }
+
+  public int getKryoOutputBufferSize() {
+    return kryoOutputBufferSize;
+  }
+}
@@ -14,34 +14,26 @@ package com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generato
 
 import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
 import com.rawlabs.snapi.truffle.runtime.data_structures.treemap.TreeMapObject;
-import com.rawlabs.snapi.truffle.runtime.utils.KryoFootPrint;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 
 public class OffHeapGroupByKeys {
   private final int[] keyOrderings;
-  private final TreeMapObject memMap; // in-memory map from arrays of keys to array of rows.
+  private TreeMapObject memMap; // in-memory map from arrays of keys to array of rows.
+  private Future<?> pendingRun = null; // spilled run being written by a worker thread.
   private final ArrayList<File> spilledBuffers =
       new ArrayList<>(); // list of files that contain the spilled data.
   private final long maxSize; // maximum size of a spilled file.
-  private int
-      size; // estimated size of currently memory held objects (when reaching blockSize, spill
-  // to
-  // disk).
+  private long
+      size; // measured size of currently memory held objects (when reaching maxSize, or when the
+  // query memory budget is exhausted, spill to disk).
 
   private final SnapiTypeWithProperties[] keyTypes; // grouped key and value types.
   private final SnapiTypeWithProperties rowType; // grouped key and value types.
-  private final int keysSize, rowSize; // grouping keys and row kryo binary size
   private final int kryoOutputBufferSize,
       kryoInputBufferSize; // size of the kryo buffers used to write and read the data.
-
-  private static int keysFootPrint(SnapiTypeWithProperties[] keyType) {
-    int size = 0;
-    for (SnapiTypeWithProperties t : keyType) {
-      size += KryoFootPrint.of(t);
-    }
-    return size;
-  }
+  private final int mergeFanIn; // maximum number of spilled files merged at once.
 
   public OffHeapGroupByKeys(
       SnapiTypeWithProperties[] kTypes,
@@ -49,17 +41,17 @@ public class OffHeapGroupByKeys {
       int[] keyOrderings,
       long maxSize,
       int kryoOutputBufferSize,
-      int kryoInputBufferSize) {
+      int kryoInputBufferSize,
+      int mergeFanIn) {
     this.memMap = new TreeMapObject();
     this.keyTypes = kTypes;
     this.rowType = rowType;
-    this.rowSize = KryoFootPrint.of(rowType);
-    this.keysSize = keysFootPrint(kTypes);
     this.size = 0;
 
     this.maxSize = maxSize;
     this.kryoOutputBufferSize = kryoOutputBufferSize;
     this.kryoInputBufferSize = kryoInputBufferSize;
+    this.mergeFanIn = mergeFanIn;
 
     this.keyOrderings = keyOrderings;
   }
@@ -68,6 +60,18 @@ public class OffHeapGroupByKeys {
     return memMap;
   }
 
+  public void setMemMap(TreeMapObject memMap) {
+    this.memMap = memMap;
+  }
+
+  public Future<?> getPendingRun() {
+    return pendingRun;
+  }
+
+  public void setPendingRun(Future<?> pendingRun) {
+    this.pendingRun = pendingRun;
+  }
+
   public ArrayList<File> getSpilledBuffers() {
     return spilledBuffers;
   }
@@ -76,7 +80,7 @@ public class OffHeapGroupByKeys {
     return maxSize;
   }
 
-  public int getSize() {
+  public long getSize() {
     return size;
   }
 
@@ -88,14 +92,6 @@ public class OffHeapGroupByKeys {
     return rowType;
   }
 
-  public int getKeysSize() {
-    return keysSize;
-  }
-
-  public int getRowSize() {
-    return rowSize;
-  }
-
   public int getKryoOutputBufferSize() {
     return kryoOutputBufferSize;
   }
@@ -104,7 +100,11 @@ public class OffHeapGroupByKeys {
     return kryoInputBufferSize;
   }
 
-  public void setSize(int size) {
+  public int getMergeFanIn() {
+    return mergeFanIn;
+  }
+
+  public void setSize(long size) {
     this.size = size;
   }
 
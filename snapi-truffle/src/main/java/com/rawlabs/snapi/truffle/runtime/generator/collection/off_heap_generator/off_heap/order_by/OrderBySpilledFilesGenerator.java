@@ -23,24 +23,23 @@ import com.oracle.truffle.api.library.ExportMessage;
 import com.oracle.truffle.api.nodes.Node;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.input_buffer.OrderByInputBuffer;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.merge.MergeHeap;
 import com.rawlabs.snapi.truffle.runtime.list.StringList;
-import java.util.ArrayList;
 import java.util.Objects;
 
 @ExportLibrary(InteropLibrary.class)
 public class OrderBySpilledFilesGenerator implements TruffleObject {
   private final OffHeapGroupByKeys offHeapGroupByKeys;
 
-  private ArrayList<OrderByInputBuffer>
-      inputBuffers; // list of Kryo buffers that contain the spilled data.
+  private MergeHeap mergeHeap; // heap of Kryo buffers that contain the spilled data.
   private OrderByInputBuffer currentKryoBuffer; // the current buffer being read.
 
   public OrderBySpilledFilesGenerator(OffHeapGroupByKeys offHeapGroupByKeys) {
     this.offHeapGroupByKeys = offHeapGroupByKeys;
   }
 
-  public void setInputBuffers(ArrayList<OrderByInputBuffer> inputBuffers) {
-    this.inputBuffers = inputBuffers;
+  public void setMergeHeap(MergeHeap mergeHeap) {
+    this.mergeHeap = mergeHeap;
   }
 
   public void setCurrentKryoBuffer(OrderByInputBuffer currentKryoBuffer) {
@@ -51,8 +50,8 @@ public class OrderBySpilledFilesGenerator implements TruffleObject {
     return offHeapGroupByKeys;
   }
 
-  public ArrayList<OrderByInputBuffer> getInputBuffers() {
-    return inputBuffers;
+  public MergeHeap getMergeHeap() {
+    return mergeHeap;
   }
 
   public OrderByInputBuffer getCurrentKryoBuffer() {
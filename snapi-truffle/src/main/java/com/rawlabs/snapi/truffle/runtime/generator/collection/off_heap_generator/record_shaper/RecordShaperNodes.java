@@ -69,4 +69,35 @@ public class RecordShaperNodes {
       return new Object[] {key, values};
     }
   }
+
+  @NodeInfo(shortName = "RecordShaper.MakeAggregatedRow")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class MakeAggregatedRowNode extends Node {
+
+    // the group record of an aggregated group-by has its key and the results of its aggregations.
+    public abstract Object execute(Node node, Object key, String[] fields, Object[] results);
+
+    public static SnapiLanguage getSnapiLanguage(Node node) {
+      return SnapiLanguage.get(node);
+    }
+
+    @Specialization
+    static Object makeRow(
+        Node node,
+        Object key,
+        String[] fields,
+        Object[] results,
+        @Bind("$node") Node thisNode,
+        @Cached(value = "getSnapiLanguage(thisNode)", allowUncached = true) SnapiLanguage language,
+        @Cached @Cached.Exclusive RecordNodes.AddPropNode addPropNode1,
+        @Cached @Cached.Exclusive RecordNodes.AddPropNode addPropNode2) {
+      Object record = language.createPureRecord();
+      addPropNode1.execute(thisNode, record, "key", key, false);
+      for (int i = 0; i < fields.length; i++) {
+        addPropNode2.execute(thisNode, record, fields[i], results[i], false);
+      }
+      return record;
+    }
+  }
 }
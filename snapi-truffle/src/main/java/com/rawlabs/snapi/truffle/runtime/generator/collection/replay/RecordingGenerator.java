@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.generator.collection.replay;
+
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.StopIterationException;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.nodes.Node;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
+import com.rawlabs.snapi.truffle.runtime.iterable.operations.CacheCollection;
+import com.rawlabs.snapi.truffle.runtime.list.StringList;
+import java.util.Objects;
+
+// Reads a CacheCollection from its source, recording its rows. Once they are all read, they are
+// replayed by the next generators of the collection.
+@ExportLibrary(InteropLibrary.class)
+public final class RecordingGenerator implements TruffleObject {
+
+  private final CacheCollection collection;
+  private final Object generator;
+  private ReplayBuffer buffer; // null once the recording is done or abandoned.
+
+  public RecordingGenerator(CacheCollection collection, Object generator, ReplayBuffer buffer) {
+    this.collection = collection;
+    this.generator = generator;
+    this.buffer = buffer;
+  }
+
+  public CacheCollection getCollection() {
+    return collection;
+  }
+
+  public Object getGenerator() {
+    return generator;
+  }
+
+  public ReplayBuffer getBuffer() {
+    return buffer;
+  }
+
+  public void setBuffer(ReplayBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+
+  // InteropLibrary: Iterator
+  @ExportMessage
+  boolean isIterator() {
+    return true;
+  }
+
+  @ExportMessage
+  boolean hasIteratorNextElement(
+      @Bind("$node") Node thisNode,
+      @Cached(inline = true) GeneratorNodes.GeneratorHasNextNode hasNextNode)
+      throws UnsupportedMessageException {
+    return hasNextNode.execute(thisNode, this);
+  }
+
+  @ExportMessage
+  Object getIteratorNextElement(
+      @Bind("$node") Node thisNode,
+      @Cached(inline = true) GeneratorNodes.GeneratorNextNode nextNode)
+      throws UnsupportedMessageException, StopIterationException {
+    return nextNode.execute(thisNode, this);
+  }
+
+  @ExportMessage
+  boolean hasMembers() {
+    return true;
+  }
+
+  @ExportMessage
+  Object getMembers(boolean includeInternal) {
+    return new StringList(new String[] {"close"});
+  }
+
+  @ExportMessage
+  boolean isMemberInvocable(String member) {
+    return Objects.equals(member, "close");
+  }
+
+  @ExportMessage
+  Object invokeMember(
+      String member,
+      Object[] args,
+      @Bind("$node") Node thisNode,
+      @Cached(inline = true) GeneratorNodes.GeneratorCloseNode closeNode) {
+    assert (Objects.equals(member, "close"));
+    closeNode.execute(thisNode, this);
+    return 0;
+  }
+}
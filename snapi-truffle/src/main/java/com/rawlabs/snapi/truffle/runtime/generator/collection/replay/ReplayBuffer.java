@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.generator.collection.replay;
+
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.unsafe.UnsafeOutput;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.Node;
+import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
+import com.rawlabs.snapi.truffle.SnapiContext;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers;
+import java.io.File;
+import java.util.ArrayList;
+
+// The rows of a collection recorded while it is read, so that they can be replayed. They are held
+// in memory, and reserved in the query's memory budget, as long as their size is below maxSize
+// and the budget isn't exhausted. Then all of them are written to a scratch file. Rows kept in
+// memory stay reserved until the end of the execution, since they can be replayed until then.
+public class ReplayBuffer {
+  private final SnapiTypeWithProperties rowType;
+  private final long maxSize;
+  private final int kryoOutputBufferSize;
+  private final int kryoInputBufferSize;
+  private ArrayList<Object> rows = new ArrayList<>(); // null once the rows are spilled.
+  private Object[] memoryRows = null; // the rows held in memory, once recorded.
+  private long size = 0; // measured size of the rows held in memory.
+  private int count = 0;
+  private File file = null;
+  private Output output = null;
+
+  public ReplayBuffer(
+      SnapiTypeWithProperties rowType,
+      long maxSize,
+      int kryoOutputBufferSize,
+      int kryoInputBufferSize) {
+    this.rowType = rowType;
+    this.maxSize = maxSize;
+    this.kryoOutputBufferSize = kryoOutputBufferSize;
+    this.kryoInputBufferSize = kryoInputBufferSize;
+  }
+
+  public SnapiTypeWithProperties getRowType() {
+    return rowType;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public int getKryoInputBufferSize() {
+    return kryoInputBufferSize;
+  }
+
+  public ArrayList<Object> getRows() {
+    return rows;
+  }
+
+  public Object[] getMemoryRows() {
+    return memoryRows;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public void setSize(long size) {
+    this.size = size;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public void setCount(int count) {
+    this.count = count;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public Output getOutput() {
+    return output;
+  }
+
+  // The rows don't fit in memory, they are written to a scratch file from now on.
+  @TruffleBoundary
+  public Output spill(Node node) {
+    rows = null;
+    file = StaticInitializers.newScratchFile("replay.", node);
+    SnapiContext.get(node).registerReplayFile(file);
+    output = new UnsafeOutput(StaticInitializers.openScratchFile(file, node), kryoOutputBufferSize);
+    return output;
+  }
+
+  // All rows were recorded, they can be replayed.
+  @TruffleBoundary
+  public void finish() {
+    if (rows != null) {
+      memoryRows = rows.toArray();
+    } else {
+      output.close();
+      output = null;
+    }
+    rows = null;
+  }
+
+  // The recording was abandoned, the rows are dropped.
+  @TruffleBoundary
+  public void discard(Node node) {
+    if (rows != null) StaticInitializers.releaseMemory(node, size);
+    rows = null;
+    memoryRows = null;
+    if (output != null) {
+      output.close();
+      output = null;
+    }
+    if (file != null) {
+      StaticInitializers.deleteSpilledFile(file);
+      file = null;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.generator.collection.replay;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.StopIterationException;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.nodes.Node;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
+import com.rawlabs.snapi.truffle.runtime.list.StringList;
+import java.util.Objects;
+
+// Replays the rows recorded in a ReplayBuffer, from memory or from its scratch file.
+@ExportLibrary(InteropLibrary.class)
+public final class ReplayGenerator implements TruffleObject {
+
+  private final ReplayBuffer buffer;
+  private int position = 0;
+  private Input input = null; // opened by init when the rows were spilled.
+
+  public ReplayGenerator(ReplayBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  public ReplayBuffer getBuffer() {
+    return buffer;
+  }
+
+  public int getPosition() {
+    return position;
+  }
+
+  public void incrementPosition() {
+    position++;
+  }
+
+  public Input getInput() {
+    return input;
+  }
+
+  public void setInput(Input input) {
+    this.input = input;
+  }
+
+  @TruffleBoundary
+  public void closeInput() {
+    if (input != null) {
+      input.close();
+      input = null;
+    }
+  }
+
+
+  // InteropLibrary: Iterator
+  @ExportMessage
+  boolean isIterator() {
+    return true;
+  }
+
+  @ExportMessage
+  boolean hasIteratorNextElement(
+      @Bind("$node") Node thisNode,
+      @Cached(inline = true) GeneratorNodes.GeneratorHasNextNode hasNextNode)
+      throws UnsupportedMessageException {
+    return hasNextNode.execute(thisNode, this);
+  }
+
+  @ExportMessage
+  Object getIteratorNextElement(
+      @Bind("$node") Node thisNode,
+      @Cached(inline = true) GeneratorNodes.GeneratorNextNode nextNode)
+      throws UnsupportedMessageException, StopIterationException {
+    return nextNode.execute(thisNode, this);
+  }
+
+  @ExportMessage
+  boolean hasMembers() {
+    return true;
+  }
+
+  @ExportMessage
+  Object getMembers(boolean includeInternal) {
+    return new StringList(new String[] {"close"});
+  }
+
+  @ExportMessage
+  boolean isMemberInvocable(String member) {
+    return Objects.equals(member, "close");
+  }
+
+  @ExportMessage
+  Object invokeMember(
+      String member,
+      Object[] args,
+      @Bind("$node") Node thisNode,
+      @Cached(inline = true) GeneratorNodes.GeneratorCloseNode closeNode) {
+    assert (Objects.equals(member, "close"));
+    closeNode.execute(thisNode, this);
+    return 0;
+  }
+}
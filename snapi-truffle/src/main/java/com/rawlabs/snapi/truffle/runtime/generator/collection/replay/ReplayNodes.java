@@ -0,0 +1,64 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.generator.collection.replay;
+
+import com.esotericsoftware.kryo.io.Output;
+import com.oracle.truffle.api.dsl.*;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers;
+import com.rawlabs.snapi.truffle.runtime.kryo.KryoNodes;
+import com.rawlabs.snapi.truffle.runtime.utils.MemoryBudget;
+import java.util.ArrayList;
+
+public class ReplayNodes {
+
+  @NodeInfo(shortName = "Replay.Record")
+  @GenerateUncached
+  @GenerateInline
+  public abstract static class ReplayRecordNode extends Node {
+
+    public abstract void execute(Node node, ReplayBuffer buffer, Object row);
+
+    @Specialization
+    static void record(
+        Node node,
+        ReplayBuffer buffer,
+        Object row,
+        @Bind("$node") Node thisNode,
+        @Cached KryoNodes.KryoFootPrintNode footPrint,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer1,
+        @Cached @Cached.Exclusive KryoNodes.KryoWriteNode writer2) {
+      buffer.setCount(buffer.getCount() + 1);
+      ArrayList<Object> rows = buffer.getRows();
+      if (rows != null) {
+        long bytes = footPrint.execute(thisNode, buffer.getRowType(), row);
+        buffer.setSize(buffer.getSize() + bytes);
+        rows.add(row);
+        MemoryBudget budget = StaticInitializers.getMemoryBudget(thisNode);
+        if (!budget.reserve(bytes, buffer.getSize(), buffer.getMaxSize())) {
+          return;
+        }
+        // the rows don't fit in memory anymore, the ones recorded so far are written first.
+        Output output = buffer.spill(thisNode);
+        for (Object r : rows) {
+          writer1.execute(thisNode, output, buffer.getRowType(), r);
+        }
+        StaticInitializers.releaseMemory(thisNode, buffer.getSize());
+        buffer.setSize(0);
+        return;
+      }
+      writer2.execute(thisNode, buffer.getOutput(), buffer.getRowType(), row);
+    }
+  }
+}
@@ -23,7 +23,10 @@ import com.rawlabs.snapi.truffle.ast.osr.OSRGeneratorNode;
 import com.rawlabs.snapi.truffle.ast.osr.bodies.OSRCollectionEquiJoinInitBodyNode;
 import com.rawlabs.snapi.truffle.ast.osr.bodies.OSRDistinctGetGeneratorNode;
 import com.rawlabs.snapi.truffle.ast.osr.bodies.OSROrderByGetGeneratorNode;
+import com.rawlabs.snapi.truffle.ast.osr.bodies.OSRTopKGetGeneratorNode;
 import com.rawlabs.snapi.truffle.ast.osr.conditions.OSRHasNextConditionNode;
+import com.rawlabs.snapi.truffle.runtime.data_structures.topk.TopKHeap;
+import com.rawlabs.snapi.truffle.runtime.data_structures.topk.TopKNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.AbstractGenerator;
@@ -31,11 +34,22 @@ import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.OffHeapNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.distinct.OffHeapDistinct;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapGroupByKey;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapHashAggregation;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.OffHeapHashGroupBy;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.order_by.OffHeapGroupByKeys;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.record_shaper.RecordShaper;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.replay.RecordingGenerator;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.replay.ReplayBuffer;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.replay.ReplayGenerator;
+import com.rawlabs.snapi.truffle.runtime.generator.list.ListGenerator;
 import com.rawlabs.snapi.truffle.runtime.iterable.list.ListIterable;
 import com.rawlabs.snapi.truffle.runtime.iterable.operations.*;
 import com.rawlabs.snapi.truffle.runtime.iterable.sources.*;
+import com.rawlabs.snapi.truffle.runtime.list.ObjectList;
+import com.rawlabs.snapi.truffle.runtime.profiler.OperatorProfile;
+import com.rawlabs.snapi.truffle.runtime.profiler.ProfiledCollection;
+import com.rawlabs.snapi.truffle.runtime.profiler.ProfiledGenerator;
+import com.rawlabs.snapi.truffle.runtime.profiler.QueryProfile;
 
 public class IterableNodes {
   @NodeInfo(shortName = "Iterable.GetGenerator")
@@ -214,7 +228,8 @@ public class IterableNodes {
               collection.getFrame(),
               contextValues[0],
               (int) contextValues[1],
-              (int) contextValues[2]);
+              (int) contextValues[2],
+              (int) contextValues[3]);
       Object generator = getGeneratorNode.execute(thisNode, collection.getIterable());
       try {
         initNode.execute(thisNode, generator);
@@ -265,14 +280,39 @@ public class IterableNodes {
         @Cached(value = "getContextValues(thisNode)", dimensions = 1, allowUncached = true)
             long[] contextValues) {
       MaterializedFrame frame = collection.getFrame();
-      OffHeapGroupByKey map =
-          new OffHeapGroupByKey(
-              collection.getKeyType(),
-              collection.getRowType(),
-              new RecordShaper(false),
-              contextValues[0],
-              (int) contextValues[1],
-              (int) contextValues[2]);
+      Object map;
+      if (collection.getAggregations() == null && !collection.isHashed()) {
+        // the groups come out in key order.
+        map =
+            new OffHeapGroupByKey(
+                collection.getKeyType(),
+                collection.getRowType(),
+                new RecordShaper(false),
+                contextValues[0],
+                (int) contextValues[1],
+                (int) contextValues[2],
+                (int) contextValues[3]);
+      } else if (collection.getAggregations() == null) {
+        map =
+            new OffHeapHashGroupBy(
+                collection.getKeyType(),
+                collection.getRowType(),
+                new RecordShaper(false),
+                contextValues[0],
+                (int) contextValues[1],
+                (int) contextValues[2],
+                (int) contextValues[5]);
+      } else {
+        // only the results of the aggregations of the groups are kept.
+        map =
+            new OffHeapHashAggregation(
+                collection.getKeyType(),
+                collection.getAggregations(),
+                contextValues[0],
+                (int) contextValues[1],
+                (int) contextValues[2],
+                (int) contextValues[5]);
+      }
       Object inputGenerator = getGeneratorNode.execute(thisNode, collection.getIterable());
       try {
         initNode.execute(thisNode, inputGenerator);
@@ -325,7 +365,8 @@ public class IterableNodes {
               collection.getKeyOrderings(),
               contextValues[0],
               (int) contextValues[1],
-              (int) contextValues[2]);
+              (int) contextValues[2],
+              (int) contextValues[3]);
       try {
         initNode.execute(thisNode, generator);
 
@@ -341,9 +382,94 @@ public class IterableNodes {
       return generatorNode.execute(thisNode, groupByKeys);
     }
 
+    public static LoopNode getTopKGenNode(TopKCollection collection) {
+      return Truffle.getRuntime()
+          .createLoopNode(
+              new OSRGeneratorNode(
+                  new OSRHasNextConditionNode(collection.getOrderBy().getGeneratorSlot()),
+                  new OSRTopKGetGeneratorNode(
+                      collection.getOrderBy().getGeneratorSlot(),
+                      collection.getOrderBy().getCollectionSlot(),
+                      collection.getHeapSlot())));
+    }
+
+    // The rows are kept in a heap of `count` rows while the collection is read, and then sorted.
+    @Specialization(guards = "cachedCollection.hasSameSlots(collection)", limit = "8", unroll = 8)
+    static Object getGenerator(
+        Node node,
+        TopKCollection collection,
+        @Bind("$node") Node thisNode,
+        @Cached("collection") TopKCollection cachedCollection,
+        @Cached(value = "getTopKGenNode(cachedCollection)", inline = false, allowUncached = true)
+            LoopNode loopNode,
+        @Cached(inline = false) @Cached.Shared("getGenerator1")
+            IterableNodes.GetGeneratorNode getGeneratorNode,
+        @Cached(inline = false) @Cached.Shared("init") GeneratorNodes.GeneratorInitNode initNode,
+        @Cached @Cached.Shared("close") GeneratorNodes.GeneratorCloseNode closeNode,
+        @Cached TopKNodes.TopKRowsNode rowsNode) {
+      OrderByCollection orderBy = collection.getOrderBy();
+      Object generator = getGeneratorNode.execute(thisNode, orderBy.getParentIterable());
+      TopKHeap heap = new TopKHeap(orderBy.getKeyOrderings(), collection.getCount());
+      try {
+        initNode.execute(thisNode, generator);
+
+        Frame frame = orderBy.getFrame();
+        frame.setObject(orderBy.getGeneratorSlot(), generator);
+        frame.setObject(collection.getHeapSlot(), heap);
+        frame.setObject(orderBy.getCollectionSlot(), collection);
+
+        loopNode.execute(orderBy.getFrame());
+      } finally {
+        closeNode.execute(thisNode, generator);
+      }
+      return new ListGenerator(new ObjectList(rowsNode.execute(thisNode, heap)));
+    }
+
+    // Once a cached collection was read entirely, its rows are replayed. Until then, each generator
+    // reads its source and records the rows (several can, e.g. if the collection is read in a loop
+    // over itself).
+    @Specialization
+    static Object getGenerator(
+        Node node,
+        CacheCollection collection,
+        @Bind("$node") Node thisNode,
+        @Cached(inline = false) @Cached.Shared("getGenerator1")
+            IterableNodes.GetGeneratorNode getGeneratorNode,
+        @Cached(value = "getContextValues(thisNode)", dimensions = 1, allowUncached = true)
+            long[] contextValues) {
+      if (collection.getReplay() != null) {
+        return new ReplayGenerator(collection.getReplay());
+      }
+      Object generator = getGeneratorNode.execute(thisNode, collection.getParentIterable());
+      ReplayBuffer buffer =
+          new ReplayBuffer(
+              collection.getRowType(),
+              contextValues[0],
+              (int) contextValues[1],
+              (int) contextValues[2]);
+      return new RecordingGenerator(collection, generator, buffer);
+    }
+
     @Specialization
     static Object getGenerator(Node node, ListIterable collection) {
       return collection.getGenerator();
     }
+
+    @Specialization
+    static Object getGenerator(
+        Node node,
+        ProfiledCollection collection,
+        @Bind("$node") Node thisNode,
+        @Cached(inline = false) @Cached.Shared("getGenerator1")
+            IterableNodes.GetGeneratorNode getGeneratorNode) {
+      OperatorProfile profile = collection.getProfile();
+      QueryProfile.enter(profile);
+      try {
+        return new ProfiledGenerator(
+            getGeneratorNode.execute(thisNode, collection.getIterable()), profile);
+      } finally {
+        QueryProfile.exit(0);
+      }
+    }
   }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.iterable;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.MaterializedFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.rawlabs.snapi.truffle.runtime.exceptions.BreakException;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.StaticInitializers;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.compute_next.sources.ReadLinesComputeNext;
+import com.rawlabs.snapi.truffle.runtime.iterable.operations.FilterCollection;
+import com.rawlabs.snapi.truffle.runtime.iterable.operations.TransformCollection;
+import com.rawlabs.snapi.truffle.runtime.iterable.sources.ExpressionCollection;
+import com.rawlabs.snapi.truffle.runtime.iterable.sources.IntRangeCollection;
+import com.rawlabs.snapi.truffle.runtime.iterable.sources.LongRangeCollection;
+import com.rawlabs.snapi.truffle.runtime.iterable.sources.ReadLinesCollection;
+import com.rawlabs.snapi.truffle.runtime.profiler.ProfiledCollection;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Splits a pipeline of Collection.Transform and Collection.Filter into morsels: copies of the
+ * pipeline over consecutive parts of its source, that can be iterated on different threads.
+ *
+ * <p>Ranges and built collections are cut in parts of the morsel size. The lines of a file are read
+ * by the caller and handed over by batches of the morsel size.
+ */
+public final class Morsels implements Closeable {
+
+  // the operations of the pipeline, from the last one to the first one.
+  private final ArrayList<Object> operations;
+
+  private final int morselSize;
+
+  // the next part of a range, until it reaches its end.
+  private final boolean isIntRange;
+  private long position;
+  private long end;
+  private long step;
+  private long span; // the distance between the starts of two morsels.
+
+  // the built collection.
+  private Object[] values;
+
+  // the lines of a file.
+  private ReadLinesComputeNext lines;
+
+  private Morsels(ArrayList<Object> operations, int morselSize, boolean isIntRange) {
+    this.operations = operations;
+    this.morselSize = morselSize;
+    this.isIntRange = isIntRange;
+  }
+
+  /** The morsels of the iterable, or null if it isn't a pipeline over a source that splits. */
+  @TruffleBoundary
+  public static Morsels split(Object iterable, int morselSize, Node node) {
+    ArrayList<Object> operations = new ArrayList<>();
+    Object source = iterable;
+    while (true) {
+      if (source instanceof TransformCollection t) {
+        operations.add(t);
+        source = t.getParentIterable();
+      } else if (source instanceof FilterCollection f) {
+        operations.add(f);
+        source = f.getParentIterable();
+      } else if (source instanceof ProfiledCollection p) {
+        // morsels are processed by workers, the pipeline is charged to the operator consuming it.
+        source = p.getIterable();
+      } else {
+        break;
+      }
+    }
+    if (operations.isEmpty() || morselSize <= 0) return null;
+    switch (source) {
+      case IntRangeCollection r -> {
+        Morsels morsels = new Morsels(operations, morselSize, true);
+        return morsels.range(r.getStart(), r.getEnd(), r.getStep()) ? morsels : null;
+      }
+      case LongRangeCollection r -> {
+        Morsels morsels = new Morsels(operations, morselSize, false);
+        return morsels.range(r.getStart(), r.getEnd(), r.getStep()) ? morsels : null;
+      }
+      case ExpressionCollection c -> {
+        if (c.getValues().length <= morselSize) return null;
+        Morsels morsels = new Morsels(operations, morselSize, false);
+        morsels.values = c.getValues();
+        return morsels;
+      }
+      case ReadLinesCollection c -> {
+        Morsels morsels = new Morsels(operations, morselSize, false);
+        morsels.lines = new ReadLinesComputeNext(c.getStream());
+        morsels.lines.init(StaticInitializers.openLinesScan(c.getStream(), node));
+        return morsels;
+      }
+      default -> {
+        return null;
+      }
+    }
+  }
+
+  // Checks the range has more than one morsel.
+  private boolean range(long start, long end, long step) {
+    try {
+      this.span = Math.multiplyExact(step, morselSize);
+    } catch (ArithmeticException e) {
+      return false;
+    }
+    this.position = start;
+    this.end = end;
+    this.step = step;
+    // the distance is compared unsigned, since it may not fit a long.
+    return start < end && Long.compareUnsigned(end - start, span) > 0;
+  }
+
+  /** The next morsel, or null if there are no more. */
+  @TruffleBoundary
+  public Object next() {
+    Object part;
+    if (lines != null) {
+      part = nextLines();
+    } else if (values != null) {
+      part = nextValues();
+    } else {
+      part = nextRange();
+    }
+    return part == null ? null : pipeline(part);
+  }
+
+  private Object nextRange() {
+    if (position >= end) return null;
+    long start = position;
+    if (Long.compareUnsigned(end - position, span) > 0) {
+      position += span;
+    } else {
+      position = end;
+    }
+    return isIntRange
+        ? new IntRangeCollection((int) start, (int) position, (int) step)
+        : new LongRangeCollection(start, position, step);
+  }
+
+  private Object nextValues() {
+    if (position >= values.length) return null;
+    int start = (int) position;
+    position = Math.min(values.length, position + morselSize);
+    return new ExpressionCollection(Arrays.copyOfRange(values, start, (int) position));
+  }
+
+  private Object nextLines() {
+    ArrayList<Object> batch = new ArrayList<>(morselSize);
+    try {
+      while (batch.size() < morselSize) {
+        batch.add(lines.next());
+      }
+    } catch (BreakException e) {
+      if (batch.isEmpty()) return null;
+    }
+    return new ExpressionCollection(batch.toArray());
+  }
+
+  private Object pipeline(Object part) {
+    Object iterable = part;
+    for (int i = operations.size() - 1; i >= 0; i--) {
+      if (operations.get(i) instanceof FilterCollection f) {
+        // the filter keeps the state of its loop in the frame, so each morsel has its own.
+        MaterializedFrame frame =
+            Truffle.getRuntime()
+                .createMaterializedFrame(
+                    f.getFrame().getArguments(), f.getFrame().getFrameDescriptor());
+        iterable =
+            new FilterCollection(
+                iterable,
+                f.getPredicate(),
+                frame,
+                f.getGeneratorSlot(),
+                f.getFunctionSlot(),
+                f.getResultSlot());
+      } else {
+        TransformCollection t = (TransformCollection) operations.get(i);
+        iterable = new TransformCollection(iterable, t.getTransform());
+      }
+    }
+    return iterable;
+  }
+
+  @Override
+  @TruffleBoundary
+  public void close() {
+    if (lines != null) lines.close();
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.iterable.operations;
+
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.nodes.Node;
+import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.replay.ReplayBuffer;
+import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodes;
+
+// A collection read more than once. Its rows are recorded the first time it is read entirely, and
+// replayed from then on, instead of reading its source again.
+@ExportLibrary(InteropLibrary.class)
+public class CacheCollection implements TruffleObject {
+  private final Object parentIterable;
+  private final SnapiTypeWithProperties rowType;
+  private ReplayBuffer replay = null; // the recorded rows, once they're all recorded.
+
+  public CacheCollection(Object iterable, SnapiTypeWithProperties rowType) {
+    this.parentIterable = iterable;
+    this.rowType = rowType;
+  }
+
+  public Object getParentIterable() {
+    return parentIterable;
+  }
+
+  public SnapiTypeWithProperties getRowType() {
+    return rowType;
+  }
+
+  public ReplayBuffer getReplay() {
+    return replay;
+  }
+
+  public void setReplay(ReplayBuffer replay) {
+    this.replay = replay;
+  }
+
+  // InteropLibrary: Iterable
+  @ExportMessage
+  boolean hasIterator() {
+    return true;
+  }
+
+  @ExportMessage
+  Object getIterator(
+      @Bind("$node") Node thisNode,
+      @Cached(inline = true) IterableNodes.GetGeneratorNode getGeneratorNode,
+      @Cached(inline = true) GeneratorNodes.GeneratorInitNode initNode) {
+    Object generator = getGeneratorNode.execute(thisNode, this);
+    initNode.execute(thisNode, generator);
+    return generator;
+  }
+}
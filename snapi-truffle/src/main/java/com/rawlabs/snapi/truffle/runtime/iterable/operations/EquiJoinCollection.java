@@ -24,6 +24,7 @@ import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.AbstractGenerator;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.compute_next.operations.EquiJoinComputeNext;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.compute_next.operations.HashEquiJoinComputeNext;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodes;
 
 @ExportLibrary(InteropLibrary.class)
@@ -32,6 +33,10 @@ public class EquiJoinCollection implements TruffleObject {
   final Object leftKeyF, rightKeyF, reshapeFun;
   final SnapiTypeWithProperties leftRowType, rightRowType;
   final SnapiTypeWithProperties keyType;
+  private final boolean hashJoin;
+  private final long maxSize;
+  private final int kryoOutputBufferSize, kryoInputBufferSize;
+  private final int hashJoinPartitions;
   private final MaterializedFrame frame;
   private final int computeNextSlot;
   private final int shouldContinueSlot;
@@ -48,6 +53,11 @@ public class EquiJoinCollection implements TruffleObject {
       SnapiTypeWithProperties rightRowType,
       SnapiTypeWithProperties keyType,
       Object reshapeFun,
+      boolean hashJoin,
+      long maxSize,
+      int kryoOutputBufferSize,
+      int kryoInputBufferSize,
+      int hashJoinPartitions,
       MaterializedFrame frame,
       int computeNextSlot,
       int shouldContinueSlot,
@@ -62,6 +72,11 @@ public class EquiJoinCollection implements TruffleObject {
     this.rightRowType = rightRowType;
     this.keyType = keyType;
     this.reshapeFun = reshapeFun;
+    this.hashJoin = hashJoin;
+    this.maxSize = maxSize;
+    this.kryoOutputBufferSize = kryoOutputBufferSize;
+    this.kryoInputBufferSize = kryoInputBufferSize;
+    this.hashJoinPartitions = hashJoinPartitions;
     this.frame = frame;
     this.computeNextSlot = computeNextSlot;
     this.shouldContinueSlot = shouldContinueSlot;
@@ -71,6 +86,28 @@ public class EquiJoinCollection implements TruffleObject {
   }
 
   public Object getGenerator() {
+    if (hashJoin) {
+      return new AbstractGenerator(
+          new HashEquiJoinComputeNext(
+              leftIterable,
+              leftKeyF,
+              leftRowType,
+              rightIterable,
+              rightKeyF,
+              rightRowType,
+              keyType,
+              reshapeFun,
+              maxSize,
+              kryoOutputBufferSize,
+              kryoInputBufferSize,
+              hashJoinPartitions,
+              frame,
+              computeNextSlot,
+              shouldContinueSlot,
+              generatorSlot,
+              keyFunctionSlot,
+              mapSlot));
+    }
     return new AbstractGenerator(
         new EquiJoinComputeNext(
             leftIterable,
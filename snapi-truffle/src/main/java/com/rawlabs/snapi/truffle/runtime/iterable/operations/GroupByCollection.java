@@ -22,6 +22,7 @@ import com.oracle.truffle.api.library.ExportMessage;
 import com.oracle.truffle.api.nodes.Node;
 import com.rawlabs.snapi.frontend.snapi.source.SnapiTypeWithProperties;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.off_heap_generator.off_heap.group_by.GroupAggregations;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodes;
 
 @ExportLibrary(InteropLibrary.class)
@@ -34,6 +35,10 @@ public class GroupByCollection implements TruffleObject {
   private final int generatorSlot;
   private final int keyFunctionSlot;
   private final int mapSlot;
+  private final GroupAggregations aggregations; // null if the groups are kept.
+  // whether the order of the groups can't be observed, so that they are grouped in a hash map
+  // instead of by key order.
+  private final boolean hashed;
 
   public GroupByCollection(
       Object iterable,
@@ -43,7 +48,9 @@ public class GroupByCollection implements TruffleObject {
       MaterializedFrame frame,
       int generatorSlot,
       int keyFunctionSlot,
-      int mapSlot) {
+      int mapSlot,
+      GroupAggregations aggregations,
+      boolean hashed) {
     this.iterable = iterable;
     this.keyFun = keyFun;
     this.keyType = kType;
@@ -52,6 +59,8 @@ public class GroupByCollection implements TruffleObject {
     this.generatorSlot = generatorSlot;
     this.keyFunctionSlot = keyFunctionSlot;
     this.mapSlot = mapSlot;
+    this.aggregations = aggregations;
+    this.hashed = hashed;
   }
 
   public Object getIterable() {
@@ -86,6 +95,14 @@ public class GroupByCollection implements TruffleObject {
     return mapSlot;
   }
 
+  public GroupAggregations getAggregations() {
+    return aggregations;
+  }
+
+  public boolean isHashed() {
+    return hashed;
+  }
+
   public boolean hasSameSlots(GroupByCollection other) {
     return this.generatorSlot == other.generatorSlot
         && this.keyFunctionSlot == other.keyFunctionSlot
@@ -35,6 +35,9 @@ public class JoinCollection implements TruffleObject {
   private final Boolean reshapeBeforePredicate;
 
   private final int kryoOutputBufferSize;
+  private final int kryoInputBufferSize;
+  private final long maxSize;
+  private final int leftBatchSize;
   private final MaterializedFrame frame;
   private final int computeNextSlot;
   private final int shouldContinueSlot;
@@ -50,6 +53,9 @@ public class JoinCollection implements TruffleObject {
       SnapiTypeWithProperties rightType,
       Boolean reshapeBeforePredicate,
       int kryoOutputBufferSize,
+      int kryoInputBufferSize,
+      long maxSize,
+      int leftBatchSize,
       MaterializedFrame frame,
       int computeNextSlot,
       int shouldContinueSlot,
@@ -69,6 +75,9 @@ public class JoinCollection implements TruffleObject {
     this.generatorSlot = generatorSlot;
     this.outputBufferSlot = outputBufferSlot;
     this.kryoOutputBufferSize = kryoOutputBufferSize;
+    this.kryoInputBufferSize = kryoInputBufferSize;
+    this.maxSize = maxSize;
+    this.leftBatchSize = leftBatchSize;
   }
 
   public Object getGenerator() {
@@ -81,6 +90,9 @@ public class JoinCollection implements TruffleObject {
             reshapeBeforePredicate,
             rightType,
             kryoOutputBufferSize,
+            kryoInputBufferSize,
+            maxSize,
+            leftBatchSize,
             frame,
             computeNextSlot,
             shouldContinueSlot,
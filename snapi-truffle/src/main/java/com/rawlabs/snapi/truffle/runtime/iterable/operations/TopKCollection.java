@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.iterable.operations;
+
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.nodes.Node;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
+import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodes;
+
+// The first `count` rows of an OrderByCollection, computed with a bounded heap.
+@ExportLibrary(InteropLibrary.class)
+public class TopKCollection implements TruffleObject {
+  private final OrderByCollection orderBy;
+  private final int count;
+  private final int heapSlot;
+
+  public TopKCollection(OrderByCollection orderBy, int count, int heapSlot) {
+    this.orderBy = orderBy;
+    this.count = count;
+    this.heapSlot = heapSlot;
+  }
+
+  public OrderByCollection getOrderBy() {
+    return orderBy;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public int getHeapSlot() {
+    return heapSlot;
+  }
+
+  public boolean hasSameSlots(TopKCollection other) {
+    return this.orderBy.hasSameSlots(other.orderBy) && this.heapSlot == other.heapSlot;
+  }
+
+  // InteropLibrary: Iterable
+  @ExportMessage
+  boolean hasIterator() {
+    return true;
+  }
+
+  @ExportMessage
+  Object getIterator(
+      @Bind("$node") Node thisNode,
+      @Cached(inline = true) IterableNodes.GetGeneratorNode getGeneratorNode,
+      @Cached(inline = true) GeneratorNodes.GeneratorInitNode initNode) {
+    Object generator = getGeneratorNode.execute(thisNode, this);
+    initNode.execute(thisNode, generator);
+    return generator;
+  }
+}
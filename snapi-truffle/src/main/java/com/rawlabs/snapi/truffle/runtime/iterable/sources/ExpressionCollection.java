@@ -32,6 +32,10 @@ public class ExpressionCollection implements TruffleObject {
     this.values = values;
   }
 
+  public Object[] getValues() {
+    return values;
+  }
+
   public AbstractGenerator getGenerator() {
     return new AbstractGenerator(new ExpressionComputeNext(values));
   }
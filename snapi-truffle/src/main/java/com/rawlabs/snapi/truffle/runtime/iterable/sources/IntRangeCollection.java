@@ -35,6 +35,18 @@ public class IntRangeCollection implements TruffleObject {
     this.step = step;
   }
 
+  public int getStart() {
+    return start;
+  }
+
+  public int getEnd() {
+    return end;
+  }
+
+  public int getStep() {
+    return step;
+  }
+
   public AbstractGenerator getGenerator() {
     return new AbstractGenerator(new IntRangeComputeNext(start, end, step));
   }
@@ -20,6 +20,7 @@ import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
 import com.oracle.truffle.api.nodes.Node;
+import com.rawlabs.snapi.truffle.ast.io.jdbc.JdbcQuery;
 import com.rawlabs.snapi.truffle.runtime.exceptions.rdbms.JdbcExceptionHandler;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.abstract_generator.AbstractGenerator;
@@ -31,6 +32,8 @@ import com.rawlabs.utils.core.RawSettings;
 public class JdbcQueryCollection implements TruffleObject {
   private final LocationObject dbLocation;
   private final String query;
+  private final String[] columnNames;
+  private final JdbcQuery.ColumnType[] columnTypes;
   private final RawSettings rawSettings;
   private final RootCallTarget rowParserCallTarget;
 
@@ -39,11 +42,15 @@ public class JdbcQueryCollection implements TruffleObject {
   public JdbcQueryCollection(
       LocationObject dbLocation,
       String query,
+      String[] columnNames,
+      JdbcQuery.ColumnType[] columnTypes,
       RawSettings rawSettings,
       RootCallTarget rowParserCallTarget,
       JdbcExceptionHandler exceptionHandler) {
     this.dbLocation = dbLocation;
     this.query = query;
+    this.columnNames = columnNames;
+    this.columnTypes = columnTypes;
     this.rawSettings = rawSettings;
     this.rowParserCallTarget = rowParserCallTarget;
     this.exceptionHandler = exceptionHandler;
@@ -52,7 +59,13 @@ public class JdbcQueryCollection implements TruffleObject {
   public AbstractGenerator getGenerator() {
     return new AbstractGenerator(
         new JdbcQueryComputeNext(
-            dbLocation, query, rawSettings, rowParserCallTarget, exceptionHandler));
+            dbLocation,
+            query,
+            columnNames,
+            columnTypes,
+            rawSettings,
+            rowParserCallTarget,
+            exceptionHandler));
   }
 
   // InteropLibrary: Iterable
@@ -35,6 +35,18 @@ public class LongRangeCollection implements TruffleObject {
     this.step = step;
   }
 
+  public long getStart() {
+    return start;
+  }
+
+  public long getEnd() {
+    return end;
+  }
+
+  public long getStep() {
+    return step;
+  }
+
   public AbstractGenerator getGenerator() {
     return new AbstractGenerator(new LongRangeComputeNext(start, end, step));
   }
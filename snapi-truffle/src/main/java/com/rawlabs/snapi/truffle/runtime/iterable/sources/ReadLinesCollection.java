@@ -32,6 +32,10 @@ public class ReadLinesCollection implements TruffleObject {
     this.stream = stream;
   }
 
+  public TruffleCharInputStream getStream() {
+    return stream;
+  }
+
   public AbstractGenerator getGenerator() {
     return new AbstractGenerator(new ReadLinesComputeNext(stream));
   }
@@ -22,6 +22,8 @@ import com.oracle.truffle.api.nodes.NodeInfo;
 import com.rawlabs.snapi.frontend.snapi.source.*;
 import com.rawlabs.snapi.truffle.SnapiLanguage;
 import com.rawlabs.snapi.truffle.ast.TypeGuards;
+import com.rawlabs.snapi.truffle.ast.tryable_nullable.Nullable;
+import com.rawlabs.snapi.truffle.ast.tryable_nullable.Tryable;
 import com.rawlabs.snapi.truffle.ast.tryable_nullable.TryableNullableNodes;
 import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
 import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodes;
@@ -30,14 +32,9 @@ import com.rawlabs.snapi.truffle.runtime.list.ObjectList;
 import com.rawlabs.snapi.truffle.runtime.primitives.*;
 import com.rawlabs.snapi.truffle.runtime.record.RecordNodes;
 import com.rawlabs.snapi.truffle.runtime.record.RecordNodesFactory;
+import com.rawlabs.snapi.truffle.runtime.utils.KryoFootPrint;
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.TimeUnit;
-import scala.collection.immutable.Vector;
 
 public class KryoNodes {
   @NodeInfo(shortName = "Kryo.Read")
@@ -137,19 +134,17 @@ public class KryoNodes {
       return kryoRead;
     }
 
-    public static boolean hasDuplicateKeys(SnapiRecordType t) {
-      Vector<SnapiAttrType> atts = t.atts();
-      List<Object> list = new ArrayList<>();
-      for (int i = 0; i < atts.size(); i++) {
-        list.add(atts.apply(i).idn());
-      }
-      return list.size() != list.stream().distinct().count();
-    }
-
     public static SnapiLanguage getSnapiLanguage(Node node) {
       return SnapiLanguage.get(node);
     }
 
+    public static KryoRecordLayout getLayout(SnapiRecordType t) {
+      return KryoRecordLayout.of(t);
+    }
+
+    // Reads a record laid out by KryoRecordLayout: the bitmap, the fixed-width fields, then the
+    // variable-length section. Values are collected first and the record is then built with one
+    // add node per field, so every record of the type goes through the same shape transitions.
     @Specialization(guards = {"isRecordKind(t)"})
     @ExplodeLoop
     static Object doRecord(
@@ -157,29 +152,103 @@ public class KryoNodes {
         Input input,
         SnapiRecordType t,
         @Bind("$node") Node thisNode,
-        @Cached(value = "hasDuplicateKeys(t)", allowUncached = true) boolean hasDuplicateKeys,
+        @Cached(value = "getLayout(t)", allowUncached = true) KryoRecordLayout layout,
         @Cached(value = "getSnapiLanguage(thisNode)", allowUncached = true) SnapiLanguage language,
-        @Cached(value = "createAddProps(t.atts().size())", allowUncached = true)
+        @Cached(value = "createAddProps(layout.size())", allowUncached = true)
             RecordNodes.AddPropNode[] addPropNode,
         @Cached(value = "addPropNode.length", allowUncached = true) int size,
         @Cached(value = "createKryoRead(size)", allowUncached = true) KryoReadNode[] kryo) {
-      Object record = language.createPureRecord();
+      byte[] bitmap = readBitmap(input, layout.getBitmapSize());
+      Object[] values = new Object[size];
       for (int i = 0; i < size; i++) {
-        SnapiTypeWithProperties attType = getTipe(t, i);
-        Object value = kryo[i].execute(thisNode, input, attType);
-        addPropNode[i].execute(thisNode, record, getIdn(t, i), value, hasDuplicateKeys);
+        if (layout.isFixed(i) && !layout.isError(bitmap, i) && !layout.isNull(bitmap, i)) {
+          values[i] = readFixed(input, layout.getKind(i));
+        }
+      }
+      for (int i = 0; i < size; i++) {
+        if (layout.isError(bitmap, i)) {
+          values[i] = new ErrorObject(readString(input));
+        } else if (layout.isNull(bitmap, i)) {
+          values[i] = NullObject.INSTANCE;
+        } else if (!layout.isFixed(i)) {
+          values[i] = kryo[i].execute(thisNode, input, layout.getValueType(i));
+        }
+      }
+      Object record =
+          layout.hasDuplicateKeys()
+              ? language.createDuplicateKeyRecord()
+              : language.createPureRecord();
+      for (int i = 0; i < size; i++) {
+        addPropNode[i].execute(
+            thisNode, record, layout.getName(i), values[i], layout.hasDuplicateKeys());
       }
       return record;
     }
 
     @CompilerDirectives.TruffleBoundary
-    public static SnapiTypeWithProperties getTipe(SnapiRecordType t, int index) {
-      return (SnapiTypeWithProperties) t.atts().apply(index).tipe();
+    static byte[] readBitmap(Input input, int size) {
+      return size == 0 ? null : input.readBytes(size);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static String readString(Input input) {
+      return input.readString();
+    }
+
+    // The kind is a constant of the layout, so that the switch folds to a single typed read. Only
+    // the read itself is behind a boundary.
+    static Object readFixed(Input input, byte kind) {
+      switch (kind) {
+        case KryoRecordLayout.BYTE:
+          return readByte(input);
+        case KryoRecordLayout.SHORT:
+          return readShort(input);
+        case KryoRecordLayout.INT:
+          return readInt(input);
+        case KryoRecordLayout.LONG:
+          return readLong(input);
+        case KryoRecordLayout.FLOAT:
+          return readFloat(input);
+        case KryoRecordLayout.DOUBLE:
+          return readDouble(input);
+        default:
+          return readBoolean(input);
+      }
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static byte readByte(Input input) {
+      return input.readByte();
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static short readShort(Input input) {
+      return input.readShort();
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static int readInt(Input input) {
+      return input.readInt();
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static long readLong(Input input) {
+      return input.readLong();
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static float readFloat(Input input) {
+      return input.readFloat();
     }
 
     @CompilerDirectives.TruffleBoundary
-    public static String getIdn(SnapiRecordType t, int index) {
-      return t.atts().apply(index).idn();
+    static double readDouble(Input input) {
+      return input.readDouble();
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static boolean readBoolean(Input input) {
+      return input.readBoolean();
     }
 
     @Specialization(guards = {"isIntervalKind(t)"})
@@ -199,42 +268,19 @@ public class KryoNodes {
     @Specialization(guards = {"isTimeKind(t)"})
     @CompilerDirectives.TruffleBoundary
     static TimeObject doTime(Node node, Input input, SnapiTypeWithProperties t) {
-      int hours = input.readInt();
-      int minutes = input.readInt();
-      int seconds = input.readInt();
-      int millis = input.readInt();
-      return new TimeObject(
-          LocalTime.of(hours, minutes, seconds, (int) TimeUnit.MILLISECONDS.toNanos(millis)));
+      return new TimeObject(input.readLong());
     }
 
     @Specialization(guards = {"isDateKind(t)"})
     @CompilerDirectives.TruffleBoundary
     static DateObject doDate(Node node, Input input, SnapiTypeWithProperties t) {
-      int year = input.readInt();
-      int month = input.readInt();
-      int day = input.readInt();
-      return new DateObject(LocalDate.of(year, month, day));
+      return new DateObject(input.readInt());
     }
 
     @Specialization(guards = {"isTimestampKind(t)"})
     @CompilerDirectives.TruffleBoundary
     static TimestampObject doTimestamp(Node node, Input input, SnapiTypeWithProperties t) {
-      int year = input.readInt();
-      int month = input.readInt();
-      int day = input.readInt();
-      int hours = input.readInt();
-      int minutes = input.readInt();
-      int seconds = input.readInt();
-      int millis = input.readInt();
-      return new TimestampObject(
-          LocalDateTime.of(
-              year,
-              month,
-              day,
-              hours,
-              minutes,
-              seconds,
-              (int) TimeUnit.MILLISECONDS.toNanos(millis)));
+      return new TimestampObject(input.readLong());
     }
 
     @Specialization(guards = {"isBooleanKind(t)"})
@@ -252,6 +298,10 @@ public class KryoNodes {
     @Specialization(guards = {"isDecimalKind(t)"})
     @CompilerDirectives.TruffleBoundary
     static DecimalObject doDecimal(Node node, Input input, SnapiTypeWithProperties t) {
+      if (input.readBoolean()) {
+        long unscaled = input.readLong();
+        return new DecimalObject(unscaled, input.readInt());
+      }
       return new DecimalObject(new BigDecimal(input.readString()));
     }
 
@@ -419,6 +469,15 @@ public class KryoNodes {
       return kryoWrite;
     }
 
+    public static RecordNodes.GetValueByIndexNode[] createGetValueByIndex(int size) {
+      RecordNodes.GetValueByIndexNode[] getValueNodes = new RecordNodes.GetValueByIndexNode[size];
+      for (int i = 0; i < size; i++) {
+        getValueNodes[i] = RecordNodesFactory.GetValueByIndexNodeGen.create();
+      }
+      return getValueNodes;
+    }
+
+    // Writes a record in the layout of KryoRecordLayout (see KryoReadNode.doRecord).
     @Specialization(guards = {"isRecordKind(type)"})
     @ExplodeLoop
     static void doRecord(
@@ -427,55 +486,136 @@ public class KryoNodes {
         SnapiRecordType type,
         Object o,
         @Bind("$node") Node thisNode,
-        @Cached RecordNodes.GetKeysNode getKeysNode,
-        @Cached(value = "getKeysNode.execute(thisNode, o)", dimensions = 1, allowUncached = true)
-            Object[] keys,
-        @Cached("keys.length") int size,
+        @Cached(value = "getLayout(type)", allowUncached = true) KryoRecordLayout layout,
+        @Cached(value = "layout.size()", allowUncached = true) int size,
         @Cached(value = "createKryoWrite(size)", allowUncached = true) KryoWriteNode[] kryo,
         @Cached(value = "createGetValue(size)", allowUncached = true)
-            RecordNodes.GetValueNode[] getValueNode) {
+            RecordNodes.GetValueNode[] getValueNode,
+        @Cached(value = "createGetValueByIndex(size)", allowUncached = true)
+            RecordNodes.GetValueByIndexNode[] getValueByIndexNode) {
+      Object[] values = new Object[size];
+      byte[] bitmap = layout.getBitmapSize() == 0 ? null : new byte[layout.getBitmapSize()];
+      for (int i = 0; i < size; i++) {
+        Object value =
+            layout.hasDuplicateKeys()
+                ? getValueByIndexNode[i].execute(thisNode, o, i)
+                : getValueNode[i].execute(thisNode, o, layout.getName(i));
+        if (layout.isTryable(i) && Tryable.isError(value)) {
+          layout.setError(bitmap, i);
+        } else if (layout.isNullable(i) && Nullable.isNull(value)) {
+          layout.setNull(bitmap, i);
+        }
+        values[i] = value;
+      }
+      writeBitmap(output, bitmap);
+      for (int i = 0; i < size; i++) {
+        if (layout.isFixed(i) && !layout.isError(bitmap, i) && !layout.isNull(bitmap, i)) {
+          writeFixed(output, layout.getKind(i), values[i]);
+        }
+      }
       for (int i = 0; i < size; i++) {
-        Object field = getValueNode[i].execute(thisNode, o, keys[i]);
-        kryo[i].execute(thisNode, output, getTipe(type, i), field);
+        if (layout.isError(bitmap, i)) {
+          writeString(output, ((ErrorObject) values[i]).getMessage());
+        } else if (!layout.isFixed(i) && !layout.isNull(bitmap, i)) {
+          kryo[i].execute(thisNode, output, layout.getValueType(i), values[i]);
+        }
+      }
+    }
+
+    public static KryoRecordLayout getLayout(SnapiRecordType type) {
+      return KryoRecordLayout.of(type);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static void writeBitmap(Output output, byte[] bitmap) {
+      if (bitmap != null) {
+        output.writeBytes(bitmap);
       }
     }
 
     @CompilerDirectives.TruffleBoundary
-    public static SnapiTypeWithProperties getTipe(SnapiRecordType t, int index) {
-      return (SnapiTypeWithProperties) t.atts().apply(index).tipe();
+    static void writeString(Output output, String s) {
+      output.writeString(s);
+    }
+
+    // See KryoReadNode.readFixed.
+    static void writeFixed(Output output, byte kind, Object value) {
+      switch (kind) {
+        case KryoRecordLayout.BYTE:
+          writeByte(output, (byte) value);
+          break;
+        case KryoRecordLayout.SHORT:
+          writeShort(output, (short) value);
+          break;
+        case KryoRecordLayout.INT:
+          writeInt(output, (int) value);
+          break;
+        case KryoRecordLayout.LONG:
+          writeLong(output, (long) value);
+          break;
+        case KryoRecordLayout.FLOAT:
+          writeFloat(output, (float) value);
+          break;
+        case KryoRecordLayout.DOUBLE:
+          writeDouble(output, (double) value);
+          break;
+        default:
+          writeBoolean(output, (boolean) value);
+      }
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static void writeByte(Output output, byte value) {
+      output.writeByte(value);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static void writeShort(Output output, short value) {
+      output.writeShort(value);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static void writeInt(Output output, int value) {
+      output.writeInt(value);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static void writeLong(Output output, long value) {
+      output.writeLong(value);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static void writeFloat(Output output, float value) {
+      output.writeFloat(value);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static void writeDouble(Output output, double value) {
+      output.writeDouble(value);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static void writeBoolean(Output output, boolean value) {
+      output.writeBoolean(value);
     }
 
     @Specialization(guards = {"isDateKind(type)"})
     @CompilerDirectives.TruffleBoundary
     static void doDate(Node node, Output output, SnapiTypeWithProperties type, DateObject o) {
-      LocalDate date = o.getDate();
-      output.writeInt(date.getYear());
-      output.writeInt(date.getMonthValue());
-      output.writeInt(date.getDayOfMonth());
+      output.writeInt(o.getEpochDay());
     }
 
     @Specialization(guards = {"isTimeKind(type)"})
     @CompilerDirectives.TruffleBoundary
     static void doTime(Node node, Output output, SnapiTypeWithProperties type, TimeObject o) {
-      LocalTime time = o.getTime();
-      output.writeInt(time.getHour());
-      output.writeInt(time.getMinute());
-      output.writeInt(time.getSecond());
-      output.writeInt(time.getNano() / 1000000);
+      output.writeLong(o.getNanoOfDay());
     }
 
     @Specialization(guards = {"isTimestampKind(type)"})
     @CompilerDirectives.TruffleBoundary
     static void doTimestamp(
         Node node, Output output, SnapiTypeWithProperties type, TimestampObject o) {
-      LocalDateTime timestamp = o.getTimestamp();
-      output.writeInt(timestamp.getYear());
-      output.writeInt(timestamp.getMonthValue());
-      output.writeInt(timestamp.getDayOfMonth());
-      output.writeInt(timestamp.getHour());
-      output.writeInt(timestamp.getMinute());
-      output.writeInt(timestamp.getSecond());
-      output.writeInt(timestamp.getNano() / 1000000);
+      output.writeLong(o.getEpochMicros());
     }
 
     @Specialization(guards = {"isIntervalKind(type)"})
@@ -531,7 +671,14 @@ public class KryoNodes {
     @Specialization
     @CompilerDirectives.TruffleBoundary
     static void doDecimal(Node node, Output output, SnapiTypeWithProperties type, DecimalObject o) {
-      output.writeString(o.getBigDecimal().toString());
+      // compact decimals are written as their unscaled value and scale, others as a string.
+      output.writeBoolean(o.isCompact());
+      if (o.isCompact()) {
+        output.writeLong(o.getUnscaled());
+        output.writeInt(o.getScale());
+      } else {
+        output.writeString(o.getBigDecimal().toString());
+      }
     }
 
     @Specialization
@@ -546,4 +693,208 @@ public class KryoNodes {
       output.writeBoolean(o);
     }
   }
+
+  // Measures the number of bytes KryoWriteNode writes for a value, so that off-heap operators
+  // account for the data they actually hold instead of a per-type guess.
+  @NodeInfo(shortName = "Kryo.FootPrint")
+  @GenerateUncached
+  @ImportStatic(TypeGuards.class)
+  @GenerateInline
+  public abstract static class KryoFootPrintNode extends Node {
+
+    private static final SnapiTypeProperty isTryable = new SnapiIsTryableTypeProperty();
+    private static final SnapiTypeProperty isNullable = new SnapiIsNullableTypeProperty();
+
+    public abstract long execute(Node node, SnapiTypeWithProperties type, Object value);
+
+    @Specialization(guards = "isTryable(type)")
+    @CompilerDirectives.TruffleBoundary
+    static long doTryable(
+        Node node,
+        SnapiTypeWithProperties type,
+        Object maybeTryable,
+        @Bind("$node") Node thisNode,
+        @Cached TryableNullableNodes.IsErrorNode isErrorNode,
+        @Cached(inline = false) @Cached.Exclusive KryoFootPrintNode footPrint) {
+      if (isErrorNode.execute(thisNode, maybeTryable)) {
+        return 1 + stringSize(((ErrorObject) maybeTryable).getMessage());
+      }
+      return 1
+          + footPrint.execute(
+              thisNode,
+              (SnapiTypeWithProperties) type.cloneAndRemoveProp(isTryable),
+              maybeTryable);
+    }
+
+    @Specialization(guards = "isNullable(type)")
+    @CompilerDirectives.TruffleBoundary
+    static long doNullable(
+        Node node,
+        SnapiTypeWithProperties type,
+        Object maybeOption,
+        @Bind("$node") Node thisNode,
+        @Cached TryableNullableNodes.IsNullNode isNullNode,
+        @Cached(inline = false) @Cached.Exclusive KryoFootPrintNode footPrint) {
+      if (isNullNode.execute(thisNode, maybeOption)) {
+        return 1;
+      }
+      return 1
+          + footPrint.execute(
+              thisNode,
+              (SnapiTypeWithProperties) type.cloneAndRemoveProp(isNullable),
+              maybeOption);
+    }
+
+    @Specialization(guards = "isListKind(type)")
+    @CompilerDirectives.TruffleBoundary
+    static long doList(
+        Node node,
+        SnapiTypeWithProperties type,
+        Object o,
+        @Bind("$node") Node thisNode,
+        @Cached ListNodes.SizeNode sizeNode,
+        @Cached ListNodes.GetNode getNode,
+        @Cached(inline = false) @Cached.Exclusive KryoFootPrintNode footPrint) {
+      int size = (int) sizeNode.execute(thisNode, o);
+      SnapiTypeWithProperties elementType =
+          (SnapiTypeWithProperties) ((SnapiListType) type).innerType();
+      long total = 4;
+      for (int i = 0; i < size; i++) {
+        total += footPrint.execute(thisNode, elementType, getNode.execute(thisNode, o, i));
+      }
+      return total;
+    }
+
+    public static KryoFootPrintNode[] createFootPrint(int size) {
+      KryoFootPrintNode[] footPrint = new KryoFootPrintNode[size];
+      for (int i = 0; i < size; i++) {
+        footPrint[i] = KryoNodesFactory.KryoFootPrintNodeGen.create();
+      }
+      return footPrint;
+    }
+
+    @Specialization(guards = {"isRecordKind(type)"})
+    @ExplodeLoop
+    static long doRecord(
+        Node node,
+        SnapiRecordType type,
+        Object o,
+        @Bind("$node") Node thisNode,
+        @Cached(value = "getLayout(type)", allowUncached = true) KryoRecordLayout layout,
+        @Cached(value = "layout.size()", allowUncached = true) int size,
+        @Cached(value = "createFootPrint(size)", allowUncached = true)
+            KryoFootPrintNode[] footPrint,
+        @Cached(value = "createGetValue(size)", allowUncached = true)
+            RecordNodes.GetValueNode[] getValueNode,
+        @Cached(value = "createGetValueByIndex(size)", allowUncached = true)
+            RecordNodes.GetValueByIndexNode[] getValueByIndexNode) {
+      long total = layout.getBitmapSize();
+      for (int i = 0; i < size; i++) {
+        Object field =
+            layout.hasDuplicateKeys()
+                ? getValueByIndexNode[i].execute(thisNode, o, i)
+                : getValueNode[i].execute(thisNode, o, layout.getName(i));
+        if (layout.isTryable(i) && Tryable.isError(field)) {
+          total += stringSize(((ErrorObject) field).getMessage());
+        } else if (!layout.isNullable(i) || !Nullable.isNull(field)) {
+          total += footPrint[i].execute(thisNode, layout.getValueType(i), field);
+        }
+      }
+      return total;
+    }
+
+    public static KryoRecordLayout getLayout(SnapiRecordType type) {
+      return KryoRecordLayout.of(type);
+    }
+
+    public static RecordNodes.GetValueNode[] createGetValue(int size) {
+      return KryoWriteNode.createGetValue(size);
+    }
+
+    public static RecordNodes.GetValueByIndexNode[] createGetValueByIndex(int size) {
+      return KryoWriteNode.createGetValueByIndex(size);
+    }
+
+    @Specialization
+    static long doString(Node node, SnapiTypeWithProperties type, String o) {
+      return stringSize(o);
+    }
+
+    @Specialization
+    @CompilerDirectives.TruffleBoundary
+    static long doDecimal(Node node, SnapiTypeWithProperties type, DecimalObject o) {
+      // a flag, then the unscaled value and scale, or a string: digits, sign, decimal point and the
+      // length.
+      if (o.isCompact()) {
+        return 13;
+      }
+      return 5 + o.getBigDecimal().precision();
+    }
+
+    @Specialization(guards = {"isDateKind(type)"})
+    static long doDate(Node node, SnapiTypeWithProperties type, DateObject o) {
+      return 4;
+    }
+
+    @Specialization(guards = {"isTimeKind(type)"})
+    static long doTime(Node node, SnapiTypeWithProperties type, TimeObject o) {
+      return 8;
+    }
+
+    @Specialization(guards = {"isTimestampKind(type)"})
+    static long doTimestamp(Node node, SnapiTypeWithProperties type, TimestampObject o) {
+      return 8;
+    }
+
+    @Specialization(guards = {"isIntervalKind(type)"})
+    static long doInterval(Node node, SnapiTypeWithProperties type, IntervalObject o) {
+      return 32;
+    }
+
+    @Specialization
+    static long doByte(Node node, SnapiTypeWithProperties type, byte o) {
+      return 1;
+    }
+
+    @Specialization
+    static long doShort(Node node, SnapiTypeWithProperties type, short o) {
+      return 2;
+    }
+
+    @Specialization
+    static long doInt(Node node, SnapiTypeWithProperties type, int o) {
+      return 4;
+    }
+
+    @Specialization
+    static long doLong(Node node, SnapiTypeWithProperties type, long o) {
+      return 8;
+    }
+
+    @Specialization
+    static long doFloat(Node node, SnapiTypeWithProperties type, float o) {
+      return 4;
+    }
+
+    @Specialization
+    static long doDouble(Node node, SnapiTypeWithProperties type, double o) {
+      return 8;
+    }
+
+    @Specialization
+    static long doBool(Node node, SnapiTypeWithProperties type, boolean o) {
+      return 1;
+    }
+
+    // iterables (which would have to be computed to be measured) and other values.
+    @Fallback
+    static long doOther(Node node, SnapiTypeWithProperties type, Object o) {
+      return KryoFootPrint.of(type);
+    }
+
+    // the length, then one byte per character (ASCII).
+    static long stringSize(String s) {
+      return 4 + s.length();
+    }
+  }
 }
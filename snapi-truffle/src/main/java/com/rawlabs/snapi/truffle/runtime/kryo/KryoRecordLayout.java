@@ -0,0 +1,188 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.kryo;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.rawlabs.snapi.frontend.snapi.source.*;
+import java.util.HashSet;
+import java.util.Set;
+import scala.collection.immutable.Vector;
+
+// The on-disk layout of a record type, computed once per type so that records are written and
+// read in one pass without walking the type for every field of every row:
+//   - a bitmap with one bit per nullable field (set when null) and one bit per tryable field
+//     (set when failed),
+//   - the fixed-width primitives of the fields that are present, in field order,
+//   - the variable-length section: error messages of failed fields and the values of the other
+//     fields (strings, decimals, temporals, collections, nested records), in field order.
+public final class KryoRecordLayout {
+
+  public static final byte BYTE = 0;
+  public static final byte SHORT = 1;
+  public static final byte INT = 2;
+  public static final byte LONG = 3;
+  public static final byte FLOAT = 4;
+  public static final byte DOUBLE = 5;
+  public static final byte BOOL = 6;
+  public static final byte VARIABLE = 7;
+
+  private static final SnapiTypeProperty tryable = new SnapiIsTryableTypeProperty();
+  private static final SnapiTypeProperty nullable = new SnapiIsNullableTypeProperty();
+
+  @CompilerDirectives.CompilationFinal(dimensions = 1)
+  private final String[] names;
+
+  // field types stripped of their nullable/tryable properties, which the bitmap takes care of.
+  @CompilerDirectives.CompilationFinal(dimensions = 1)
+  private final SnapiTypeWithProperties[] valueTypes;
+
+  @CompilerDirectives.CompilationFinal(dimensions = 1)
+  private final byte[] kinds;
+
+  // bit index of the null/error flag of each field, -1 if the field can't be null/failed.
+  @CompilerDirectives.CompilationFinal(dimensions = 1)
+  private final int[] nullBits;
+
+  @CompilerDirectives.CompilationFinal(dimensions = 1)
+  private final int[] errorBits;
+
+  private final int bitmapSize;
+  private final boolean hasDuplicateKeys;
+
+  private KryoRecordLayout(
+      String[] names,
+      SnapiTypeWithProperties[] valueTypes,
+      byte[] kinds,
+      int[] nullBits,
+      int[] errorBits,
+      int bitmapSize,
+      boolean hasDuplicateKeys) {
+    this.names = names;
+    this.valueTypes = valueTypes;
+    this.kinds = kinds;
+    this.nullBits = nullBits;
+    this.errorBits = errorBits;
+    this.bitmapSize = bitmapSize;
+    this.hasDuplicateKeys = hasDuplicateKeys;
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public static KryoRecordLayout of(SnapiRecordType t) {
+    Vector<SnapiAttrType> atts = t.atts();
+    int size = atts.size();
+    String[] names = new String[size];
+    SnapiTypeWithProperties[] valueTypes = new SnapiTypeWithProperties[size];
+    byte[] kinds = new byte[size];
+    int[] nullBits = new int[size];
+    int[] errorBits = new int[size];
+    Set<String> distinct = new HashSet<>();
+    int bits = 0;
+    for (int i = 0; i < size; i++) {
+      names[i] = atts.apply(i).idn();
+      distinct.add(names[i]);
+      SnapiTypeWithProperties type = (SnapiTypeWithProperties) atts.apply(i).tipe();
+      errorBits[i] = -1;
+      nullBits[i] = -1;
+      if (type.props().contains(tryable)) {
+        errorBits[i] = bits++;
+        type = (SnapiTypeWithProperties) type.cloneAndRemoveProp(tryable);
+      }
+      if (type.props().contains(nullable)) {
+        nullBits[i] = bits++;
+        type = (SnapiTypeWithProperties) type.cloneAndRemoveProp(nullable);
+      }
+      valueTypes[i] = type;
+      kinds[i] = kindOf(type);
+    }
+    return new KryoRecordLayout(
+        names,
+        valueTypes,
+        kinds,
+        nullBits,
+        errorBits,
+        (bits + 7) / 8,
+        distinct.size() != size);
+  }
+
+  private static byte kindOf(SnapiTypeWithProperties type) {
+    if (!type.props().isEmpty()) return VARIABLE;
+    if (type instanceof SnapiByteType) return BYTE;
+    if (type instanceof SnapiShortType) return SHORT;
+    if (type instanceof SnapiIntType) return INT;
+    if (type instanceof SnapiLongType) return LONG;
+    if (type instanceof SnapiFloatType) return FLOAT;
+    if (type instanceof SnapiDoubleType) return DOUBLE;
+    if (type instanceof SnapiBoolType) return BOOL;
+    return VARIABLE;
+  }
+
+  public int size() {
+    return names.length;
+  }
+
+  public String getName(int index) {
+    return names[index];
+  }
+
+  public SnapiTypeWithProperties getValueType(int index) {
+    return valueTypes[index];
+  }
+
+  public byte getKind(int index) {
+    return kinds[index];
+  }
+
+  public boolean isFixed(int index) {
+    return kinds[index] != VARIABLE;
+  }
+
+  public int getBitmapSize() {
+    return bitmapSize;
+  }
+
+  public boolean hasDuplicateKeys() {
+    return hasDuplicateKeys;
+  }
+
+  public boolean isNull(byte[] bitmap, int index) {
+    return nullBits[index] >= 0 && isSet(bitmap, nullBits[index]);
+  }
+
+  public boolean isError(byte[] bitmap, int index) {
+    return errorBits[index] >= 0 && isSet(bitmap, errorBits[index]);
+  }
+
+  public boolean isNullable(int index) {
+    return nullBits[index] >= 0;
+  }
+
+  public boolean isTryable(int index) {
+    return errorBits[index] >= 0;
+  }
+
+  public void setNull(byte[] bitmap, int index) {
+    set(bitmap, nullBits[index]);
+  }
+
+  public void setError(byte[] bitmap, int index) {
+    set(bitmap, errorBits[index]);
+  }
+
+  private static boolean isSet(byte[] bitmap, int bit) {
+    return (bitmap[bit >>> 3] & (1 << (bit & 7))) != 0;
+  }
+
+  private static void set(byte[] bitmap, int bit) {
+    bitmap[bit >>> 3] |= (byte) (1 << (bit & 7));
+  }
+}
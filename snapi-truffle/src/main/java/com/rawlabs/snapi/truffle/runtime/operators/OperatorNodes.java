@@ -27,12 +27,17 @@ import com.rawlabs.snapi.truffle.runtime.primitives.*;
 import com.rawlabs.snapi.truffle.runtime.record.DuplicateKeyRecord;
 import com.rawlabs.snapi.truffle.runtime.record.PureRecord;
 import com.rawlabs.snapi.truffle.runtime.record.RecordNodes;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
+import com.rawlabs.snapi.truffle.runtime.record.StaticRecord;
 
 public class OperatorNodes {
 
+  // A record may be pure, static or duplicate-key; comparing and hashing treat them alike.
+  static boolean isRecord(Object value) {
+    return value instanceof PureRecord
+        || value instanceof DuplicateKeyRecord
+        || value instanceof StaticRecord;
+  }
+
   @NodeInfo(shortName = "Operator.CompareUninlined")
   @GenerateUncached
   @GenerateInline(false)
@@ -80,7 +85,7 @@ public class OperatorNodes {
   @NodeInfo(shortName = "Operator.Compare")
   @GenerateUncached
   @GenerateInline
-  @ImportStatic(value = {Nullable.class, Tryable.class})
+  @ImportStatic(value = {OperatorNodes.class, Nullable.class, Tryable.class})
   public abstract static class CompareNode extends Node {
 
     public abstract int execute(Node node, Object obj1, Object obj2);
@@ -122,7 +127,14 @@ public class OperatorNodes {
       return Double.compare(left, right);
     }
 
-    @Specialization
+    @Specialization(
+        guards = {"left.isCompact()", "right.isCompact()"},
+        rewriteOn = ArithmeticException.class)
+    static int doCompactDecimal(Node node, DecimalObject left, DecimalObject right) {
+      return DecimalObject.compareExact(left, right);
+    }
+
+    @Specialization(replaces = "doCompactDecimal")
     @TruffleBoundary
     static int doDecimal(Node node, DecimalObject left, DecimalObject right) {
       return left.getBigDecimal().compareTo(right.getBigDecimal());
@@ -135,45 +147,18 @@ public class OperatorNodes {
     }
 
     @Specialization
-    @TruffleBoundary
     static int doDate(Node node, DateObject left, DateObject right) {
-      LocalDate leftDate = left.getDate();
-      LocalDate rightDate = right.getDate();
-      if (leftDate.isBefore(rightDate)) {
-        return -1;
-      } else if (leftDate.isAfter(rightDate)) {
-        return 1;
-      } else {
-        return 0;
-      }
+      return Integer.compare(left.getEpochDay(), right.getEpochDay());
     }
 
     @Specialization
-    @TruffleBoundary
     static int doTimestamp(Node node, TimestampObject left, TimestampObject right) {
-      LocalDateTime leftDate = left.getTimestamp();
-      LocalDateTime rightDate = right.getTimestamp();
-      if (leftDate.isBefore(rightDate)) {
-        return -1;
-      } else if (leftDate.isAfter(rightDate)) {
-        return 1;
-      } else {
-        return 0;
-      }
+      return Long.compare(left.getEpochMicros(), right.getEpochMicros());
     }
 
     @Specialization
-    @TruffleBoundary
     static int doTime(Node node, TimeObject left, TimeObject right) {
-      LocalTime leftTime = left.getTime();
-      LocalTime rightTime = right.getTime();
-      if (leftTime.isBefore(rightTime)) {
-        return -1;
-      } else if (leftTime.isAfter(rightTime)) {
-        return 1;
-      } else {
-        return 0;
-      }
+      return Long.compare(left.getNanoOfDay(), right.getNanoOfDay());
     }
 
     @Specialization
@@ -187,48 +172,15 @@ public class OperatorNodes {
       return compareNode.execute(thisNode, left, right);
     }
 
-    @Specialization
-    static int doRecord(
-        Node node,
-        PureRecord left,
-        PureRecord right,
-        @Bind("$node") Node thisNode,
-        @Cached(inline = false) @Cached.Shared("compare") CompareNode compare,
-        @Cached @Cached.Shared("getKey") RecordNodes.GetKeysNode getKeysNode,
-        @Cached @Cached.Shared("getValue") RecordNodes.GetValueNode getValueNode) {
-      Object[] leftKeys = getKeysNode.execute(thisNode, left);
-      Object[] rightKeys = getKeysNode.execute(thisNode, right);
-      if (leftKeys.length > rightKeys.length) {
-        return 1;
-      } else if (leftKeys.length < rightKeys.length) {
-        return -1;
-      }
-      for (int i = 0; i < leftKeys.length; i++) {
-        String leftKey = (String) leftKeys[i];
-        String rightKey = (String) rightKeys[i];
-        int result = compare.execute(thisNode, leftKey, rightKey);
-        if (result != 0) {
-          return result;
-        }
-        Object leftValue = getValueNode.execute(thisNode, left, leftKey);
-        Object rightValue = getValueNode.execute(thisNode, right, rightKey);
-        result = compare.execute(thisNode, leftValue, rightValue);
-        if (result != 0) {
-          return result;
-        }
-      }
-      return 0;
-    }
-
-    @Specialization
+    @Specialization(guards = {"isRecord(left)", "isRecord(right)"})
     static int doRecord(
         Node node,
-        DuplicateKeyRecord left,
-        DuplicateKeyRecord right,
+        Object left,
+        Object right,
         @Bind("$node") Node thisNode,
         @Cached(inline = false) @Cached.Shared("compare") CompareNode compare,
-        @Cached @Cached.Shared("getKey") RecordNodes.GetKeysNode getKeysNode,
-        @Cached @Cached.Shared("getValue") RecordNodes.GetValueNode getValueNode) {
+        @Cached RecordNodes.GetKeysNode getKeysNode,
+        @Cached RecordNodes.GetValueNode getValueNode) {
       Object[] leftKeys = getKeysNode.execute(thisNode, left);
       Object[] rightKeys = getKeysNode.execute(thisNode, right);
       if (leftKeys.length > rightKeys.length) {
@@ -334,6 +286,154 @@ public class OperatorNodes {
     }
   }
 
+  // Hashes values consistently with CompareNode: values that compare equal get the same hash.
+  @NodeInfo(shortName = "Operator.Hash")
+  @GenerateUncached
+  @GenerateInline
+  @ImportStatic(value = {OperatorNodes.class, Nullable.class, Tryable.class})
+  public abstract static class HashNode extends Node {
+
+    public abstract int execute(Node node, Object obj);
+
+    @Specialization
+    static int doBoolean(Node node, boolean value) {
+      return Boolean.hashCode(value);
+    }
+
+    @Specialization
+    static int doByte(Node node, byte value) {
+      return Byte.hashCode(value);
+    }
+
+    @Specialization
+    static int doShort(Node node, short value) {
+      return Short.hashCode(value);
+    }
+
+    @Specialization
+    static int doInt(Node node, int value) {
+      return Integer.hashCode(value);
+    }
+
+    @Specialization
+    static int doLong(Node node, long value) {
+      return Long.hashCode(value);
+    }
+
+    @Specialization
+    static int doFloat(Node node, float value) {
+      return Float.hashCode(value);
+    }
+
+    @Specialization
+    static int doDouble(Node node, double value) {
+      return Double.hashCode(value);
+    }
+
+    // compareTo ignores the scale (1.0 == 1.00), so hash the value without trailing zeros.
+    @Specialization(guards = "value.isCompact()")
+    static int doCompactDecimal(Node node, DecimalObject value) {
+      return DecimalObject.hashCompact(value);
+    }
+
+    @Specialization(guards = "!value.isCompact()")
+    static int doDecimal(Node node, DecimalObject value) {
+      return DecimalObject.hashBig(value);
+    }
+
+    @Specialization
+    @TruffleBoundary
+    static int doString(Node node, String value) {
+      return value.hashCode();
+    }
+
+    @Specialization
+    static int doDate(Node node, DateObject value) {
+      return Integer.hashCode(value.getEpochDay());
+    }
+
+    @Specialization
+    static int doTimestamp(Node node, TimestampObject value) {
+      return Long.hashCode(value.getEpochMicros());
+    }
+
+    @Specialization
+    static int doTime(Node node, TimeObject value) {
+      return Long.hashCode(value.getNanoOfDay());
+    }
+
+    @Specialization
+    static int doInterval(
+        Node node,
+        IntervalObject value,
+        @Bind("$node") Node thisNode,
+        @Cached IntervalNodes.IntervalToMillisStaticNode toMillisNode) {
+      // intervals are compared by their duration in milliseconds.
+      return Long.hashCode(toMillisNode.execute(thisNode, value));
+    }
+
+    @Specialization(guards = "isRecord(value)")
+    static int doRecord(
+        Node node,
+        Object value,
+        @Bind("$node") Node thisNode,
+        @Cached(inline = false) @Cached.Shared("hash") HashNode hash,
+        @Cached RecordNodes.GetKeysNode getKeysNode,
+        @Cached RecordNodes.GetValueNode getValueNode) {
+      Object[] keys = getKeysNode.execute(thisNode, value);
+      int result = 1;
+      for (Object key : keys) {
+        result = 31 * result + hash.execute(thisNode, key);
+        result = 31 * result + hash.execute(thisNode, getValueNode.execute(thisNode, value, key));
+      }
+      return result;
+    }
+
+    @Specialization(guards = {"isError(value)"})
+    static int doTryable(
+        Node node,
+        Object value,
+        @Bind("$node") Node thisNode,
+        @Cached TryableNullableNodes.GetErrorNode getErrorNode) {
+      return hashString(getErrorNode.execute(thisNode, value));
+    }
+
+    @Specialization(guards = {"isNull(value)"})
+    static int doNullable(Node node, Object value) {
+      // all nulls compare equal.
+      return 0;
+    }
+
+    @Specialization
+    static int doIterable(
+        Node node,
+        Object value,
+        @Bind("$node") Node thisNode,
+        @Cached(inline = false) @Cached.Shared("hash") HashNode hash,
+        @Cached(inline = false) IterableNodes.GetGeneratorNode getGeneratorNode,
+        @Cached(inline = false) GeneratorNodes.GeneratorHasNextNode hasNextNode,
+        @Cached(inline = false) GeneratorNodes.GeneratorNextNode nextNode,
+        @Cached(inline = false) GeneratorNodes.GeneratorInitNode initNode,
+        @Cached(inline = false) GeneratorNodes.GeneratorCloseNode closeNode) {
+      Object generator = getGeneratorNode.execute(thisNode, value);
+      try {
+        initNode.execute(thisNode, generator);
+        int result = 1;
+        while (hasNextNode.execute(thisNode, generator)) {
+          result = 31 * result + hash.execute(thisNode, nextNode.execute(thisNode, generator));
+        }
+        return result;
+      } finally {
+        closeNode.execute(thisNode, generator);
+      }
+    }
+
+    @TruffleBoundary
+    private static int hashString(String s) {
+      return s.hashCode();
+    }
+  }
+
   @NodeInfo(shortName = "Operator.Add")
   @GenerateUncached
   @GenerateInline
@@ -372,10 +472,17 @@ public class OperatorNodes {
       return left + right;
     }
 
-    @Specialization
+    @Specialization(
+        guards = {"left.isCompact()", "right.isCompact()"},
+        rewriteOn = ArithmeticException.class)
+    static DecimalObject doCompactDecimal(Node node, DecimalObject left, DecimalObject right) {
+      return DecimalObject.addExact(left, right);
+    }
+
+    @Specialization(replaces = "doCompactDecimal")
     @TruffleBoundary
     static DecimalObject doDecimal(Node node, DecimalObject left, DecimalObject right) {
-      return new DecimalObject(left.getBigDecimal().add(right.getBigDecimal()));
+      return DecimalObject.valueOf(left.getBigDecimal().add(right.getBigDecimal()));
     }
 
     @Specialization
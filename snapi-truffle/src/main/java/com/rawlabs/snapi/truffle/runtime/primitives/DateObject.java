@@ -21,23 +21,48 @@ import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
 import com.rawlabs.snapi.truffle.SnapiLanguage;
+import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import java.time.LocalDate;
 
+// A date, as the number of days since 1970-01-01 (see EpochCalendar).
 @ExportLibrary(InteropLibrary.class)
 public final class DateObject implements TruffleObject {
 
-  private final LocalDate date;
+  private final int epochDay;
 
+  public DateObject(int epochDay) {
+    this.epochDay = epochDay;
+  }
+
+  // Days in an int cover about 5.8 million years around 1970, less than LocalDate does.
+  @TruffleBoundary
   public DateObject(LocalDate date) {
-    this.date = date;
+    long day = date.toEpochDay();
+    if (day != (int) day) {
+      throw new TruffleRuntimeException("date out of range: " + date);
+    }
+    this.epochDay = (int) day;
   }
 
+  @TruffleBoundary
+  public static DateObject ofEpochDay(long epochDay) {
+    if (epochDay != (int) epochDay) {
+      throw new TruffleRuntimeException("date out of range: " + epochDay + " days");
+    }
+    return new DateObject((int) epochDay);
+  }
+
+  public int getEpochDay() {
+    return epochDay;
+  }
+
+  @TruffleBoundary
   public LocalDate getDate() {
-    return date;
+    return LocalDate.ofEpochDay(epochDay);
   }
 
   public String toString() {
-    return date.format(DATE_FORMATTER);
+    return getDate().format(DATE_FORMATTER);
   }
 
   @ExportMessage
@@ -47,7 +72,7 @@ public final class DateObject implements TruffleObject {
 
   @ExportMessage
   LocalDate asDate() {
-    return date;
+    return getDate();
   }
 
   @ExportMessage
@@ -12,6 +12,7 @@
 
 package com.rawlabs.snapi.truffle.runtime.primitives;
 
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.interop.InteropLibrary;
@@ -21,18 +22,187 @@ import com.oracle.truffle.api.library.ExportMessage;
 import com.rawlabs.snapi.truffle.SnapiLanguage;
 import java.math.BigDecimal;
 
+// Decimals whose unscaled value fits in a long, e.g. most amounts of money, are kept "compact": as
+// that long and a scale, on which arithmetic, comparisons, hashing and serialization run without
+// allocating. Other decimals are kept as a BigDecimal. Compact ones materialize theirs (and cache
+// it) only when an operation needs one, e.g. a division or the output of the value.
 @ExportLibrary(InteropLibrary.class)
 public final class DecimalObject implements TruffleObject {
-  private final BigDecimal bigDecimal;
+
+  // Decimals of up to that many digits always fit in a long.
+  private static final int MAX_COMPACT_DIGITS = 18;
+
+  @CompilationFinal(dimensions = 1)
+  private static final long[] POWERS_OF_TEN = new long[MAX_COMPACT_DIGITS + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private final boolean compact;
+  private final long unscaled;
+  private final int scale;
+  private BigDecimal bigDecimal;
 
   public DecimalObject(BigDecimal bigDecimal) {
+    this.compact = false;
+    this.unscaled = 0;
+    this.scale = 0;
     this.bigDecimal = bigDecimal;
   }
 
+  public DecimalObject(long unscaled, int scale) {
+    this.compact = true;
+    this.unscaled = unscaled;
+    this.scale = scale;
+  }
+
+  private DecimalObject(long unscaled, int scale, BigDecimal bigDecimal) {
+    this.compact = true;
+    this.unscaled = unscaled;
+    this.scale = scale;
+    this.bigDecimal = bigDecimal;
+  }
+
+  // The decimal of a BigDecimal, compact when it has few enough digits.
+  @TruffleBoundary
+  public static DecimalObject valueOf(BigDecimal bigDecimal) {
+    if (bigDecimal.precision() <= MAX_COMPACT_DIGITS) {
+      return new DecimalObject(
+          bigDecimal.unscaledValue().longValue(), bigDecimal.scale(), bigDecimal);
+    }
+    return new DecimalObject(bigDecimal);
+  }
+
+  // Parses a decimal like BigDecimal(String) does. Plain numbers of up to 18 digits, e.g. "-12.50",
+  // are parsed directly to the compact form; others (exponents, more digits) go through BigDecimal.
+  // Throws NumberFormatException when the text is not a decimal.
+  @TruffleBoundary
+  public static DecimalObject parse(String text) {
+    int length = text.length();
+    int i = 0;
+    boolean negative = false;
+    if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+      negative = text.charAt(0) == '-';
+      i++;
+    }
+    long value = 0;
+    int digits = 0;
+    int dot = -1;
+    for (; i < length; i++) {
+      char c = text.charAt(i);
+      if (c >= '0' && c <= '9') {
+        if (++digits > MAX_COMPACT_DIGITS) {
+          return valueOf(new BigDecimal(text));
+        }
+        value = value * 10 + (c - '0');
+      } else if (c == '.' && dot < 0) {
+        dot = i;
+      } else {
+        return valueOf(new BigDecimal(text));
+      }
+    }
+    if (digits == 0) {
+      return valueOf(new BigDecimal(text));
+    }
+    return new DecimalObject(negative ? -value : value, dot < 0 ? 0 : length - dot - 1);
+  }
+
+  public boolean isCompact() {
+    return compact;
+  }
+
+  public long getUnscaled() {
+    return unscaled;
+  }
+
+  public int getScale() {
+    return scale;
+  }
+
+  @TruffleBoundary
   public BigDecimal getBigDecimal() {
+    if (bigDecimal == null) {
+      bigDecimal = BigDecimal.valueOf(unscaled, scale);
+    }
     return bigDecimal;
   }
 
+  // Arithmetic on compact decimals, with the scales of the BigDecimal operations. They throw an
+  // ArithmeticException when the result doesn't fit in a compact decimal, so that callers fall back
+  // to BigDecimal.
+
+  public static DecimalObject addExact(DecimalObject left, DecimalObject right) {
+    int scale = Math.max(left.scale, right.scale);
+    return new DecimalObject(
+        Math.addExact(rescale(left, scale), rescale(right, scale)), scale);
+  }
+
+  public static DecimalObject subtractExact(DecimalObject left, DecimalObject right) {
+    int scale = Math.max(left.scale, right.scale);
+    return new DecimalObject(
+        Math.subtractExact(rescale(left, scale), rescale(right, scale)), scale);
+  }
+
+  public static DecimalObject multiplyExact(DecimalObject left, DecimalObject right) {
+    return new DecimalObject(
+        Math.multiplyExact(left.unscaled, right.unscaled), Math.addExact(left.scale, right.scale));
+  }
+
+  public static DecimalObject negateExact(DecimalObject value) {
+    return new DecimalObject(Math.negateExact(value.unscaled), value.scale);
+  }
+
+  public static int compareExact(DecimalObject left, DecimalObject right) {
+    if (left.scale == right.scale) {
+      return Long.compare(left.unscaled, right.unscaled);
+    }
+    int scale = Math.max(left.scale, right.scale);
+    return Long.compare(rescale(left, scale), rescale(right, scale));
+  }
+
+  // The unscaled value of a compact decimal at a larger scale.
+  private static long rescale(DecimalObject value, int scale) {
+    int digits = scale - value.scale;
+    if (digits == 0) {
+      return value.unscaled;
+    }
+    if (digits > MAX_COMPACT_DIGITS) {
+      throw new ArithmeticException("decimal overflow");
+    }
+    return Math.multiplyExact(value.unscaled, POWERS_OF_TEN[digits]);
+  }
+
+  // A hash code that, like compareTo, ignores the scale (1.0 and 1.00 hash the same), and that is
+  // the same for a compact decimal and a BigDecimal one of the same value.
+  public static int hashCompact(DecimalObject value) {
+    long unscaled = value.unscaled;
+    int scale = value.scale;
+    if (unscaled == 0) {
+      return 0;
+    }
+    while (unscaled % 10 == 0) {
+      unscaled /= 10;
+      scale--;
+    }
+    return 31 * Long.hashCode(unscaled) + scale;
+  }
+
+  @TruffleBoundary
+  public static int hashBig(DecimalObject value) {
+    BigDecimal stripped = value.getBigDecimal().stripTrailingZeros();
+    if (stripped.signum() == 0) {
+      return 0;
+    }
+    if (stripped.unscaledValue().bitLength() < Long.SIZE) {
+      return 31 * Long.hashCode(stripped.unscaledValue().longValue()) + stripped.scale();
+    }
+    return stripped.hashCode();
+  }
+
   @ExportMessage
   final boolean hasLanguage() {
     return true;
@@ -56,6 +226,6 @@ public final class DecimalObject implements TruffleObject {
   @ExportMessage
   @TruffleBoundary
   final String asString() {
-    return bigDecimal.toString();
+    return getBigDecimal().toString();
   }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.primitives;
+
+// Calendar arithmetic on the primitive encodings of temporals: days since 1970-01-01 for dates,
+// nanoseconds since midnight for times and microseconds since 1970-01-01T00:00 for timestamps.
+// Dates are in the proleptic Gregorian calendar, like LocalDate. Everything is integer arithmetic
+// (no java.time objects), so that Graal compiles it in the nodes that use it.
+public final class EpochCalendar {
+
+  public static final long NANOS_PER_MICRO = 1000L;
+  public static final long MICROS_PER_MILLI = 1000L;
+  public static final long MICROS_PER_SECOND = 1000_000L;
+  public static final long MICROS_PER_MINUTE = 60 * MICROS_PER_SECOND;
+  public static final long MICROS_PER_HOUR = 60 * MICROS_PER_MINUTE;
+  public static final long MICROS_PER_DAY = 24 * MICROS_PER_HOUR;
+  public static final long NANOS_PER_MILLI = 1000_000L;
+  public static final long NANOS_PER_SECOND = 1000_000_000L;
+  public static final long NANOS_PER_MINUTE = 60 * NANOS_PER_SECOND;
+  public static final long NANOS_PER_HOUR = 60 * NANOS_PER_MINUTE;
+
+  // Days from 0000-03-01 to 1970-01-01. Years are counted from March in the computations below, so
+  // that the leap day is the last day of a year.
+  private static final long DAYS_0000_TO_1970 = 719468;
+
+  // Days in a 400 years cycle of the Gregorian calendar.
+  private static final long DAYS_PER_CYCLE = 146097;
+
+  private EpochCalendar() {}
+
+  public static int year(long epochDay) {
+    long z = epochDay + DAYS_0000_TO_1970;
+    long cycle = Math.floorDiv(z, DAYS_PER_CYCLE);
+    long dayOfCycle = z - cycle * DAYS_PER_CYCLE;
+    long yearOfCycle = yearOfCycle(dayOfCycle);
+    long year = yearOfCycle + cycle * 400;
+    long marchMonth = marchMonth(dayOfYear(dayOfCycle, yearOfCycle));
+    // January and February are the last months of March based years.
+    return (int) (marchMonth >= 10 ? year + 1 : year);
+  }
+
+  public static int month(long epochDay) {
+    long dayOfCycle = Math.floorMod(epochDay + DAYS_0000_TO_1970, DAYS_PER_CYCLE);
+    long marchMonth = marchMonth(dayOfYear(dayOfCycle, yearOfCycle(dayOfCycle)));
+    return (int) (marchMonth < 10 ? marchMonth + 3 : marchMonth - 9);
+  }
+
+  public static int dayOfMonth(long epochDay) {
+    long dayOfCycle = Math.floorMod(epochDay + DAYS_0000_TO_1970, DAYS_PER_CYCLE);
+    long dayOfYear = dayOfYear(dayOfCycle, yearOfCycle(dayOfCycle));
+    return (int) (dayOfYear - (153 * marchMonth(dayOfYear) + 2) / 5 + 1);
+  }
+
+  // The day of the week, from 1 (Monday) to 7 (Sunday). 1970-01-01 was a Thursday.
+  public static int dayOfWeek(long epochDay) {
+    return (int) Math.floorMod(epochDay + 3, 7) + 1;
+  }
+
+  public static long epochDay(long year, long month, long day) {
+    long y = month <= 2 ? year - 1 : year;
+    long cycle = Math.floorDiv(y, 400);
+    long yearOfCycle = y - cycle * 400;
+    long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    long dayOfCycle = yearOfCycle * 365 + yearOfCycle / 4 - yearOfCycle / 100 + dayOfYear;
+    return cycle * DAYS_PER_CYCLE + dayOfCycle - DAYS_0000_TO_1970;
+  }
+
+  private static long yearOfCycle(long dayOfCycle) {
+    return (dayOfCycle - dayOfCycle / 1460 + dayOfCycle / 36524 - dayOfCycle / 146096) / 365;
+  }
+
+  private static long dayOfYear(long dayOfCycle, long yearOfCycle) {
+    return dayOfCycle - (365 * yearOfCycle + yearOfCycle / 4 - yearOfCycle / 100);
+  }
+
+  // The month of a March based year: 0 is March and 11 is February.
+  private static long marchMonth(long dayOfYear) {
+    return (5 * dayOfYear + 2) / 153;
+  }
+}
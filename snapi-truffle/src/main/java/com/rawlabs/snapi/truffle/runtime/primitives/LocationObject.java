@@ -54,6 +54,10 @@ public final class LocationObject implements TruffleObject {
     return location;
   }
 
+  public LocationDescription getLocationDescription() {
+    return locationDescription;
+  }
+
   @TruffleBoundary
   public String getPublicDescription() {
     return publicDescription;
@@ -14,27 +14,39 @@ package com.rawlabs.snapi.truffle.runtime.primitives;
 
 import static com.rawlabs.snapi.truffle.runtime.primitives.TruffleTemporalFormatter.TIME_FORMATTER;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
 import java.time.LocalTime;
 
+// A time, as the number of nanoseconds since midnight (see EpochCalendar).
 @ExportLibrary(InteropLibrary.class)
 public final class TimeObject implements TruffleObject {
 
-  private final LocalTime time;
+  private final long nanoOfDay;
 
+  public TimeObject(long nanoOfDay) {
+    this.nanoOfDay = nanoOfDay;
+  }
+
+  @TruffleBoundary
   public TimeObject(LocalTime time) {
-    this.time = time;
+    this.nanoOfDay = time.toNanoOfDay();
+  }
+
+  public long getNanoOfDay() {
+    return nanoOfDay;
   }
 
+  @TruffleBoundary
   public LocalTime getTime() {
-    return time;
+    return LocalTime.ofNanoOfDay(nanoOfDay);
   }
 
   public String toString() {
-    return time.format(TIME_FORMATTER);
+    return getTime().format(TIME_FORMATTER);
   }
 
   @ExportMessage
@@ -44,6 +56,6 @@ public final class TimeObject implements TruffleObject {
 
   @ExportMessage
   final LocalTime asTime() {
-    return time;
+    return getTime();
   }
 }
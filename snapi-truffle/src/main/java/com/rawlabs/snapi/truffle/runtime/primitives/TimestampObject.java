@@ -12,30 +12,75 @@
 
 package com.rawlabs.snapi.truffle.runtime.primitives;
 
+import static com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar.MICROS_PER_DAY;
+import static com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar.MICROS_PER_SECOND;
+import static com.rawlabs.snapi.truffle.runtime.primitives.EpochCalendar.NANOS_PER_MICRO;
 import static com.rawlabs.snapi.truffle.runtime.primitives.TruffleTemporalFormatter.TIMESTAMP_FORMATTER;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
+import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import java.time.*;
 
+// A timestamp, as the number of microseconds since 1970-01-01T00:00 (see EpochCalendar). Digits
+// below the microsecond are dropped.
 @ExportLibrary(InteropLibrary.class)
 public final class TimestampObject implements TruffleObject {
 
-  private final LocalDateTime timestamp;
+  private final long epochMicros;
 
+  public TimestampObject(long epochMicros) {
+    this.epochMicros = epochMicros;
+  }
+
+  // Microseconds in a long cover about 292,000 years around 1970, less than LocalDateTime does.
+  @TruffleBoundary
   public TimestampObject(LocalDateTime timestamp) {
-    this.timestamp = timestamp;
+    try {
+      this.epochMicros =
+          Math.addExact(
+              Math.multiplyExact(timestamp.toEpochSecond(ZoneOffset.UTC), MICROS_PER_SECOND),
+              timestamp.getNano() / NANOS_PER_MICRO);
+    } catch (ArithmeticException ex) {
+      throw new TruffleRuntimeException("timestamp out of range: " + timestamp);
+    }
+  }
+
+  @TruffleBoundary
+  public static TimestampObject ofEpochSecond(long epochSecond) {
+    try {
+      return new TimestampObject(Math.multiplyExact(epochSecond, MICROS_PER_SECOND));
+    } catch (ArithmeticException ex) {
+      throw new TruffleRuntimeException("timestamp out of range: " + epochSecond + " seconds");
+    }
+  }
+
+  public long getEpochMicros() {
+    return epochMicros;
+  }
+
+  public long getEpochDay() {
+    return Math.floorDiv(epochMicros, MICROS_PER_DAY);
+  }
+
+  public long getMicroOfDay() {
+    return Math.floorMod(epochMicros, MICROS_PER_DAY);
   }
 
+  @TruffleBoundary
   public LocalDateTime getTimestamp() {
-    return timestamp;
+    return LocalDateTime.ofEpochSecond(
+        Math.floorDiv(epochMicros, MICROS_PER_SECOND),
+        (int) (Math.floorMod(epochMicros, MICROS_PER_SECOND) * NANOS_PER_MICRO),
+        ZoneOffset.UTC);
   }
 
   public String toString() {
-    return timestamp.format(TIMESTAMP_FORMATTER);
+    return getTimestamp().format(TIMESTAMP_FORMATTER);
   }
 
   @ExportMessage
@@ -45,7 +90,7 @@ public final class TimestampObject implements TruffleObject {
 
   @ExportMessage
   final LocalDate asDate() throws UnsupportedMessageException {
-    return timestamp.toLocalDate();
+    return getTimestamp().toLocalDate();
   }
 
   @ExportMessage
@@ -55,6 +100,6 @@ public final class TimestampObject implements TruffleObject {
 
   @ExportMessage
   final LocalTime asTime() throws UnsupportedMessageException {
-    return timestamp.toLocalTime();
+    return getTimestamp().toLocalTime();
   }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.profiler;
+
+import java.util.ArrayList;
+
+// The counters of an operator of a query. Times are those of its windows, which nest: the total
+// time includes the windows of the operators it pulls rows from, the self time doesn't.
+public final class OperatorProfile {
+
+  private final int id;
+  private final String name;
+  private final String function;
+  private final OperatorProfile parent;
+  private final ArrayList<OperatorProfile> children = new ArrayList<>();
+
+  private long invocations = 0;
+  private long rowsOut = 0;
+  private long totalNanos = 0;
+  private long selfNanos = 0;
+  private long bytesRead = 0;
+  private long charsRead = 0;
+  private long ioNanos = 0;
+  private long spills = 0;
+  private long bytesSpilled = 0;
+  private long spillNanos = 0;
+  private long peakMemory = 0;
+
+  OperatorProfile(int id, String name, String function, OperatorProfile parent) {
+    this.id = id;
+    this.name = name;
+    this.function = function;
+    this.parent = parent;
+    if (parent != null) {
+      parent.children.add(this);
+    }
+  }
+
+  synchronized void invoked() {
+    invocations++;
+  }
+
+  synchronized void window(long total, long self, long rows) {
+    totalNanos += total;
+    selfNanos += self;
+    rowsOut += rows;
+  }
+
+  synchronized void read(long bytes, long chars, long nanos) {
+    bytesRead += bytes;
+    charsRead += chars;
+    ioNanos += nanos;
+  }
+
+  synchronized void spilled() {
+    spills++;
+  }
+
+  synchronized void spillIo(long bytes, long nanos) {
+    bytesSpilled += bytes;
+    spillNanos += nanos;
+  }
+
+  synchronized void memory(long reserved) {
+    peakMemory = Math.max(peakMemory, reserved);
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getFunction() {
+    return function;
+  }
+
+  public OperatorProfile getParent() {
+    return parent;
+  }
+
+  public ArrayList<OperatorProfile> getChildren() {
+    return children;
+  }
+
+  public synchronized long getInvocations() {
+    return invocations;
+  }
+
+  // the rows received from the operators it reads from.
+  public synchronized long getRowsIn() {
+    long rows = 0;
+    for (OperatorProfile child : children) {
+      rows += child.getRowsOut();
+    }
+    return rows;
+  }
+
+  public synchronized long getRowsOut() {
+    return rowsOut;
+  }
+
+  public synchronized long getTotalNanos() {
+    return totalNanos;
+  }
+
+  public synchronized long getSelfNanos() {
+    return selfNanos;
+  }
+
+  public synchronized long getBytesRead() {
+    return bytesRead;
+  }
+
+  public synchronized long getCharsRead() {
+    return charsRead;
+  }
+
+  public synchronized long getIoNanos() {
+    return ioNanos;
+  }
+
+  public synchronized long getSpills() {
+    return spills;
+  }
+
+  public synchronized long getBytesSpilled() {
+    return bytesSpilled;
+  }
+
+  public synchronized long getSpillNanos() {
+    return spillNanos;
+  }
+
+  public synchronized long getPeakMemory() {
+    return peakMemory;
+  }
+}
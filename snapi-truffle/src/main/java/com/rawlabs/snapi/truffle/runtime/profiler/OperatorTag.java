@@ -0,0 +1,29 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.profiler;
+
+import com.oracle.truffle.api.instrumentation.Tag;
+
+// Marks the nodes wrapping the builtins that produce or consume collections and lists (readers,
+// Collection and List functions, see OperatorNode). The profiler reports one entry per node with
+// that tag.
+@Tag.Identifier("OPERATOR")
+public final class OperatorTag extends Tag {
+
+  // what the operators produce.
+  public static final byte VALUE = 0;
+  public static final byte COLLECTION = 1;
+  public static final byte LIST = 2;
+
+  private OperatorTag() {}
+}
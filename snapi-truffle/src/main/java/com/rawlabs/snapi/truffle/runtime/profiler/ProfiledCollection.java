@@ -0,0 +1,61 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.profiler;
+
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.nodes.Node;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
+import com.rawlabs.snapi.truffle.runtime.iterable.IterableNodes;
+
+// A collection produced by a profiled operator. Its generator is a ProfiledGenerator, which
+// records the time spent pulling its rows and counts them.
+@ExportLibrary(InteropLibrary.class)
+public final class ProfiledCollection implements TruffleObject {
+
+  private final Object iterable;
+  private final OperatorProfile profile;
+
+  public ProfiledCollection(Object iterable, OperatorProfile profile) {
+    this.iterable = iterable;
+    this.profile = profile;
+  }
+
+  public Object getIterable() {
+    return iterable;
+  }
+
+  public OperatorProfile getProfile() {
+    return profile;
+  }
+
+  // InteropLibrary: Iterable
+  @ExportMessage
+  boolean hasIterator() {
+    return true;
+  }
+
+  @ExportMessage
+  Object getIterator(
+      @Bind("$node") Node thisNode,
+      @Cached(inline = true) IterableNodes.GetGeneratorNode getGeneratorNode,
+      @Cached(inline = true) GeneratorNodes.GeneratorInitNode initNode) {
+    Object generator = getGeneratorNode.execute(thisNode, this);
+    initNode.execute(thisNode, generator);
+    return generator;
+  }
+}
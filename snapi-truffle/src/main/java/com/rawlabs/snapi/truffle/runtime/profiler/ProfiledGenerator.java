@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.profiler;
+
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.StopIterationException;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.nodes.Node;
+import com.rawlabs.snapi.truffle.runtime.generator.collection.GeneratorNodes;
+import com.rawlabs.snapi.truffle.runtime.list.StringList;
+import java.util.Objects;
+
+// The generator of a ProfiledCollection. Each call to the generator it wraps runs in a window of
+// the operator.
+@ExportLibrary(InteropLibrary.class)
+public final class ProfiledGenerator implements TruffleObject {
+
+  private final Object generator;
+  private final OperatorProfile profile;
+
+  public ProfiledGenerator(Object generator, OperatorProfile profile) {
+    this.generator = generator;
+    this.profile = profile;
+  }
+
+  public Object getGenerator() {
+    return generator;
+  }
+
+  public OperatorProfile getProfile() {
+    return profile;
+  }
+
+  // InteropLibrary: Iterator
+  @ExportMessage
+  boolean isIterator() {
+    return true;
+  }
+
+  @ExportMessage
+  boolean hasIteratorNextElement(
+      @Bind("$node") Node thisNode,
+      @Cached(inline = true) GeneratorNodes.GeneratorHasNextNode hasNextNode)
+      throws UnsupportedMessageException {
+    return hasNextNode.execute(thisNode, this);
+  }
+
+  @ExportMessage
+  Object getIteratorNextElement(
+      @Bind("$node") Node thisNode,
+      @Cached(inline = true) GeneratorNodes.GeneratorNextNode nextNode)
+      throws UnsupportedMessageException, StopIterationException {
+    return nextNode.execute(thisNode, this);
+  }
+
+  @ExportMessage
+  boolean hasMembers() {
+    return true;
+  }
+
+  @ExportMessage
+  Object getMembers(boolean includeInternal) {
+    return new StringList(new String[] {"close"});
+  }
+
+  @ExportMessage
+  boolean isMemberInvocable(String member) {
+    return Objects.equals(member, "close");
+  }
+
+  @ExportMessage
+  Object invokeMember(
+      String member,
+      Object[] args,
+      @Bind("$node") Node thisNode,
+      @Cached(inline = true) GeneratorNodes.GeneratorCloseNode closeNode) {
+    assert (Objects.equals(member, "close"));
+    closeNode.execute(thisNode, this);
+    return 0;
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.profiler;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Charges an operator with the bytes read from a stream and the time spent reading them, either
+// as input of the query or as spilled data read back.
+public final class ProfiledInputStream extends FilterInputStream {
+
+  private final OperatorProfile profile;
+  private final boolean spilled;
+
+  public ProfiledInputStream(InputStream in, OperatorProfile profile, boolean spilled) {
+    super(in);
+    this.profile = profile;
+    this.spilled = spilled;
+  }
+
+  @Override
+  public int read() throws IOException {
+    long start = System.nanoTime();
+    int b = super.read();
+    record(b < 0 ? 0 : 1, System.nanoTime() - start);
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    long start = System.nanoTime();
+    int n = super.read(b, off, len);
+    record(Math.max(n, 0), System.nanoTime() - start);
+    return n;
+  }
+
+  private void record(long bytes, long nanos) {
+    if (spilled) {
+      profile.spillIo(0, nanos);
+    } else {
+      profile.read(bytes, 0, nanos);
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.profiler;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Charges an operator with the bytes it spills, as serialized by Kryo, and the time spent writing
+// them (compression and disk writes, unless they are done in the background).
+public final class ProfiledOutputStream extends FilterOutputStream {
+
+  private final OperatorProfile profile;
+
+  public ProfiledOutputStream(OutputStream out, OperatorProfile profile) {
+    super(out);
+    this.profile = profile;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    long start = System.nanoTime();
+    out.write(b);
+    profile.spillIo(1, System.nanoTime() - start);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    long start = System.nanoTime();
+    out.write(b, off, len);
+    profile.spillIo(len, System.nanoTime() - start);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    long start = System.nanoTime();
+    out.flush();
+    profile.spillIo(0, System.nanoTime() - start);
+  }
+}
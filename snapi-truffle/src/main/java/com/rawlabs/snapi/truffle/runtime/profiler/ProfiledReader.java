@@ -0,0 +1,45 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.profiler;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+// Charges an operator with the characters read from an input of the query, and the time spent
+// reading and decoding them.
+public final class ProfiledReader extends FilterReader {
+
+  private final OperatorProfile profile;
+
+  public ProfiledReader(Reader in, OperatorProfile profile) {
+    super(in);
+    this.profile = profile;
+  }
+
+  @Override
+  public int read() throws IOException {
+    long start = System.nanoTime();
+    int c = super.read();
+    profile.read(0, c < 0 ? 0 : 1, System.nanoTime() - start);
+    return c;
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    long start = System.nanoTime();
+    int n = super.read(cbuf, off, len);
+    profile.read(0, Math.max(n, 0), System.nanoTime() - start);
+    return n;
+  }
+}
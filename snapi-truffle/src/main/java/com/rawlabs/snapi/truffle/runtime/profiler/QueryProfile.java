@@ -0,0 +1,217 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.profiler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.rawlabs.snapi.truffle.ast.OperatorNode;
+import com.rawlabs.snapi.truffle.runtime.utils.MemoryBudget;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+
+// The profile of a query: one entry per operator node it ran, as a tree following the nesting of
+// the operators in the program. It is found in the polyglot bindings as '@profile', a string
+// holding the profile as JSON.
+//
+// Operators record their work in windows: a window is open while the node of the operator runs,
+// and while the generator of a collection it produced is initialized or pulled a row from. Windows
+// are kept per thread, and the innermost one is the operator the runtime works for, which is
+// charged with what it reads, spills and reserves.
+@ExportLibrary(InteropLibrary.class)
+public final class QueryProfile implements TruffleObject {
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private static final ThreadLocal<Window> active = new ThreadLocal<>();
+
+  // set once a profiler is created, so that the runtime only looks for windows when profiling.
+  private static volatile boolean enabled = false;
+
+  private static final class Window {
+    private final OperatorProfile profile;
+    private final Window outer;
+    private final long start;
+    private long childNanos = 0; // time spent in the windows opened inside that one.
+
+    private Window(OperatorProfile profile, Window outer, long start) {
+      this.profile = profile;
+      this.outer = outer;
+      this.start = start;
+    }
+  }
+
+  private final MemoryBudget memoryBudget;
+  private final LinkedHashMap<Node, OperatorProfile> operators = new LinkedHashMap<>();
+
+  public QueryProfile(MemoryBudget memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
+
+  static void enable() {
+    enabled = true;
+  }
+
+  // The profile of an operator node. Its parent is the closest operator node it is nested in,
+  // within the same function.
+  @TruffleBoundary
+  public synchronized OperatorProfile operator(OperatorNode node) {
+    OperatorProfile profile = operators.get(node);
+    if (profile == null) {
+      OperatorProfile parent = null;
+      for (Node n = node.getParent(); n != null && !(n instanceof RootNode); n = n.getParent()) {
+        if (n instanceof OperatorNode o) {
+          parent = operator(o);
+          break;
+        }
+      }
+      RootNode root = node.getRootNode();
+      profile =
+          new OperatorProfile(
+              operators.size() + 1,
+              node.getName(),
+              root == null ? null : root.getName(),
+              parent);
+      operators.put(node, profile);
+    }
+    return profile;
+  }
+
+  @TruffleBoundary
+  public static void enter(OperatorProfile profile) {
+    active.set(new Window(profile, active.get(), System.nanoTime()));
+  }
+
+  // Closes the innermost window of the thread, which produced `rows` rows.
+  @TruffleBoundary
+  public static void exit(long rows) {
+    Window window = active.get();
+    long total = System.nanoTime() - window.start;
+    window.profile.window(total, total - window.childNanos, rows);
+    if (window.outer != null) {
+      window.outer.childNanos += total;
+    }
+    active.set(window.outer);
+  }
+
+  // The operator the runtime works for on this thread, or null if no profiler is enabled.
+  @TruffleBoundary
+  public static OperatorProfile current() {
+    if (!enabled) {
+      return null;
+    }
+    Window window = active.get();
+    return window == null ? null : window.profile;
+  }
+
+  // An input of the query opened by the current operator, which is charged with reading it.
+  @TruffleBoundary
+  public static InputStream profiled(InputStream in) {
+    OperatorProfile profile = current();
+    return profile == null ? in : new ProfiledInputStream(in, profile, false);
+  }
+
+  @TruffleBoundary
+  public static Reader profiled(Reader reader) {
+    OperatorProfile profile = current();
+    return profile == null ? reader : new ProfiledReader(reader, profile);
+  }
+
+  // A file spilled by the current operator.
+  @TruffleBoundary
+  public static OutputStream profiledSpill(OutputStream out) {
+    OperatorProfile profile = current();
+    if (profile == null) {
+      return out;
+    }
+    profile.spilled();
+    return new ProfiledOutputStream(out, profile);
+  }
+
+  // A spilled file read back by the current operator.
+  @TruffleBoundary
+  public static InputStream profiledSpill(InputStream in) {
+    OperatorProfile profile = current();
+    return profile == null ? in : new ProfiledInputStream(in, profile, true);
+  }
+
+  // Memory reserved by the off-heap operators while the current operator reserves some.
+  @TruffleBoundary
+  public static void reserved(long bytes) {
+    OperatorProfile profile = current();
+    if (profile != null) {
+      profile.memory(bytes);
+    }
+  }
+
+  @TruffleBoundary
+  public synchronized String toJson() {
+    ObjectNode root = mapper.createObjectNode();
+    root.put("peakMemory", memoryBudget.getPeak());
+    ArrayNode roots = root.putArray("operators");
+    for (OperatorProfile profile : operators.values()) {
+      if (profile.getParent() == null) {
+        roots.add(toJson(profile));
+      }
+    }
+    return root.toString();
+  }
+
+  private static ObjectNode toJson(OperatorProfile profile) {
+    ObjectNode node = mapper.createObjectNode();
+    node.put("id", profile.getId());
+    node.put("operator", profile.getName());
+    node.put("function", profile.getFunction());
+    node.put("invocations", profile.getInvocations());
+    node.put("rowsIn", profile.getRowsIn());
+    node.put("rowsOut", profile.getRowsOut());
+    node.put("totalMillis", millis(profile.getTotalNanos()));
+    node.put("selfMillis", millis(profile.getSelfNanos()));
+    node.put("bytesRead", profile.getBytesRead());
+    node.put("charsRead", profile.getCharsRead());
+    node.put("ioMillis", millis(profile.getIoNanos()));
+    node.put("spills", profile.getSpills());
+    node.put("bytesSpilled", profile.getBytesSpilled());
+    node.put("spillMillis", millis(profile.getSpillNanos()));
+    node.put("peakMemory", profile.getPeakMemory());
+    ArrayNode children = node.putArray("children");
+    for (OperatorProfile child : profile.getChildren()) {
+      children.add(toJson(child));
+    }
+    return node;
+  }
+
+  private static double millis(long nanos) {
+    return Math.round(nanos / 1000.0) / 1000.0;
+  }
+
+  // InteropLibrary: String
+  @ExportMessage
+  boolean isString() {
+    return true;
+  }
+
+  @ExportMessage
+  String asString() {
+    return toJson();
+  }
+}
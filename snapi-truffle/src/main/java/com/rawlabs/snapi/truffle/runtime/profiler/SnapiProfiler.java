@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.profiler;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.EventContext;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNode;
+import com.oracle.truffle.api.instrumentation.SourceSectionFilter;
+import com.oracle.truffle.api.instrumentation.TruffleInstrument;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.rawlabs.snapi.truffle.SnapiContext;
+import com.rawlabs.snapi.truffle.SnapiLanguage;
+import com.rawlabs.snapi.truffle.ast.OperatorNode;
+import java.util.List;
+import org.graalvm.options.OptionCategory;
+import org.graalvm.options.OptionDescriptor;
+import org.graalvm.options.OptionDescriptors;
+import org.graalvm.options.OptionKey;
+
+// Profiles the operators of Snapi programs, when the engine option 'snapi-profiler' is set. The
+// profile of each execution is found in the polyglot bindings of its context (see QueryProfile).
+//
+// Nothing is attached to the programs otherwise: operators are only wrapped in an OperatorNode,
+// which forwards every execute method to its operand and compiles away, so they run as fast as
+// without the profiler.
+// When profiling, each row pulled from a collection produced by an operator opens a window, which
+// costs a few calls to System.nanoTime.
+@TruffleInstrument.Registration(
+    id = SnapiProfiler.ID,
+    name = "Snapi Profiler",
+    version = SnapiLanguage.VERSION)
+public final class SnapiProfiler extends TruffleInstrument {
+
+  public static final String ID = "snapi-profiler";
+
+  public static final OptionKey<Boolean> ENABLED_KEY = new OptionKey<>(false);
+  public static final OptionDescriptor ENABLED_DESCRIPTOR =
+      OptionDescriptor.newBuilder(ENABLED_KEY, ID)
+          .category(OptionCategory.USER)
+          .help("Profile the operators of Snapi programs.")
+          .build();
+
+  @Override
+  protected OptionDescriptors getOptionDescriptors() {
+    return OptionDescriptors.create(List.of(ENABLED_DESCRIPTOR));
+  }
+
+  @Override
+  protected void onCreate(Env env) {
+    if (!env.getOptions().get(ENABLED_KEY)) {
+      return;
+    }
+    QueryProfile.enable();
+    SourceSectionFilter filter =
+        SourceSectionFilter.newBuilder().tagIs(OperatorTag.class).includeInternal(true).build();
+    env.getInstrumenter().attachExecutionEventFactory(filter, OperatorEventNode::new);
+  }
+
+  private static final class OperatorEventNode extends ExecutionEventNode {
+
+    private final EventContext context;
+    private final OperatorNode operator;
+
+    private OperatorEventNode(EventContext context) {
+      this.context = context;
+      this.operator = (OperatorNode) context.getInstrumentedNode();
+    }
+
+    @Override
+    protected void onEnter(VirtualFrame frame) {
+      enter(SnapiContext.get(this));
+    }
+
+    @Override
+    protected void onReturnValue(VirtualFrame frame, Object result) {
+      Object profiled = exit(result);
+      if (profiled != null) {
+        // the collection is returned in place of the one of the operator.
+        throw context.createUnwind(profiled);
+      }
+    }
+
+    @Override
+    protected Object onUnwind(VirtualFrame frame, Object info) {
+      return info;
+    }
+
+    @Override
+    protected void onReturnExceptional(VirtualFrame frame, Throwable exception) {
+      QueryProfile.exit(0);
+    }
+
+    @TruffleBoundary
+    private void enter(SnapiContext snapiContext) {
+      OperatorProfile profile = snapiContext.getProfile().operator(operator);
+      profile.invoked();
+      QueryProfile.enter(profile);
+    }
+
+    // Closes the window of the operator. Returns the collection to return in place of the one it
+    // produced, if any.
+    @TruffleBoundary
+    private Object exit(Object result) {
+      OperatorProfile profile = QueryProfile.current();
+      byte kind = operator.getKind();
+      long rows = kind == OperatorTag.LIST ? size(result) : kind == OperatorTag.VALUE ? 1 : 0;
+      QueryProfile.exit(rows);
+      if (kind == OperatorTag.COLLECTION && !(result instanceof ProfiledCollection)) {
+        return new ProfiledCollection(result, profile);
+      }
+      return null;
+    }
+
+    private static long size(Object list) {
+      try {
+        return InteropLibrary.getUncached().getArraySize(list);
+      } catch (UnsupportedMessageException e) {
+        return 0;
+      }
+    }
+  }
+}
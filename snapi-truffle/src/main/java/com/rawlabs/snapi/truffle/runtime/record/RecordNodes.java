@@ -15,6 +15,7 @@ package com.rawlabs.snapi.truffle.runtime.record;
 import com.oracle.truffle.api.dsl.*;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeInfo;
+import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleInternalErrorException;
 
 // (az) Whenever using any of these nodes, create one per property
 public class RecordNodes {
@@ -73,6 +74,11 @@ public class RecordNodes {
     static boolean exec(Node node, DuplicateKeyRecord record, String key) {
       return record.keyExist(key);
     }
+
+    @Specialization
+    static boolean exec(Node node, StaticRecord record, String key) {
+      return record.getLayout().indexOf(key) >= 0;
+    }
   }
 
   @NodeInfo(shortName = "Record.GetValue")
@@ -101,6 +107,26 @@ public class RecordNodes {
         @Cached DuplicateKeyRecordNodes.GetValueNode getValueNode) {
       return getValueNode.execute(thisNode, record, key);
     }
+
+    // The field of a projection is found once per layout.
+    @Specialization(
+        guards = {"record.getLayout() == cachedLayout", "key.equals(cachedKey)"},
+        limit = "3")
+    static Object doStaticCached(
+        Node node,
+        StaticRecord record,
+        Object key,
+        @Cached(value = "record.getLayout()", neverDefault = true) StaticRecordLayout cachedLayout,
+        @Cached(value = "key", neverDefault = true) Object cachedKey,
+        @Cached("cachedLayout.indexOf(cachedKey)") int index) {
+      return cachedLayout.getValue(record, index);
+    }
+
+    @Specialization(replaces = "doStaticCached")
+    static Object doStatic(Node node, StaticRecord record, Object key) {
+      StaticRecordLayout layout = record.getLayout();
+      return layout.getValue(record, layout.indexOf(key));
+    }
   }
 
   @NodeInfo(shortName = "Record.GetValueByIndex")
@@ -129,6 +155,29 @@ public class RecordNodes {
         @Cached DuplicateKeyRecordNodes.GetValueByIndexNode getValueByIndexNode) {
       return getValueByIndexNode.execute(thisNode, record, index);
     }
+
+    @Specialization(guards = "record.getLayout() == cachedLayout", limit = "3")
+    static Object doStaticCached(
+        Node node,
+        StaticRecord record,
+        int index,
+        @Cached(value = "record.getLayout()", neverDefault = true)
+            StaticRecordLayout cachedLayout) {
+      return getStaticValue(cachedLayout, record, index);
+    }
+
+    @Specialization(replaces = "doStaticCached")
+    static Object doStatic(Node node, StaticRecord record, int index) {
+      return getStaticValue(record.getLayout(), record, index);
+    }
+
+    private static Object getStaticValue(
+        StaticRecordLayout layout, StaticRecord record, int index) {
+      if (index < 0 || index >= layout.size()) {
+        throw new TruffleInternalErrorException("Index out of bounds in record");
+      }
+      return layout.getValue(record, index);
+    }
   }
 
   @NodeInfo(shortName = "Record.GetKeys")
@@ -155,6 +204,12 @@ public class RecordNodes {
         @Cached DuplicateKeyRecordNodes.GetKeysNode getKeysNode) {
       return getKeysNode.execute(thisNode, record);
     }
+
+    // The keys of the layout, which must not be modified.
+    @Specialization
+    static Object[] exec(Node node, StaticRecord record) {
+      return record.getLayout().getKeys();
+    }
   }
 
   @NodeInfo(shortName = "Record.RemoveProp")
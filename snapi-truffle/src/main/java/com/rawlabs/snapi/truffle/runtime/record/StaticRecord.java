@@ -0,0 +1,80 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.record;
+
+import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnknownIdentifierException;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.rawlabs.snapi.truffle.SnapiLanguage;
+
+// Record of a type known when emitting the program. Its fields are the static properties of its
+// layout, which the instances are generated for, see StaticRecordLayout. Immutable.
+@ExportLibrary(InteropLibrary.class)
+public class StaticRecord implements TruffleObject {
+
+  public interface Factory {
+    StaticRecord create(StaticRecordLayout layout);
+  }
+
+  private final StaticRecordLayout layout;
+
+  public StaticRecord(StaticRecordLayout layout) {
+    this.layout = layout;
+  }
+
+  public final StaticRecordLayout getLayout() {
+    return layout;
+  }
+
+  @ExportMessage
+  boolean hasLanguage() {
+    return true;
+  }
+
+  @ExportMessage
+  Class<? extends TruffleLanguage<?>> getLanguage() {
+    return SnapiLanguage.class;
+  }
+
+  @ExportMessage
+  Object toDisplayString(@SuppressWarnings("unused") boolean allowSideEffects) {
+    return "Record";
+  }
+
+  @ExportMessage
+  boolean hasMembers() {
+    return true;
+  }
+
+  @ExportMessage
+  Object getMembers(@SuppressWarnings("unused") boolean includeInternal) {
+    return new KeysObject(layout.getKeys());
+  }
+
+  @ExportMessage
+  boolean isMemberReadable(String member) {
+    return layout.indexOf(member) >= 0;
+  }
+
+  @ExportMessage
+  Object readMember(String member) throws UnknownIdentifierException {
+    int index = layout.indexOf(member);
+    if (index < 0) {
+      throw UnknownIdentifierException.create(member);
+    }
+    return layout.getValue(this, index);
+  }
+}
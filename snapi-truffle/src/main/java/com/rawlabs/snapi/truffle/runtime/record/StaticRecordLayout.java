@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.record;
+
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.staticobject.DefaultStaticProperty;
+import com.oracle.truffle.api.staticobject.StaticProperty;
+import com.oracle.truffle.api.staticobject.StaticShape;
+import com.rawlabs.snapi.truffle.SnapiLanguage;
+
+/**
+ * Fields of the records of a record type without duplicate keys. Each field is a static property
+ * stored with its primitive type when the field type has one, so that building a record is a
+ * single allocation and reading a field is a field read. Layouts are shared by the record types
+ * with the same keys and field types, see SnapiLanguage.getStaticRecordLayout.
+ */
+public final class StaticRecordLayout {
+
+  // The keys are never modified, and are returned as such by getKeys.
+  @CompilationFinal(dimensions = 1)
+  private final Object[] keys;
+
+  @CompilationFinal(dimensions = 1)
+  private final Class<?>[] types;
+
+  @CompilationFinal(dimensions = 1)
+  private final StaticProperty[] properties;
+
+  private final StaticShape<StaticRecord.Factory> shape;
+
+  public StaticRecordLayout(SnapiLanguage language, String[] keys, Class<?>[] types) {
+    assert keys.length == types.length;
+    this.keys = keys.clone();
+    this.types = types.clone();
+    this.properties = new StaticProperty[keys.length];
+    StaticShape.Builder builder = StaticShape.newBuilder(language);
+    for (int i = 0; i < keys.length; i++) {
+      // Keys can be any string, so properties are named by their index.
+      properties[i] = new DefaultStaticProperty("f" + i);
+      builder.property(properties[i], types[i], true);
+    }
+    this.shape = builder.build(StaticRecord.class, StaticRecord.Factory.class);
+  }
+
+  public StaticRecord create() {
+    return shape.getFactory().create(this);
+  }
+
+  public int size() {
+    return keys.length;
+  }
+
+  public Object[] getKeys() {
+    return keys;
+  }
+
+  public Class<?> getType(int index) {
+    return types[index];
+  }
+
+  public StaticProperty getProperty(int index) {
+    return properties[index];
+  }
+
+  public int indexOf(Object key) {
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i].equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // Like PureRecord, null if there's no such field.
+  public Object getValue(StaticRecord record, int index) {
+    if (index < 0) {
+      return null;
+    }
+    Class<?> type = types[index];
+    StaticProperty property = properties[index];
+    if (type == int.class) {
+      return property.getInt(record);
+    } else if (type == long.class) {
+      return property.getLong(record);
+    } else if (type == double.class) {
+      return property.getDouble(record);
+    } else if (type == boolean.class) {
+      return property.getBoolean(record);
+    } else if (type == byte.class) {
+      return property.getByte(record);
+    } else if (type == short.class) {
+      return property.getShort(record);
+    } else if (type == float.class) {
+      return property.getFloat(record);
+    } else {
+      return property.getObject(record);
+    }
+  }
+}
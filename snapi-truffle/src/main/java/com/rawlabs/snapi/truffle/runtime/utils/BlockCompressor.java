@@ -0,0 +1,147 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.utils;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// LZ4-style compression of spill blocks. A block is a sequence of literal runs each followed by a
+// match (a 2 bytes offset back in the block and a length), the last run having no match. Matches
+// are found with a hash table of the last position of each 4 bytes sequence.
+public final class BlockCompressor {
+
+  private static final int MIN_MATCH = 4;
+  private static final int HASH_LOG = 12;
+  private static final int LAST_LITERALS = 5; // a block ends with at least that many literals.
+  private static final int MATCH_FIND_LIMIT = 12; // no match starts that close to the end.
+  private static final int MAX_DISTANCE = 65535;
+
+  private final int[] table = new int[1 << HASH_LOG]; // position + 1 of a sequence, 0 if none.
+
+  public static int maxCompressedLength(int length) {
+    return length + length / 255 + 16;
+  }
+
+  // Compresses src[0, length) into dst, which holds at least maxCompressedLength(length) bytes.
+  // Returns the compressed length.
+  public int compress(byte[] src, int length, byte[] dst) {
+    Arrays.fill(table, 0);
+    int anchor = 0; // start of the pending literals.
+    int ip = 0;
+    int op = 0;
+    int limit = length - MATCH_FIND_LIMIT;
+    while (ip < limit) {
+      int sequence = readInt(src, ip);
+      int h = (sequence * -1640531535) >>> (32 - HASH_LOG);
+      int ref = table[h] - 1;
+      table[h] = ip + 1;
+      if (ref < 0 || ip - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+        ip++;
+        continue;
+      }
+      int matchLength = MIN_MATCH;
+      int maxMatchLength = length - LAST_LITERALS - ip;
+      while (matchLength < maxMatchLength && src[ref + matchLength] == src[ip + matchLength]) {
+        matchLength++;
+      }
+      op = writeLiterals(src, anchor, ip - anchor, matchLength - MIN_MATCH, dst, op);
+      dst[op++] = (byte) (ip - ref);
+      dst[op++] = (byte) ((ip - ref) >>> 8);
+      if (matchLength - MIN_MATCH >= 15) {
+        op = writeLength(matchLength - MIN_MATCH - 15, dst, op);
+      }
+      ip += matchLength;
+      anchor = ip;
+    }
+    return writeLiterals(src, anchor, length - anchor, 0, dst, op);
+  }
+
+  // writes the token (literals and match lengths), then the literals.
+  private static int writeLiterals(
+      byte[] src, int from, int count, int matchLength, byte[] dst, int op) {
+    dst[op++] = (byte) ((Math.min(count, 15) << 4) | Math.min(matchLength, 15));
+    if (count >= 15) {
+      op = writeLength(count - 15, dst, op);
+    }
+    System.arraycopy(src, from, dst, op, count);
+    return op + count;
+  }
+
+  private static int writeLength(int length, byte[] dst, int op) {
+    while (length >= 255) {
+      dst[op++] = (byte) 255;
+      length -= 255;
+    }
+    dst[op++] = (byte) length;
+    return op;
+  }
+
+  // Decompresses src[0, length) into dst[0, rawLength).
+  public static void decompress(byte[] src, int length, byte[] dst, int rawLength)
+      throws IOException {
+    int ip = 0;
+    int op = 0;
+    try {
+      while (ip < length) {
+        int token = src[ip++] & 0xff;
+        int literals = token >>> 4;
+        if (literals == 15) {
+          int b;
+          do {
+            b = src[ip++] & 0xff;
+            literals += b;
+          } while (b == 255);
+        }
+        System.arraycopy(src, ip, dst, op, literals);
+        ip += literals;
+        op += literals;
+        if (ip == length) {
+          break; // the last literals have no match.
+        }
+        int offset = (src[ip] & 0xff) | ((src[ip + 1] & 0xff) << 8);
+        ip += 2;
+        int matchLength = token & 15;
+        if (matchLength == 15) {
+          int b;
+          do {
+            b = src[ip++] & 0xff;
+            matchLength += b;
+          } while (b == 255);
+        }
+        matchLength += MIN_MATCH;
+        int ref = op - offset;
+        if (offset == 0 || ref < 0) {
+          throw new IOException("corrupted spill block");
+        }
+        if (offset >= matchLength) {
+          System.arraycopy(dst, ref, dst, op, matchLength);
+        } else {
+          // the match overlaps the bytes it produces.
+          for (int i = 0; i < matchLength; i++) {
+            dst[op + i] = dst[ref + i];
+          }
+        }
+        op += matchLength;
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new IOException("corrupted spill block", e);
+    }
+    if (op != rawLength) {
+      throw new IOException("corrupted spill block");
+    }
+  }
+
+  private static int readInt(byte[] b, int i) {
+    return (b[i] & 0xff) | ((b[i + 1] & 0xff) << 8) | ((b[i + 2] & 0xff) << 16) | (b[i + 3] << 24);
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32C;
+
+// Reads a spilled file written by BlockOutputStream, checking and decompressing one block at a
+// time. Skipping bytes skips whole blocks without reading them back.
+public final class BlockInputStream extends InputStream {
+
+  private final InputStream in;
+  private final CRC32C checksum = new CRC32C();
+  private final byte[] header = new byte[BlockOutputStream.HEADER_SIZE];
+  private byte[] block = new byte[0];
+  private byte[] stored = new byte[0];
+  private int position = 0, limit = 0; // bytes of the current block left to read.
+  // header of the next block, once read ahead by skip.
+  private int nextRawLength = -1, nextStoredLength, nextChecksum;
+  private boolean ended = false;
+
+  public BlockInputStream(InputStream in) {
+    this.in = in;
+  }
+
+  private boolean readHeader() throws IOException {
+    if (nextRawLength >= 0) {
+      return true;
+    }
+    if (ended) {
+      return false;
+    }
+    if (in.readNBytes(header, 0, header.length) != header.length) {
+      throw new EOFException("truncated spill file");
+    }
+    nextRawLength = getInt(header, 0);
+    nextStoredLength = getInt(header, 4);
+    nextChecksum = getInt(header, 8);
+    if (nextRawLength == 0) {
+      // end of the blocks.
+      ended = true;
+      nextRawLength = -1;
+      return false;
+    }
+    if (nextRawLength < 0 || nextStoredLength <= 0 || nextStoredLength > nextRawLength) {
+      throw new IOException("corrupted spill block");
+    }
+    return true;
+  }
+
+  // reads, checks and decompresses the next block. Returns false at the end of the blocks.
+  private boolean nextBlock() throws IOException {
+    while (position == limit) {
+      if (!readHeader()) {
+        return false;
+      }
+      int rawLength = nextRawLength;
+      int storedLength = nextStoredLength;
+      nextRawLength = -1;
+      if (stored.length < storedLength) {
+        stored = new byte[storedLength];
+      }
+      if (in.readNBytes(stored, 0, storedLength) != storedLength) {
+        throw new EOFException("truncated spill file");
+      }
+      checksum.reset();
+      checksum.update(stored, 0, storedLength);
+      if ((int) checksum.getValue() != nextChecksum) {
+        throw new IOException("spill block checksum mismatch");
+      }
+      if (block.length < rawLength) {
+        block = new byte[rawLength];
+      }
+      if (storedLength == rawLength) {
+        System.arraycopy(stored, 0, block, 0, rawLength);
+      } else {
+        BlockCompressor.decompress(stored, storedLength, block, rawLength);
+      }
+      position = 0;
+      limit = rawLength;
+    }
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!nextBlock()) {
+      return -1;
+    }
+    return block[position++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!nextBlock()) {
+      return -1;
+    }
+    int n = Math.min(len, limit - position);
+    System.arraycopy(block, position, b, off, n);
+    position += n;
+    return n;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = Math.min(n, limit - position);
+    position += (int) skipped;
+    // whole blocks are skipped from their header, without being read.
+    while (skipped < n && readHeader() && nextRawLength <= n - skipped) {
+      in.skipNBytes(nextStoredLength);
+      skipped += nextRawLength;
+      nextRawLength = -1;
+    }
+    if (skipped < n && nextBlock()) {
+      int m = (int) Math.min(n - skipped, limit - position);
+      position += m;
+      skipped += m;
+    }
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return limit - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private static int getInt(byte[] b, int i) {
+    return ((b[i] & 0xff) << 24)
+        | ((b[i + 1] & 0xff) << 16)
+        | ((b[i + 2] & 0xff) << 8)
+        | (b[i + 3] & 0xff);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32C;
+
+// Writes a spilled file as a sequence of compressed blocks. Each block has a header (raw length,
+// stored length and a CRC32C checksum of the stored bytes) followed by the stored bytes, which are
+// the raw bytes when they don't compress. An empty header ends the blocks. Readers skip blocks
+// from their headers, so no index of the blocks is written.
+public final class BlockOutputStream extends OutputStream {
+
+  static final int HEADER_SIZE = 12;
+
+  private final OutputStream out;
+  private final BlockCompressor compressor = new BlockCompressor();
+  private final CRC32C checksum = new CRC32C();
+  private final byte[] block;
+  private final byte[] compressed;
+  private final byte[] header = new byte[HEADER_SIZE];
+  private int position = 0;
+
+  public BlockOutputStream(OutputStream out, int blockSize) {
+    this.out = out;
+    this.block = new byte[blockSize];
+    this.compressed = new byte[BlockCompressor.maxCompressedLength(blockSize)];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    if (position == block.length) {
+      writeBlock();
+    }
+    block[position++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      if (position == block.length) {
+        writeBlock();
+      }
+      int n = Math.min(len, block.length - position);
+      System.arraycopy(b, off, block, position, n);
+      position += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  private void writeBlock() throws IOException {
+    if (position == 0) {
+      return;
+    }
+    int compressedLength = compressor.compress(block, position, compressed);
+    byte[] stored = compressedLength < position ? compressed : block;
+    int storedLength = Math.min(compressedLength, position);
+    checksum.reset();
+    checksum.update(stored, 0, storedLength);
+    writeHeader(position, storedLength, (int) checksum.getValue());
+    out.write(stored, 0, storedLength);
+    position = 0;
+  }
+
+  private void writeHeader(int rawLength, int storedLength, int crc) throws IOException {
+    putInt(header, 0, rawLength);
+    putInt(header, 4, storedLength);
+    putInt(header, 8, crc);
+    out.write(header, 0, HEADER_SIZE);
+  }
+
+  static void putInt(byte[] b, int i, int v) {
+    b[i] = (byte) (v >>> 24);
+    b[i + 1] = (byte) (v >>> 16);
+    b[i + 2] = (byte) (v >>> 8);
+    b[i + 3] = (byte) v;
+  }
+
+  // the blocks are only complete once the stream is closed.
+  @Override
+  public void flush() {}
+
+  @Override
+  public void close() throws IOException {
+    try {
+      writeBlock();
+      writeHeader(0, 0, 0);
+    } finally {
+      out.close();
+    }
+  }
+}
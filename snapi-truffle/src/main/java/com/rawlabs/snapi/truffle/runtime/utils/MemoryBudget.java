@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.utils;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.rawlabs.snapi.truffle.runtime.profiler.QueryProfile;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Memory shared by all the off-heap operators (group-by, order-by, distinct, joins) open at the
+// same time in a query. Each operator reserves the measured size of what it holds in memory and
+// releases it once spilled or closed.
+public final class MemoryBudget {
+
+  private final long limit; // bytes all operators may hold together.
+  private final long minSpillSize; // an operator only spills under pressure past that size.
+  private final AtomicLong reserved = new AtomicLong(0);
+  private final AtomicLong peak = new AtomicLong(0);
+
+  public MemoryBudget(long limit, long minSpillSize) {
+    this.limit = limit;
+    this.minSpillSize = minSpillSize;
+  }
+
+  // Reserves bytes for an operator now holding `size` bytes. Returns true when it should spill:
+  // either it reached its own maximum size, or the budget is exhausted and it holds enough for
+  // its spill to be worth a file.
+  @TruffleBoundary
+  public boolean reserve(long bytes, long size, long maxSize) {
+    long total = reserved.addAndGet(bytes);
+    if (total > peak.get()) {
+      peak.accumulateAndGet(total, Math::max);
+    }
+    QueryProfile.reserved(total);
+    return size >= maxSize || (total >= limit && size >= minSpillSize);
+  }
+
+  // Reserves bytes of buffers held whatever the memory pressure, such as the blocks of spilled
+  // files being written or read ahead. They make operators spill sooner.
+  @TruffleBoundary
+  public void reserveBuffer(long bytes) {
+    reserve(bytes, 0, Long.MAX_VALUE);
+  }
+
+  @TruffleBoundary
+  public void release(long bytes) {
+    reserved.addAndGet(-bytes);
+  }
+
+  public long getLimit() {
+    return limit;
+  }
+
+  public long getReserved() {
+    return reserved.get();
+  }
+
+  public long getPeak() {
+    return peak.get();
+  }
+}
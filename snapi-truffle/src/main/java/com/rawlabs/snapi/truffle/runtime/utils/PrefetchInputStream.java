@@ -0,0 +1,128 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// Reads a spilled file ahead on a background thread: the next block is read from disk while the
+// query thread deserializes the current one. Merging runs then waits less on each of them. Both
+// blocks are reserved in the query memory budget until the stream is closed.
+public final class PrefetchInputStream extends InputStream {
+
+  private final InputStream in;
+  private final ExecutorService executor;
+  private final MemoryBudget budget;
+  private final int blockSize;
+  private byte[] block = new byte[0]; // block being consumed.
+  private int position = 0;
+  private Future<byte[]> next; // block being read ahead, null once the file was fully read.
+  private boolean closed = false;
+
+  public PrefetchInputStream(
+      InputStream in, ExecutorService executor, MemoryBudget budget, int blockSize) {
+    this.in = in;
+    this.executor = executor;
+    this.budget = budget;
+    this.blockSize = blockSize;
+    budget.reserveBuffer(2L * blockSize);
+    this.next = readAhead();
+  }
+
+  private Future<byte[]> readAhead() {
+    return executor.submit(
+        () -> {
+          byte[] b = new byte[blockSize];
+          int n = in.readNBytes(b, 0, blockSize);
+          return n == blockSize ? b : Arrays.copyOf(b, n);
+        });
+  }
+
+  // moves to the next block, returns false at the end of the file.
+  private boolean nextBlock() throws IOException {
+    while (position == block.length) {
+      if (next == null) {
+        return false;
+      }
+      block = await(next);
+      position = 0;
+      // a short block is the last one.
+      next = block.length == blockSize ? readAhead() : null;
+    }
+    return true;
+  }
+
+  private static byte[] await(Future<byte[]> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(e.getMessage());
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!nextBlock()) {
+      return -1;
+    }
+    return block[position++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!nextBlock()) {
+      return -1;
+    }
+    int n = Math.min(len, block.length - position);
+    System.arraycopy(block, position, b, off, n);
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return block.length - position;
+  }
+
+  // waits for the block being read ahead, so that the file isn't closed under it.
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (next != null) {
+        await(next);
+        next = null;
+      }
+    } finally {
+      budget.release(2L * blockSize);
+      in.close();
+    }
+  }
+}
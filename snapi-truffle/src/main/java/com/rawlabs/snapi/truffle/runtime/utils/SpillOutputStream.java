@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+// Writes a spilled file on a background thread. Each block written (a full Kryo buffer) is copied
+// and queued, so that the query thread serializes the next block while the previous ones are
+// written to disk. At most `maxPending` blocks are queued, after which writing blocks. Queued
+// blocks are reserved in the query memory budget until written.
+public final class SpillOutputStream extends OutputStream {
+
+  private final OutputStream out;
+  private final ExecutorService executor;
+  private final MemoryBudget budget;
+  private final Semaphore pending;
+  private CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+  private volatile IOException failure = null; // first failed write, reported to the caller.
+
+  public SpillOutputStream(
+      OutputStream out, ExecutorService executor, MemoryBudget budget, int maxPending) {
+    this.out = out;
+    this.executor = executor;
+    this.budget = budget;
+    this.pending = new Semaphore(maxPending);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    checkFailure();
+    if (len == 0) {
+      return;
+    }
+    byte[] block = Arrays.copyOfRange(b, off, off + len);
+    try {
+      pending.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(e.getMessage());
+    }
+    budget.reserveBuffer(len);
+    // chained, so that blocks are written in order.
+    last =
+        last.thenRunAsync(
+            () -> {
+              try {
+                if (failure == null) {
+                  out.write(block);
+                }
+              } catch (IOException e) {
+                failure = e;
+              } finally {
+                budget.release(len);
+                pending.release();
+              }
+            },
+            executor);
+  }
+
+  // waits for the queued blocks to be written, then closes the file.
+  @Override
+  public void close() throws IOException {
+    try {
+      last.join();
+    } finally {
+      out.close();
+    }
+    checkFailure();
+  }
+
+  private void checkFailure() throws IOException {
+    if (failure != null) {
+      throw failure;
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.utils;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.rawlabs.snapi.truffle.runtime.profiler.QueryProfile;
+import java.io.IOException;
+import java.io.Reader;
+
+// The text of a file read by a split scan.
+public class SplitCharInputStream extends TruffleCharInputStream {
+  private final SplitScan scan;
+
+  public SplitCharInputStream(TruffleCharInputStream stream, SplitScan scan) {
+    super(stream.stream, stream.encoding);
+    this.scan = scan;
+  }
+
+  @Override
+  @TruffleBoundary
+  public Reader getReader() {
+    return QueryProfile.profiled(scan.reader());
+  }
+
+  // The line in the file of a line of the text, which differ when ranges aren't read in order.
+  @TruffleBoundary
+  public int lineInFile(int line) {
+    try {
+      return scan.lineInFile(line);
+    } catch (IOException ex) {
+      return line;
+    }
+  }
+}
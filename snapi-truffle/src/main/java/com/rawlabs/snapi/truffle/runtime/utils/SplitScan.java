@@ -0,0 +1,587 @@
+/*
+ * Copyright 2024 RAW Labs S.A.
+ *
+ * Use of this software is governed by the Business Source License
+ * included in the file licenses/BSL.txt.
+ *
+ * As of the Change Date specified in that file, in accordance with
+ * the Business Source License, use of this software will be governed
+ * by the Apache License, Version 2.0, included in the file
+ * licenses/APL.txt.
+ */
+
+package com.rawlabs.snapi.truffle.runtime.utils;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.rawlabs.utils.core.RawSettings;
+import com.rawlabs.utils.sources.bytestream.api.ByteStreamLocation;
+import com.rawlabs.utils.sources.filesystem.local.LocalPath;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// Reads a local file as byte ranges, on background threads. Each range is widened to whole
+// records: it starts after the first record end found in it, and ends at the first record end
+// after it. The ranges are decoded by those threads too, and handed to the query thread which
+// parses them.
+//
+// When values can be quoted (or escaped), a line break isn't always a record end, and that can't
+// be told from the range alone. A range is then read assuming it doesn't start in a quoted value,
+// and checked against the end of the range before it: if they don't match, the range started in
+// a quoted value and is read again from the end of the previous one.
+public final class SplitScan implements Closeable {
+
+  private static final int READ_SIZE = 64 * 1024;
+
+  // Records of the file found in a range, decoded: the bytes [start, end) of the file. Lines are
+  // split already when reading lines.
+  static final class Chunk {
+    final int index;
+    final long start;
+    final long end;
+    final char[] text;
+    final int offset;
+    final int length;
+    final String[] lines;
+    final int lineBreaks;
+
+    Chunk(
+        int index,
+        long start,
+        long end,
+        char[] text,
+        int offset,
+        int length,
+        String[] lines,
+        int lineBreaks) {
+      this.index = index;
+      this.start = start;
+      this.end = end;
+      this.text = text;
+      this.offset = offset;
+      this.length = length;
+      this.lines = lines;
+      this.lineBreaks = lineBreaks;
+    }
+  }
+
+  // states of the record end scanner.
+  private static final int FIELD_START = 0;
+  private static final int UNQUOTED = 1;
+  private static final int QUOTED = 2;
+  private static final int QUOTE_IN_QUOTED = 3;
+
+  private final FileChannel channel;
+  private final long size;
+  private final long rangeSize;
+  private final int rangeCount;
+  private final Charset charset;
+  private final boolean splitLines;
+  // special bytes of the format, -1 when not used.
+  private final int delimiter;
+  private final int quote;
+  private final int escape;
+  // minimum number of records of the first range (e.g. header lines).
+  private final int firstRecords;
+
+  private final ExecutorService executor;
+  // ranges are handed over in file order, or as soon as they are read.
+  private final boolean ordered;
+
+  // the ranges being read, in file order.
+  private final ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+  // ordered: where the previous range ended.
+  private long previousEnd = 0;
+  private int nextIndex = 0;
+  // unordered: the ranges as they are read. The first one is handed over first anyway, for the
+  // header lines. Ranges read before it are kept aside.
+  private final ExecutorCompletionService<Chunk> completion;
+  private final ArrayDeque<Chunk> stash = new ArrayDeque<>();
+  private boolean firstHandedOut = false;
+  private final int[] lineBreaks;
+  private final ArrayList<int[]> handedOut = new ArrayList<>();
+  private int lineBreaksHandedOut = 0;
+  private int taken = 0;
+
+  private int submitted = 0;
+
+  private SplitScan(
+      FileChannel channel,
+      long size,
+      long rangeSize,
+      Charset charset,
+      boolean splitLines,
+      int delimiter,
+      int quote,
+      int escape,
+      int firstRecords,
+      ExecutorService executor,
+      int inFlight,
+      boolean ordered) {
+    this.channel = channel;
+    this.size = size;
+    this.rangeSize = rangeSize;
+    this.rangeCount = (int) ((size + rangeSize - 1) / rangeSize);
+    this.charset = charset;
+    this.splitLines = splitLines;
+    this.delimiter = delimiter;
+    this.quote = quote;
+    this.escape = escape;
+    this.firstRecords = firstRecords;
+    this.executor = executor;
+    // record ends are only ambiguous with quotes or escapes, the ranges need checking in order.
+    this.ordered = ordered || quote >= 0 || escape >= 0;
+    this.completion = this.ordered ? null : new ExecutorCompletionService<>(executor);
+    this.lineBreaks = new int[rangeCount];
+    Arrays.fill(lineBreaks, -1);
+    while (submitted < Math.min(inFlight, rangeCount)) {
+      submit();
+    }
+  }
+
+  // A scan of the CSV file of the stream, or null if it has to be read sequentially.
+  @TruffleBoundary
+  public static SplitScan forCsv(
+      TruffleCharInputStream stream,
+      char delimiter,
+      boolean useQuote,
+      char quoteChar,
+      char escapeChar,
+      int headerLines,
+      ExecutorService executor,
+      RawSettings settings) {
+    if (delimiter >= 128 || (useQuote && quoteChar >= 128) || escapeChar >= 128) {
+      return null;
+    }
+    return open(
+        stream,
+        false,
+        delimiter,
+        useQuote ? quoteChar : -1,
+        escapeChar != 0 ? escapeChar : -1,
+        headerLines,
+        executor,
+        settings);
+  }
+
+  // A scan of the lines of the file of the stream, or null if it has to be read sequentially.
+  @TruffleBoundary
+  public static SplitScan forLines(
+      TruffleCharInputStream stream, ExecutorService executor, RawSettings settings) {
+    return open(stream, true, -1, -1, -1, 0, executor, settings);
+  }
+
+  // Only local files are split, if they are large enough and their encoding is a superset of
+  // ASCII (so that record ends and quotes can be found in the bytes).
+  private static SplitScan open(
+      TruffleCharInputStream stream,
+      boolean splitLines,
+      int delimiter,
+      int quote,
+      int escape,
+      int firstRecords,
+      ExecutorService executor,
+      RawSettings settings) {
+    if (executor == null) {
+      return null;
+    }
+    ByteStreamLocation location = stream.stream.getLocation();
+    if (!(location instanceof LocalPath)) {
+      return null;
+    }
+    Charset charset = asciiCompatibleCharset(stream.encoding);
+    if (charset == null) {
+      return null;
+    }
+    long rangeSize = settings.getMemorySize("raw.runtime.split-scan.range-size");
+    Path path = Path.of(((LocalPath) location).pathName());
+    FileChannel channel;
+    long size;
+    try {
+      if (!Files.isRegularFile(path) || Files.size(path) < 2 * rangeSize) {
+        return null;
+      }
+      channel = FileChannel.open(path, StandardOpenOption.READ);
+      size = channel.size();
+    } catch (IOException | SecurityException ex) {
+      // read sequentially, which reports the error.
+      return null;
+    }
+    return new SplitScan(
+        channel,
+        size,
+        rangeSize,
+        charset,
+        splitLines,
+        delimiter,
+        quote,
+        escape,
+        firstRecords,
+        executor,
+        2 * settings.getInt("raw.runtime.split-scan.threads"),
+        settings.getBoolean("raw.runtime.split-scan.ordered"));
+  }
+
+  private static Charset asciiCompatibleCharset(String encoding) {
+    Charset charset;
+    try {
+      charset = Charset.forName(encoding);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+    String name = charset.name().toUpperCase(Locale.ROOT);
+    if (charset.equals(StandardCharsets.UTF_8)
+        || charset.equals(StandardCharsets.US_ASCII)
+        || name.startsWith("ISO-8859-")
+        || name.startsWith("WINDOWS-125")) {
+      return charset;
+    }
+    return null;
+  }
+
+  private void submit() {
+    int index = submitted++;
+    long start = index == 0 ? 0 : -1;
+    if (ordered) {
+      pending.add(executor.submit(() -> read(index, start)));
+    } else {
+      pending.add(completion.submit(() -> read(index, start)));
+    }
+  }
+
+  // The next chunk of the file, null at the end.
+  @TruffleBoundary
+  Chunk next() throws IOException {
+    return ordered ? nextInOrder() : nextRead();
+  }
+
+  // The lines of the next chunk of the file, null at the end.
+  @TruffleBoundary
+  public String[] nextLines() throws IOException {
+    Chunk chunk = next();
+    return chunk == null ? null : chunk.lines;
+  }
+
+  private Chunk nextInOrder() throws IOException {
+    while (nextIndex < rangeCount) {
+      Chunk chunk = await(pending.poll());
+      if (submitted < rangeCount) {
+        submit();
+      }
+      int index = nextIndex++;
+      if (previousEnd >= rangeEnd(index)) {
+        // the previous records went past this range, no record starts in it.
+        continue;
+      }
+      if (chunk.start != previousEnd) {
+        // the range started in a quoted value.
+        chunk = read(index, previousEnd);
+      }
+      previousEnd = chunk.end;
+      if (chunk.start < chunk.end) {
+        return chunk;
+      }
+    }
+    return null;
+  }
+
+  private Chunk nextRead() throws IOException {
+    while (taken < rangeCount) {
+      Chunk chunk = firstHandedOut ? stash.poll() : null;
+      if (chunk == null) {
+        chunk = takeCompleted();
+        if (!firstHandedOut && chunk.index != 0) {
+          stash.add(chunk);
+          continue;
+        }
+        firstHandedOut = true;
+      }
+      taken++;
+      if (submitted < rangeCount) {
+        submit();
+      }
+      if (chunk.start < chunk.end) {
+        handedOut.add(new int[] {lineBreaksHandedOut, chunk.index});
+        lineBreaksHandedOut += chunk.lineBreaks;
+        return chunk;
+      }
+    }
+    return null;
+  }
+
+  private Chunk takeCompleted() throws IOException {
+    Future<Chunk> future;
+    try {
+      future = completion.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(e.getMessage());
+    }
+    pending.remove(future);
+    Chunk chunk = await(future);
+    lineBreaks[chunk.index] = chunk.lineBreaks;
+    return chunk;
+  }
+
+  // The line in the file of a line of the text handed out. Ranges handed out of order come with
+  // their own line numbers, counted from the ranges before them.
+  @TruffleBoundary
+  int lineInFile(int line) throws IOException {
+    if (ordered) {
+      return line;
+    }
+    int[] chunk = null;
+    for (int[] h : handedOut) {
+      if (h[0] <= line - 1) {
+        chunk = h;
+      }
+    }
+    if (chunk == null) {
+      return line;
+    }
+    int before = 0;
+    for (int i = 0; i < chunk[1]; i++) {
+      while (lineBreaks[i] < 0) {
+        stash.add(takeCompleted());
+      }
+      before += lineBreaks[i];
+    }
+    return before + line - chunk[0];
+  }
+
+  private long rangeEnd(int index) {
+    return Math.min(size, (index + 1) * rangeSize);
+  }
+
+  private static Chunk await(Future<Chunk> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(e.getMessage());
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  // Bytes of the file from an offset, read as needed.
+  private final class Bytes {
+    private final long offset;
+    private byte[] data;
+    private int length = 0;
+
+    Bytes(long offset, int capacity) {
+      this.offset = offset;
+      this.data = new byte[capacity];
+    }
+
+    boolean has(int i) throws IOException {
+      while (i >= length) {
+        if (length == data.length) {
+          data = Arrays.copyOf(data, data.length + Math.max(READ_SIZE, data.length / 2));
+        }
+        int n = channel.read(ByteBuffer.wrap(data, length, data.length - length), offset + length);
+        if (n < 0) {
+          return false;
+        }
+        length += n;
+      }
+      return true;
+    }
+  }
+
+  // Reads the records of a range, from a known record start, or from the first record end in the
+  // range (start < 0). Runs on a background thread.
+  private Chunk read(int index, long start) throws IOException {
+    long rangeStart = index * rangeSize;
+    long rangeEnd = rangeEnd(index);
+    long from = start >= 0 ? start : rangeStart - 1;
+    Bytes bytes = new Bytes(from, (int) (rangeEnd - from) + READ_SIZE);
+    int p = 0;
+    if (start < 0) {
+      // the byte before the range is read too, in case it is a record end. Without any, no
+      // record starts in the range.
+      int last = (int) (rangeEnd - from);
+      while (p < last && bytes.has(p) && bytes.data[p] != '\n' && bytes.data[p] != '\r') {
+        p++;
+      }
+      if (p < last && bytes.has(p)) {
+        p += bytes.data[p] == '\r' && bytes.has(p + 1) && bytes.data[p + 1] == '\n' ? 2 : 1;
+      }
+    }
+    int begin = p;
+    int last = (int) (rangeEnd - from);
+    int records = 0;
+    int breaks = 0;
+    int state = FIELD_START;
+    boolean recordStart = true;
+    while (!(recordStart && p >= last && records >= (index == 0 ? firstRecords : 0))
+        && bytes.has(p)) {
+      int b = bytes.data[p++] & 0xff;
+      if (state == QUOTE_IN_QUOTED) {
+        if (b == quote) {
+          state = QUOTED;
+          continue;
+        }
+        state = UNQUOTED;
+      }
+      recordStart = false;
+      if (b == escape) {
+        if (bytes.has(p)) {
+          p++;
+        }
+        if (state != QUOTED) {
+          state = UNQUOTED;
+        }
+        continue;
+      }
+      if (state == QUOTED) {
+        if (b == quote) {
+          state = QUOTE_IN_QUOTED;
+        } else if (b == '\n' || b == '\r') {
+          p = skipLineFeed(bytes, b, p);
+          breaks++;
+        }
+        continue;
+      }
+      if (state == FIELD_START) {
+        if (b == quote) {
+          state = QUOTED;
+          continue;
+        }
+        if ((b == ' ' || b == '\t') && b != delimiter) {
+          continue;
+        }
+      }
+      if (b == delimiter) {
+        state = FIELD_START;
+      } else if (b == '\n' || b == '\r') {
+        p = skipLineFeed(bytes, b, p);
+        breaks++;
+        records++;
+        state = FIELD_START;
+        recordStart = true;
+      } else {
+        state = UNQUOTED;
+      }
+    }
+    int end = p;
+    if (from + begin == 0
+        && charset.equals(StandardCharsets.UTF_8)
+        && end >= 3
+        && bytes.data[0] == (byte) 0xEF
+        && bytes.data[1] == (byte) 0xBB
+        && bytes.data[2] == (byte) 0xBF) {
+      begin = 3;
+    }
+    CharBuffer chars =
+        charset
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE)
+            .decode(ByteBuffer.wrap(bytes.data, begin, Math.max(end - begin, 0)));
+    char[] text = chars.array();
+    int offset = chars.arrayOffset() + chars.position();
+    int length = chars.remaining();
+    if (!ordered && !recordStart && p == bytes.length) {
+      // the last record of the file has no line break. It may be handed out before other records,
+      // so it gets one.
+      text = Arrays.copyOfRange(text, offset, offset + length + 1);
+      text[length++] = '\n';
+      offset = 0;
+      breaks++;
+    }
+    String[] lines = splitLines ? splitLines(text, offset, length) : null;
+    return new Chunk(index, from + begin, from + end, text, offset, length, lines, breaks);
+  }
+
+  private static int skipLineFeed(Bytes bytes, int b, int p) throws IOException {
+    return b == '\r' && bytes.has(p) && bytes.data[p] == '\n' ? p + 1 : p;
+  }
+
+  // Splits lines the way BufferedReader.readLine does.
+  private static String[] splitLines(char[] text, int offset, int length) {
+    ArrayList<String> lines = new ArrayList<>();
+    int lineStart = offset;
+    int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      char c = text[i];
+      if (c == '\n' || c == '\r') {
+        lines.add(new String(text, lineStart, i - lineStart));
+        if (c == '\r' && i + 1 < end && text[i + 1] == '\n') {
+          i++;
+        }
+        lineStart = i + 1;
+      }
+    }
+    if (lineStart < end) {
+      lines.add(new String(text, lineStart, end - lineStart));
+    }
+    return lines.toArray(new String[0]);
+  }
+
+  // The text of the file, chunk after chunk.
+  @TruffleBoundary
+  Reader reader() {
+    return new Reader() {
+      private Chunk chunk = null;
+      private int position = 0;
+
+      @Override
+      public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+          return 0;
+        }
+        while (chunk == null || position == chunk.length) {
+          chunk = next();
+          position = 0;
+          if (chunk == null) {
+            return -1;
+          }
+        }
+        int n = Math.min(len, chunk.length - position);
+        System.arraycopy(chunk.text, chunk.offset + position, cbuf, off, n);
+        position += n;
+        return n;
+      }
+
+      @Override
+      public void close() throws IOException {
+        SplitScan.this.close();
+      }
+    };
+  }
+
+  // Cancels the ranges being read. Reads in progress fail on the closed channel, and are ignored.
+  @Override
+  @TruffleBoundary
+  public void close() throws IOException {
+    for (Future<Chunk> future : pending) {
+      future.cancel(false);
+    }
+    pending.clear();
+    stash.clear();
+    channel.close();
+  }
+}
@@ -15,6 +15,7 @@ package com.rawlabs.snapi.truffle.runtime.utils;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.rawlabs.snapi.truffle.runtime.exceptions.TruffleRuntimeException;
 import com.rawlabs.snapi.truffle.runtime.primitives.LocationObject;
+import com.rawlabs.snapi.truffle.runtime.profiler.QueryProfile;
 import com.rawlabs.utils.core.RawException;
 import com.rawlabs.utils.sources.api.Encoding;
 import com.rawlabs.utils.sources.bytestream.api.ByteStreamLocation;
@@ -56,7 +57,7 @@ public class TruffleInputStream {
   @TruffleBoundary
   public InputStream getInputStream() {
     try {
-      return getLocation().getInputStream();
+      return QueryProfile.profiled(getLocation().getInputStream());
     } catch (RawException ex) {
       throw new TruffleRuntimeException(ex.getMessage(), ex, null);
     }
@@ -65,7 +66,7 @@ public class TruffleInputStream {
   @TruffleBoundary
   public Reader getReader(String encoding) {
     try {
-      return getLocation().getReader(toEncoding(encoding));
+      return QueryProfile.profiled(getLocation().getReader(toEncoding(encoding)));
     } catch (RawException ex) {
       throw new TruffleRuntimeException(ex.getMessage(), ex, null);
     }
@@ -84,7 +85,7 @@ public class TruffleInputStream {
   @TruffleBoundary
   public Reader getReader(Encoding encoding) {
     try {
-      return getLocation().getReader(encoding);
+      return QueryProfile.profiled(getLocation().getReader(encoding));
     } catch (RawException ex) {
       throw new TruffleRuntimeException(ex.getMessage(), ex, null);
     }
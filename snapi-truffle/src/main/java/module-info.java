@@ -11,6 +11,7 @@
  */
 
 import com.rawlabs.snapi.truffle.SnapiLanguageProvider;
+import com.rawlabs.snapi.truffle.runtime.profiler.SnapiProfilerProvider;
 
 module raw.snapi.truffle {
   // Direct dependencies
@@ -53,6 +54,12 @@ module raw.snapi.truffle {
   requires com.google.common;
   requires jul.to.slf4j;
 
+  // Static records are generated in the package of their superclass.
+  opens com.rawlabs.snapi.truffle.runtime.record to
+      org.graalvm.truffle;
+
   provides com.oracle.truffle.api.provider.TruffleLanguageProvider with
       SnapiLanguageProvider;
+  provides com.oracle.truffle.api.instrumentation.provider.TruffleInstrumentProvider with
+      SnapiProfilerProvider;
 }